@@ -0,0 +1,204 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.internal.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
+/**
+ * Spatial index for in-memory features, based on a JTS {@link STRtree}. Layers which keep their features in memory
+ * can use this to select the candidate features for a filter which limits the area.
+ * <p/>
+ * A STR-tree cannot be extended once it is built. Features which are added later are kept in a pending list which is
+ * searched linearly. Removed features are only marked as such (a built tree cannot be modified). The tree is rebuilt
+ * when there are too many pending or removed features. Query results are returned in the
+ * order in which the features were first added (replacing a feature keeps its position), so paging remains stable.
+ * <p/>
+ * All methods are synchronized.
+ * <p/>
+ * This class is not part of the API. It is in the api module so it can be used by both the bean layer and the layers
+ * in plugins, and may change without notice.
+ *
+ * @param <T> type of the features
+ *
+ * @author Joachim Van der Auwera
+ */
+public final class FeatureIndex<T> {
+
+	private static final int NODE_CAPACITY = 10;
+
+	private static final int MIN_PENDING = 256;
+
+	private static final int PENDING_FRACTION = 10;
+
+	private static final Comparator<Entry<?>> SEQUENCE_ORDER = new Comparator<Entry<?>>() {
+
+		public int compare(Entry<?> left, Entry<?> right) {
+			return left.sequence < right.sequence ? -1 : (left.sequence == right.sequence ? 0 : 1);
+		}
+	};
+
+	private final Map<String, Entry<T>> entries = new HashMap<String, Entry<T>>();
+
+	private final List<Entry<T>> pending = new ArrayList<Entry<T>>();
+
+	private STRtree tree = new STRtree(NODE_CAPACITY);
+
+	private long sequence;
+
+	private int removedCount;
+
+	/**
+	 * Add a feature to the index, replacing a feature with the same id. A replaced feature keeps its position in the
+	 * query results.
+	 *
+	 * @param id feature id
+	 * @param feature feature
+	 * @param envelope feature envelope, features without envelope are not indexed
+	 */
+	public synchronized void put(String id, T feature, Envelope envelope) {
+		add(id, feature, envelope);
+		rebuildIfNeeded();
+	}
+
+	/**
+	 * Add a feature to the index without rebuilding the tree. Use this when loading many features, followed by
+	 * {@link #build()}.
+	 *
+	 * @param id feature id
+	 * @param feature feature
+	 * @param envelope feature envelope, features without envelope are not indexed
+	 */
+	public synchronized void add(String id, T feature, Envelope envelope) {
+		Entry<T> previous = removeEntry(id);
+		if (null != envelope && !envelope.isNull()) {
+			Entry<T> entry = new Entry<T>(null != previous ? previous.sequence : sequence++, feature, envelope);
+			entries.put(id, entry);
+			pending.add(entry);
+		}
+	}
+
+	/**
+	 * (Re)build the tree, containing all features.
+	 */
+	public synchronized void build() {
+		tree = new STRtree(NODE_CAPACITY);
+		for (Entry<T> entry : entries.values()) {
+			tree.insert(entry.envelope, entry);
+		}
+		pending.clear();
+		removedCount = 0;
+		tree.build();
+	}
+
+	/**
+	 * Remove a feature from the index.
+	 *
+	 * @param id feature id
+	 */
+	public synchronized void remove(String id) {
+		removeEntry(id);
+		rebuildIfNeeded();
+	}
+
+	private Entry<T> removeEntry(String id) {
+		Entry<T> entry = entries.remove(id);
+		if (null != entry && !pending.remove(entry)) {
+			entry.removed = true;
+			removedCount++;
+		}
+		return entry;
+	}
+
+	/**
+	 * Remove all features.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		pending.clear();
+		removedCount = 0;
+		tree = new STRtree(NODE_CAPACITY);
+	}
+
+	/**
+	 * Get the features which have an envelope which intersects the given envelope.
+	 *
+	 * @param envelope search envelope
+	 * @return features in the order in which they were added
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized List<T> query(Envelope envelope) {
+		List<Entry<T>> found = new ArrayList<Entry<T>>();
+		for (Entry<T> entry : (List<Entry<T>>) tree.query(envelope)) {
+			if (!entry.removed) {
+				found.add(entry);
+			}
+		}
+		for (Entry<T> entry : pending) {
+			if (entry.envelope.intersects(envelope)) {
+				found.add(entry);
+			}
+		}
+		Collections.sort(found, SEQUENCE_ORDER);
+		List<T> result = new ArrayList<T>(found.size());
+		for (Entry<T> entry : found) {
+			result.add(entry.feature);
+		}
+		return result;
+	}
+
+	/**
+	 * Number of indexed features.
+	 *
+	 * @return number of features
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private void rebuildIfNeeded() {
+		if (pending.size() + removedCount > Math.max(MIN_PENDING, entries.size() / PENDING_FRACTION)) {
+			build();
+		}
+	}
+
+	/**
+	 * Indexed feature.
+	 *
+	 * @param <T> type of the feature
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class Entry<T> {
+
+		private final long sequence;
+
+		private final T feature;
+
+		private final Envelope envelope;
+
+		private boolean removed;
+
+		private Entry(long sequence, T feature, Envelope envelope) {
+			this.sequence = sequence;
+			this.feature = feature;
+			this.envelope = envelope;
+		}
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.layer;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.annotation.UserImplemented;
+
+/**
+ * Allow vector layers to indicate that they support the offset and maxResultSize parameters of
+ * {@link VectorLayer#getElements(org.opengis.filter.Filter, int, int)}.
+ * <p/>
+ * When the security filter and visible area fully determine which features are visible, the paging is then done by
+ * the layer (typically in the data source) instead of skipping features after reading them.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+@UserImplemented
+public interface VectorLayerPagingSupport {
+
+	/**
+	 * Indicate whether the layer applies the offset and maxResultSize parameters when getting elements.
+	 *
+	 * @return true when paging is done by the layer
+	 */
+	boolean isPagingSupported();
+}
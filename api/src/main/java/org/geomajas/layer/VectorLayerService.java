@@ -19,6 +19,7 @@ import org.geomajas.global.GeomajasConstant;
 import org.geomajas.global.GeomajasException;
 import org.geomajas.layer.feature.Attribute;
 import org.geomajas.layer.feature.InternalFeature;
+import org.geomajas.layer.pipeline.FeatureSink;
 import org.geomajas.layer.tile.InternalTile;
 import org.geomajas.layer.tile.TileMetadata;
 import org.opengis.filter.Filter;
@@ -117,6 +118,35 @@ public interface VectorLayerService extends LayerService, GeomajasConstant {
 	List<InternalFeature> getFeatures(String layerId, CoordinateReferenceSystem crs, Filter filter,
 			NamedStyleInfo style, int featureIncludes, int offset, int maxResultSize, boolean forcePaging)
 			throws GeomajasException;
+
+	/**
+	 * <p>
+	 * Retrieve the features from the model that this filter accepts, passing them to a feature sink one by one instead
+	 * of returning a list. This allows processing large numbers of features without holding them all in memory.
+	 * Security, paging and the maximum result size are applied before the features are passed to the sink. The result
+	 * is not cached.
+	 * </p>
+	 * <p>
+	 * <b>SECURITY WARNING: if paging is forced at the layer level (forcePaging=true), callers are able to count the
+	 * number of invisible features, creating a possible security hazard !</b>
+	 * </p>
+	 *
+	 * @param layerId id of layer to get features from
+	 * @param crs which should be used for the geometries in the features
+	 * @param filter filter to be applied
+	 * @param style style to apply
+	 * @param featureIncludes indicate which data to include in the features
+	 * @param offset Skip the first 'offset' features in the result. This is meant for paging.
+	 * @param maxResultSize Limit the result to a maximum number of features. Can be used for paging.
+	 * @param forcePaging Forces paging at layer level.
+	 * @param featureSink sink which receives the features, it can stop the iteration by returning false
+	 * @return area covered by the features which were passed to the sink, null when no features were found
+	 * @throws GeomajasException oops
+	 * @since 1.18.0
+	 */
+	Envelope getFeatures(String layerId, CoordinateReferenceSystem crs, Filter filter, NamedStyleInfo style,
+			int featureIncludes, int offset, int maxResultSize, boolean forcePaging, FeatureSink featureSink)
+			throws GeomajasException;
 	/**
 	 * Retrieve the bounds of the specified features.
 	 *
@@ -147,4 +177,16 @@ public interface VectorLayerService extends LayerService, GeomajasConstant {
 	 * @throws GeomajasException oops
 	 */
 	InternalTile getTile(TileMetadata tileMetadata) throws GeomajasException;
+
+	/**
+	 * Get several vector tiles at once. When all tiles are for the same layer, crs, filter and style, the features for
+	 * all tiles are fetched using one query for the combined tile bounds. This query is only done when at least one of
+	 * the tiles is not cached. Otherwise the tiles are fetched one by one.
+	 *
+	 * @param tileMetadata descriptions of the tiles
+	 * @return internal vector tiles, in the same order as the descriptions
+	 * @throws GeomajasException oops
+	 * @since 1.18.0
+	 */
+	List<InternalTile> getTiles(List<? extends TileMetadata> tileMetadata) throws GeomajasException;
 }
@@ -0,0 +1,41 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.layer.pipeline;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.annotation.UserImplemented;
+import org.geomajas.global.GeomajasException;
+import org.geomajas.layer.feature.InternalFeature;
+
+/**
+ * Receiver for features which are streamed from the getFeatures pipeline, see
+ * {@link GetFeaturesContainer#setFeatureSink(FeatureSink)}.
+ * <p/>
+ * Features are passed one by one, after security, paging and the maximum result size have been applied. This allows
+ * processing the features without holding them all in memory.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+@UserImplemented
+public interface FeatureSink {
+
+	/**
+	 * Process a feature.
+	 *
+	 * @param feature feature
+	 * @return true when more features are wanted, false to stop the iteration
+	 * @throws GeomajasException processing failed, this stops the iteration
+	 */
+	boolean add(InternalFeature feature) throws GeomajasException;
+}
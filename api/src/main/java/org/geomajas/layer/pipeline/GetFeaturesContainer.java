@@ -14,6 +14,7 @@ package org.geomajas.layer.pipeline;
 import java.util.List;
 
 import org.geomajas.annotation.Api;
+import org.geomajas.global.GeomajasException;
 import org.geomajas.layer.feature.InternalFeature;
 
 import com.vividsolutions.jts.geom.Envelope;
@@ -29,6 +30,7 @@ public class GetFeaturesContainer {
 
 	private List<InternalFeature> features;
 	private Envelope bounds;
+	private FeatureSink featureSink;
 
 	/**
 	 * Get the features.
@@ -48,6 +50,23 @@ public class GetFeaturesContainer {
 		this.features = features;
 	}
 
+	/**
+	 * Add a feature to the result. The feature is passed to the feature sink when one is set, otherwise it is added
+	 * to the list of features.
+	 *
+	 * @param feature feature to add
+	 * @return true when more features are wanted
+	 * @throws GeomajasException feature sink failed
+	 * @since 1.18.0
+	 */
+	public boolean addFeature(InternalFeature feature) throws GeomajasException {
+		if (null != featureSink) {
+			return featureSink.add(feature);
+		}
+		features.add(feature);
+		return true;
+	}
+
 	/**
 	 * Get area covered by these features.
 	 *
@@ -65,4 +84,26 @@ public class GetFeaturesContainer {
 	public void setBounds(Envelope bounds) {
 		this.bounds = bounds;
 	}
+
+	/**
+	 * Get the feature sink. When set, the features are streamed to the sink instead of being collected in the list
+	 * of features.
+	 *
+	 * @return feature sink or null
+	 * @since 1.18.0
+	 */
+	public FeatureSink getFeatureSink() {
+		return featureSink;
+	}
+
+	/**
+	 * Set the feature sink. When set, the features are streamed to the sink instead of being collected in the list
+	 * of features. The list of features will remain empty and the result will not be cached.
+	 *
+	 * @param featureSink feature sink
+	 * @since 1.18.0
+	 */
+	public void setFeatureSink(FeatureSink featureSink) {
+		this.featureSink = featureSink;
+	}
 }
@@ -0,0 +1,40 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.layer.pipeline;
+
+import java.util.List;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.global.GeomajasException;
+import org.geomajas.layer.feature.InternalFeature;
+
+/**
+ * Source of the features for a tile which are fetched together with the features of other tiles, see
+ * {@link org.geomajas.service.pipeline.PipelineCode#TILE_FEATURES}.
+ * <p/>
+ * The features are only fetched when they are first needed, so no query is done when all tiles are cached.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+public interface TileFeatureSource {
+
+	/**
+	 * Get the features for the tile.
+	 *
+	 * @return features which intersect the tile
+	 * @throws GeomajasException fetching the features failed
+	 */
+	List<InternalFeature> getFeatures() throws GeomajasException;
+}
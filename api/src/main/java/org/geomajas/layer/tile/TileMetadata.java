@@ -36,6 +36,13 @@ public interface TileMetadata {
 	 */
 	String PARAM_VML_RENDERER = "VML";
 
+	/**
+	 * Render the tile as compact binary vector data, see {@link VectorTile.VectorTileContentType#BINARY_CONTENT}.
+	 *
+	 * @since 1.18.0
+	 */
+	String PARAM_BINARY_RENDERER = "BINARY";
+
 	/**
 	 * Get layer id.
 	 *
@@ -48,7 +48,16 @@ public class VectorTile implements Serializable {
 		STRING_CONTENT,
 
 		/** Rendering method that contains an URL to an image that contains the actual rendering of a tile. */
-		URL_CONTENT
+		URL_CONTENT,
+
+		/**
+		 * Rendering method that contains the tile's features in a compact binary encoding (integer screen coordinates
+		 * with delta and zigzag varint encoding and a style table). The content is base64 encoded, the
+		 * label content (when requested) is SVG.
+		 *
+		 * @since 1.18.0
+		 */
+		BINARY_CONTENT
 	}
 
 	private List<TileCode> codes = new ArrayList<TileCode>();
@@ -0,0 +1,41 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.security;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.annotation.UserImplemented;
+import org.opengis.filter.Filter;
+
+/**
+ * Feature authorization for which the visibility of the features can be expressed as a filter.
+ * <p/>
+ * When all authorizations which can hide features implement this interface, the visibility filters are merged into
+ * the filter which is passed to the layer. The layer can then apply the paging itself and features which are not
+ * visible are not read or converted at all.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+@UserImplemented
+public interface FeatureVisibilityFilterAuthorization extends FeatureAuthorization {
+
+	/**
+	 * Get the filter which selects the visible features of the layer. A feature should match the filter if and only if
+	 * {@link #isFeatureVisible(String, org.geomajas.layer.feature.InternalFeature)} returns true for it.
+	 *
+	 * @param layerId layer id
+	 * @return filter which selects the visible features, null when the visibility cannot be expressed as a filter
+	 *         for this layer
+	 */
+	Filter getFeatureVisibilityFilter(String layerId);
+}
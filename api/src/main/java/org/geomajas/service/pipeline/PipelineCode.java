@@ -11,7 +11,19 @@
 
 package org.geomajas.service.pipeline;
 
+import java.util.List;
+
 import org.geomajas.annotation.Api;
+import org.geomajas.configuration.NamedStyleInfo;
+import org.geomajas.geometry.CrsTransform;
+import org.geomajas.layer.Layer;
+import org.geomajas.layer.feature.InternalFeature;
+import org.geomajas.layer.pipeline.TileFeatureSource;
+import org.geomajas.layer.tile.TileMetadata;
+import org.opengis.filter.Filter;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+import com.vividsolutions.jts.geom.Envelope;
 
 /**
  * Constants for the pipelines. These include pipeline names and keys for data put in the context.
@@ -88,4 +100,131 @@ public interface PipelineCode {
 	 *
 	 * @since 1.10.0 */
 	String FORCE_PAGING_KEY = "forcePaging"; // Boolean (default false)
+	/**
+	 * Source for the features of the tile, used when several tiles are fetched at once,
+	 * {@link org.geomajas.layer.pipeline.TileFeatureSource}.
+	 *
+	 * @since 1.18.0 */
+	String TILE_FEATURES_KEY = "tileFeatures";
+
+	/**
+	 * Typed key for {@link #ATTRIBUTE_NAME_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<String> ATTRIBUTE_NAME = PipelineKey.create(ATTRIBUTE_NAME_KEY, String.class);
+	/**
+	 * Typed key for {@link #BOUNDS_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<Envelope> BOUNDS = PipelineKey.create(BOUNDS_KEY, Envelope.class);
+	/**
+	 * Typed key for {@link #CRS_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<CoordinateReferenceSystem> CRS = PipelineKey.create(CRS_KEY, CoordinateReferenceSystem.class);
+	/**
+	 * Typed key for {@link #CRS_TRANSFORM_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<CrsTransform> CRS_TRANSFORM = PipelineKey.create(CRS_TRANSFORM_KEY, CrsTransform.class);
+	/**
+	 * Typed key for {@link #CRS_BACK_TRANSFORM_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<CrsTransform> CRS_BACK_TRANSFORM = PipelineKey.create(CRS_BACK_TRANSFORM_KEY, CrsTransform.class);
+	/**
+	 * Typed key for {@link #FEATURE_DATA_OBJECT_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<Object> FEATURE_DATA_OBJECT = PipelineKey.create(FEATURE_DATA_OBJECT_KEY, Object.class);
+	/**
+	 * Typed key for {@link #FEATURE_INCLUDES_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<Integer> FEATURE_INCLUDES = PipelineKey.create(FEATURE_INCLUDES_KEY, Integer.class);
+	/**
+	 * Typed key for {@link #FEATURE_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<InternalFeature> FEATURE = PipelineKey.create(FEATURE_KEY, InternalFeature.class);
+	/**
+	 * Typed key for {@link #FILTER_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<Filter> FILTER = PipelineKey.create(FILTER_KEY, Filter.class);
+	/**
+	 * Typed key for {@link #INDEX_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<Integer> INDEX = PipelineKey.create(INDEX_KEY, Integer.class);
+	/**
+	 * Typed key for {@link #IS_CREATE_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<Boolean> IS_CREATE = PipelineKey.create(IS_CREATE_KEY, Boolean.class);
+	/**
+	 * Typed key for {@link #LAYER_ID_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<String> LAYER_ID = PipelineKey.create(LAYER_ID_KEY, String.class);
+	/**
+	 * Typed key for {@link #LAYER_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<Layer<?>> LAYER = PipelineKey.create(LAYER_KEY, Layer.class);
+	/**
+	 * Typed key for {@link #MAX_RESULT_SIZE_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<Integer> MAX_RESULT_SIZE = PipelineKey.create(MAX_RESULT_SIZE_KEY, Integer.class);
+	/**
+	 * Typed key for {@link #NEW_FEATURES_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<List<InternalFeature>> NEW_FEATURES = PipelineKey.create(NEW_FEATURES_KEY, List.class);
+	/**
+	 * Typed key for {@link #OFFSET_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<Integer> OFFSET = PipelineKey.create(OFFSET_KEY, Integer.class);
+	/**
+	 * Typed key for {@link #OLD_FEATURE_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<InternalFeature> OLD_FEATURE = PipelineKey.create(OLD_FEATURE_KEY, InternalFeature.class);
+	/**
+	 * Typed key for {@link #OLD_FEATURES_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<List<InternalFeature>> OLD_FEATURES = PipelineKey.create(OLD_FEATURES_KEY, List.class);
+	/**
+	 * Typed key for {@link #SCALE_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<Double> SCALE = PipelineKey.create(SCALE_KEY, Double.class);
+	/**
+	 * Typed key for {@link #STYLE_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<NamedStyleInfo> STYLE = PipelineKey.create(STYLE_KEY, NamedStyleInfo.class);
+	/**
+	 * Typed key for {@link #TILE_MAX_EXTENT_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<Envelope> TILE_MAX_EXTENT = PipelineKey.create(TILE_MAX_EXTENT_KEY, Envelope.class);
+	/**
+	 * Typed key for {@link #TILE_METADATA_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<TileMetadata> TILE_METADATA = PipelineKey.create(TILE_METADATA_KEY, TileMetadata.class);
+	/**
+	 * Typed key for {@link #FORCE_PAGING_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<Boolean> FORCE_PAGING = PipelineKey.create(FORCE_PAGING_KEY, Boolean.class);
+	/**
+	 * Typed key for {@link #TILE_FEATURES_KEY}.
+	 *
+	 * @since 1.18.0 */
+	PipelineKey<TileFeatureSource> TILE_FEATURES = PipelineKey.create(TILE_FEATURES_KEY, TileFeatureSource.class);
 }
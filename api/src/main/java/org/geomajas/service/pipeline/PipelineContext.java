@@ -103,6 +103,81 @@ public interface PipelineContext {
 	 */
 	Object put(String key, Object value);
 
+	/**
+	 * Returns true if the context contains the specified key.
+	 *
+	 * @param key key which needs to be checked.
+	 * @return true if the context contains the key, false otherwise
+	 * @since 1.18.0
+	 */
+	boolean containsKey(PipelineKey<?> key);
+
+	/**
+	 * Get the value for a typed key.
+	 * <p/>
+	 * Values which were put using the string key are also found, as long as they have the correct type.
+	 *
+	 * @param key key for which the value needs to be obtained.
+	 * @param <TYPE> type for the object which needs to be get
+	 * @return value for key
+	 * @throws GeomajasException no value of correct type found for key
+	 * @since 1.18.0
+	 */
+	<TYPE> TYPE get(PipelineKey<TYPE> key) throws GeomajasException;
+
+	/**
+	 * Get the value for a typed key.
+	 *
+	 * @param key key for which the value needs to be obtained.
+	 * @param <TYPE> type for the object which needs to be get
+	 * @return value for key or null
+	 * @since 1.18.0
+	 */
+	<TYPE> TYPE getOptional(PipelineKey<TYPE> key);
+
+	/**
+	 * Get the value for a typed key.
+	 *
+	 * @param key key for which the value needs to be obtained.
+	 * @param defaultValue default value to be returned in case the value is missing
+	 * @param <TYPE> type for the object which needs to be get
+	 * @return value for key or default value
+	 * @since 1.18.0
+	 */
+	<TYPE> TYPE getOptional(PipelineKey<TYPE> key, TYPE defaultValue);
+
+	/**
+	 * Get an integer value without unboxing.
+	 *
+	 * @param key key for which the value needs to be obtained.
+	 * @return value for key
+	 * @throws GeomajasException no value found for key
+	 * @since 1.18.0
+	 */
+	int getInt(PipelineKey<Integer> key) throws GeomajasException;
+
+	/**
+	 * Put context value which may be accessed by later pipeline steps.
+	 * <p/>
+	 * The value can also be accessed using the string key (the key name).
+	 *
+	 * @param key key for value
+	 * @param value value for key
+	 * @param <TYPE> type for the value
+	 * @return previous value stored for this key
+	 * @since 1.18.0
+	 */
+	<TYPE> TYPE put(PipelineKey<TYPE> key, TYPE value);
+
+	/**
+	 * Put an integer context value without boxing.
+	 *
+	 * @param key key for value
+	 * @param value value for key
+	 * @since 1.18.0
+	 */
+	void putInt(PipelineKey<Integer> key, int value);
+
 	/**
 	 * Has the pipeline finished execution?
 	 * <p/>
@@ -0,0 +1,40 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.service.pipeline;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.annotation.UserImplemented;
+
+/**
+ * Optional extension for a {@link PipelineInterceptor} which needs to know when the intercepted steps failed, for
+ * example to release resources which would otherwise be released in
+ * {@link PipelineInterceptor#afterSteps(PipelineContext, Object)}.
+ *
+ * @param <RESPONSE> type of response object for the pipeline
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+@UserImplemented
+public interface PipelineInterceptorErrorHandler<RESPONSE> {
+
+	/**
+	 * Called when the intercepted steps or {@link PipelineInterceptor#afterSteps(PipelineContext, Object)} threw an
+	 * exception. The exception is rethrown when this method returns.
+	 *
+	 * @param context pipeline context
+	 * @param response pipeline response
+	 * @param error exception which was thrown
+	 */
+	void onError(PipelineContext context, RESPONSE response, Exception error);
+}
@@ -0,0 +1,133 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.service.pipeline;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.geomajas.annotation.Api;
+
+/**
+ * Typed key for values in the {@link PipelineContext}.
+ * <p/>
+ * Keys are registered once (typically as constant, see {@link PipelineCode}) and each key gets a slot index. This
+ * allows the pipeline context to store the values in an array instead of a map. The key name is the same as the
+ * string key which is used for the value, so values can still be accessed using the string based methods.
+ *
+ * @param <T> type of the value for the key
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+public final class PipelineKey<T> {
+
+	private static final Object LOCK = new Object();
+
+	private static volatile Map<String, PipelineKey<?>> keys = Collections.emptyMap();
+
+	private final String name;
+
+	private final Class<? super T> type;
+
+	private final int index;
+
+	private PipelineKey(String name, Class<? super T> type, int index) {
+		this.name = name;
+		this.type = type;
+		this.index = index;
+	}
+
+	/**
+	 * Register a key. When a key with the same name and type is already registered, that key is returned.
+	 *
+	 * @param name key name, this is the string key which is used for the value
+	 * @param type type for the value
+	 * @param <T> type for the value
+	 * @return key
+	 * @throws IllegalArgumentException a key with this name but a different type is already registered
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> PipelineKey<T> create(String name, Class<? super T> type) {
+		if (null == name || null == type) {
+			throw new IllegalArgumentException("Pipeline key name and type are required.");
+		}
+		synchronized (LOCK) {
+			PipelineKey<?> key = keys.get(name);
+			if (null != key) {
+				if (!key.type.equals(type)) {
+					throw new IllegalArgumentException("Pipeline key " + name + " is already registered with type " +
+							key.type.getName());
+				}
+				return (PipelineKey<T>) key;
+			}
+			PipelineKey<T> created = new PipelineKey<T>(name, type, keys.size());
+			// copy on write, lookups do not need to lock
+			Map<String, PipelineKey<?>> copy = new HashMap<String, PipelineKey<?>>(keys);
+			copy.put(name, created);
+			keys = copy;
+			return created;
+		}
+	}
+
+	/**
+	 * Get the registered key for a name.
+	 *
+	 * @param name key name
+	 * @return key or null when no key was registered for the name
+	 */
+	public static PipelineKey<?> get(String name) {
+		return keys.get(name);
+	}
+
+	/**
+	 * Get the number of registered keys. All key indexes are smaller than this number.
+	 *
+	 * @return number of registered keys
+	 */
+	public static int getKeyCount() {
+		return keys.size();
+	}
+
+	/**
+	 * Get the key name, this is the string key which is used for the value.
+	 *
+	 * @return key name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Get the type of the value for this key.
+	 *
+	 * @return value type
+	 */
+	public Class<? super T> getType() {
+		return type;
+	}
+
+	/**
+	 * Get the slot index for this key.
+	 *
+	 * @return slot index
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.service.pipeline;
+
+import org.geomajas.annotation.Api;
+
+/**
+ * Service which gives access to the statistics about the execution time of pipelines, steps and interceptors. This
+ * is also the management interface which is used to expose the statistics using JMX.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+public interface PipelineStatisticsService {
+
+	/**
+	 * Is recording of pipeline statistics enabled?
+	 *
+	 * @return true when statistics are recorded
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Enable or disable the recording of pipeline statistics.
+	 *
+	 * @param enabled true when statistics should be recorded
+	 */
+	void setEnabled(boolean enabled);
+
+	/**
+	 * Get the number of pipeline executions since the last clear.
+	 *
+	 * @return number of pipeline executions
+	 */
+	long getInvocationCount();
+
+	/**
+	 * Get the statistics for all pipelines, steps and interceptors, one line per item.
+	 *
+	 * @return statistics, sorted by key
+	 */
+	String[] getStatistics();
+
+	/**
+	 * Get the statistics for the steps and interceptors which consumed the most time in total.
+	 *
+	 * @param count maximum number of lines to return
+	 * @return statistics, most time consuming first
+	 */
+	String[] getHotSteps(int count);
+
+	/**
+	 * Clear all statistics.
+	 */
+	void clear();
+}
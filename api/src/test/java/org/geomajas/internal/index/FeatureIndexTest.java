@@ -0,0 +1,93 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.internal.index;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Test for {@link FeatureIndex}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class FeatureIndexTest {
+
+	@Test
+	public void testQuery() {
+		FeatureIndex<String> index = new FeatureIndex<String>();
+		index.add("3", "c", new Envelope(20, 30, 20, 30));
+		index.add("1", "a", new Envelope(0, 10, 0, 10));
+		index.add("2", "b", new Envelope(5, 15, 5, 15));
+		index.add("4", "d", null);
+		index.build();
+		Assert.assertEquals(3, index.size());
+		Assert.assertEquals(Arrays.asList("a", "b"), index.query(new Envelope(6, 8, 6, 8)));
+		// results in order of addition
+		Assert.assertEquals(Arrays.asList("c", "a", "b"), index.query(new Envelope(-100, 100, -100, 100)));
+		Assert.assertTrue(index.query(new Envelope(50, 60, 50, 60)).isEmpty());
+	}
+
+	@Test
+	public void testUpdate() {
+		FeatureIndex<String> index = new FeatureIndex<String>();
+		index.add("1", "a", new Envelope(0, 10, 0, 10));
+		index.add("2", "b", new Envelope(5, 15, 5, 15));
+		index.build();
+		// pending feature
+		index.put("3", "c", new Envelope(7, 8, 7, 8));
+		Assert.assertEquals(Arrays.asList("a", "b", "c"), index.query(new Envelope(6, 8, 6, 8)));
+		// moved feature
+		index.put("1", "a", new Envelope(100, 110, 100, 110));
+		Assert.assertEquals(Arrays.asList("b", "c"), index.query(new Envelope(6, 8, 6, 8)));
+		Assert.assertEquals(Arrays.asList("a"), index.query(new Envelope(105, 106, 105, 106)));
+		index.remove("2");
+		index.remove("3");
+		index.remove("unknown");
+		Assert.assertTrue(index.query(new Envelope(6, 8, 6, 8)).isEmpty());
+		Assert.assertEquals(1, index.size());
+		index.clear();
+		Assert.assertEquals(0, index.size());
+	}
+
+	@Test
+	public void testReplaceKeepsOrder() {
+		FeatureIndex<String> index = new FeatureIndex<String>();
+		index.add("1", "a", new Envelope(0, 10, 0, 10));
+		index.add("2", "b", new Envelope(5, 15, 5, 15));
+		index.build();
+		index.put("1", "a2", new Envelope(1, 10, 1, 10));
+		index.put("3", "c", new Envelope(7, 8, 7, 8));
+		index.put("3", "c2", new Envelope(6, 8, 6, 8));
+		// replaced features keep their position, like in a full scan
+		Assert.assertEquals(Arrays.asList("a2", "b", "c2"), index.query(new Envelope(6, 8, 6, 8)));
+		index.build();
+		Assert.assertEquals(Arrays.asList("a2", "b", "c2"), index.query(new Envelope(6, 8, 6, 8)));
+	}
+
+	@Test
+	public void testRebuild() {
+		FeatureIndex<Integer> index = new FeatureIndex<Integer>();
+		for (int i = 0; i < 1000; i++) {
+			index.put(Integer.toString(i), i, new Envelope(i, i + 0.5, i, i + 0.5));
+		}
+		List<Integer> found = index.query(new Envelope(10, 12, 10, 12));
+		Assert.assertEquals(Arrays.asList(10, 11, 12), found);
+		index.remove("11");
+		Assert.assertEquals(Arrays.asList(10, 12), index.query(new Envelope(10, 12, 10, 12)));
+		Assert.assertEquals(999, index.size());
+	}
+}
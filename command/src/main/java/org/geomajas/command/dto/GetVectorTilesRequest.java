@@ -0,0 +1,83 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.command.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.layer.tile.TileCode;
+
+/**
+ * Request object for {@link org.geomajas.command.render.GetVectorTilesCommand}. Gets several tiles of one layer at
+ * once, all tiles use the settings of this request, the tile code is replaced by each of the codes.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+public class GetVectorTilesRequest extends GetVectorTileRequest {
+
+	private static final long serialVersionUID = 1180L;
+
+	private static final int HASH_FACTOR = 31;
+
+	/**
+	 * Command name for this request.
+	 */
+	public static final String COMMAND = "command.render.GetVectorTiles";
+
+	private List<TileCode> codes = new ArrayList<TileCode>();
+
+	/**
+	 * Get the codes of the tiles to get.
+	 *
+	 * @return tile codes
+	 */
+	public List<TileCode> getCodes() {
+		return codes;
+	}
+
+	/**
+	 * Set the codes of the tiles to get.
+	 *
+	 * @param codes tile codes
+	 */
+	public void setCodes(List<TileCode> codes) {
+		this.codes = codes;
+	}
+
+	@Override
+	public String getCacheId() {
+		return "GetVectorTilesRequest{" +
+				"codes=" + codes +
+				", " + super.getCacheId() +
+				'}';
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof GetVectorTilesRequest) || !super.equals(o)) {
+			return false;
+		}
+		GetVectorTilesRequest that = (GetVectorTilesRequest) o;
+		return codes != null ? codes.equals(that.codes) : that.codes == null;
+	}
+
+	@Override
+	public int hashCode() {
+		return HASH_FACTOR * super.hashCode() + (codes != null ? codes.hashCode() : 0);
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.command.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.command.CommandResponse;
+import org.geomajas.layer.tile.VectorTile;
+
+/**
+ * Response object for {@link org.geomajas.command.render.GetVectorTilesCommand}.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+public class GetVectorTilesResponse extends CommandResponse {
+
+	private static final long serialVersionUID = 1180L;
+
+	private List<VectorTile> tiles = new ArrayList<VectorTile>();
+
+	/**
+	 * Get response tiles, in the same order as the codes in the request.
+	 *
+	 * @return tiles
+	 */
+	public List<VectorTile> getTiles() {
+		return tiles;
+	}
+
+	/**
+	 * Set response tiles.
+	 *
+	 * @param tiles tiles
+	 */
+	public void setTiles(List<VectorTile> tiles) {
+		this.tiles = tiles;
+	}
+
+	@Override
+	public String toString() {
+		return "GetVectorTilesResponse{" +
+				"tiles=" + tiles +
+				'}';
+	}
+}
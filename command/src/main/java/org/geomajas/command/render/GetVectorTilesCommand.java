@@ -0,0 +1,108 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.command.render;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.command.Command;
+import org.geomajas.command.dto.GetVectorTileRequest;
+import org.geomajas.command.dto.GetVectorTilesRequest;
+import org.geomajas.command.dto.GetVectorTilesResponse;
+import org.geomajas.global.ExceptionCode;
+import org.geomajas.global.GeomajasException;
+import org.geomajas.layer.VectorLayerService;
+import org.geomajas.layer.tile.InternalTile;
+import org.geomajas.layer.tile.TileCode;
+import org.geomajas.layer.tile.VectorTile;
+import org.geomajas.service.DtoConverterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Command to retrieve several feature tiles of one layer at once. The features for all tiles are fetched using one
+ * query.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api
+@Component()
+@Transactional(readOnly = true, rollbackFor = { Exception.class })
+public class GetVectorTilesCommand implements Command<GetVectorTilesRequest, GetVectorTilesResponse> {
+
+	private final Logger log = LoggerFactory.getLogger(GetVectorTilesCommand.class);
+
+	@Autowired
+	private DtoConverterService converter;
+
+	@Autowired
+	private VectorLayerService layerService;
+
+	@Override
+	public GetVectorTilesResponse getEmptyCommandResponse() {
+		return new GetVectorTilesResponse();
+	}
+
+	@Override
+	public void execute(GetVectorTilesRequest request, GetVectorTilesResponse response) throws Exception {
+		String layerId = request.getLayerId();
+		log.debug("request start layer {}, crs {}", layerId, request.getCrs());
+		if (null == layerId) {
+			throw new GeomajasException(ExceptionCode.PARAMETER_MISSING, "layer");
+		}
+		if (null == request.getCrs()) {
+			throw new GeomajasException(ExceptionCode.PARAMETER_MISSING, "crs");
+		}
+		if (null == request.getCodes()) {
+			throw new GeomajasException(ExceptionCode.PARAMETER_MISSING, "codes");
+		}
+
+		List<GetVectorTileRequest> tileRequests = new ArrayList<GetVectorTileRequest>(request.getCodes().size());
+		for (TileCode code : request.getCodes()) {
+			tileRequests.add(createTileRequest(request, code));
+		}
+		List<VectorTile> tiles = new ArrayList<VectorTile>(tileRequests.size());
+		for (InternalTile tile : layerService.getTiles(tileRequests)) {
+			tiles.add(converter.toDto(tile));
+		}
+		response.setTiles(tiles);
+	}
+
+	/**
+	 * Create the request for a single tile, so the tile is the same (and cached the same) as when requested using
+	 * {@link GetVectorTileCommand}.
+	 *
+	 * @param request request for all tiles
+	 * @param code tile code
+	 * @return request for one tile
+	 */
+	private GetVectorTileRequest createTileRequest(GetVectorTilesRequest request, TileCode code) {
+		GetVectorTileRequest tileRequest = new GetVectorTileRequest();
+		tileRequest.setLayerId(request.getLayerId());
+		tileRequest.setCrs(request.getCrs());
+		tileRequest.setCode(code);
+		tileRequest.setScale(request.getScale());
+		tileRequest.setPanOrigin(request.getPanOrigin());
+		tileRequest.setRenderer(request.getRenderer());
+		tileRequest.setFilter(request.getFilter());
+		tileRequest.setStyleInfo(request.getStyleInfo());
+		tileRequest.setPaintGeometries(request.isPaintGeometries());
+		tileRequest.setPaintLabels(request.isPaintLabels());
+		tileRequest.setFeatureIncludes(request.getFeatureIncludes());
+		return tileRequest;
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.command.render;
+
+import org.geomajas.command.CommandDispatcher;
+import org.geomajas.command.dto.GetVectorTileRequest;
+import org.geomajas.command.dto.GetVectorTileResponse;
+import org.geomajas.command.dto.GetVectorTilesRequest;
+import org.geomajas.command.dto.GetVectorTilesResponse;
+import org.geomajas.geometry.Coordinate;
+import org.geomajas.layer.tile.TileCode;
+import org.geomajas.layer.tile.VectorTile;
+import org.geomajas.testdata.ReloadContext;
+import org.geomajas.testdata.ReloadContextTestExecutionListener;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+/**
+ * Test for {@link GetVectorTilesCommand}.
+ *
+ * @author Joachim Van der Auwera
+ */
+@TestExecutionListeners(listeners = { ReloadContextTestExecutionListener.class,
+		DependencyInjectionTestExecutionListener.class })
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"/org/geomajas/spring/geomajasContext.xml",
+		"/org/geomajas/testdata/layerCountries.xml", "/org/geomajas/testdata/simplevectorsContext.xml"})
+@ReloadContext
+public class GetVectorTilesCommandTest {
+
+	private static final String LAYER_ID = "countries";
+	private static final String CRS = "EPSG:4326";
+
+	@Autowired
+	private CommandDispatcher dispatcher;
+
+	@Test
+	public void testGetVectorTiles() throws Exception {
+		GetVectorTilesRequest request = new GetVectorTilesRequest();
+		request.setCrs(CRS);
+		request.setLayerId(LAYER_ID);
+		request.getCodes().add(new TileCode(1, 0, 0));
+		request.getCodes().add(new TileCode(1, 1, 0));
+		request.getCodes().add(new TileCode(1, 0, 1));
+		request.getCodes().add(new TileCode(1, 1, 1));
+		request.setPanOrigin(new Coordinate(0, 0));
+		request.setRenderer(GetVectorTileRequest.PARAM_SVG_RENDERER);
+		request.setScale(1.0);
+		GetVectorTilesResponse response = (GetVectorTilesResponse) dispatcher.execute(
+				GetVectorTilesRequest.COMMAND, request, null, "en");
+		if (response.isError()) {
+			response.getErrors().get(0).printStackTrace();
+		}
+		Assert.assertFalse(response.isError());
+		Assert.assertEquals(4, response.getTiles().size());
+
+		// each tile should be the same as when fetched separately
+		for (int i = 0; i < 4; i++) {
+			GetVectorTileRequest tileRequest = new GetVectorTileRequest();
+			tileRequest.setCrs(CRS);
+			tileRequest.setLayerId(LAYER_ID);
+			tileRequest.setCode(request.getCodes().get(i));
+			tileRequest.setPanOrigin(new Coordinate(0, 0));
+			tileRequest.setRenderer(GetVectorTileRequest.PARAM_SVG_RENDERER);
+			tileRequest.setScale(1.0);
+			GetVectorTileResponse tileResponse = (GetVectorTileResponse) dispatcher.execute(
+					GetVectorTileRequest.COMMAND, tileRequest, null, "en");
+			Assert.assertFalse(tileResponse.isError());
+			VectorTile tile = response.getTiles().get(i);
+			Assert.assertEquals(request.getCodes().get(i), tile.getCode());
+			Assert.assertEquals(tileResponse.getTile().getFeatureContent(), tile.getFeatureContent());
+			Assert.assertEquals(tileResponse.getTile().getCodes(), tile.getCodes());
+		}
+	}
+
+	@Test
+	public void testNoCodes() throws Exception {
+		GetVectorTilesRequest request = new GetVectorTilesRequest();
+		request.setCrs(CRS);
+		request.setLayerId(LAYER_ID);
+		request.setCodes(null);
+		GetVectorTilesResponse response = (GetVectorTilesResponse) dispatcher.execute(
+				GetVectorTilesRequest.COMMAND, request, null, "en");
+		Assert.assertTrue(response.isError());
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.servlet.mvc.statistics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.geomajas.security.SecurityContext;
+import org.geomajas.service.pipeline.PipelineStatisticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * Spring MVC controller which writes the pipeline statistics as plain text, one line for each pipeline, step and
+ * interceptor. When the "hot" parameter is passed, only that number of most time consuming steps are written.
+ * <p/>
+ * The controller is not active by default. It needs to be declared in the web context (using the bean name
+ * "/statistics/**") and the caller needs to be authorized for the {@link #STATISTICS_TOOL} tool (pass the
+ * "userToken" parameter).
+ *
+ * @author Joachim Van der Auwera
+ */
+public class PipelineStatisticsController {
+
+	/**
+	 * Tool id for which the caller needs to be authorized to see the statistics.
+	 */
+	public static final String STATISTICS_TOOL = "statistics.pipeline";
+
+	private static final String CONTENT_TYPE = "text/plain; charset=UTF-8";
+
+	@Autowired
+	private PipelineStatisticsService statistics;
+
+	@Autowired
+	private SecurityContext securityContext;
+
+	/**
+	 * Write the pipeline statistics.
+	 *
+	 * @param hot number of most time consuming steps to write, all statistics are written when not set
+	 * @param response servlet response
+	 * @throws IOException cannot write response
+	 */
+	@RequestMapping(value = "/statistics/pipeline", method = RequestMethod.GET)
+	public void getPipelineStatistics(@RequestParam(value = "hot", required = false) Integer hot,
+			HttpServletResponse response) throws IOException {
+		if (!securityContext.isToolAuthorized(STATISTICS_TOOL)) {
+			response.sendError(HttpServletResponse.SC_FORBIDDEN);
+			return;
+		}
+		response.setContentType(CONTENT_TYPE);
+		response.setHeader("Cache-Control", "no-cache");
+		PrintWriter writer = response.getWriter();
+		writer.println("invocations=" + statistics.getInvocationCount() + " enabled=" + statistics.isEnabled());
+		String[] lines;
+		if (null != hot) {
+			lines = statistics.getHotSteps(hot);
+		} else {
+			lines = statistics.getStatistics();
+		}
+		for (String line : lines) {
+			writer.println(line);
+		}
+		writer.flush();
+	}
+
+}
@@ -73,12 +73,12 @@ public class RasterLayerServiceImpl extends LayerServiceImpl implements RasterLa
 		log.debug("getTiles start on layer {}", layerId);
 		long ts = System.currentTimeMillis();
 		PipelineContext context = pipelineService.createContext();
-		context.put(PipelineCode.LAYER_ID_KEY, layerId);
+		context.put(PipelineCode.LAYER_ID, layerId);
 		RasterLayer layer = getRasterLayer(layerId);
-		context.put(PipelineCode.LAYER_KEY, layer);
-		context.put(PipelineCode.CRS_KEY, crs);
-		context.put(PipelineCode.BOUNDS_KEY, bounds);
-		context.put(PipelineCode.SCALE_KEY, scale);
+		context.put(PipelineCode.LAYER, layer);
+		context.put(PipelineCode.CRS, crs);
+		context.put(PipelineCode.BOUNDS, bounds);
+		context.put(PipelineCode.SCALE, scale);
 		List<RasterTile> response = new ArrayList<RasterTile>();
 		pipelineService.execute(PipelineCode.PIPELINE_GET_RASTER_TILES, layerId, context, response);
 		log.debug("getTiles done on layer {}, time {}s", layerId, (System.currentTimeMillis() - ts) / 1000.0);
@@ -11,7 +11,19 @@
 
 package org.geomajas.internal.layer;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.geomajas.configuration.NamedStyleInfo;
 import org.geomajas.geometry.Crs;
@@ -25,14 +37,19 @@ import org.geomajas.layer.feature.Attribute;
 import org.geomajas.layer.feature.InternalFeature;
 import org.geomajas.layer.pipeline.GetAttributesContainer;
 import org.geomajas.layer.pipeline.GetBoundsContainer;
+import org.geomajas.layer.pipeline.FeatureSink;
 import org.geomajas.layer.pipeline.GetFeaturesContainer;
 import org.geomajas.layer.pipeline.GetTileContainer;
+import org.geomajas.layer.pipeline.TileFeatureSource;
 import org.geomajas.layer.tile.InternalTile;
 import org.geomajas.layer.tile.TileMetadata;
 import org.geomajas.security.GeomajasSecurityException;
+import org.geomajas.security.SavedAuthorization;
 import org.geomajas.security.SecurityContext;
+import org.geomajas.security.SecurityManager;
 import org.geomajas.service.ConfigurationService;
 import org.geomajas.service.DtoConverterService;
+import org.geomajas.service.FilterService;
 import org.geomajas.service.GeoService;
 import org.geomajas.service.pipeline.PipelineCode;
 import org.geomajas.service.pipeline.PipelineContext;
@@ -41,11 +58,14 @@ import org.opengis.filter.Filter;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
 
 /**
  * Implementation of {@link org.geomajas.layer.VectorLayerService}, a service which allows accessing data from a
@@ -78,6 +98,23 @@ public class VectorLayerServiceImpl extends LayerServiceImpl implements VectorLa
 	@Autowired
 	private PipelineService pipelineService;
 
+	@Autowired
+	private FilterService filterService;
+
+	@Autowired
+	private SecurityManager securityManager;
+
+	/**
+	 * Maximum number of threads for building tiles when not configured.
+	 */
+	private static final int DEFAULT_MAX_TILE_THREADS = 4;
+
+	private int tileThreads = Math.min(Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_TILE_THREADS);
+
+	private ExecutorService tilePool;
+
+	private final Map<Class<?>, Boolean> transactionalLayers = new ConcurrentHashMap<Class<?>, Boolean>();
+
 	private VectorLayer getVectorLayer(String layerId) throws GeomajasException {
 		if (!securityContext.isLayerVisible(layerId)) {
 			throw new GeomajasSecurityException(ExceptionCode.LAYER_NOT_VISIBLE, layerId, securityContext.getUserId());
@@ -98,13 +135,13 @@ public class VectorLayerServiceImpl extends LayerServiceImpl implements VectorLa
 		CrsTransform mapToLayer = geoService.getCrsTransform(crs, layer.getCrs());
 		CrsTransform layerToMap = geoService.getCrsTransform(layer.getCrs(), crs);
 		PipelineContext context = pipelineService.createContext();
-		context.put(PipelineCode.LAYER_ID_KEY, layerId);
-		context.put(PipelineCode.LAYER_KEY, layer);
-		context.put(PipelineCode.CRS_TRANSFORM_KEY, mapToLayer);
-		context.put(PipelineCode.CRS_BACK_TRANSFORM_KEY, layerToMap);
-		context.put(PipelineCode.OLD_FEATURES_KEY, oldFeatures);
-		context.put(PipelineCode.NEW_FEATURES_KEY, newFeatures);
-		context.put(PipelineCode.CRS_KEY, crs);
+		context.put(PipelineCode.LAYER_ID, layerId);
+		context.put(PipelineCode.LAYER, layer);
+		context.put(PipelineCode.CRS_TRANSFORM, mapToLayer);
+		context.put(PipelineCode.CRS_BACK_TRANSFORM, layerToMap);
+		context.put(PipelineCode.OLD_FEATURES, oldFeatures);
+		context.put(PipelineCode.NEW_FEATURES, newFeatures);
+		context.put(PipelineCode.CRS, crs);
 		pipelineService.execute(PipelineCode.PIPELINE_SAVE_OR_UPDATE, layerId, context, null);
 		log.debug("saveOrUpdate done on layer {}, time {}s", layerId, (System.currentTimeMillis() - ts) / 1000.0);
 	}
@@ -113,10 +150,26 @@ public class VectorLayerServiceImpl extends LayerServiceImpl implements VectorLa
 			NamedStyleInfo style, int featureIncludes, int offset, int maxResultSize) throws GeomajasException {
 		return getFeatures(layerId, crs, queryFilter, style, featureIncludes, offset, maxResultSize, false);
 	}
-	@SuppressWarnings("unchecked")
 	public List<InternalFeature> getFeatures(String layerId, CoordinateReferenceSystem crs, Filter queryFilter,
 			NamedStyleInfo style, int featureIncludes, int offset, int maxResultSize, boolean forcePaging)
 			throws GeomajasException {
+		GetFeaturesContainer container = new GetFeaturesContainer();
+		getFeatures(layerId, crs, queryFilter, style, featureIncludes, offset, maxResultSize, forcePaging, container);
+		return container.getFeatures();
+	}
+
+	public Envelope getFeatures(String layerId, CoordinateReferenceSystem crs, Filter queryFilter,
+			NamedStyleInfo style, int featureIncludes, int offset, int maxResultSize, boolean forcePaging,
+			FeatureSink featureSink) throws GeomajasException {
+		GetFeaturesContainer container = new GetFeaturesContainer();
+		container.setFeatureSink(featureSink);
+		getFeatures(layerId, crs, queryFilter, style, featureIncludes, offset, maxResultSize, forcePaging, container);
+		return container.getBounds();
+	}
+
+	private void getFeatures(String layerId, CoordinateReferenceSystem crs, Filter queryFilter,
+			NamedStyleInfo style, int featureIncludes, int offset, int maxResultSize, boolean forcePaging,
+			GetFeaturesContainer container) throws GeomajasException {
 		log.debug("getFeatures start on layer {}", layerId);
 		long ts = System.currentTimeMillis();
 		VectorLayer layer = getVectorLayer(layerId);
@@ -124,21 +177,19 @@ public class VectorLayerServiceImpl extends LayerServiceImpl implements VectorLa
 		if ((featureIncludes & FEATURE_INCLUDE_GEOMETRY) != 0 && crs != null && !crs.equals(layer.getCrs())) {
 			transformation = geoService.getCrsTransform(layer.getCrs(), crs);
 		}
-		GetFeaturesContainer container = new GetFeaturesContainer();
 		PipelineContext context = pipelineService.createContext();
-		context.put(PipelineCode.LAYER_ID_KEY, layerId);
-		context.put(PipelineCode.LAYER_KEY, layer);
-		context.put(PipelineCode.CRS_TRANSFORM_KEY, transformation);
-		context.put(PipelineCode.CRS_KEY, crs);
-		context.put(PipelineCode.FILTER_KEY, queryFilter);
-		context.put(PipelineCode.STYLE_KEY, style);
-		context.put(PipelineCode.FEATURE_INCLUDES_KEY, featureIncludes);
-		context.put(PipelineCode.OFFSET_KEY, offset);
-		context.put(PipelineCode.MAX_RESULT_SIZE_KEY, maxResultSize);
-		context.put(PipelineCode.FORCE_PAGING_KEY, forcePaging);
+		context.put(PipelineCode.LAYER_ID, layerId);
+		context.put(PipelineCode.LAYER, layer);
+		context.put(PipelineCode.CRS_TRANSFORM, transformation);
+		context.put(PipelineCode.CRS, crs);
+		context.put(PipelineCode.FILTER, queryFilter);
+		context.put(PipelineCode.STYLE, style);
+		context.putInt(PipelineCode.FEATURE_INCLUDES, featureIncludes);
+		context.putInt(PipelineCode.OFFSET, offset);
+		context.putInt(PipelineCode.MAX_RESULT_SIZE, maxResultSize);
+		context.put(PipelineCode.FORCE_PAGING, forcePaging);
 		pipelineService.execute(PipelineCode.PIPELINE_GET_FEATURES, layerId, context, container);
 		log.debug("getFeatures done on layer {}, time {}s", layerId, (System.currentTimeMillis() - ts) / 1000.0);
-		return container.getFeatures();
 	}
 
 	public List<InternalFeature> getFeatures(String layerId, CoordinateReferenceSystem crs, Filter filter,
@@ -154,11 +205,11 @@ public class VectorLayerServiceImpl extends LayerServiceImpl implements VectorLa
 		VectorLayer layer = getVectorLayer(layerId);
 		GetBoundsContainer container = new GetBoundsContainer();
 		PipelineContext context = pipelineService.createContext();
-		context.put(PipelineCode.LAYER_ID_KEY, layerId);
-		context.put(PipelineCode.LAYER_KEY, layer);
-		context.put(PipelineCode.CRS_KEY, crs);
-		context.put(PipelineCode.CRS_TRANSFORM_KEY, geoService.getCrsTransform(layer.getCrs(), crs));
-		context.put(PipelineCode.FILTER_KEY, queryFilter);
+		context.put(PipelineCode.LAYER_ID, layerId);
+		context.put(PipelineCode.LAYER, layer);
+		context.put(PipelineCode.CRS, crs);
+		context.put(PipelineCode.CRS_TRANSFORM, geoService.getCrsTransform(layer.getCrs(), crs));
+		context.put(PipelineCode.FILTER, queryFilter);
 		pipelineService.execute(PipelineCode.PIPELINE_GET_BOUNDS, layerId, context, container);
 		log.debug("getBounds done on layer {}, time {}s", layerId, (System.currentTimeMillis() - ts) / 1000.0);
 		return container.getEnvelope();
@@ -170,26 +221,188 @@ public class VectorLayerServiceImpl extends LayerServiceImpl implements VectorLa
 		long ts = System.currentTimeMillis();
 		String layerId = tileMetadata.getLayerId();
 		VectorLayer layer = getVectorLayer(layerId);
-		PipelineContext context = pipelineService.createContext();
-		context.put(PipelineCode.LAYER_ID_KEY, layerId);
-		context.put(PipelineCode.LAYER_KEY, layer);
-		context.put(PipelineCode.TILE_METADATA_KEY, tileMetadata);
 		Crs crs = geoService.getCrs2(tileMetadata.getCrs());
-		context.put(PipelineCode.CRS_KEY, crs);
 		CrsTransform layerToMap = geoService.getCrsTransform(layer.getCrs(), crs);
-		context.put(PipelineCode.CRS_TRANSFORM_KEY, layerToMap);
 		Envelope layerExtent = dtoConverterService.toInternal(layer.getLayerInfo().getMaxExtent());
 		Envelope tileExtent = geoService.transform(layerExtent, layerToMap);
-		context.put(PipelineCode.TILE_MAX_EXTENT_KEY, tileExtent);
 		InternalTile tile = new InternalTileImpl(tileMetadata.getCode(), tileExtent, tileMetadata.getScale());
+		tile = getTile(tileMetadata, layer, crs, layerToMap, tileExtent, tile, null);
+		log.debug("getTile done on layer {}, time {}s", layerId, (System.currentTimeMillis() - ts) / 1000.0);
+		return tile;
+	}
+
+	private InternalTile getTile(TileMetadata tileMetadata, VectorLayer layer, Crs crs, CrsTransform layerToMap,
+			Envelope tileExtent, InternalTile tile, TileFeatureSource tileFeatures) throws GeomajasException {
+		String layerId = tileMetadata.getLayerId();
+		PipelineContext context = pipelineService.createContext();
+		context.put(PipelineCode.LAYER_ID, layerId);
+		context.put(PipelineCode.LAYER, layer);
+		context.put(PipelineCode.TILE_METADATA, tileMetadata);
+		context.put(PipelineCode.CRS, crs);
+		context.put(PipelineCode.CRS_TRANSFORM, layerToMap);
+		context.put(PipelineCode.TILE_MAX_EXTENT, tileExtent);
+		if (null != tileFeatures) {
+			context.put(PipelineCode.TILE_FEATURES, tileFeatures);
+		}
 		GetTileContainer response = new GetTileContainer();
 		response.setTile(tile);
 		pipelineService.execute(PipelineCode.PIPELINE_GET_VECTOR_TILE, layerId, context, response);
 		log.debug("getTile response InternalTile {}", response);
-		log.debug("getTile done on layer {}, time {}s", layerId, (System.currentTimeMillis() - ts) / 1000.0);
 		return response.getTile();
 	}
 
+	public List<InternalTile> getTiles(List<? extends TileMetadata> tileMetadata) throws GeomajasException {
+		List<InternalTile> tiles = new ArrayList<InternalTile>(tileMetadata.size());
+		if (tileMetadata.size() < 2 || !isSameQuery(tileMetadata)) {
+			for (TileMetadata metadata : tileMetadata) {
+				tiles.add(getTile(metadata));
+			}
+			return tiles;
+		}
+		TileMetadata first = tileMetadata.get(0);
+		String layerId = first.getLayerId();
+		log.debug("getTiles start on layer {}, {} tiles", layerId, tileMetadata.size());
+		long ts = System.currentTimeMillis();
+		VectorLayer layer = getVectorLayer(layerId);
+		Crs crs = geoService.getCrs2(first.getCrs());
+		CrsTransform layerToMap = geoService.getCrsTransform(layer.getCrs(), crs);
+		CrsTransform mapToLayer = geoService.getCrsTransform(crs, layer.getCrs());
+		Envelope layerExtent = dtoConverterService.toInternal(layer.getLayerInfo().getMaxExtent());
+		Envelope tileExtent = geoService.transform(layerExtent, layerToMap);
+
+		// tile bounds in layer coordinates and their union, for the single query
+		// the envelope transformation densifies the edges, so this also works for non-affine transforms
+		Envelope[] tileBounds = new Envelope[tileMetadata.size()];
+		Envelope queryBounds = new Envelope();
+		for (int i = 0; i < tileBounds.length; i++) {
+			TileMetadata metadata = tileMetadata.get(i);
+			InternalTile tile = new InternalTileImpl(metadata.getCode(), tileExtent, metadata.getScale());
+			tiles.add(tile);
+			tileBounds[i] = geoService.transform(tile.getBounds(), mapToLayer);
+			queryBounds.expandToInclude(tileBounds[i]);
+		}
+		TileBatch batch = new TileBatch(layer, queryBounds, first);
+
+		if (null == tilePool || isTransactional(layer)) {
+			// build the tiles in the caller's thread, using its transaction
+			for (int i = 0; i < tileBounds.length; i++) {
+				tiles.set(i, getTile(tileMetadata.get(i), layer, crs, layerToMap, tileExtent, tiles.get(i),
+						new TileFeatures(batch, tileBounds[i])));
+			}
+		} else {
+			getTilesParallel(tileMetadata, layer, crs, layerToMap, tileExtent, tiles, tileBounds, batch);
+		}
+		log.debug("getTiles done on layer {}, time {}s", layerId, (System.currentTimeMillis() - ts) / 1000.0);
+		return tiles;
+	}
+
+	private void getTilesParallel(List<? extends TileMetadata> tileMetadata, VectorLayer layer, Crs crs,
+			CrsTransform layerToMap, Envelope tileExtent, List<InternalTile> tiles, Envelope[] tileBounds,
+			TileBatch batch) throws GeomajasException {
+		SavedAuthorization authorization = securityContext.getSavedAuthorization();
+		List<Future<InternalTile>> futures = new ArrayList<Future<InternalTile>>(tileBounds.length);
+		for (int i = 0; i < tileBounds.length; i++) {
+			futures.add(tilePool.submit(new TileTask(authorization, tileMetadata.get(i), layer, crs, layerToMap,
+					tileExtent, tiles.get(i), new TileFeatures(batch, tileBounds[i]))));
+		}
+		try {
+			for (int i = 0; i < futures.size(); i++) {
+				tiles.set(i, futures.get(i).get());
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new GeomajasException(ie);
+		} catch (ExecutionException ee) {
+			if (ee.getCause() instanceof GeomajasException) {
+				throw (GeomajasException) ee.getCause();
+			}
+			throw new GeomajasException(ee.getCause());
+		} finally {
+			for (Future<InternalTile> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Check whether the layer needs the caller's transaction. This is the case when the layer class or one of its
+	 * methods is annotated with {@link Transactional}.
+	 *
+	 * @param layer layer
+	 * @return true when the layer should only be used in the caller's thread
+	 */
+	private boolean isTransactional(VectorLayer layer) {
+		Class<?> layerClass = AopUtils.getTargetClass(layer);
+		Boolean transactional = transactionalLayers.get(layerClass);
+		if (null == transactional) {
+			transactional = null != AnnotationUtils.findAnnotation(layerClass, Transactional.class);
+			for (Method method : layerClass.getMethods()) {
+				if (!transactional && null != AnnotationUtils.findAnnotation(method, Transactional.class)) {
+					transactional = true;
+				}
+			}
+			transactionalLayers.put(layerClass, transactional);
+		}
+		return transactional;
+	}
+
+	/**
+	 * Check whether the features for all tiles can be fetched using one query.
+	 *
+	 * @param tileMetadata tile descriptions
+	 * @return true when layer, crs, filter and style are the same for all tiles
+	 */
+	private boolean isSameQuery(List<? extends TileMetadata> tileMetadata) {
+		TileMetadata first = tileMetadata.get(0);
+		for (TileMetadata metadata : tileMetadata) {
+			if (!equals(first.getLayerId(), metadata.getLayerId()) || !equals(first.getCrs(), metadata.getCrs()) ||
+					!equals(first.getFilter(), metadata.getFilter()) ||
+					!equals(first.getStyleInfo(), metadata.getStyleInfo())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean equals(Object o1, Object o2) {
+		return null == o1 ? null == o2 : o1.equals(o2);
+	}
+
+	/**
+	 * Create the thread pool for building tiles in parallel.
+	 */
+	@PostConstruct
+	protected void createTilePool() {
+		if (tileThreads > 1) {
+			tilePool = Executors.newFixedThreadPool(tileThreads);
+		}
+	}
+
+	/**
+	 * Stop the thread pool for building tiles.
+	 */
+	@PreDestroy
+	protected void shutdownTilePool() {
+		if (null != tilePool) {
+			tilePool.shutdown();
+		}
+	}
+
+	/**
+	 * Set the number of threads which are used to build tiles in parallel in {@link #getTiles(List)}. Defaults to the
+	 * number of processors, with a maximum of 4. Use 1 to build the tiles one by one in the caller's thread.
+	 * <p/>
+	 * When more than one thread is used, the tiles (and possibly the combined feature query) are built on pool threads
+	 * using the caller's authorization (the security context is restored on the pool thread) but outside the caller's
+	 * transaction. Layers which need the transaction, recognized by the {@link Transactional} annotation on the class
+	 * or its methods (like the Hibernate and GeoTools layers), are always built in the caller's thread.
+	 *
+	 * @param tileThreads number of threads
+	 */
+	public void setTileThreads(int tileThreads) {
+		this.tileThreads = tileThreads;
+	}
+
 	@SuppressWarnings("unchecked")
 	public List<Attribute<?>> getAttributes(String layerId, String attributeName, Filter filter)
 			throws GeomajasException {
@@ -197,13 +410,116 @@ public class VectorLayerServiceImpl extends LayerServiceImpl implements VectorLa
 		long ts = System.currentTimeMillis();
 		VectorLayer layer = getVectorLayer(layerId);
 		PipelineContext context = pipelineService.createContext();
-		context.put(PipelineCode.LAYER_ID_KEY, layerId);
-		context.put(PipelineCode.LAYER_KEY, layer);
-		context.put(PipelineCode.FILTER_KEY, filter);
-		context.put(PipelineCode.ATTRIBUTE_NAME_KEY, attributeName);
+		context.put(PipelineCode.LAYER_ID, layerId);
+		context.put(PipelineCode.LAYER, layer);
+		context.put(PipelineCode.FILTER, filter);
+		context.put(PipelineCode.ATTRIBUTE_NAME, attributeName);
 		GetAttributesContainer container = new GetAttributesContainer();
 		pipelineService.execute(PipelineCode.PIPELINE_GET_ATTRIBUTES, layerId, context, container);
 		log.debug("saveOrUpdate done on layer {}, time {}s", layerId, (System.currentTimeMillis() - ts) / 1000.0);
 		return container.getAttributes();
 	}
+
+	/**
+	 * Build one tile on the tile pool, using the security context of the caller.
+	 */
+	private final class TileTask implements Callable<InternalTile> {
+
+		private final SavedAuthorization authorization;
+
+		private final TileMetadata tileMetadata;
+
+		private final VectorLayer layer;
+
+		private final Crs crs;
+
+		private final CrsTransform layerToMap;
+
+		private final Envelope tileExtent;
+
+		private final InternalTile tile;
+
+		private final TileFeatureSource tileFeatures;
+
+		private TileTask(SavedAuthorization authorization, TileMetadata tileMetadata, VectorLayer layer, Crs crs,
+				CrsTransform layerToMap, Envelope tileExtent, InternalTile tile, TileFeatureSource tileFeatures) {
+			this.authorization = authorization;
+			this.tileMetadata = tileMetadata;
+			this.layer = layer;
+			this.crs = crs;
+			this.layerToMap = layerToMap;
+			this.tileExtent = tileExtent;
+			this.tile = tile;
+			this.tileFeatures = tileFeatures;
+		}
+
+		public InternalTile call() throws GeomajasException {
+			securityManager.restoreSecurityContext(authorization);
+			try {
+				return getTile(tileMetadata, layer, crs, layerToMap, tileExtent, tile, tileFeatures);
+			} finally {
+				securityManager.clearSecurityContext();
+			}
+		}
+	}
+
+	/**
+	 * Features for a batch of tiles, fetched using one query for the combined bounds when first needed.
+	 */
+	private final class TileBatch {
+
+		private final VectorLayer layer;
+
+		private final Envelope queryBounds;
+
+		private final TileMetadata metadata;
+
+		private List<InternalFeature> features;
+
+		private TileBatch(VectorLayer layer, Envelope queryBounds, TileMetadata metadata) {
+			this.layer = layer;
+			this.queryBounds = queryBounds;
+			this.metadata = metadata;
+		}
+
+		private synchronized List<InternalFeature> getFeatures() throws GeomajasException {
+			if (null == features) {
+				String geomName = layer.getLayerInfo().getFeatureInfo().getGeometryType().getName();
+				String epsg = Integer.toString(geoService.getSridFromCrs(layer.getCrs()));
+				Filter filter = filterService.createBboxFilter(epsg, queryBounds, geomName);
+				if (null != metadata.getFilter()) {
+					filter = filterService.createAndFilter(filterService.parseFilter(metadata.getFilter()), filter);
+				}
+				features = VectorLayerServiceImpl.this.getFeatures(metadata.getLayerId(), layer.getCrs(), filter,
+						metadata.getStyleInfo(), FEATURE_INCLUDE_ALL);
+			}
+			return features;
+		}
+	}
+
+	/**
+	 * Features of one tile in a batch, the batch features which intersect the tile bounds.
+	 */
+	private static final class TileFeatures implements TileFeatureSource {
+
+		private final TileBatch batch;
+
+		private final Envelope tileBounds;
+
+		private TileFeatures(TileBatch batch, Envelope tileBounds) {
+			this.batch = batch;
+			this.tileBounds = tileBounds;
+		}
+
+		public List<InternalFeature> getFeatures() throws GeomajasException {
+			List<InternalFeature> tileFeatures = new ArrayList<InternalFeature>();
+			for (InternalFeature feature : batch.getFeatures()) {
+				Geometry geometry = feature.getGeometry();
+				if (null != geometry && tileBounds.intersects(geometry.getEnvelopeInternal())) {
+					tileFeatures.add(feature);
+				}
+			}
+			return tileFeatures;
+		}
+	}
 }
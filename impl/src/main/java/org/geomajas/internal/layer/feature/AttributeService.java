@@ -27,9 +27,11 @@ import org.geomajas.internal.layer.vector.lazy.LazyAttribute;
 import org.geomajas.internal.layer.vector.lazy.LazyManyToOneAttribute;
 import org.geomajas.internal.layer.vector.lazy.LazyOneToManyAttribute;
 import org.geomajas.internal.layer.vector.lazy.LazyPrimitiveAttribute;
+import org.geomajas.internal.security.DefaultSecurityContext;
 import org.geomajas.layer.LayerException;
 import org.geomajas.layer.VectorLayer;
 import org.geomajas.layer.VectorLayerLazyFeatureConversionSupport;
+import org.geomajas.layer.VectorLayerPagingSupport;
 import org.geomajas.layer.feature.Attribute;
 import org.geomajas.layer.feature.FeatureModel;
 import org.geomajas.layer.feature.InternalFeature;
@@ -80,11 +82,8 @@ public class AttributeService {
 			throws LayerException {
 		String layerId = layer.getId();
 
-		Map<String, Attribute> featureAttributes = getRealAttributes(layer, featureBean);
-		feature.setAttributes(featureAttributes); // to allow isAttributeReadable to see full object
-		addSyntheticAttributes(feature, featureAttributes, layer);
-		if (securityContext.isFeatureVisible(layerId, feature)) {
-
+		if (isFeatureVisible(layer, feature, featureBean)) {
+			Map<String, Attribute> featureAttributes = feature.getAttributes();
 			feature.setAttributes(filterAttributes(layerId, layer.getLayerInfo().getFeatureInfo().getAttributesMap(),
 					feature, featureAttributes));
 
@@ -96,6 +95,51 @@ public class AttributeService {
 		return null;
 	}
 
+	/**
+	 * Check whether a feature is visible according to security. The (unfiltered) attributes, including synthetic
+	 * attributes, are put in the feature object as they may be needed to determine visibility.
+	 * <p/>
+	 * This is cheaper than {@link #getAttributes(VectorLayer, InternalFeature, Object)} as the attributes are not
+	 * filtered and the editable and deletable states are not determined.
+	 *
+	 * @param layer layer which contains the feature
+	 * @param feature feature for the result, needs to contain id, layer and geometry
+	 * @param featureBean plain object for feature
+	 * @return true when the feature is visible
+	 * @throws LayerException problem converting attributes
+	 */
+	public boolean isFeatureVisible(VectorLayer layer, InternalFeature feature, Object featureBean)
+			throws LayerException {
+		Map<String, Attribute> featureAttributes = getRealAttributes(layer, featureBean);
+		feature.setAttributes(featureAttributes); // to allow isAttributeReadable to see full object
+		addSyntheticAttributes(feature, featureAttributes, layer);
+		return securityContext.isFeatureVisible(layer.getId(), feature);
+	}
+
+	/**
+	 * Check whether the layer can do the paging itself. This requires the layer to support paging and that no
+	 * features are hidden by security after applying the filter (which includes the security filter and visible area).
+	 *
+	 * @param layer layer to get features from
+	 * @return true when the offset and maximum result size can be passed to the layer
+	 */
+	public boolean isLayerPagingAllowed(VectorLayer layer) {
+		return layer instanceof VectorLayerPagingSupport && ((VectorLayerPagingSupport) layer).isPagingSupported()
+				&& isFeatureVisibleByFilter(layer);
+	}
+
+	/**
+	 * Check whether all features which are returned by the layer are visible. This is the case when the feature
+	 * visibility is fully included in the filter (security filter, visible area and feature visibility filter).
+	 *
+	 * @param layer layer to get features from
+	 * @return true when the visibility does not need to be checked for each feature
+	 */
+	public boolean isFeatureVisibleByFilter(VectorLayer layer) {
+		return securityContext instanceof DefaultSecurityContext
+				&& ((DefaultSecurityContext) securityContext).isFeatureVisibleByFilter(layer.getId());
+	}
+
 	private Map<String, Attribute> filterAttributes(String layerId, Map<String, AbstractAttributeInfo> attributeInfo,
 			InternalFeature feature, Map<String, Attribute> featureAttributes) {
 		Map<String, Attribute> filteredAttributes = new HashMap<String, Attribute>();
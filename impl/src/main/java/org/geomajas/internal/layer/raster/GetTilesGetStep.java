@@ -44,9 +44,9 @@ public class GetTilesGetStep implements PipelineStep<List<RasterTile>> {
 
 	public void execute(PipelineContext context, List<RasterTile> response) throws GeomajasException {
 		RasterLayer layer = context.get(PipelineCode.LAYER_KEY, RasterLayer.class);
-		Envelope bounds = context.get(PipelineCode.BOUNDS_KEY, Envelope.class);
-		double scale = context.get(PipelineCode.SCALE_KEY, Double.class);
-		CoordinateReferenceSystem crs = context.get(PipelineCode.CRS_KEY, CoordinateReferenceSystem.class);
+		Envelope bounds = context.get(PipelineCode.BOUNDS);
+		double scale = context.get(PipelineCode.SCALE);
+		CoordinateReferenceSystem crs = context.get(PipelineCode.CRS);
 		List<RasterTile> images = layer.paint(crs, bounds, scale);
 		response.addAll(images);
 	}
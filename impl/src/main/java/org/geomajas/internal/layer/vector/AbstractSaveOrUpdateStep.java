@@ -12,6 +12,8 @@
 package org.geomajas.internal.layer.vector;
 
 import org.geomajas.global.GeomajasException;
+import org.geomajas.internal.security.DefaultSecurityContext;
+import org.geomajas.internal.security.PreparedArea;
 import org.geomajas.layer.VectorLayer;
 import org.geomajas.security.SecurityContext;
 import org.geomajas.service.FilterService;
@@ -24,8 +26,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import com.vividsolutions.jts.geom.Geometry;
 
 /**
- * Base step for saveOrUpdate pipeline. Has  helper method for building a filter to check compliance with the
- * layer security filter, layer default filter and area.
+ * Base step for saveOrUpdate pipeline. Has  helper methods for building a filter or checking a feature for
+ * compliance with the layer security filter, layer default filter and area.
  *
  * @author Joachim Van der Auwera
  */
@@ -49,36 +51,87 @@ public abstract class AbstractSaveOrUpdateStep implements PipelineStep {
 		this.id = id;
 	}
 
-	protected Filter getSecurityFilter(VectorLayer layer, Geometry geometry) throws GeomajasException {
-		return getSecurityFilter(null, layer, geometry);
+	/**
+	 * Get the visible area for a layer. The area is prepared once for all requests with the same authorizations when
+	 * the security context supports this.
+	 *
+	 * @param layerId layer id
+	 * @return visible area, null when nothing is visible
+	 */
+	protected PreparedArea getVisibleArea(String layerId) {
+		if (securityContext instanceof DefaultSecurityContext) {
+			return ((DefaultSecurityContext) securityContext).getPreparedVisibleArea(layerId);
+		}
+		return prepare(securityContext.getVisibleArea(layerId), securityContext.isPartlyVisibleSufficient(layerId));
 	}
 
-	protected Filter getSecurityFilter(Filter baseFilter, VectorLayer layer, Geometry geometry)
-			throws GeomajasException {
-		String layerId = layer.getId();
+	/**
+	 * Get the area in which features can be updated for a layer.
+	 *
+	 * @param layerId layer id
+	 * @return update area, null when no features can be updated
+	 */
+	protected PreparedArea getUpdateAuthorizedArea(String layerId) {
+		if (securityContext instanceof DefaultSecurityContext) {
+			return ((DefaultSecurityContext) securityContext).getPreparedUpdateAuthorizedArea(layerId);
+		}
+		return prepare(securityContext.getUpdateAuthorizedArea(layerId),
+				securityContext.isPartlyUpdateAuthorizedSufficient(layerId));
+	}
 
-		// apply generic security filter
-		Filter filter = and(baseFilter, securityContext.getFeatureFilter(layerId));
+	/**
+	 * Get the area in which features can be created for a layer.
+	 *
+	 * @param layerId layer id
+	 * @return create area, null when no features can be created
+	 */
+	protected PreparedArea getCreateAuthorizedArea(String layerId) {
+		if (securityContext instanceof DefaultSecurityContext) {
+			return ((DefaultSecurityContext) securityContext).getPreparedCreateAuthorizedArea(layerId);
+		}
+		return prepare(securityContext.getCreateAuthorizedArea(layerId),
+				securityContext.isPartlyCreateAuthorizedSufficient(layerId));
+	}
 
-		// apply default filter
-		String defaultFilter = layer.getLayerInfo().getFilter();
-		if (null != defaultFilter) {
-			filter = and(filter, filterService.parseFilter(defaultFilter));
+	/**
+	 * Get the area in which features can be deleted for a layer.
+	 *
+	 * @param layerId layer id
+	 * @return delete area, null when no features can be deleted
+	 */
+	protected PreparedArea getDeleteAuthorizedArea(String layerId) {
+		if (securityContext instanceof DefaultSecurityContext) {
+			return ((DefaultSecurityContext) securityContext).getPreparedDeleteAuthorizedArea(layerId);
 		}
+		return prepare(securityContext.getDeleteAuthorizedArea(layerId),
+				securityContext.isPartlyDeleteAuthorizedSufficient(layerId));
+	}
+
+	private PreparedArea prepare(Geometry area, boolean partlySufficient) {
+		return null == area ? null : new PreparedArea(area, partlySufficient);
+	}
+
+	/**
+	 * Build the filter which combines the base filter, the layer security filter, the layer default filter and the
+	 * area. The area filter is reused for all requests with the same area.
+	 *
+	 * @param baseFilter base filter, may be null
+	 * @param layer layer
+	 * @param area usable area, null when nothing is usable
+	 * @return combined filter
+	 * @throws GeomajasException oops
+	 */
+	protected Filter getSecurityFilter(Filter baseFilter, VectorLayer layer, PreparedArea area)
+			throws GeomajasException {
+		Filter filter = getFeatureFilter(baseFilter, layer);
 
 		// apply area filter
 		if (!layer.getLayerInfo().isAllowEmptyGeometries()) {
-			if (null != geometry) {
+			if (null != area) {
 				String geometryName = layer.getLayerInfo().getFeatureInfo().getGeometryType().getName();
-				Filter areaFilter;
-				if (securityContext.isPartlyVisibleSufficient(layerId)) {
-					areaFilter = filterService.createIntersectsFilter(geometry, geometryName);
-				} else {
-					areaFilter = filterService.createWithinFilter(geometry, geometryName);
-				}
-				filter = and(filter, areaFilter);
+				filter = and(filter, area.getFilter(filterService, geometryName));
 			} else {
-				log.warn("Usable area is null for layer " + layerId + "removing all content!");
+				log.warn("Usable area is null for layer " + layer.getId() + "removing all content!");
 				filter = filterService.createFalseFilter();
 			}
 		}
@@ -89,6 +142,42 @@ public abstract class AbstractSaveOrUpdateStep implements PipelineStep {
 		return filter;
 	}
 
+	/**
+	 * Check whether a feature complies with the layer security filter, layer default filter and area. The area is
+	 * checked first using the prepared geometry, the filters are only evaluated for features inside the area.
+	 *
+	 * @param layer layer
+	 * @param feature feature object
+	 * @param area usable area, null when nothing is usable
+	 * @return true when the feature is authorized
+	 * @throws GeomajasException oops
+	 */
+	protected boolean isAuthorized(VectorLayer layer, Object feature, PreparedArea area) throws GeomajasException {
+		if (!layer.getLayerInfo().isAllowEmptyGeometries()) {
+			if (null == area) {
+				log.warn("Usable area is null for layer " + layer.getId() + ", feature not authorized.");
+				return false;
+			}
+			if (!area.accepts(layer.getFeatureModel().getGeometry(feature))) {
+				return false;
+			}
+		}
+		Filter filter = getFeatureFilter(null, layer);
+		return null == filter || filter.evaluate(feature);
+	}
+
+	private Filter getFeatureFilter(Filter baseFilter, VectorLayer layer) throws GeomajasException {
+		// apply generic security filter
+		Filter filter = and(baseFilter, securityContext.getFeatureFilter(layer.getId()));
+
+		// apply default filter
+		String defaultFilter = layer.getLayerInfo().getFilter();
+		if (null != defaultFilter) {
+			filter = and(filter, filterService.parseFilter(defaultFilter));
+		}
+		return filter;
+	}
+
 	protected Filter and(Filter f1, Filter f2) {
 		if (null == f1) {
 			return f2;
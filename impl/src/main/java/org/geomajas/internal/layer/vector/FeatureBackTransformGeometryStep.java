@@ -42,9 +42,9 @@ public class FeatureBackTransformGeometryStep implements PipelineStep {
 	}
 
 	public void execute(PipelineContext context, Object response) throws GeomajasException {
-		InternalFeature feature = context.get(PipelineCode.FEATURE_KEY, InternalFeature.class);
+		InternalFeature feature = context.get(PipelineCode.FEATURE);
 		if (null != feature.getGeometry()) {
-			CrsTransform layerToMap = context.get(PipelineCode.CRS_BACK_TRANSFORM_KEY, CrsTransform.class);
+			CrsTransform layerToMap = context.get(PipelineCode.CRS_BACK_TRANSFORM);
 			feature.setGeometry(geoService.transform(feature.getGeometry(), layerToMap));
 		}
 	}
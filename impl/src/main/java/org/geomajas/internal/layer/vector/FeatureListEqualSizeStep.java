@@ -37,8 +37,8 @@ public class FeatureListEqualSizeStep implements PipelineStep {
 	}
 
 	public void execute(PipelineContext context, Object response) throws GeomajasException {
-		List<InternalFeature> oldFeatures = context.get(PipelineCode.OLD_FEATURES_KEY, List.class);
-		List<InternalFeature> newFeatures = context.get(PipelineCode.NEW_FEATURES_KEY, List.class);
+		List<InternalFeature> oldFeatures = context.get(PipelineCode.OLD_FEATURES);
+		List<InternalFeature> newFeatures = context.get(PipelineCode.NEW_FEATURES);
 		int count = Math.max(oldFeatures.size(), newFeatures.size());
 		while (oldFeatures.size() < count) {
 			oldFeatures.add(null);
@@ -46,7 +46,7 @@ public class FeatureListEqualSizeStep implements PipelineStep {
 		while (newFeatures.size() < count) {
 			newFeatures.add(null);
 		}
-		context.put(PipelineCode.OLD_FEATURES_KEY, oldFeatures);
-		context.put(PipelineCode.NEW_FEATURES_KEY, newFeatures);
+		context.put(PipelineCode.OLD_FEATURES, oldFeatures);
+		context.put(PipelineCode.NEW_FEATURES, newFeatures);
 	}
 }
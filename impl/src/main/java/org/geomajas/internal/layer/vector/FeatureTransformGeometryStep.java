@@ -41,9 +41,9 @@ public class FeatureTransformGeometryStep implements PipelineStep {
 	}
 
 	public void execute(PipelineContext context, Object response) throws GeomajasException {
-		InternalFeature feature = context.get(PipelineCode.FEATURE_KEY, InternalFeature.class);
+		InternalFeature feature = context.get(PipelineCode.FEATURE);
 		if (null != feature.getGeometry()) {
-			CrsTransform mapToLayer = context.get(PipelineCode.CRS_TRANSFORM_KEY, CrsTransform.class);
+			CrsTransform mapToLayer = context.get(PipelineCode.CRS_TRANSFORM);
 			feature.setGeometry(geoService.transform(feature.getGeometry(), mapToLayer));
 		}
 	}
@@ -47,8 +47,8 @@ public class GetAttributesStep implements PipelineStep<GetAttributesContainer> {
 			attributes = new ArrayList<Attribute<?>>();
 			response.setAttributes(attributes);
 			VectorLayer layer = context.get(PipelineCode.LAYER_KEY, VectorLayer.class);
-			Filter filter = context.get(PipelineCode.FILTER_KEY, Filter.class);
-			String attributeName = context.get(PipelineCode.ATTRIBUTE_NAME_KEY, String.class);
+			Filter filter = context.get(PipelineCode.FILTER);
+			String attributeName = context.get(PipelineCode.ATTRIBUTE_NAME);
 			if (layer instanceof VectorLayerAssociationSupport) {
 				List<Attribute<?>> list = ((VectorLayerAssociationSupport) layer).getAttributes(attributeName, filter);
 				attributes.addAll(list);
@@ -48,8 +48,8 @@ public class GetBoundsStep implements PipelineStep<GetBoundsContainer> {
 			throws GeomajasException {
 		if (null == response.getEnvelope()) {
 			VectorLayer layer = context.get(PipelineCode.LAYER_KEY, VectorLayer.class);
-			CrsTransform crsTransform = context.get(PipelineCode.CRS_TRANSFORM_KEY, CrsTransform.class);
-			Filter filter = context.get(PipelineCode.FILTER_KEY, Filter.class);
+			CrsTransform crsTransform = context.get(PipelineCode.CRS_TRANSFORM);
+			Filter filter = context.get(PipelineCode.FILTER);
 			Envelope bounds = layer.getBounds(filter);
 			bounds = geoService.transform(bounds, crsTransform);
 			response.setEnvelope(bounds);
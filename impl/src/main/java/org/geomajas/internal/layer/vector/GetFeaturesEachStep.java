@@ -79,13 +79,19 @@ public class GetFeaturesEachStep implements PipelineStep<GetFeaturesContainer> {
 			features = new ArrayList<InternalFeature>();
 			response.setFeatures(features);
 			VectorLayer layer = context.get(PipelineCode.LAYER_KEY, VectorLayer.class);
-			Filter filter = context.get(PipelineCode.FILTER_KEY, Filter.class);
-			int offset = context.get(PipelineCode.OFFSET_KEY, Integer.class);
-			int maxResultSize = context.get(PipelineCode.MAX_RESULT_SIZE_KEY, Integer.class);
-			int featureIncludes = context.get(PipelineCode.FEATURE_INCLUDES_KEY, Integer.class);
-			NamedStyleInfo style = context.get(PipelineCode.STYLE_KEY, NamedStyleInfo.class);
-			boolean forcePaging = context.getOptional(PipelineCode.FORCE_PAGING_KEY, Boolean.class, false);
-			CrsTransform transformation = context.getOptional(PipelineCode.CRS_TRANSFORM_KEY, CrsTransform.class);
+			Filter filter = context.get(PipelineCode.FILTER);
+			int offset = context.getInt(PipelineCode.OFFSET);
+			int maxResultSize = context.getInt(PipelineCode.MAX_RESULT_SIZE);
+			int featureIncludes = context.getInt(PipelineCode.FEATURE_INCLUDES);
+			NamedStyleInfo style = context.get(PipelineCode.STYLE);
+			// the layer can only do the paging when the feature visibility is part of the filter
+			boolean visibilityFiltered =
+					context.getOptional(LayerFilterStep.VISIBILITY_FILTERED_KEY, Boolean.class, false);
+			boolean forcePaging = context.getOptional(PipelineCode.FORCE_PAGING, false)
+					|| (visibilityFiltered && attributeService.isLayerPagingAllowed(layer));
+			boolean visibleByFilter = !forcePaging && offset > 0 && visibilityFiltered
+					&& attributeService.isFeatureVisibleByFilter(layer);
+			CrsTransform transformation = context.getOptional(PipelineCode.CRS_TRANSFORM);
 			List<StyleFilter> styleFilters = context.getOptional(GetFeaturesStyleStep.STYLE_FILTERS_KEY, List.class);
 
 			if (log.isDebugEnabled()) {
@@ -99,29 +105,34 @@ public class GetFeaturesEachStep implements PipelineStep<GetFeaturesContainer> {
 				it = layer.getElements(filter, 0, 0); // do not limit result here, security needs to be applied
 			}
 
-			int count = 0;
+			int count = 0; // number of visible features
+			int added = 0;
 			while (it.hasNext()) {
 				log.debug("process feature");
 				Object featureObj = it.next();
+				if (!forcePaging && count < offset) {
+					// before the requested page, only the visibility needs to be known
+					if (visibleByFilter
+							|| isFeatureVisible(featureObj, layer.getFeatureModel().getGeometry(featureObj), layer)) {
+						count++;
+					}
+					continue;
+				}
 				Geometry geometry = layer.getFeatureModel().getGeometry(featureObj);
 				InternalFeature feature = convertFeature(featureObj, geometry, layer, transformation,
 						styleFilters, style.getLabelStyle(), featureIncludes);
 				if (null != feature) {
 					count++;
-					if (count > offset || forcePaging) {
-						features.add(feature);
-
-						if (null != geometry) {
-							Envelope envelope = geometry.getEnvelopeInternal();
-							if (null == bounds) {
-								bounds = new Envelope();
-							}
-							bounds.expandToInclude(envelope);
-						}
-
-						if (features.size() == maxResultSize) {
-							break;
+					added++;
+					if (null != geometry) {
+						Envelope envelope = geometry.getEnvelopeInternal();
+						if (null == bounds) {
+							bounds = new Envelope();
 						}
+						bounds.expandToInclude(envelope);
+					}
+					if (!response.addFeature(feature) || added == maxResultSize) {
+						break;
 					}
 				} else {
 					if (log.isDebugEnabled()) {
@@ -135,6 +146,27 @@ public class GetFeaturesEachStep implements PipelineStep<GetFeaturesContainer> {
 		log.trace("features {}", response.getFeatures());
 	}
 
+	/**
+	 * Check whether a feature is visible, without doing the full conversion.
+	 *
+	 * @param feature
+	 *            A feature object that comes directly from the {@link VectorLayer}
+	 * @param geometry
+	 *            geometry of the feature
+	 * @param layer
+	 *            vector layer for the feature
+	 * @return true when the feature is visible
+	 * @throws GeomajasException
+	 *             oops
+	 */
+	private boolean isFeatureVisible(Object feature, Geometry geometry, VectorLayer layer) throws GeomajasException {
+		InternalFeature res = new InternalFeatureImpl();
+		res.setId(layer.getFeatureModel().getId(feature));
+		res.setLayer(layer);
+		res.setGeometry(geometry); // in layer coordinate space for security checks
+		return attributeService.isFeatureVisible(layer, res, feature);
+	}
+
 	/**
 	 * Convert the generic feature object (as obtained from the layer model) into a {@link InternalFeature}, with
 	 * requested data. Part may be lazy loaded.
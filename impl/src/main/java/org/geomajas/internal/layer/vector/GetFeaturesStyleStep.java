@@ -53,8 +53,8 @@ public class GetFeaturesStyleStep implements PipelineStep<GetFeaturesContainer>
 
 	public void execute(PipelineContext context, GetFeaturesContainer response) throws GeomajasException {
 		VectorLayer layer = context.get(PipelineCode.LAYER_KEY, VectorLayer.class);
-		int featureIncludes = context.get(PipelineCode.FEATURE_INCLUDES_KEY, Integer.class);
-		NamedStyleInfo style = context.getOptional(PipelineCode.STYLE_KEY, NamedStyleInfo.class);
+		int featureIncludes = context.getInt(PipelineCode.FEATURE_INCLUDES);
+		NamedStyleInfo style = context.getOptional(PipelineCode.STYLE);
 
 		List<StyleFilter> styleFilters = null;
 		if (style == null) {
@@ -64,7 +64,7 @@ public class GetFeaturesStyleStep implements PipelineStep<GetFeaturesContainer>
 			// only name specified, find it
 			style = layer.getLayerInfo().getNamedStyleInfo(style.getName());
 		}
-		context.put(PipelineCode.STYLE_KEY, style);
+		context.put(PipelineCode.STYLE, style);
 
 		if ((featureIncludes & VectorLayerService.FEATURE_INCLUDE_STYLE) != 0) {
 			if (style == null) {
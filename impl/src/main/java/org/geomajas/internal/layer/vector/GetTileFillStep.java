@@ -46,10 +46,10 @@ public class GetTileFillStep implements PipelineStep<GetTileContainer> {
 	}
 
 	public void execute(PipelineContext context, GetTileContainer response) throws GeomajasException {
-		TileMetadata metadata = context.get(PipelineCode.TILE_METADATA_KEY, TileMetadata.class);
+		TileMetadata metadata = context.get(PipelineCode.TILE_METADATA);
 
 		// Determine the maximum tile extent
-		Envelope maxTileExtent = context.get(PipelineCode.TILE_MAX_EXTENT_KEY, Envelope.class);
+		Envelope maxTileExtent = context.get(PipelineCode.TILE_MAX_EXTENT);
 
 		// fill the tiles
 		tiledFeatureService.fillTile(response.getTile(), maxTileExtent);
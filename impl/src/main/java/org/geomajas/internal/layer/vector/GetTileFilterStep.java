@@ -52,8 +52,8 @@ public class GetTileFilterStep implements PipelineStep<GetTileContainer> {
 
 	public void execute(PipelineContext context, GetTileContainer response) throws GeomajasException {
 		VectorLayer layer = context.get(PipelineCode.LAYER_KEY, VectorLayer.class);
-		TileMetadata metadata = context.get(PipelineCode.TILE_METADATA_KEY, TileMetadata.class);
-		CrsTransform layerToMap = context.get(PipelineCode.CRS_TRANSFORM_KEY, CrsTransform.class);
+		TileMetadata metadata = context.get(PipelineCode.TILE_METADATA);
+		CrsTransform layerToMap = context.get(PipelineCode.CRS_TRANSFORM);
 		CrsTransform maptoLayer = geoService.getCrsTransform(layerToMap.getTarget(), layerToMap.getSource());
 
 		String geomName = layer.getLayerInfo().getFeatureInfo().getGeometryType().getName();
@@ -67,6 +67,6 @@ public class GetTileFilterStep implements PipelineStep<GetTileContainer> {
 			filter = filterService.createAndFilter(filterService.parseFilter(metadata.getFilter()), filter);
 		}
 
-		context.put(PipelineCode.FILTER_KEY, filter);
+		context.put(PipelineCode.FILTER, filter);
 	}
 }
\ No newline at end of file
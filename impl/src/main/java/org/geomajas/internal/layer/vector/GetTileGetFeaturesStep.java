@@ -18,6 +18,7 @@ import org.geomajas.layer.VectorLayer;
 import org.geomajas.layer.VectorLayerService;
 import org.geomajas.layer.feature.InternalFeature;
 import org.geomajas.layer.pipeline.GetTileContainer;
+import org.geomajas.layer.pipeline.TileFeatureSource;
 import org.geomajas.layer.tile.TileMetadata;
 import org.geomajas.service.pipeline.PipelineCode;
 import org.geomajas.service.pipeline.PipelineContext;
@@ -47,13 +48,18 @@ public class GetTileGetFeaturesStep implements PipelineStep<GetTileContainer> {
 
 	public void execute(PipelineContext context, GetTileContainer response) throws GeomajasException {
 		VectorLayer layer = context.get(PipelineCode.LAYER_KEY, VectorLayer.class);
-		TileMetadata metadata = context.get(PipelineCode.TILE_METADATA_KEY, TileMetadata.class);
-		Filter filter = context.get(PipelineCode.FILTER_KEY, Filter.class);
+		TileMetadata metadata = context.get(PipelineCode.TILE_METADATA);
+		Filter filter = context.get(PipelineCode.FILTER);
 
-		// Get the features:
-		List<InternalFeature> features = layerService
-				.getFeatures(metadata.getLayerId(), layer.getCrs(), filter, metadata.getStyleInfo(),
-						VectorLayerService.FEATURE_INCLUDE_ALL);
+		// Get the features, from the source which fetches them together with other tiles when available
+		List<InternalFeature> features;
+		TileFeatureSource featureSource = context.getOptional(PipelineCode.TILE_FEATURES);
+		if (null != featureSource) {
+			features = featureSource.getFeatures();
+		} else {
+			features = layerService.getFeatures(metadata.getLayerId(), layer.getCrs(), filter,
+					metadata.getStyleInfo(), VectorLayerService.FEATURE_INCLUDE_ALL);
+		}
 		// Put them all in the tile to make them available to the next step
 		response.getTile().setFeatures(features);
 	}
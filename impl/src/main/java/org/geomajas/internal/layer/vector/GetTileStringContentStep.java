@@ -12,6 +12,7 @@
 package org.geomajas.internal.layer.vector;
 
 import org.geomajas.global.GeomajasException;
+import org.geomajas.internal.rendering.painter.tile.BinaryContentTilePainter;
 import org.geomajas.internal.rendering.painter.tile.StringContentTilePainter;
 import org.geomajas.layer.VectorLayer;
 import org.geomajas.layer.pipeline.GetTileContainer;
@@ -31,7 +32,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import com.vividsolutions.jts.geom.Coordinate;
 
 /**
- * Set the string content in the tile.
+ * Set the string content in the tile. Depending on the renderer, this is SVG, VML or base64 encoded binary content.
  *
  * @author Joachim Van der Auwera
  */
@@ -59,12 +60,21 @@ public class GetTileStringContentStep implements PipelineStep<GetTileContainer>
 		InternalTile tile = response.getTile();
 		if (null == tile.getFeatureContent()) {
 			VectorLayer layer = context.get(PipelineCode.LAYER_KEY, VectorLayer.class);
-			TileMetadata metadata = context.get(PipelineCode.TILE_METADATA_KEY, TileMetadata.class);
+			TileMetadata metadata = context.get(PipelineCode.TILE_METADATA);
 
-			tile.setContentType(VectorTile.VectorTileContentType.STRING_CONTENT);
 			Coordinate panOrigin = new Coordinate(metadata.getPanOrigin().getX(), metadata.getPanOrigin().getY());
-			TilePainter tilePainter = new StringContentTilePainter(layer, metadata.getStyleInfo(), metadata
-					.getRenderer(), metadata.getScale(), panOrigin, geoService, textService);
+			TilePainter tilePainter;
+			if (TileMetadata.PARAM_BINARY_RENDERER.equalsIgnoreCase(metadata.getRenderer())) {
+				tile.setContentType(VectorTile.VectorTileContentType.BINARY_CONTENT);
+				// labels are not part of the binary format, they are painted as SVG
+				tilePainter = new BinaryContentTilePainter(metadata.getScale(), panOrigin,
+						new StringContentTilePainter(layer, metadata.getStyleInfo(), TileMetadata.PARAM_SVG_RENDERER,
+								metadata.getScale(), panOrigin, geoService, textService));
+			} else {
+				tile.setContentType(VectorTile.VectorTileContentType.STRING_CONTENT);
+				tilePainter = new StringContentTilePainter(layer, metadata.getStyleInfo(), metadata.getRenderer(),
+						metadata.getScale(), panOrigin, geoService, textService);
+			}
 			tilePainter.setPaintGeometries(metadata.isPaintGeometries());
 			tilePainter.setPaintLabels(metadata.isPaintLabels());
 			log.debug("Going to paint features {}", tile.getFeatures());
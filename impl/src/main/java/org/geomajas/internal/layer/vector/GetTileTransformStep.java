@@ -49,7 +49,7 @@ public class GetTileTransformStep implements PipelineStep<GetTileContainer> {
 	public void execute(PipelineContext context, GetTileContainer response) throws GeomajasException {
 		// Determine transformation to apply
 		InternalTile tile = response.getTile();
-		CrsTransform transform = context.get(PipelineCode.CRS_TRANSFORM_KEY, CrsTransform.class);
+		CrsTransform transform = context.get(PipelineCode.CRS_TRANSFORM);
 
 		// convert feature geometries to layer, need to copy to assure cache is not affected
 		List<InternalFeature> features = new ArrayList<InternalFeature>();
@@ -12,6 +12,7 @@
 package org.geomajas.internal.layer.vector;
 
 import org.geomajas.global.GeomajasException;
+import org.geomajas.internal.security.DefaultSecurityContext;
 import org.geomajas.layer.VectorLayer;
 import org.geomajas.service.pipeline.PipelineCode;
 import org.geomajas.service.pipeline.PipelineContext;
@@ -21,20 +22,41 @@ import org.opengis.filter.Filter;
  * Extend the existing layer filter (in the context, if any) to include layer security.
  * <p/>
  * This combines the visible area, the security filter for the layer, the default filter for the layer,
+ * and the feature visibility when the authorizations can express it as a filter. Features which are not visible are
+ * then not returned by the layer at all, allowing the layer to do the paging. When this is the case,
+ * {@link #VISIBILITY_FILTERED_KEY} is set in the context.
  *
  * @author Joachim Van der Auwera
  */
 public class LayerFilterStep extends AbstractSaveOrUpdateStep {
 
+	/**
+	 * Context key, Boolean which is true when the feature visibility is included in the filter.
+	 */
+	public static final String VISIBILITY_FILTERED_KEY = "visibilityFiltered";
+
 	public void execute(PipelineContext context, Object response) throws GeomajasException {
 		VectorLayer layer = context.get(PipelineCode.LAYER_KEY, VectorLayer.class);
-		Filter filter = context.getOptional(PipelineCode.FILTER_KEY, Filter.class);
+		Filter filter = context.getOptional(PipelineCode.FILTER);
 		String layerId = layer.getId();
 
+		// merge the feature visibility when the authorizations can express it as a filter
+		boolean visibilityFiltered = false;
+		if (securityContext instanceof DefaultSecurityContext) {
+			Filter visibilityFilter = ((DefaultSecurityContext) securityContext).getFeatureVisibilityFilter(layerId);
+			if (null != visibilityFilter) {
+				if (!Filter.INCLUDE.equals(visibilityFilter)) {
+					filter = and(filter, visibilityFilter);
+				}
+				visibilityFiltered = true;
+			}
+		}
+		context.put(VISIBILITY_FILTERED_KEY, visibilityFiltered);
+
 		// apply visible area filter
-		filter = getSecurityFilter(filter, layer, securityContext.getVisibleArea(layerId));
+		filter = getSecurityFilter(filter, layer, getVisibleArea(layerId));
 
-		context.put(PipelineCode.FILTER_KEY, filter);
+		context.put(PipelineCode.FILTER, filter);
 	}
 
 }
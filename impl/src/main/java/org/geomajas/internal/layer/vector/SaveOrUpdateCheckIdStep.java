@@ -36,11 +36,11 @@ public class SaveOrUpdateCheckIdStep implements PipelineStep {
 	}
 
 	public void execute(PipelineContext context, Object response) throws GeomajasException {
-		InternalFeature oldFeature = context.getOptional(PipelineCode.OLD_FEATURE_KEY, InternalFeature.class);
+		InternalFeature oldFeature = context.getOptional(PipelineCode.OLD_FEATURE);
 		if (null != oldFeature) {
-			InternalFeature newFeature = context.get(PipelineCode.FEATURE_KEY, InternalFeature.class);
+			InternalFeature newFeature = context.get(PipelineCode.FEATURE);
 			if (null == oldFeature.getId() || !oldFeature.getId().equals(newFeature.getId())) {
-				int index = context.get(PipelineCode.INDEX_KEY, Integer.class);
+				int index = context.getInt(PipelineCode.INDEX);
 				throw new GeomajasException(ExceptionCode.FEATURE_ID_MISMATCH, index);
 			}
 		}
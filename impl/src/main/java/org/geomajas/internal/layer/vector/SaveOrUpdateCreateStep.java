@@ -28,11 +28,11 @@ import org.geomajas.service.pipeline.PipelineContext;
 public class SaveOrUpdateCreateStep extends AbstractSaveOrUpdateStep {
 
 	public void execute(PipelineContext context, Object response) throws GeomajasException {
-		InternalFeature oldFeature = context.getOptional(PipelineCode.OLD_FEATURE_KEY, InternalFeature.class);
-		InternalFeature newFeature = context.get(PipelineCode.FEATURE_KEY, InternalFeature.class);
+		InternalFeature oldFeature = context.getOptional(PipelineCode.OLD_FEATURE);
+		InternalFeature newFeature = context.get(PipelineCode.FEATURE);
 		if (null == oldFeature) {
 			// create new feature
-			String layerId = context.get(PipelineCode.LAYER_ID_KEY, String.class);
+			String layerId = context.get(PipelineCode.LAYER_ID);
 			VectorLayer layer = context.get(PipelineCode.LAYER_KEY, VectorLayer.class);
 			FeatureModel featureModel = layer.getFeatureModel();
 			if (securityContext.isFeatureCreateAuthorized(layerId, newFeature)) {
@@ -42,8 +42,8 @@ public class SaveOrUpdateCreateStep extends AbstractSaveOrUpdateStep {
 				} else {
 					feature = featureModel.newInstance(newFeature.getId());
 				}
-				context.put(PipelineCode.FEATURE_DATA_OBJECT_KEY, feature);
-				context.put(PipelineCode.IS_CREATE_KEY, true);
+				context.put(PipelineCode.FEATURE_DATA_OBJECT, feature);
+				context.put(PipelineCode.IS_CREATE, true);
 			} else {
 				throw new GeomajasSecurityException(ExceptionCode.FEATURE_CREATE_PROHIBITED, securityContext
 						.getUserId());
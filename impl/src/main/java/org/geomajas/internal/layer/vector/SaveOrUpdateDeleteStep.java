@@ -18,7 +18,6 @@ import org.geomajas.layer.feature.InternalFeature;
 import org.geomajas.security.GeomajasSecurityException;
 import org.geomajas.service.pipeline.PipelineCode;
 import org.geomajas.service.pipeline.PipelineContext;
-import org.opengis.filter.Filter;
 
 /**
  * Handle possible delete of an individual feature in saveOrUpdate.
@@ -30,19 +29,17 @@ import org.opengis.filter.Filter;
 public class SaveOrUpdateDeleteStep extends AbstractSaveOrUpdateStep {
 
 	public void execute(PipelineContext context, Object response) throws GeomajasException {
-		InternalFeature newFeature = context.getOptional(PipelineCode.FEATURE_KEY, InternalFeature.class);
+		InternalFeature newFeature = context.getOptional(PipelineCode.FEATURE);
 		if (null == newFeature) {
 			// delete ?
-			InternalFeature oldFeature = context.getOptional(PipelineCode.OLD_FEATURE_KEY, InternalFeature.class);
+			InternalFeature oldFeature = context.getOptional(PipelineCode.OLD_FEATURE);
 			if (null != oldFeature) {
-				String layerId = context.get(PipelineCode.LAYER_ID_KEY, String.class);
+				String layerId = context.get(PipelineCode.LAYER_ID);
 				if (securityContext.isFeatureDeleteAuthorized(layerId, oldFeature)) {
 					VectorLayer layer = context.get(PipelineCode.LAYER_KEY, VectorLayer.class);
 					Object featureObj = layer.read(oldFeature.getId());
 					if (null != featureObj) {
-						Filter securityFilter = getSecurityFilter(layer,
-								securityContext.getDeleteAuthorizedArea(layerId));
-						if (securityFilter.evaluate(featureObj)) {
+						if (isAuthorized(layer, featureObj, getDeleteAuthorizedArea(layerId))) {
 							layer.delete(oldFeature.getId());
 						} else {
 							throw new GeomajasSecurityException(ExceptionCode.FEATURE_DELETE_PROHIBITED,
@@ -48,17 +48,17 @@ public class SaveOrUpdateEachStep implements PipelineStep {
 	}
 
 	public void execute(PipelineContext context, Object response) throws GeomajasException {
-		String layerId = context.get(PipelineCode.LAYER_ID_KEY, String.class);
+		String layerId = context.get(PipelineCode.LAYER_ID);
 		PipelineInfo pipelineInfo = pipelineService.getPipeline(pipelineName, layerId);
-		List<InternalFeature> oldFeatures = context.get(PipelineCode.OLD_FEATURES_KEY, List.class);
-		List<InternalFeature> newFeatures = context.get(PipelineCode.NEW_FEATURES_KEY, List.class);
+		List<InternalFeature> oldFeatures = context.get(PipelineCode.OLD_FEATURES);
+		List<InternalFeature> newFeatures = context.get(PipelineCode.NEW_FEATURES);
 
 		int count = oldFeatures.size();
 		for (int i = 0; i < count; i++) {
-			context.put(PipelineCode.INDEX_KEY, i);
-			context.put(PipelineCode.OLD_FEATURE_KEY, oldFeatures.get(i));
+			context.putInt(PipelineCode.INDEX, i);
+			context.put(PipelineCode.OLD_FEATURE, oldFeatures.get(i));
 			InternalFeature newFeature = newFeatures.get(i);
-			context.put(PipelineCode.FEATURE_KEY, newFeature);
+			context.put(PipelineCode.FEATURE, newFeature);
 
 			pipelineService.execute(pipelineInfo, context, newFeature);
 		}
@@ -21,6 +21,7 @@ import org.geomajas.configuration.VectorLayerInfo;
 import org.geomajas.geometry.Geometry;
 import org.geomajas.global.ExceptionCode;
 import org.geomajas.global.GeomajasException;
+import org.geomajas.internal.security.PreparedArea;
 import org.geomajas.layer.LayerException;
 import org.geomajas.layer.LayerType;
 import org.geomajas.layer.VectorLayer;
@@ -31,7 +32,6 @@ import org.geomajas.security.GeomajasSecurityException;
 import org.geomajas.service.DtoConverterService;
 import org.geomajas.service.pipeline.PipelineCode;
 import org.geomajas.service.pipeline.PipelineContext;
-import org.opengis.filter.Filter;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
@@ -45,14 +45,14 @@ public class SaveOrUpdateSaveStep extends AbstractSaveOrUpdateStep {
 	private DtoConverterService converterService;
 
 	public void execute(PipelineContext context, Object response) throws GeomajasException {
-		InternalFeature newFeature = context.getOptional(PipelineCode.FEATURE_KEY, InternalFeature.class);
-		Object feature = context.get(PipelineCode.FEATURE_DATA_OBJECT_KEY);
-		String layerId = context.get(PipelineCode.LAYER_ID_KEY, String.class);
+		InternalFeature newFeature = context.getOptional(PipelineCode.FEATURE);
+		Object feature = context.get(PipelineCode.FEATURE_DATA_OBJECT);
+		String layerId = context.get(PipelineCode.LAYER_ID);
 		VectorLayer layer = context.get(PipelineCode.LAYER_KEY, VectorLayer.class);
 		FeatureInfo featureInfo = layer.getLayerInfo().getFeatureInfo();
 		Map<String, AbstractAttributeInfo> attributesMap = featureInfo.getAttributesMap();
 		FeatureModel featureModel = layer.getFeatureModel();
-		Boolean isCreateObject = context.getOptional(PipelineCode.IS_CREATE_KEY, Boolean.class);
+		Boolean isCreateObject = context.getOptional(PipelineCode.IS_CREATE);
 		boolean isCreate  = false;
 		if (null != isCreateObject && isCreateObject) {
 			isCreate = true;
@@ -98,14 +98,14 @@ public class SaveOrUpdateSaveStep extends AbstractSaveOrUpdateStep {
 			}
 		}
 
-		Filter securityFilter;
+		PreparedArea area;
 		if (isCreate) {
-			securityFilter = getSecurityFilter(layer, securityContext.getCreateAuthorizedArea(layerId));
+			area = getCreateAuthorizedArea(layerId);
 		} else {
-			securityFilter = getSecurityFilter(layer, securityContext.getUpdateAuthorizedArea(layerId));
+			area = getUpdateAuthorizedArea(layerId);
 		}
-		if (securityFilter.evaluate(feature)) {
-			context.put(PipelineCode.FEATURE_DATA_OBJECT_KEY, layer.saveOrUpdate(feature));
+		if (isAuthorized(layer, feature, area)) {
+			context.put(PipelineCode.FEATURE_DATA_OBJECT, layer.saveOrUpdate(feature));
 			if (isCreate) {
 				newFeature.setId(featureModel.getId(feature));
 			}
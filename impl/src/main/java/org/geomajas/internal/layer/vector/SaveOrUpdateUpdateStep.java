@@ -27,14 +27,14 @@ import org.geomajas.service.pipeline.PipelineContext;
 public class SaveOrUpdateUpdateStep extends AbstractSaveOrUpdateStep {
 
 	public void execute(PipelineContext context, Object response) throws GeomajasException {
-		InternalFeature oldFeature = context.getOptional(PipelineCode.OLD_FEATURE_KEY, InternalFeature.class);
-		InternalFeature newFeature = context.get(PipelineCode.FEATURE_KEY, InternalFeature.class);
+		InternalFeature oldFeature = context.getOptional(PipelineCode.OLD_FEATURE);
+		InternalFeature newFeature = context.get(PipelineCode.FEATURE);
 		if (null != oldFeature) {
-			String layerId = context.get(PipelineCode.LAYER_ID_KEY, String.class);
+			String layerId = context.get(PipelineCode.LAYER_ID);
 			VectorLayer layer = context.get(PipelineCode.LAYER_KEY, VectorLayer.class);
 			if (securityContext.isFeatureUpdateAuthorized(layerId, oldFeature, newFeature)) {
-				if (null == context.getOptional(PipelineCode.FEATURE_DATA_OBJECT_KEY)) {
-					context.put(PipelineCode.FEATURE_DATA_OBJECT_KEY, layer.read(newFeature.getId()));
+				if (null == context.getOptional(PipelineCode.FEATURE_DATA_OBJECT)) {
+					context.put(PipelineCode.FEATURE_DATA_OBJECT, layer.read(newFeature.getId()));
 				}
 			} else {
 				throw new GeomajasSecurityException(ExceptionCode.FEATURE_UPDATE_PROHIBITED,
@@ -41,8 +41,8 @@ public class UpdateFeatureStep implements PipelineStep {
 	}
 
 	public void execute(PipelineContext context, Object response) throws GeomajasException {
-		Object feature = context.get(PipelineCode.FEATURE_DATA_OBJECT_KEY);
-		InternalFeature newFeature = context.get(PipelineCode.FEATURE_KEY, InternalFeature.class);
+		Object feature = context.get(PipelineCode.FEATURE_DATA_OBJECT);
+		InternalFeature newFeature = context.get(PipelineCode.FEATURE);
 		VectorLayer layer = context.get(PipelineCode.LAYER_KEY, VectorLayer.class);
 
 		// Not needed for existing features, but no problem to re-set feature id
@@ -52,7 +52,7 @@ public class UpdateFeatureStep implements PipelineStep {
 
 		newFeature = attributeService.getAttributes(layer, newFeature, feature);
 		if (null == newFeature) {
-			context.put(PipelineCode.FEATURE_KEY, null);
+			context.put(PipelineCode.FEATURE, null);
 		}
 	}
 
@@ -58,6 +58,9 @@ public abstract class AbstractGraphicsDocument implements GraphicsDocument {
 	/** A formatter for floating point values. Used when writing */
 	protected DecimalFormat formatter;
 
+	/** Writes numbers directly, using the fraction digits of the formatter. */
+	private final FastNumberFormat numberFormat;
+
 	/**
 	 * Initialise the abstract graphics document, specifically meant to set the formatter.
 	 *
@@ -82,6 +85,8 @@ public abstract class AbstractGraphicsDocument implements GraphicsDocument {
 
 		// minimum fraction digits to 0 so they get not rendered if not needed
 		formatter.setMinimumFractionDigits(0);
+
+		numberFormat = new FastNumberFormat(formatter);
 	}
 
 	public String toString() {
@@ -123,13 +128,22 @@ public abstract class AbstractGraphicsDocument implements GraphicsDocument {
 	}
 
 	public void writeAttribute(String name, double value) throws RenderException {
-		writeAttribute(name, formatter.format(value));
+		try {
+			checkState(false);
+			writeAttributeName(name);
+			numberFormat.write(writer, value);
+			writer.write('"');
+		} catch (IOException ioe) {
+			throw new RenderException(ioe, ExceptionCode.RENDER_DOCUMENT_IO_EXCEPTION);
+		}
 	}
 
 	public void writeAttribute(String name, String value) throws RenderException {
 		try {
 			checkState(false);
-			writer.write(" " + name + "=" + "\"" + safeHtml(value) + "\"");
+			writeAttributeName(name);
+			writeSafeHtml(value);
+			writer.write('"');
 		} catch (IOException ioe) {
 			throw new RenderException(ioe, ExceptionCode.RENDER_DOCUMENT_IO_EXCEPTION);
 		}
@@ -148,7 +162,7 @@ public abstract class AbstractGraphicsDocument implements GraphicsDocument {
 	public void writeAttributeStart(String name) throws RenderException {
 		try {
 			checkState(false);
-			writer.write(" " + name + "=\"");
+			writeAttributeName(name);
 			inAttribute = true;
 		} catch (IOException ioe) {
 			throw new RenderException(ioe, ExceptionCode.RENDER_DOCUMENT_IO_EXCEPTION);
@@ -172,10 +186,11 @@ public abstract class AbstractGraphicsDocument implements GraphicsDocument {
 					if (!previous.isOpened()) {
 						writer.write(">");
 					}
-					writer.write("</" + previous.getName() + ">");
+					writeCloseTag(previous.getName());
 				}
 			}
-			writer.write("<" + name);
+			writer.write('<');
+			writer.write(name);
 			elements.push(new ElementState(name));
 		} catch (IOException ioe) {
 			throw new RenderException(ioe, ExceptionCode.RENDER_DOCUMENT_IO_EXCEPTION);
@@ -191,7 +206,7 @@ public abstract class AbstractGraphicsDocument implements GraphicsDocument {
 					if (!current.isOpened()) {
 						writer.write(">");
 					}
-					writer.write("</" + current.getName() + ">");
+					writeCloseTag(current.getName());
 				} else {
 					writer.write("/>");
 				}
@@ -207,28 +222,84 @@ public abstract class AbstractGraphicsDocument implements GraphicsDocument {
 			checkState(true);
 			writer.write(path);
 
-			Coordinate curr = roundCoordinate(coords[0]);
-			writeCoordinate(curr);
-			Coordinate prev = curr;
-
-			int nCoords = coords.length;
-			if (nCoords > 1) {
-				writer.write(point);
-				for (int i = 1; i < nCoords; i++) {
-					curr = coords[i];
-					Coordinate delta = new Coordinate(curr.x - prev.x, curr.y - prev.y);
-					delta = roundCoordinate(delta);
-					if (!delta.equals(NULL_COORDINATE) || i == 1) {
-						writeCoordinate(delta);
-						prev.x += delta.x;
-						prev.y += delta.y;
-						writer.write(' ');
-					}
+			writePathCoordinates(coords, coords.length, point);
+		} catch (IOException ioe) {
+			throw new RenderException(ioe, ExceptionCode.RENDER_DOCUMENT_IO_EXCEPTION);
+		}
+	}
 
+	/**
+	 * Write the coordinates of a path, the first coordinate is absolute, the others are relative to the previous
+	 * written coordinate. Coordinates which do not move after rounding are skipped. All calculations are done on
+	 * rounded and scaled longs, so no intermediate coordinates or strings are created.
+	 *
+	 * @param coords coordinates
+	 * @param nCoords number of coordinates to write, allows skipping the closing coordinate of a ring
+	 * @param point command to write before the relative coordinates
+	 * @throws IOException cannot write
+	 * @throws RenderException cannot render
+	 */
+	protected void writePathCoordinates(Coordinate[] coords, int nCoords, char point)
+			throws IOException, RenderException {
+		if (!canScale(coords, nCoords)) {
+			writeLargePathCoordinates(coords, nCoords, point);
+			return;
+		}
+		long prevX = numberFormat.round(coords[0].x);
+		long prevY = numberFormat.round(coords[0].y);
+		writeScaledCoordinate(prevX, prevY);
+		if (nCoords > 1) {
+			writer.write(point);
+			double scale = numberFormat.getScale();
+			for (int i = 1; i < nCoords; i++) {
+				Coordinate curr = coords[i];
+				// delta against the rounded previous position, so rounding errors do not accumulate
+				long dx = Math.round(curr.x * scale - prevX);
+				long dy = Math.round(curr.y * scale - prevY);
+				if (dx != 0 || dy != 0 || i == 1) {
+					writeScaledCoordinate(dx, dy);
+					prevX += dx;
+					prevY += dy;
+					writer.write(' ');
+				}
+			}
+		}
+	}
+
+	private boolean canScale(Coordinate[] coords, int nCoords) {
+		for (int i = 0; i < nCoords; i++) {
+			// deltas can be twice as large as the coordinates
+			if (!numberFormat.canScale(2 * coords[i].x) || !numberFormat.canScale(2 * coords[i].y)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void writeScaledCoordinate(long x, long y) throws IOException {
+		numberFormat.writeScaled(writer, x);
+		writer.write(' ');
+		numberFormat.writeScaled(writer, y);
+	}
+
+	private void writeLargePathCoordinates(Coordinate[] coords, int nCoords, char point)
+			throws IOException, RenderException {
+		Coordinate curr = roundCoordinate(coords[0]);
+		writeCoordinate(curr);
+		Coordinate prev = curr;
+		if (nCoords > 1) {
+			writer.write(point);
+			for (int i = 1; i < nCoords; i++) {
+				curr = coords[i];
+				Coordinate delta = new Coordinate(curr.x - prev.x, curr.y - prev.y);
+				delta = roundCoordinate(delta);
+				if (!delta.equals(NULL_COORDINATE) || i == 1) {
+					writeCoordinate(delta);
+					prev.x += delta.x;
+					prev.y += delta.y;
+					writer.write(' ');
 				}
 			}
-		} catch (IOException ioe) {
-			throw new RenderException(ioe, ExceptionCode.RENDER_DOCUMENT_IO_EXCEPTION);
 		}
 	}
 
@@ -256,12 +327,15 @@ public abstract class AbstractGraphicsDocument implements GraphicsDocument {
 	}
 
 	protected void writeCoordinate(Coordinate c) throws IOException {
-		writer.write(formatter.format(c.x));
+		numberFormat.write(writer, c.x);
 		writer.write(' ');
-		writer.write(formatter.format(c.y));
+		numberFormat.write(writer, c.y);
 	}
 
 	protected double roundDouble(double d) {
+		if (numberFormat.canScale(d)) {
+			return numberFormat.round(d) / numberFormat.getScale();
+		}
 		int frac = formatter.getMaximumFractionDigits();
 		double scale = Math.pow(10, frac);
 		double result = d * scale;
@@ -312,6 +386,54 @@ public abstract class AbstractGraphicsDocument implements GraphicsDocument {
 		return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
 	}
 
+	private void writeAttributeName(String name) throws IOException {
+		writer.write(' ');
+		writer.write(name);
+		writer.write("=\"");
+	}
+
+	private void writeCloseTag(String name) throws IOException {
+		writer.write("</");
+		writer.write(name);
+		writer.write('>');
+	}
+
+	/**
+	 * Write a value with the same escaping as {@link #safeHtml(String)}, without building the escaped string. Runs
+	 * without special characters are written in one go.
+	 *
+	 * @param value value to write
+	 * @throws IOException cannot write
+	 */
+	private void writeSafeHtml(String value) throws IOException {
+		int length = value.length();
+		int start = 0;
+		for (int i = 0; i < length; i++) {
+			String replacement;
+			switch (value.charAt(i)) {
+				case '&':
+					replacement = "&amp;";
+					break;
+				case '<':
+					replacement = "&lt;";
+					break;
+				case '>':
+					replacement = "&gt;";
+					break;
+				default:
+					continue;
+			}
+			if (i > start) {
+				writer.write(value, start, i - start);
+			}
+			writer.write(replacement);
+			start = i + 1;
+		}
+		if (start < length) {
+			writer.write(value, start, length - start);
+		}
+	}
+
 	/** State for an element in the stack. */
 	protected static class ElementState {
 
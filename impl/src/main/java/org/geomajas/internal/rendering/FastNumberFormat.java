@@ -0,0 +1,188 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.internal.rendering;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+
+/**
+ * Fast number formatting for the graphics documents. Numbers are rounded to a fixed number of fraction digits and
+ * written directly from a reusable char buffer, without creating intermediate strings.
+ * <p/>
+ * The number of fraction digits and the rounding mode follow the {@link DecimalFormat} of the document, which is also
+ * used as fallback for numbers which cannot be represented as scaled long (very large numbers, infinity and NaN) and
+ * for rounding modes other than the half-way modes. Like {@link DecimalFormat}, values which are (almost) half-way
+ * are rounded based on their exact decimal value.
+ * <p/>
+ * Not thread safe, each document has its own instance.
+ *
+ * @author Joachim Van der Auwera
+ */
+final class FastNumberFormat {
+
+	private static final int MAX_SCALE_DIGITS = 15;
+
+	private static final double MAX_SCALED = 1e15;
+
+	private static final int BUFFER_SIZE = 32;
+
+	private static final double HALF = 0.5;
+
+	private static final int TIE_ULPS = 2;
+
+	private final DecimalFormat fallback;
+
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	private int maximumFractionDigits = -1;
+
+	private int minimumFractionDigits = -1;
+
+	private double scale;
+
+	private boolean useFallback;
+
+	private RoundingMode roundingMode;
+
+	/**
+	 * Create a number format which uses the fraction digits of the given {@link DecimalFormat}.
+	 *
+	 * @param fallback decimal format
+	 */
+	FastNumberFormat(DecimalFormat fallback) {
+		this.fallback = fallback;
+	}
+
+	/**
+	 * Get the factor to multiply a number with before rounding to a long.
+	 *
+	 * @return scale factor, 10 to the power of the maximum fraction digits
+	 */
+	double getScale() {
+		sync();
+		return scale;
+	}
+
+	/**
+	 * Round a number to the maximum number of fraction digits, the result is scaled using {@link #getScale()}. This
+	 * rounds half up, like the coordinate rounding of the graphics documents.
+	 *
+	 * @param value number to round
+	 * @return scaled and rounded number
+	 */
+	long round(double value) {
+		sync();
+		return Math.round(value * scale);
+	}
+
+	/**
+	 * Can the value be written using {@link #writeScaled(Writer, long)}?
+	 *
+	 * @param value number
+	 * @return true when the value can be rounded to a scaled long
+	 */
+	boolean canScale(double value) {
+		sync();
+		return !useFallback && Math.abs(value * scale) < MAX_SCALED;
+	}
+
+	/**
+	 * Write a number.
+	 *
+	 * @param writer writer
+	 * @param value number to write
+	 * @throws IOException cannot write
+	 */
+	void write(Writer writer, double value) throws IOException {
+		if (canScale(value)) {
+			writeScaled(writer, roundLikeFormat(value));
+		} else {
+			writer.write(fallback.format(value));
+		}
+	}
+
+	/**
+	 * Write a number which was already scaled and rounded using {@link #round(double)}.
+	 *
+	 * @param writer writer
+	 * @param scaled scaled number
+	 * @throws IOException cannot write
+	 */
+	void writeScaled(Writer writer, long scaled) throws IOException {
+		sync();
+		boolean negative = scaled < 0;
+		long rest = negative ? -scaled : scaled;
+		int fractionDigits = maximumFractionDigits;
+		// drop trailing zeros, but keep the minimum number of fraction digits
+		while (fractionDigits > minimumFractionDigits && rest % 10 == 0) {
+			rest /= 10;
+			fractionDigits--;
+		}
+		int pos = BUFFER_SIZE;
+		if (fractionDigits > 0) {
+			for (int i = 0; i < fractionDigits; i++) {
+				buffer[--pos] = (char) ('0' + (rest % 10));
+				rest /= 10;
+			}
+			buffer[--pos] = '.';
+		}
+		do {
+			buffer[--pos] = (char) ('0' + (rest % 10));
+			rest /= 10;
+		} while (rest > 0);
+		if (negative) {
+			buffer[--pos] = '-';
+		}
+		writer.write(buffer, pos, BUFFER_SIZE - pos);
+	}
+
+	/**
+	 * Round a number to the maximum number of fraction digits using the rounding mode of the {@link DecimalFormat}.
+	 *
+	 * @param value number to round
+	 * @return scaled and rounded number
+	 */
+	private long roundLikeFormat(double value) {
+		double scaled = value * scale;
+		if (Math.abs(scaled - Math.floor(scaled) - HALF) <= TIE_ULPS * Math.ulp(scaled)) {
+			// (almost) half-way, the multiplication may have rounded, so use the exact value
+			if (RoundingMode.HALF_EVEN == roundingMode && Math.abs(scaled) < 1) {
+				// DecimalFormat considers this a tie, rounding to zero
+				return 0;
+			}
+			return new BigDecimal(value).setScale(maximumFractionDigits, roundingMode).unscaledValue().longValue();
+		}
+		return Math.round(scaled);
+	}
+
+	private void sync() {
+		// the decimal format is public through the document, so it may have been changed directly
+		int max = fallback.getMaximumFractionDigits();
+		int min = fallback.getMinimumFractionDigits();
+		RoundingMode mode = fallback.getRoundingMode();
+		if (max != maximumFractionDigits || min != minimumFractionDigits || mode != roundingMode) {
+			maximumFractionDigits = max;
+			minimumFractionDigits = Math.min(min, max);
+			roundingMode = mode;
+			useFallback = max > MAX_SCALE_DIGITS || (mode != RoundingMode.HALF_EVEN && mode != RoundingMode.HALF_UP
+					&& mode != RoundingMode.HALF_DOWN);
+			double factor = 1;
+			for (int i = 0; i < max && i < MAX_SCALE_DIGITS; i++) {
+				factor *= 10;
+			}
+			scale = factor;
+		}
+	}
+}
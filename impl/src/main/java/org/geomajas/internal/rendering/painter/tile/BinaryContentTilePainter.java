@@ -0,0 +1,132 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.internal.rendering.painter.tile;
+
+import java.util.Collections;
+
+import org.apache.commons.codec.binary.Base64;
+import org.geomajas.internal.rendering.writer.binary.BinaryTileWriter;
+import org.geomajas.layer.tile.InternalTile;
+import org.geomajas.layer.tile.VectorTile.VectorTileContentType;
+import org.geomajas.rendering.RenderException;
+import org.geomajas.rendering.painter.tile.TilePainter;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+/**
+ * <p>
+ * TilePainter implementation which encodes the tile's features in the compact binary format of
+ * {@link BinaryTileWriter}. The feature content is the base64 encoding of the binary data, so the tile can be
+ * transported (GWT-RPC and JSON only allow string content) and cached like the string content tiles.
+ * </p>
+ * <p>
+ * The base64 encoding makes the content a third larger than the binary data. The net result is still smaller than
+ * the SVG or VML content: a coordinate delta takes one to three bytes (two to four characters) instead of up to ten
+ * characters plus separators, and the style is written once per tile instead of once per feature. This is verified
+ * by comparing the content lengths in <code>VectorLayerServiceTest</code>.
+ * </p>
+ * <p>
+ * Labels are not part of the binary format. When labels are requested, they are painted by the label painter
+ * which is passed in the constructor (a {@link StringContentTilePainter} which only paints labels).
+ * </p>
+ *
+ * @author Joachim Van der Auwera
+ */
+public class BinaryContentTilePainter implements TilePainter {
+
+	/**
+	 * Should this painter paint a feature's geometries or not?
+	 */
+	private boolean paintGeometries = true;
+
+	/**
+	 * Should this painter paint a feature's labels or not?
+	 */
+	private boolean paintLabels;
+
+	/**
+	 * The current client-side scale.
+	 */
+	private final double scale;
+
+	/**
+	 * The current origin may differ, depending on whether or not the client has been panning.
+	 */
+	private final Coordinate panOrigin;
+
+	/**
+	 * Painter for the labels.
+	 */
+	private final TilePainter labelPainter;
+
+	/**
+	 * Initialize this painter with all the info it needs.
+	 *
+	 * @param scale
+	 *            The current client-side scale. Needed for the world to view space transformation.
+	 * @param panOrigin
+	 *            The current origin may differ, depending on whether or not the client has been panning. Needed for
+	 *            the world to view space transformation.
+	 * @param labelPainter
+	 *            Painter which is used to paint the labels, it is only used to paint labels.
+	 */
+	public BinaryContentTilePainter(double scale, Coordinate panOrigin, TilePainter labelPainter) {
+		this.scale = scale;
+		this.panOrigin = panOrigin;
+		this.labelPainter = labelPainter;
+	}
+
+	/**
+	 * Paint the tile, the binary encoded features are stored as base64 string in the tile's feature content.
+	 *
+	 * @param tile
+	 *            tile to paint
+	 * @return the painted tile
+	 */
+	public InternalTile paint(InternalTile tile) throws RenderException {
+		if (null != tile && null != tile.getFeatures()) {
+			tile.setContentType(VectorTileContentType.BINARY_CONTENT);
+			if (paintGeometries) {
+				Collections.sort(tile.getFeatures()); // same feature order as for the string content
+				byte[] data = new BinaryTileWriter(scale, panOrigin).write(tile);
+				tile.setFeatureContent(Base64.encodeBase64String(data));
+			}
+			if (paintLabels) {
+				labelPainter.setPaintGeometries(false);
+				labelPainter.setPaintLabels(true);
+				labelPainter.paint(tile);
+			}
+		}
+		return tile;
+	}
+
+	/**
+	 * Enables or disabled the use of painter that paint the geometries of the features in the tile.
+	 *
+	 * @param paintGeometries
+	 *            true or false.
+	 */
+	public void setPaintGeometries(boolean paintGeometries) {
+		this.paintGeometries = paintGeometries;
+	}
+
+	/**
+	 * Enables or disabled the use of painter that paint the labels of the features in the tile. The labels are
+	 * painted by the label painter.
+	 *
+	 * @param paintLabels
+	 *            true or false.
+	 */
+	public void setPaintLabels(boolean paintLabels) {
+		this.paintLabels = paintLabels;
+	}
+}
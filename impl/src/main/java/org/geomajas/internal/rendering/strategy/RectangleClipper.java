@@ -0,0 +1,421 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.internal.rendering.strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.MultiLineString;
+import com.vividsolutions.jts.geom.MultiPoint;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+
+/**
+ * <p>
+ * Internal utility class which clips geometries to a rectangle. This is a lot faster than the generic JTS overlay,
+ * as it works directly on the coordinate sequences. Lines are clipped using Cohen-Sutherland, polygon rings using
+ * Sutherland-Hodgman.
+ * </p>
+ * <p>
+ * The result is meant for rendering. Concave polygons which are cut in several pieces by the rectangle remain one
+ * polygon, connected by edges on the rectangle border. Geometries which are entirely inside the rectangle are
+ * returned as-is.
+ * </p>
+ *
+ * @author Joachim Van der Auwera
+ */
+public final class RectangleClipper {
+
+	private static final int INSIDE = 0;
+
+	private static final int LEFT = 1;
+
+	private static final int RIGHT = 2;
+
+	private static final int BOTTOM = 4;
+
+	private static final int TOP = 8;
+
+	private RectangleClipper() {
+	}
+
+	/**
+	 * Clip a geometry to a rectangle.
+	 *
+	 * @param geometry geometry to clip
+	 * @param clip clipping rectangle
+	 * @return clipped geometry, can be empty
+	 */
+	public static Geometry clip(Geometry geometry, Envelope clip) {
+		Envelope envelope = geometry.getEnvelopeInternal();
+		if (clip.contains(envelope)) {
+			return geometry;
+		}
+		GeometryFactory factory = geometry.getFactory();
+		if (!clip.intersects(envelope)) {
+			return empty(geometry, factory);
+		}
+		if (geometry instanceof Point) {
+			return geometry; // inside, as the envelope intersects
+		} else if (geometry instanceof MultiPoint) {
+			List<Point> points = new ArrayList<Point>();
+			for (int i = 0; i < geometry.getNumGeometries(); i++) {
+				Point point = (Point) geometry.getGeometryN(i);
+				if (clip.contains(point.getX(), point.getY())) {
+					points.add(point);
+				}
+			}
+			return factory.createMultiPoint(points.toArray(new Point[points.size()]));
+		} else if (geometry instanceof LineString) {
+			List<LineString> lines = new ArrayList<LineString>();
+			clipLine(((LineString) geometry).getCoordinateSequence(), clip, factory, lines);
+			return toLineal(lines, factory);
+		} else if (geometry instanceof MultiLineString) {
+			List<LineString> lines = new ArrayList<LineString>();
+			for (int i = 0; i < geometry.getNumGeometries(); i++) {
+				clipLine(((LineString) geometry.getGeometryN(i)).getCoordinateSequence(), clip, factory, lines);
+			}
+			return toLineal(lines, factory);
+		} else if (geometry instanceof Polygon) {
+			List<Polygon> polygons = new ArrayList<Polygon>();
+			clipPolygon((Polygon) geometry, clip, factory, polygons);
+			return toPolygonal(polygons, factory);
+		} else if (geometry instanceof MultiPolygon) {
+			List<Polygon> polygons = new ArrayList<Polygon>();
+			for (int i = 0; i < geometry.getNumGeometries(); i++) {
+				clipPolygon((Polygon) geometry.getGeometryN(i), clip, factory, polygons);
+			}
+			return toPolygonal(polygons, factory);
+		} else {
+			List<Geometry> parts = new ArrayList<Geometry>();
+			for (int i = 0; i < geometry.getNumGeometries(); i++) {
+				Geometry part = clip(geometry.getGeometryN(i), clip);
+				if (!part.isEmpty()) {
+					parts.add(part);
+				}
+			}
+			return factory.createGeometryCollection(parts.toArray(new Geometry[parts.size()]));
+		}
+	}
+
+	private static Geometry empty(Geometry geometry, GeometryFactory factory) {
+		if (geometry instanceof Point) {
+			return factory.createPoint((Coordinate) null);
+		} else if (geometry instanceof LineString) {
+			return factory.createLineString((Coordinate[]) null);
+		} else if (geometry instanceof Polygon) {
+			return factory.createPolygon(null, null);
+		} else if (geometry instanceof MultiPoint) {
+			return factory.createMultiPoint((Point[]) null);
+		} else if (geometry instanceof MultiLineString) {
+			return factory.createMultiLineString(null);
+		} else if (geometry instanceof MultiPolygon) {
+			return factory.createMultiPolygon(null);
+		}
+		return factory.createGeometryCollection(null);
+	}
+
+	private static Geometry toLineal(List<LineString> lines, GeometryFactory factory) {
+		if (lines.size() == 1) {
+			return lines.get(0);
+		}
+		return factory.createMultiLineString(lines.toArray(new LineString[lines.size()]));
+	}
+
+	private static Geometry toPolygonal(List<Polygon> polygons, GeometryFactory factory) {
+		if (polygons.size() == 1) {
+			return polygons.get(0);
+		}
+		return factory.createMultiPolygon(polygons.toArray(new Polygon[polygons.size()]));
+	}
+
+	// -------------------------------------------------------------------------
+	// Lines, Cohen-Sutherland:
+	// -------------------------------------------------------------------------
+
+	private static void clipLine(CoordinateSequence sequence, Envelope clip, GeometryFactory factory,
+			List<LineString> lines) {
+		int size = sequence.size();
+		if (size == 0) {
+			return;
+		}
+		double minX = clip.getMinX();
+		double minY = clip.getMinY();
+		double maxX = clip.getMaxX();
+		double maxY = clip.getMaxY();
+		CoordinateBuffer part = new CoordinateBuffer(size);
+		double[] segment = new double[4];
+		if (size == 1) {
+			if (clip.contains(sequence.getX(0), sequence.getY(0))) {
+				part.add(sequence.getX(0), sequence.getY(0));
+				part.add(sequence.getX(0), sequence.getY(0));
+				lines.add(factory.createLineString(part.toCoordinates(false)));
+			}
+			return;
+		}
+		for (int i = 1; i < size; i++) {
+			double x0 = sequence.getX(i - 1);
+			double y0 = sequence.getY(i - 1);
+			double x1 = sequence.getX(i);
+			double y1 = sequence.getY(i);
+			segment[0] = x0;
+			segment[1] = y0;
+			segment[2] = x1;
+			segment[3] = y1;
+			if (clipSegment(segment, minX, minY, maxX, maxY)) {
+				boolean startClipped = segment[0] != x0 || segment[1] != y0;
+				if (startClipped && part.size() > 0) {
+					finishLine(part, factory, lines);
+				}
+				if (part.size() == 0) {
+					part.add(segment[0], segment[1]);
+				}
+				part.add(segment[2], segment[3]);
+				if (segment[2] != x1 || segment[3] != y1) {
+					// left the rectangle
+					finishLine(part, factory, lines);
+				}
+			} else if (part.size() > 0) {
+				finishLine(part, factory, lines);
+			}
+		}
+		finishLine(part, factory, lines);
+	}
+
+	private static void finishLine(CoordinateBuffer part, GeometryFactory factory, List<LineString> lines) {
+		if (part.size() > 1) {
+			lines.add(factory.createLineString(part.toCoordinates(false)));
+		}
+		part.clear();
+	}
+
+	/**
+	 * Clip a segment using Cohen-Sutherland.
+	 *
+	 * @param segment segment as x0, y0, x1, y1, replaced by the clipped segment
+	 * @param minX minimum x of clipping rectangle
+	 * @param minY minimum y of clipping rectangle
+	 * @param maxX maximum x of clipping rectangle
+	 * @param maxY maximum y of clipping rectangle
+	 * @return true when part of the segment is inside the rectangle
+	 */
+	static boolean clipSegment(double[] segment, double minX, double minY, double maxX, double maxY) {
+		double x0 = segment[0];
+		double y0 = segment[1];
+		double x1 = segment[2];
+		double y1 = segment[3];
+		int code0 = outCode(x0, y0, minX, minY, maxX, maxY);
+		int code1 = outCode(x1, y1, minX, minY, maxX, maxY);
+		while (true) {
+			if ((code0 | code1) == INSIDE) {
+				segment[0] = x0;
+				segment[1] = y0;
+				segment[2] = x1;
+				segment[3] = y1;
+				return true;
+			}
+			if ((code0 & code1) != INSIDE) {
+				return false;
+			}
+			int code = code0 != INSIDE ? code0 : code1;
+			double x;
+			double y;
+			if ((code & TOP) != 0) {
+				x = x0 + (x1 - x0) * (maxY - y0) / (y1 - y0);
+				y = maxY;
+			} else if ((code & BOTTOM) != 0) {
+				x = x0 + (x1 - x0) * (minY - y0) / (y1 - y0);
+				y = minY;
+			} else if ((code & RIGHT) != 0) {
+				y = y0 + (y1 - y0) * (maxX - x0) / (x1 - x0);
+				x = maxX;
+			} else {
+				y = y0 + (y1 - y0) * (minX - x0) / (x1 - x0);
+				x = minX;
+			}
+			if (code == code0) {
+				x0 = x;
+				y0 = y;
+				code0 = outCode(x0, y0, minX, minY, maxX, maxY);
+			} else {
+				x1 = x;
+				y1 = y;
+				code1 = outCode(x1, y1, minX, minY, maxX, maxY);
+			}
+		}
+	}
+
+	private static int outCode(double x, double y, double minX, double minY, double maxX, double maxY) {
+		int code = INSIDE;
+		if (x < minX) {
+			code |= LEFT;
+		} else if (x > maxX) {
+			code |= RIGHT;
+		}
+		if (y < minY) {
+			code |= BOTTOM;
+		} else if (y > maxY) {
+			code |= TOP;
+		}
+		return code;
+	}
+
+	// -------------------------------------------------------------------------
+	// Polygons, Sutherland-Hodgman:
+	// -------------------------------------------------------------------------
+
+	private static void clipPolygon(Polygon polygon, Envelope clip, GeometryFactory factory, List<Polygon> polygons) {
+		if (polygon.isEmpty()) {
+			return;
+		}
+		LinearRing shell = clipRing(polygon.getExteriorRing(), clip, factory);
+		if (null == shell) {
+			return;
+		}
+		List<LinearRing> holes = new ArrayList<LinearRing>();
+		for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+			LinearRing hole = clipRing(polygon.getInteriorRingN(i), clip, factory);
+			if (null != hole) {
+				holes.add(hole);
+			}
+		}
+		polygons.add(factory.createPolygon(shell, holes.toArray(new LinearRing[holes.size()])));
+	}
+
+	private static LinearRing clipRing(LineString ring, Envelope clip, GeometryFactory factory) {
+		Envelope envelope = ring.getEnvelopeInternal();
+		if (clip.contains(envelope)) {
+			return (LinearRing) ring;
+		}
+		if (!clip.intersects(envelope)) {
+			return null;
+		}
+		CoordinateSequence sequence = ring.getCoordinateSequence();
+		// the ring is closed, the last coordinate is not needed for the algorithm
+		CoordinateBuffer points = new CoordinateBuffer(sequence.size() + 4);
+		for (int i = 0; i < sequence.size() - 1; i++) {
+			points.add(sequence.getX(i), sequence.getY(i));
+		}
+		CoordinateBuffer other = new CoordinateBuffer(points.size() + 4);
+		clipEdge(points, other, LEFT, clip.getMinX());
+		clipEdge(other, points, RIGHT, clip.getMaxX());
+		clipEdge(points, other, BOTTOM, clip.getMinY());
+		clipEdge(other, points, TOP, clip.getMaxY());
+		if (points.size() < 3) {
+			return null;
+		}
+		return factory.createLinearRing(points.toCoordinates(true));
+	}
+
+	private static void clipEdge(CoordinateBuffer in, CoordinateBuffer out, int edge, double value) {
+		out.clear();
+		int size = in.size();
+		if (size == 0) {
+			return;
+		}
+		double prevX = in.getX(size - 1);
+		double prevY = in.getY(size - 1);
+		boolean prevInside = isInside(prevX, prevY, edge, value);
+		for (int i = 0; i < size; i++) {
+			double x = in.getX(i);
+			double y = in.getY(i);
+			boolean inside = isInside(x, y, edge, value);
+			if (inside != prevInside) {
+				// add intersection with the edge
+				if (edge == LEFT || edge == RIGHT) {
+					out.add(value, prevY + (y - prevY) * (value - prevX) / (x - prevX));
+				} else {
+					out.add(prevX + (x - prevX) * (value - prevY) / (y - prevY), value);
+				}
+			}
+			if (inside) {
+				out.add(x, y);
+			}
+			prevX = x;
+			prevY = y;
+			prevInside = inside;
+		}
+	}
+
+	private static boolean isInside(double x, double y, int edge, double value) {
+		switch (edge) {
+			case LEFT:
+				return x >= value;
+			case RIGHT:
+				return x <= value;
+			case BOTTOM:
+				return y >= value;
+			default:
+				return y <= value;
+		}
+	}
+
+	/**
+	 * Growable buffer of x,y pairs.
+	 */
+	private static final class CoordinateBuffer {
+
+		private double[] values;
+
+		private int size;
+
+		private CoordinateBuffer(int capacity) {
+			values = new double[Math.max(capacity, 2) * 2];
+		}
+
+		private void add(double x, double y) {
+			if (size * 2 == values.length) {
+				double[] grown = new double[values.length * 2];
+				System.arraycopy(values, 0, grown, 0, values.length);
+				values = grown;
+			}
+			values[size * 2] = x;
+			values[size * 2 + 1] = y;
+			size++;
+		}
+
+		private double getX(int index) {
+			return values[index * 2];
+		}
+
+		private double getY(int index) {
+			return values[index * 2 + 1];
+		}
+
+		private int size() {
+			return size;
+		}
+
+		private void clear() {
+			size = 0;
+		}
+
+		private Coordinate[] toCoordinates(boolean close) {
+			Coordinate[] coordinates = new Coordinate[close ? size + 1 : size];
+			for (int i = 0; i < size; i++) {
+				coordinates[i] = new Coordinate(values[i * 2], values[i * 2 + 1]);
+			}
+			if (close) {
+				coordinates[size] = new Coordinate(coordinates[0]);
+			}
+			return coordinates;
+		}
+	}
+}
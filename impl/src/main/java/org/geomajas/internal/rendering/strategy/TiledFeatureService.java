@@ -19,14 +19,17 @@ import org.geomajas.internal.layer.feature.InternalFeatureImpl;
 import org.geomajas.layer.feature.InternalFeature;
 import org.geomajas.layer.tile.InternalTile;
 import org.geomajas.layer.tile.TileCode;
-import org.geotools.geometry.jts.JTS;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
 
 /**
  * <p>
@@ -71,9 +74,10 @@ public class TiledFeatureService {
 	public void fillTile(InternalTile tile, Envelope maxTileExtent)
 			throws GeomajasException {
 		List<InternalFeature> origFeatures = tile.getFeatures();
-		tile.setFeatures(new ArrayList<InternalFeature>());
+		tile.setFeatures(new ArrayList<InternalFeature>(origFeatures.size()));
+		double[] position = new double[2];
 		for (InternalFeature feature : origFeatures) {
-			if (!addTileCode(tile, maxTileExtent, feature.getGeometry())) {
+			if (!addTileCode(tile, maxTileExtent, feature.getGeometry(), position)) {
 				log.debug("add feature");
 				tile.addFeature(feature);
 			}
@@ -95,8 +99,8 @@ public class TiledFeatureService {
 	public void clipTile(InternalTile tile, double scale, Coordinate panOrigin) throws GeomajasException {
 		log.debug("clipTile before {}", tile);
 		List<InternalFeature> orgFeatures = tile.getFeatures();
-		tile.setFeatures(new ArrayList<InternalFeature>());
-		Geometry maxScreenBbox = null; // The tile's maximum bounds in screen space. Used for clipping.
+		tile.setFeatures(new ArrayList<InternalFeature>(orgFeatures.size()));
+		Envelope maxScreenBbox = null; // The tile's maximum bounds in screen space. Used for clipping.
 		for (InternalFeature feature : orgFeatures) {
 			// clip feature if necessary
 			if (exceedsScreenDimensions(feature, scale)) {
@@ -105,9 +109,9 @@ public class TiledFeatureService {
 				tile.setClipped(true);
 				vectorFeature.setClipped(true);
 				if (null == maxScreenBbox) {
-					maxScreenBbox = JTS.toGeometry(getMaxScreenEnvelope(tile, panOrigin));
+					maxScreenBbox = getMaxScreenEnvelope(tile, panOrigin);
 				}
-				Geometry clipped = maxScreenBbox.intersection(feature.getGeometry());
+				Geometry clipped = RectangleClipper.clip(feature.getGeometry(), maxScreenBbox);
 				vectorFeature.setClippedGeometry(clipped);
 				tile.addFeature(vectorFeature);
 			} else {
@@ -133,39 +137,38 @@ public class TiledFeatureService {
 	 *            tile in which to add dependent tile
 	 * @param tileBounds tile bounds in map coordinates
 	 * @param geometry geometry for feature
+	 * @param position buffer for the position of the coordinate inside the tile bounds
 	 * @return true when tilecode was added and feature will be contained in another tile
 	 */
-	private boolean addTileCode(InternalTile tile, Envelope tileBounds, Geometry geometry) {
+	private boolean addTileCode(InternalTile tile, Envelope tileBounds, Geometry geometry, double[] position) {
 		if (log.isDebugEnabled()) {
 			log.debug("addTileCode {} {}", tileBounds, geometry);
 		}
 		TileCode tileCode = tile.getCode();
 		int tileX = tileCode.getX();
 		int tileY = tileCode.getY();
-		for (Coordinate coordinate : geometry.getCoordinates()) {
-			if (tileBounds.contains(coordinate)) {
-				// We jump through some hoops to (try to) avoid rounding problems.
-				// This may result in having the feature in two adjacent tiles, but that should still be better than
-				// loosing the feature. Just hope the tolerance is small enough.
-				double xd = ((coordinate.x - tileBounds.getMinX()) / tile.getTileWidth());
-				double yd = ((coordinate.y - tileBounds.getMinY()) / tile.getTileHeight());
-				int x1 = (int) (xd);
-				int x2 = (int) (xd + ROUNDING_TOLERANCE);
-				int y1 = (int) (yd);
-				int y2 = (int) (yd + ROUNDING_TOLERANCE);
-				if (log.isDebugEnabled()) {
-					log.debug("feature in tile " + x1 + "-" + y1 + " or " + x2 + "-" + y2);
-				}
-
-				// check for possible rounding problems, when i,j is "this" tile
-				if ((x1 == tileX || x2 == tileX) && (y1 == tileY || y2 == tileY)) {
-					return false;
-				}
+		if (tileBounds.intersects(geometry.getEnvelopeInternal()) && findFirstInside(geometry, tileBounds, position)) {
+			// We jump through some hoops to (try to) avoid rounding problems.
+			// This may result in having the feature in two adjacent tiles, but that should still be better than
+			// loosing the feature. Just hope the tolerance is small enough.
+			double xd = ((position[0] - tileBounds.getMinX()) / tile.getTileWidth());
+			double yd = ((position[1] - tileBounds.getMinY()) / tile.getTileHeight());
+			int x1 = (int) (xd);
+			int x2 = (int) (xd + ROUNDING_TOLERANCE);
+			int y1 = (int) (yd);
+			int y2 = (int) (yd + ROUNDING_TOLERANCE);
+			if (log.isDebugEnabled()) {
+				log.debug("feature in tile " + x1 + "-" + y1 + " or " + x2 + "-" + y2);
+			}
 
-				int level = tile.getCode().getTileLevel();
-				tile.addCode(level, x1, y1);
-				return true;
+			// check for possible rounding problems, when i,j is "this" tile
+			if ((x1 == tileX || x2 == tileX) && (y1 == tileY || y2 == tileY)) {
+				return false;
 			}
+
+			int level = tile.getCode().getTileLevel();
+			tile.addCode(level, x1, y1);
+			return true;
 		}
 		// all points of the geometry are outside all tiles. Should be put in tile 0,0
 		if (0 == tileX && 0 == tileY) {
@@ -178,6 +181,57 @@ public class TiledFeatureService {
 		}
 	}
 
+	/**
+	 * Find the first coordinate of the geometry which is inside the bounds. The coordinates are visited in the same
+	 * order as {@link Geometry#getCoordinates()}, but using the coordinate sequences, so without copying the
+	 * coordinates.
+	 *
+	 * @param geometry geometry
+	 * @param bounds bounds
+	 * @param position buffer which receives x and y of the coordinate which was found
+	 * @return true when a coordinate inside the bounds was found
+	 */
+	private boolean findFirstInside(Geometry geometry, Envelope bounds, double[] position) {
+		if (geometry instanceof Point) {
+			Point point = (Point) geometry;
+			return !point.isEmpty() && findFirstInside(point.getCoordinateSequence(), bounds, position);
+		} else if (geometry instanceof LineString) {
+			return findFirstInside(((LineString) geometry).getCoordinateSequence(), bounds, position);
+		} else if (geometry instanceof Polygon) {
+			Polygon polygon = (Polygon) geometry;
+			if (findFirstInside(polygon.getExteriorRing().getCoordinateSequence(), bounds, position)) {
+				return true;
+			}
+			for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+				if (findFirstInside(polygon.getInteriorRingN(i).getCoordinateSequence(), bounds, position)) {
+					return true;
+				}
+			}
+			return false;
+		} else {
+			for (int i = 0; i < geometry.getNumGeometries(); i++) {
+				if (findFirstInside(geometry.getGeometryN(i), bounds, position)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private boolean findFirstInside(CoordinateSequence sequence, Envelope bounds, double[] position) {
+		int size = sequence.size();
+		for (int i = 0; i < size; i++) {
+			double x = sequence.getX(i);
+			double y = sequence.getY(i);
+			if (bounds.contains(x, y)) {
+				position[0] = x;
+				position[1] = y;
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * The test that checks if clipping is needed.
 	 *
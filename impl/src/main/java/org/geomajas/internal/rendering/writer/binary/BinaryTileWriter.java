@@ -0,0 +1,337 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.internal.rendering.writer.binary;
+
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.geomajas.configuration.FeatureStyleInfo;
+import org.geomajas.global.ExceptionCode;
+import org.geomajas.layer.feature.InternalFeature;
+import org.geomajas.layer.tile.InternalTile;
+import org.geomajas.rendering.RenderException;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+
+/**
+ * Writer which encodes the features of a tile in a compact binary format. Geometries are transformed to integer screen
+ * coordinates and written as commands with delta and zigzag encoded coordinates, similar to Mapbox vector tiles.
+ * <p/>
+ * All numbers are written as unsigned varints. Strings are written as length followed by the UTF-8 bytes. The layout
+ * is:
+ * <ul>
+ * <li>version ({@link #VERSION})</li>
+ * <li>screen width and screen height of the tile</li>
+ * <li>style table: number of styles, followed by the style id for each style</li>
+ * <li>features: number of features, followed for each feature by the feature id, the index in the style table, the
+ * geometry type, the number of geometry integers and the geometry integers</li>
+ * </ul>
+ * The geometry integers are commands (command id in the lower 3 bits, repeat count in the other bits) followed by the
+ * coordinate deltas for each repeat. Coordinates are relative to the previous position, starting at (0,0) for each
+ * feature. Multi-geometries use several {@link #COMMAND_MOVE_TO} commands. Polygon rings are written without the
+ * closing coordinate and end with {@link #COMMAND_CLOSE_PATH}.
+ * <p/>
+ * Features without style are skipped, as for the SVG and VML tiles. Not thread safe, the buffers are reused.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class BinaryTileWriter {
+
+	/** Version of the encoding. */
+	public static final int VERSION = 1;
+
+	/** Geometry type for points and multi-points. */
+	public static final int TYPE_POINT = 1;
+
+	/** Geometry type for line strings and multi-line strings. */
+	public static final int TYPE_LINESTRING = 2;
+
+	/** Geometry type for polygons and multi-polygons. */
+	public static final int TYPE_POLYGON = 3;
+
+	/** Move to the position, starts a new part. */
+	public static final int COMMAND_MOVE_TO = 1;
+
+	/** Draw a line to the position. */
+	public static final int COMMAND_LINE_TO = 2;
+
+	/** Close the current ring, no coordinates. */
+	public static final int COMMAND_CLOSE_PATH = 7;
+
+	private static final int COMMAND_BITS = 3;
+
+	private static final int INITIAL_SIZE = 1024;
+
+	private static final String ENCODING = "UTF-8";
+
+	private final double scale;
+
+	private final double offsetX;
+
+	private final double offsetY;
+
+	private byte[] bytes = new byte[INITIAL_SIZE];
+
+	private int byteCount;
+
+	private int[] ints = new int[INITIAL_SIZE];
+
+	private int intCount;
+
+	private int cursorX;
+
+	private int cursorY;
+
+	/**
+	 * Create a writer. The world to screen transformation is the same as for the string tiles: coordinates are
+	 * multiplied by the scale, y is flipped and the pan origin is moved to (0,0).
+	 *
+	 * @param scale client side scale
+	 * @param panOrigin pan origin
+	 */
+	public BinaryTileWriter(double scale, Coordinate panOrigin) {
+		this.scale = scale;
+		offsetX = -scale * panOrigin.x;
+		offsetY = scale * panOrigin.y;
+	}
+
+	/**
+	 * Encode the features of the tile.
+	 *
+	 * @param tile tile
+	 * @return encoded tile
+	 * @throws RenderException cannot encode
+	 */
+	public byte[] write(InternalTile tile) throws RenderException {
+		byteCount = 0;
+		writeVarint(VERSION);
+		writeVarint(tile.getScreenWidth());
+		writeVarint(tile.getScreenHeight());
+
+		List<InternalFeature> features = tile.getFeatures();
+		Map<String, Integer> styles = new HashMap<String, Integer>();
+		int[] styleIndexes = new int[features.size()];
+		int featureCount = 0;
+		for (int i = 0; i < styleIndexes.length; i++) {
+			FeatureStyleInfo style = features.get(i).getStyleInfo();
+			if (null == style) {
+				styleIndexes[i] = -1;
+			} else {
+				Integer index = styles.get(style.getStyleId());
+				if (null == index) {
+					index = styles.size();
+					styles.put(style.getStyleId(), index);
+				}
+				styleIndexes[i] = index;
+				featureCount++;
+			}
+		}
+		String[] styleIds = new String[styles.size()];
+		for (Map.Entry<String, Integer> entry : styles.entrySet()) {
+			styleIds[entry.getValue()] = entry.getKey();
+		}
+		writeVarint(styleIds.length);
+		for (String styleId : styleIds) {
+			writeString(styleId);
+		}
+
+		writeVarint(featureCount);
+		for (int i = 0; i < styleIndexes.length; i++) {
+			if (styleIndexes[i] >= 0) {
+				InternalFeature feature = features.get(i);
+				Geometry geometry = feature.isClipped() ? feature.getClippedGeometry() : feature.getGeometry();
+				writeString(feature.getId());
+				writeVarint(styleIndexes[i]);
+				writeGeometry(geometry);
+			}
+		}
+		byte[] result = new byte[byteCount];
+		System.arraycopy(bytes, 0, result, 0, byteCount);
+		return result;
+	}
+
+	private void writeGeometry(Geometry geometry) {
+		intCount = 0;
+		cursorX = 0;
+		cursorY = 0;
+		int type = getType(geometry);
+		if (null != geometry) {
+			addGeometry(geometry);
+		}
+		writeVarint(type);
+		writeVarint(intCount);
+		for (int i = 0; i < intCount; i++) {
+			writeVarint(ints[i]);
+		}
+	}
+
+	private int getType(Geometry geometry) {
+		if (null == geometry) {
+			return TYPE_POINT;
+		}
+		switch (geometry.getDimension()) {
+			case 0:
+				return TYPE_POINT;
+			case 1:
+				return TYPE_LINESTRING;
+			default:
+				return TYPE_POLYGON;
+		}
+	}
+
+	private void addGeometry(Geometry geometry) {
+		if (geometry instanceof Point) {
+			addPoints(geometry.getCoordinates());
+		} else if (geometry instanceof LineString) {
+			addLine(geometry.getCoordinates(), false);
+		} else if (geometry instanceof Polygon) {
+			Polygon polygon = (Polygon) geometry;
+			addLine(polygon.getExteriorRing().getCoordinates(), true);
+			for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+				addLine(polygon.getInteriorRingN(i).getCoordinates(), true);
+			}
+		} else if (geometry.getDimension() == 0) {
+			// multi-point, all points in one command
+			addPoints(geometry.getCoordinates());
+		} else {
+			for (int i = 0; i < geometry.getNumGeometries(); i++) {
+				addGeometry(geometry.getGeometryN(i));
+			}
+		}
+	}
+
+	private void addPoints(Coordinate[] coordinates) {
+		if (coordinates.length > 0) {
+			addInt(command(COMMAND_MOVE_TO, coordinates.length));
+			for (Coordinate coordinate : coordinates) {
+				addPosition(coordinate);
+			}
+		}
+	}
+
+	private void addLine(Coordinate[] coordinates, boolean ring) {
+		int count = ring ? coordinates.length - 1 : coordinates.length;
+		if (count < 1) {
+			return;
+		}
+		addInt(command(COMMAND_MOVE_TO, 1));
+		addPosition(coordinates[0]);
+		if (count > 1) {
+			int commandIndex = intCount;
+			addInt(0);
+			int lineCount = 0;
+			for (int i = 1; i < count; i++) {
+				int x = screenX(coordinates[i]);
+				int y = screenY(coordinates[i]);
+				// skip positions which do not move after rounding
+				if (x != cursorX || y != cursorY) {
+					addDelta(x, y);
+					lineCount++;
+				}
+			}
+			if (lineCount == 0) {
+				// all positions collapsed, keep a line of length zero so the part remains valid
+				addDelta(cursorX, cursorY);
+				lineCount = 1;
+			}
+			ints[commandIndex] = command(COMMAND_LINE_TO, lineCount);
+		}
+		if (ring) {
+			addInt(command(COMMAND_CLOSE_PATH, 1));
+		}
+	}
+
+	private void addPosition(Coordinate coordinate) {
+		addDelta(screenX(coordinate), screenY(coordinate));
+	}
+
+	private void addDelta(int x, int y) {
+		addInt(zigzag(x - cursorX));
+		addInt(zigzag(y - cursorY));
+		cursorX = x;
+		cursorY = y;
+	}
+
+	private int screenX(Coordinate coordinate) {
+		return (int) Math.round(scale * coordinate.x + offsetX);
+	}
+
+	private int screenY(Coordinate coordinate) {
+		return (int) Math.round(offsetY - scale * coordinate.y);
+	}
+
+	private void addInt(int value) {
+		if (intCount == ints.length) {
+			int[] grown = new int[ints.length * 2];
+			System.arraycopy(ints, 0, grown, 0, intCount);
+			ints = grown;
+		}
+		ints[intCount++] = value;
+	}
+
+	private void writeString(String value) throws RenderException {
+		try {
+			byte[] encoded = (null == value ? "" : value).getBytes(ENCODING);
+			writeVarint(encoded.length);
+			ensureBytes(encoded.length);
+			System.arraycopy(encoded, 0, bytes, byteCount, encoded.length);
+			byteCount += encoded.length;
+		} catch (UnsupportedEncodingException uee) {
+			throw new RenderException(uee, ExceptionCode.RENDER_DOCUMENT_IO_EXCEPTION);
+		}
+	}
+
+	private void writeVarint(int value) {
+		ensureBytes(5);
+		int rest = value;
+		while ((rest & ~0x7f) != 0) {
+			bytes[byteCount++] = (byte) ((rest & 0x7f) | 0x80);
+			rest >>>= 7;
+		}
+		bytes[byteCount++] = (byte) rest;
+	}
+
+	private void ensureBytes(int extra) {
+		if (byteCount + extra > bytes.length) {
+			byte[] grown = new byte[Math.max(bytes.length * 2, byteCount + extra)];
+			System.arraycopy(bytes, 0, grown, 0, byteCount);
+			bytes = grown;
+		}
+	}
+
+	/**
+	 * Build a command integer.
+	 *
+	 * @param id command id
+	 * @param count repeat count
+	 * @return command integer
+	 */
+	public static int command(int id, int count) {
+		return (count << COMMAND_BITS) | id;
+	}
+
+	/**
+	 * Zigzag encode a signed integer, so small negative numbers also give short varints.
+	 *
+	 * @param value signed integer
+	 * @return zigzag encoded integer
+	 */
+	public static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.internal.security;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.geomajas.security.Authentication;
+import org.geomajas.security.AuthenticationCache;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link AuthenticationCache} implementation which keeps the authentications in memory.
+ * <p/>
+ * Authentications are only cached when the security service indicates how long they are valid (using "validUntil" or
+ * "extendValid"), otherwise they are rechecked each time a security context is created. Each access extends the
+ * validity by "extendValid", but never beyond "invalidAfter". The cache is bounded, expired entries are removed by
+ * {@link #cleanUp()} which is called regularly by the scheduler.
+ * <p/>
+ * Each cached token also has a {@link SecurityContextSnapshot} in which the security context stores the authorization
+ * results it calculates, so these are shared by all requests for the token. Security services which revoke a token
+ * before it expires should purge it from the cache using {@link #putAuthentication(String, Authentication[])} with
+ * null authentications.
+ *
+ * @author Joachim Van der Auwera
+ */
+@Component
+public class DefaultAuthenticationCache implements AuthenticationCache {
+
+	/** Default maximum number of cached tokens. */
+	public static final int DEFAULT_MAX_SIZE = 10000;
+
+	private final ConcurrentMap<String, CacheEntry> entries = new ConcurrentHashMap<String, CacheEntry>();
+
+	private int maxSize = DEFAULT_MAX_SIZE;
+
+	@Override
+	public Authentication[] getAuthentication(String token) {
+		CacheEntry entry = getEntry(token);
+		return null == entry ? null : entry.getAuthentications();
+	}
+
+	@Override
+	public void putAuthentication(String token, Authentication[] authentications) {
+		if (null == token) {
+			return; // null tokens are not cached
+		}
+		if (null == authentications || !isCacheable(authentications)) {
+			entries.remove(token);
+			return;
+		}
+		if (entries.size() >= maxSize) {
+			cleanUp();
+			if (entries.size() >= maxSize) {
+				entries.clear(); // still full, start over
+			}
+		}
+		entries.put(token, new CacheEntry(authentications.clone()));
+	}
+
+	/**
+	 * Get the snapshot of the authorization results for a token.
+	 *
+	 * @param token token
+	 * @return snapshot, null when the token is not cached
+	 */
+	public SecurityContextSnapshot getSnapshot(String token) {
+		CacheEntry entry = getEntry(token);
+		return null == entry ? null : entry.snapshot;
+	}
+
+	/**
+	 * Remove all cached authentications, for example when the security configuration changes.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Remove the expired authentications.
+	 */
+	public void cleanUp() {
+		long now = System.currentTimeMillis();
+		Iterator<Map.Entry<String, CacheEntry>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			if (!iterator.next().getValue().isValid(now, false)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Set the maximum number of cached tokens.
+	 *
+	 * @param maxSize maximum number of cached tokens
+	 */
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Get the number of cached tokens.
+	 *
+	 * @return number of cached tokens
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	private CacheEntry getEntry(String token) {
+		if (null == token) {
+			return null;
+		}
+		CacheEntry entry = entries.get(token);
+		if (null != entry && !entry.isValid(System.currentTimeMillis(), true)) {
+			entries.remove(token, entry);
+			return null;
+		}
+		return entry;
+	}
+
+	private boolean isCacheable(Authentication[] authentications) {
+		for (Authentication authentication : authentications) {
+			if (null == authentication.getValidUntil() && authentication.getExtendValid() <= 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Cached authentications for a token.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class CacheEntry {
+
+		private final Authentication[] authentications;
+
+		private final SecurityContextSnapshot snapshot = new SecurityContextSnapshot();
+
+		private CacheEntry(Authentication[] authentications) {
+			this.authentications = authentications;
+			long now = System.currentTimeMillis();
+			for (Authentication authentication : authentications) {
+				if (null == authentication.getValidUntil()) {
+					long validUntil = now + authentication.getExtendValid();
+					authentication.setValidUntil(new Date(limit(authentication, validUntil)));
+				}
+			}
+		}
+
+		private Authentication[] getAuthentications() {
+			return authentications.clone();
+		}
+
+		/**
+		 * Check whether all authentications are still valid, optionally extending their validity.
+		 *
+		 * @param now current time
+		 * @param extend should the validity be extended?
+		 * @return true when valid
+		 */
+		private synchronized boolean isValid(long now, boolean extend) {
+			for (Authentication authentication : authentications) {
+				if (now > authentication.getValidUntil().getTime()) {
+					return false;
+				}
+			}
+			if (extend) {
+				for (Authentication authentication : authentications) {
+					long extendValid = authentication.getExtendValid();
+					if (extendValid > 0) {
+						long validUntil = Math.max(authentication.getValidUntil().getTime(), now + extendValid);
+						authentication.setValidUntil(new Date(limit(authentication, validUntil)));
+					}
+				}
+			}
+			return true;
+		}
+
+		private long limit(Authentication authentication, long validUntil) {
+			Date invalidAfter = authentication.getInvalidAfter();
+			return null == invalidAfter ? validUntil : Math.min(validUntil, invalidAfter.getTime());
+		}
+	}
+}
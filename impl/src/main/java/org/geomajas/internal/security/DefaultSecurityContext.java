@@ -29,6 +29,7 @@ import org.geomajas.security.Authentication;
 import org.geomajas.security.AuthorizationNeedsWiring;
 import org.geomajas.security.BaseAuthorization;
 import org.geomajas.security.FeatureAuthorization;
+import org.geomajas.security.FeatureVisibilityFilterAuthorization;
 import org.geomajas.security.SavedAuthentication;
 import org.geomajas.security.SavedAuthorization;
 import org.geomajas.security.SecurityContext;
@@ -84,6 +85,8 @@ public class DefaultSecurityContext implements SecurityContext {
 
 	private String userDivision;
 
+	private SecurityContextSnapshot snapshot;
+
 	@Autowired
 	private FilterService filterService;
 
@@ -120,6 +123,7 @@ public class DefaultSecurityContext implements SecurityContext {
 	@Api
 	public void setAuthentications(String token, List<Authentication> authentications) {
 		this.token = token;
+		this.snapshot = new SecurityContextSnapshot(); // results for this context only, until a shared one is set
 		this.authentications.clear();
 		if (null != authentications) {
 			for (Authentication auth : authentications) {
@@ -134,6 +138,18 @@ public class DefaultSecurityContext implements SecurityContext {
 		userInfoInit();
 	}
 
+	/**
+	 * Set the snapshot in which the authorization results are stored, allowing them to be reused by all security
+	 * contexts for the same token. The snapshot is reset when the authentications change.
+	 *
+	 * @param snapshot snapshot for the current token, null to keep the results in this context only
+	 */
+	public void setSnapshot(SecurityContextSnapshot snapshot) {
+		if (null != snapshot) {
+			this.snapshot = snapshot;
+		}
+	}
+
 	/**
 	 * @inheritDoc
 	 */
@@ -303,14 +319,24 @@ public class DefaultSecurityContext implements SecurityContext {
 	 * @inheritDoc
 	 */
 	public boolean isLayerVisible(String layerId) {
+		String key = "layerVisible@" + layerId;
+		SecurityContextSnapshot current = snapshot;
+		if (null != current && current.contains(key)) {
+			return (Boolean) current.get(key);
+		}
+		boolean visible = false;
 		for (Authentication authentication : authentications) {
 			for (BaseAuthorization authorization : authentication.getAuthorizations()) {
 				if (authorization.isLayerVisible(layerId)) {
-					return true;
+					visible = true;
+					break;
 				}
 			}
 		}
-		return false;
+		if (null != current) {
+			current.put(key, visible);
+		}
+		return visible;
 	}
 
 	/**
@@ -365,6 +391,11 @@ public class DefaultSecurityContext implements SecurityContext {
 	 * @inheritDoc
 	 */
 	public Filter getFeatureFilter(String layerId) {
+		String key = "featureFilter@" + layerId;
+		SecurityContextSnapshot current = snapshot;
+		if (null != current && current.contains(key)) {
+			return (Filter) current.get(key);
+		}
 		Filter filter = null;
 		for (Authentication authentication : authentications) {
 			for (BaseAuthorization authorization : authentication.getAuthorizations()) {
@@ -376,6 +407,9 @@ public class DefaultSecurityContext implements SecurityContext {
 				}
 			}
 		}
+		if (null != current) {
+			current.put(key, filter);
+		}
 		return filter;
 	}
 
@@ -393,15 +427,23 @@ public class DefaultSecurityContext implements SecurityContext {
 	 * @inheritDoc
 	 */
 	public Geometry getVisibleArea(final String layerId) {
-		return areaCombine(layerId, new VisibleAreaCombineGetter(layerId));
+		return areaCombine("visibleArea", layerId, new VisibleAreaCombineGetter(layerId));
 	}
 
-	private Geometry areaCombine(String layerId, AreaCombineGetter areaGetter) {
+	private Geometry areaCombine(String type, String layerId, AreaCombineGetter areaGetter) {
 		if (null == authentications || authentications.size() == 0) {
 			// no authorizations, so nothing should be allowed
 			return null;
 		}
 
+		// the intersected area is shared between the contexts for the token, return a copy
+		String key = type + "@" + layerId;
+		SecurityContextSnapshot current = snapshot;
+		Geometry cached = null == current ? null : (Geometry) current.get(key);
+		if (null != cached) {
+			return (Geometry) cached.clone();
+		}
+
 		Layer<?> layer = configurationService.getLayer(layerId);
 		if (null == layer) {
 			log.error("areaCombine on unknown layer " + layerId);
@@ -425,9 +467,40 @@ public class DefaultSecurityContext implements SecurityContext {
 			}
 		}
 		geometry.setSRID(srid); // force srid, even when not set correctly by security service
+		if (null != current) {
+			current.put(key, geometry.clone());
+		}
 		return geometry;
 	}
 
+	/**
+	 * Get the visible area for a layer, prepared for checking many geometries. The prepared area is shared by all
+	 * security contexts with the same authorizations.
+	 *
+	 * @param layerId layer id
+	 * @return prepared visible area, null when nothing is visible
+	 * @since 1.18.0
+	 */
+	public PreparedArea getPreparedVisibleArea(final String layerId) {
+		return prepareArea("visibleArea", layerId, new VisibleAreaCombineGetter(layerId),
+				isPartlyVisibleSufficient(layerId));
+	}
+
+	private PreparedArea prepareArea(String type, String layerId, AreaCombineGetter areaGetter,
+			boolean partlySufficient) {
+		String key = "prepared:" + type + "@" + layerId;
+		SecurityContextSnapshot current = snapshot;
+		if (null != current && current.contains(key)) {
+			return (PreparedArea) current.get(key);
+		}
+		Geometry area = areaCombine(type, layerId, areaGetter);
+		PreparedArea prepared = null == area ? null : new PreparedArea(area, partlySufficient);
+		if (null != current) {
+			current.put(key, prepared);
+		}
+		return prepared;
+	}
+
 	/**
 	 * @inheritDoc
 	 */
@@ -457,7 +530,23 @@ public class DefaultSecurityContext implements SecurityContext {
 		if (!isLayerUpdateCapable(layerId)) {
 			return null;
 		}
-		return areaCombine(layerId, new UpdateAreaCombineGetter(layerId));
+		return areaCombine("updateArea", layerId, new UpdateAreaCombineGetter(layerId));
+	}
+
+	/**
+	 * Get the area in which features can be updated for a layer, prepared for checking many geometries. The prepared
+	 * area is shared by all security contexts with the same authorizations.
+	 *
+	 * @param layerId layer id
+	 * @return prepared update area, null when no features can be updated
+	 * @since 1.18.0
+	 */
+	public PreparedArea getPreparedUpdateAuthorizedArea(final String layerId) {
+		if (!isLayerUpdateCapable(layerId)) {
+			return null;
+		}
+		return prepareArea("updateArea", layerId, new UpdateAreaCombineGetter(layerId),
+				isPartlyUpdateAuthorizedSufficient(layerId));
 	}
 
 	/**
@@ -474,7 +563,23 @@ public class DefaultSecurityContext implements SecurityContext {
 		if (!isLayerCreateCapable(layerId)) {
 			return null;
 		}
-		return areaCombine(layerId, new CreateAreaCombineGetter(layerId));
+		return areaCombine("createArea", layerId, new CreateAreaCombineGetter(layerId));
+	}
+
+	/**
+	 * Get the area in which features can be created for a layer, prepared for checking many geometries. The prepared
+	 * area is shared by all security contexts with the same authorizations.
+	 *
+	 * @param layerId layer id
+	 * @return prepared create area, null when no features can be created
+	 * @since 1.18.0
+	 */
+	public PreparedArea getPreparedCreateAuthorizedArea(final String layerId) {
+		if (!isLayerCreateCapable(layerId)) {
+			return null;
+		}
+		return prepareArea("createArea", layerId, new CreateAreaCombineGetter(layerId),
+				isPartlyCreateAuthorizedSufficient(layerId));
 	}
 
 	/**
@@ -491,7 +596,23 @@ public class DefaultSecurityContext implements SecurityContext {
 		if (!isLayerDeleteCapable(layerId)) {
 			return null;
 		}
-		return areaCombine(layerId, new DeleteAreaCombineGetter(layerId));
+		return areaCombine("deleteArea", layerId, new DeleteAreaCombineGetter(layerId));
+	}
+
+	/**
+	 * Get the area in which features can be deleted for a layer, prepared for checking many geometries. The prepared
+	 * area is shared by all security contexts with the same authorizations.
+	 *
+	 * @param layerId layer id
+	 * @return prepared delete area, null when no features can be deleted
+	 * @since 1.18.0
+	 */
+	public PreparedArea getPreparedDeleteAuthorizedArea(final String layerId) {
+		if (!isLayerDeleteCapable(layerId)) {
+			return null;
+		}
+		return prepareArea("deleteArea", layerId, new DeleteAreaCombineGetter(layerId),
+				isPartlyDeleteAuthorizedSufficient(layerId));
 	}
 
 	/**
@@ -517,6 +638,72 @@ public class DefaultSecurityContext implements SecurityContext {
 		});
 	}
 
+	/**
+	 * Check whether all features which match the feature filter, visible area and feature visibility filter (see
+	 * {@link #getFeatureVisibilityFilter(String)}) are visible. When true,
+	 * {@link #isFeatureVisible(String, InternalFeature)} does not need to be checked for each feature, so the
+	 * filtering and paging can be done by the layer.
+	 *
+	 * @param layerId layer id
+	 * @return true when feature visibility is determined by the filters and visible area alone
+	 * @since 1.18.0
+	 */
+	public boolean isFeatureVisibleByFilter(final String layerId) {
+		return null != getFeatureVisibilityFilter(layerId);
+	}
+
+	/**
+	 * Get the filter which selects the features which are visible according to the authorizations. This allows
+	 * merging the feature level security into the filter which is passed to the layer.
+	 * <p/>
+	 * A feature is visible when any of the authorizations makes it visible. Authorizations which make the layer
+	 * visible without checking individual features make all features visible. Feature authorizations can only be
+	 * combined when they implement {@link FeatureVisibilityFilterAuthorization}.
+	 *
+	 * @param layerId layer id
+	 * @return filter which selects the visible features, {@link Filter#INCLUDE} when all features are visible, null
+	 *         when visibility needs to be checked for each feature
+	 * @since 1.18.0
+	 */
+	public Filter getFeatureVisibilityFilter(final String layerId) {
+		String key = "featureVisibilityFilter@" + layerId;
+		SecurityContextSnapshot current = snapshot;
+		if (null != current && current.contains(key)) {
+			return (Filter) current.get(key);
+		}
+		Filter filter = visibilityFilterCombine(layerId);
+		if (null != current) {
+			current.put(key, filter);
+		}
+		return filter;
+	}
+
+	private Filter visibilityFilterCombine(String layerId) {
+		Filter filter = null;
+		boolean expressible = true;
+		for (Authentication authentication : authentications) {
+			for (BaseAuthorization authorization : authentication.getAuthorizations()) {
+				if (authorization instanceof FeatureVisibilityFilterAuthorization) {
+					Filter part = ((FeatureVisibilityFilterAuthorization) authorization)
+							.getFeatureVisibilityFilter(layerId);
+					if (null == part) {
+						expressible = false;
+					} else {
+						filter = null == filter ? part : filterService.createOrFilter(filter, part);
+					}
+				} else if (authorization instanceof FeatureAuthorization) {
+					expressible = false;
+				} else if (authorization.isLayerVisible(layerId)) {
+					return Filter.INCLUDE; // all features are visible
+				}
+			}
+		}
+		if (!expressible) {
+			return null;
+		}
+		return null == filter ? Filter.EXCLUDE : filter;
+	}
+
 	private boolean policyCombine(AuthorizationGetter<BaseAuthorization> auth) {
 		for (Authentication authentication : authentications) {
 			for (BaseAuthorization authorization : authentication.getAuthorizations()) {
@@ -12,10 +12,12 @@
 package org.geomajas.internal.security;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.geomajas.annotation.Api;
 import org.geomajas.security.Authentication;
+import org.geomajas.security.AuthenticationCache;
 import org.geomajas.security.SavedAuthorization;
 import org.geomajas.security.SecurityContext;
 import org.geomajas.security.SecurityInfo;
@@ -30,6 +32,9 @@ import org.springframework.stereotype.Component;
  * The security manager tries to find the authorization objects for an authentication token.
  * <p/>
  * It can be used to create or clear the security context for the current thread.
+ * <p/>
+ * Authentications which the security services mark as valid for some time are kept in the
+ * {@link AuthenticationCache}, the security services are not queried again for these tokens.
  *
  * @author Joachim Van der Auwera
  * @since 1.10.0
@@ -44,9 +49,31 @@ public class DefaultSecurityManager implements SecurityManager {
 	@Autowired
 	private SecurityContext securityContext;
 
+	@Autowired
+	private AuthenticationCache authenticationCache;
+
 	/** @inheritDoc */
 	public boolean createSecurityContext(String authenticationToken) {
 		clearSecurityContext(); // assure there is no authenticated user in case of problems during creation
+		List<Authentication> authentications;
+		Authentication[] cached = authenticationCache.getAuthentication(authenticationToken);
+		if (null != cached) {
+			authentications = new ArrayList<Authentication>(Arrays.asList(cached));
+		} else {
+			authentications = getAuthentications(authenticationToken);
+			authenticationCache.putAuthentication(authenticationToken, authentications.isEmpty() ? null :
+					authentications.toArray(new Authentication[authentications.size()]));
+		}
+		boolean created = setSecurityContext(authenticationToken, authentications);
+		if (created && authenticationCache instanceof DefaultAuthenticationCache) {
+			// share the authorization results which are calculated for the token
+			((DefaultSecurityContext) securityContext).setSnapshot(
+					((DefaultAuthenticationCache) authenticationCache).getSnapshot(authenticationToken));
+		}
+		return created;
+	}
+
+	private List<Authentication> getAuthentications(String authenticationToken) {
 		List<SecurityService> services = securityInfo.getSecurityServices();
 		List<Authentication> authentications = new ArrayList<Authentication>();
 		for (SecurityService service : services) {
@@ -59,7 +86,7 @@ public class DefaultSecurityManager implements SecurityManager {
 				}
 			}
 		}
-		return setSecurityContext(authenticationToken, authentications);
+		return authentications;
 	}
 
 	/**
@@ -0,0 +1,120 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.internal.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.geomajas.service.FilterService;
+import org.opengis.filter.Filter;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+
+/**
+ * Authorized area for a layer, prepared for repeated checks.
+ * <p/>
+ * The area is combined from the area authorizations of a security context and cached in its
+ * {@link SecurityContextSnapshot}, so the (possibly very complex) geometry is only prepared once for all requests
+ * with the same authorizations. Geometries are first checked against the envelope of the area, only the candidates
+ * are tested against the prepared geometry itself.
+ * <p/>
+ * Instances are immutable and can be used by several threads at the same time.
+ *
+ * @author Joachim Van der Auwera
+ */
+public final class PreparedArea {
+
+	private final Geometry area;
+
+	private final PreparedGeometry prepared;
+
+	private final Envelope envelope;
+
+	private final boolean partlySufficient;
+
+	private final ConcurrentMap<String, Filter> filters = new ConcurrentHashMap<String, Filter>();
+
+	/**
+	 * Prepare an authorized area.
+	 *
+	 * @param area authorized area, should not be modified afterwards
+	 * @param partlySufficient true when it is sufficient for a geometry to intersect the area, false when it needs to
+	 *        be completely inside
+	 */
+	public PreparedArea(Geometry area, boolean partlySufficient) {
+		this.area = area;
+		this.prepared = PreparedGeometryFactory.prepare(area);
+		this.envelope = area.getEnvelopeInternal();
+		this.partlySufficient = partlySufficient;
+	}
+
+	/**
+	 * Get a copy of the authorized area.
+	 *
+	 * @return authorized area
+	 */
+	public Geometry getArea() {
+		return (Geometry) area.clone();
+	}
+
+	/**
+	 * Is it sufficient for a geometry to intersect the area?
+	 *
+	 * @return true when intersecting is sufficient, false when the geometry needs to be inside the area
+	 */
+	public boolean isPartlySufficient() {
+		return partlySufficient;
+	}
+
+	/**
+	 * Check whether a geometry is authorized by the area. This is equivalent to the intersects or within filter which
+	 * is returned by {@link #getFilter(FilterService, String)}.
+	 *
+	 * @param geometry geometry to check, in the layer crs
+	 * @return true when the geometry intersects the area (partly sufficient) or is within the area
+	 */
+	public boolean accepts(Geometry geometry) {
+		if (null == geometry) {
+			return false;
+		}
+		Envelope bounds = geometry.getEnvelopeInternal();
+		if (partlySufficient) {
+			return envelope.intersects(bounds) && prepared.intersects(geometry);
+		} else {
+			return envelope.contains(bounds) && prepared.contains(geometry);
+		}
+	}
+
+	/**
+	 * Get the filter which checks the area. The filter is created once and reused, allowing the geometry which is
+	 * prepared by the filter to be reused as well.
+	 *
+	 * @param filterService filter service
+	 * @param geometryName name of the geometry attribute
+	 * @return intersects or within filter for the area
+	 */
+	public Filter getFilter(FilterService filterService, String geometryName) {
+		Filter result = filters.get(geometryName);
+		if (null == result) {
+			if (partlySufficient) {
+				result = filterService.createIntersectsFilter(area, geometryName);
+			} else {
+				result = filterService.createWithinFilter(area, geometryName);
+			}
+			filters.put(geometryName, result);
+		}
+		return result;
+	}
+}
@@ -14,7 +14,10 @@ package org.geomajas.internal.security;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
+import org.geomajas.global.CacheableObject;
 import org.geomajas.security.BaseAuthorization;
 import org.geomajas.security.SavedAuthentication;
 import org.jboss.serial.io.JBossObjectInputStream;
@@ -29,7 +32,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author Joachim Van der Auwera
  */
-public class SavedAuthenticationImpl implements SavedAuthentication {
+public class SavedAuthenticationImpl implements SavedAuthentication, CacheableObject {
 
 	private static final long serialVersionUID = 190L;
 
@@ -39,6 +42,8 @@ public class SavedAuthenticationImpl implements SavedAuthentication {
 
 	private byte[][] authorizations; // serialized authorizations
 
+	private transient String cacheId; // memoised, calculated from the serialized authorizations
+
 	/**
 	 * Get the id of the {@link org.geomajas.security.SecurityService} which created this authentication.
 	 * <p/>
@@ -61,6 +66,7 @@ public class SavedAuthenticationImpl implements SavedAuthentication {
 	 */
 	public void setSecurityServiceId(String securityServiceId) {
 		this.securityServiceId = securityServiceId;
+		cacheId = null;
 	}
 
 	/**
@@ -98,6 +104,7 @@ public class SavedAuthenticationImpl implements SavedAuthentication {
 	 */
 	public void setAuthorizations(BaseAuthorization[] authorizations) {
 		BaseAuthorization ba = null;
+		cacheId = null;
 		try {
 			this.authorizations = new byte[authorizations.length][];
 			for (int i = 0; i < authorizations.length; i++) {
@@ -115,6 +122,40 @@ public class SavedAuthenticationImpl implements SavedAuthentication {
 		}
 	}
 
+	/**
+	 * Get the cache id. This is based on the security service id and a digest of the serialized authorizations, so it
+	 * is cheap to use in cache keys once calculated.
+	 *
+	 * @return cache id
+	 */
+	public String getCacheId() {
+		String id = cacheId;
+		if (null == id) {
+			StringBuilder builder = new StringBuilder(String.valueOf(securityServiceId));
+			builder.append(':');
+			try {
+				MessageDigest digest = MessageDigest.getInstance("MD5");
+				if (null != authorizations) {
+					for (byte[] authorization : authorizations) {
+						if (null != authorization) {
+							digest.update(authorization);
+						}
+						digest.update((byte) 0);
+					}
+				}
+				for (byte b : digest.digest()) {
+					builder.append(Character.forDigit((b >> 4) & 0xf, 16));
+					builder.append(Character.forDigit(b & 0xf, 16));
+				}
+			} catch (NoSuchAlgorithmException nsae) {
+				builder.append(hashCode());
+			}
+			id = builder.toString();
+			cacheId = id;
+		}
+		return id;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) {
@@ -14,6 +14,7 @@ package org.geomajas.internal.security;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.geomajas.global.CacheableObject;
 import org.geomajas.security.Authentication;
 import org.geomajas.security.SavedAuthentication;
 import org.geomajas.security.SavedAuthorization;
@@ -27,7 +28,7 @@ import org.geomajas.security.SecurityContext;
  * @author Jan De Moerloose
  * @author Joachim Van der Auwera
  */
-public class SavedAuthorizationImpl implements SavedAuthorization {
+public class SavedAuthorizationImpl implements SavedAuthorization, CacheableObject {
 
 	private static final long serialVersionUID = 190L;
 
@@ -48,6 +49,27 @@ public class SavedAuthorizationImpl implements SavedAuthorization {
 		return authentications;
 	}
 
+	/**
+	 * Get the cache id, combining the cache ids of the authentications. This avoids serializing the saved
+	 * authorization each time it is used in a cache key.
+	 *
+	 * @return cache id
+	 */
+	public String getCacheId() {
+		StringBuilder builder = new StringBuilder();
+		for (SavedAuthentication authentication : authentications) {
+			if (authentication instanceof CacheableObject) {
+				builder.append(((CacheableObject) authentication).getCacheId());
+			} else {
+				builder.append(authentication.getSecurityServiceId());
+				builder.append(':');
+				builder.append(authentication.hashCode());
+			}
+			builder.append('|');
+		}
+		return builder.toString();
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) {
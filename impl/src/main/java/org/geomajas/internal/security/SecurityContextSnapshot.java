@@ -0,0 +1,64 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.internal.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Authorization results which were calculated for a token, shared by all security contexts which are created for
+ * that token (see {@link DefaultAuthenticationCache}).
+ * <p/>
+ * The values (visible layers, combined feature filters, authorized areas per layer) are calculated the first time they
+ * are needed and reused until the cached authentication expires. Values are never modified once stored, so the
+ * snapshot can be used by several threads at the same time.
+ *
+ * @author Joachim Van der Auwera
+ */
+public final class SecurityContextSnapshot {
+
+	private static final Object NULL_VALUE = new Object();
+
+	private final ConcurrentMap<String, Object> values = new ConcurrentHashMap<String, Object>();
+
+	/**
+	 * Check whether a value was stored for the key.
+	 *
+	 * @param key key
+	 * @return true when a value (possibly null) is known
+	 */
+	public boolean contains(String key) {
+		return values.containsKey(key);
+	}
+
+	/**
+	 * Get a stored value.
+	 *
+	 * @param key key
+	 * @return value, null when the value is null or not known
+	 */
+	public Object get(String key) {
+		Object value = values.get(key);
+		return NULL_VALUE == value ? null : value;
+	}
+
+	/**
+	 * Store a value. The value should not be modified after it is stored.
+	 *
+	 * @param key key
+	 * @param value value, may be null
+	 */
+	public void put(String key, Object value) {
+		values.put(key, null == value ? NULL_VALUE : value);
+	}
+}
@@ -10,11 +10,13 @@
  */
 package org.geomajas.internal.service;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.geomajas.service.CacheService;
 import org.springframework.stereotype.Component;
@@ -22,14 +24,30 @@ import org.springframework.stereotype.Component;
 /**
  * Default implementation of the caches service that works in-memory. Note that this service does not distribute objects
  * to different nodes in a load balancing environment.
- * 
+ * <p/>
+ * Each cache is bounded by a maximum number of entries. When a put makes a cache exceed its maximum size, the least
+ * recently used entry is evicted. Expired entries are removed when they are accessed and by {@link #cleanUp()}, which
+ * is called regularly by the scheduler. The cache which contains the styles registered by {@link StyleServiceImpl}
+ * is not bounded (unless configured using {@link #setMaxSizes(Map)}) as these styles cannot be recreated.
+ *
  * @author Oliver May
- * 
+ * @author Joachim Van der Auwera
  */
 @Component
 public class DefaultCacheService implements CacheService {
 
-	private Map<String, Map<Object, CachedObject>> caches = new ConcurrentHashMap<String, Map<Object, CachedObject>>();
+	/** Default maximum number of entries for a cache. */
+	public static final int DEFAULT_MAX_SIZE = 10000;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private static final float LOAD_FACTOR = 0.75f;
+
+	private final ConcurrentMap<String, BoundedCache> caches = new ConcurrentHashMap<String, BoundedCache>();
+
+	private int maxSize = DEFAULT_MAX_SIZE;
+
+	private Map<String, Integer> maxSizes = new HashMap<String, Integer>();
 
 	@Override
 	public void put(String cacheId, Object key, Object value) {
@@ -38,36 +56,35 @@ public class DefaultCacheService implements CacheService {
 
 	@Override
 	public void put(String cacheId, Object key, Object value, long timeToLive) {
-		getOrCreateCache(cacheId).put(key, new CachedObject(value, System.currentTimeMillis() + timeToLive));
+		long now = System.currentTimeMillis();
+		long expireTime = timeToLive > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + timeToLive;
+		getOrCreateCache(cacheId).put(key, new CachedObject(value, expireTime));
 	}
 
 	@Override
 	public Object get(String cacheId, Object key) {
-		CachedObject co = getOrCreateCache(cacheId).get(key); 
-		return co != null ? co.getObject() : null;
+		BoundedCache cache = caches.get(cacheId);
+		return null != cache ? cache.get(key) : null;
 	}
 
 	@Override
 	public void cleanUp() {
-		List<Object> toRemove = new ArrayList<Object>();
-		for (Map<Object, CachedObject> cache : caches.values()) {
-			for (Entry<Object, CachedObject> cachedObject : cache.entrySet()) {
-				if (cachedObject.getValue().getExpireTime() < System.currentTimeMillis()) {
-					toRemove.add(cachedObject.getKey());
-				}
-			}
-			cache.keySet().removeAll(toRemove);
+		long now = System.currentTimeMillis();
+		for (BoundedCache cache : caches.values()) {
+			cache.removeExpired(now);
 		}
 	}
 
-	private synchronized Map<Object, CachedObject> getOrCreateCache(String cacheId) {
-		if (caches.containsKey(cacheId)) {
-			return caches.get(cacheId);
-		} else {
-			Map<Object, CachedObject> newCache = new ConcurrentHashMap<Object, DefaultCacheService.CachedObject>();
-			caches.put(cacheId, newCache);
-			return newCache;
+	private BoundedCache getOrCreateCache(String cacheId) {
+		BoundedCache cache = caches.get(cacheId);
+		if (null == cache) {
+			BoundedCache created = new BoundedCache(getMaxSize(cacheId));
+			cache = caches.putIfAbsent(cacheId, created);
+			if (null == cache) {
+				cache = created;
+			}
 		}
+		return cache;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -83,22 +100,74 @@ public class DefaultCacheService implements CacheService {
 
 	@Override
 	public void remove(String cache, Object key) {
-		getOrCreateCache(cache).remove(key);
+		BoundedCache boundedCache = caches.get(cache);
+		if (null != boundedCache) {
+			boundedCache.remove(key);
+		}
 	}
 
 	@Override
 	public void clear(String cache) {
-		getOrCreateCache(cache).clear();
+		BoundedCache boundedCache = caches.get(cache);
+		if (null != boundedCache) {
+			boundedCache.clear();
+		}
+	}
+
+	/**
+	 * Get the statistics for a cache.
+	 *
+	 * @param cacheId cache id
+	 * @return statistics snapshot, null when the cache does not exist
+	 */
+	public CacheStatistics getStatistics(String cacheId) {
+		BoundedCache cache = caches.get(cacheId);
+		return null != cache ? cache.getStatistics() : null;
+	}
+
+	/**
+	 * Set the default maximum number of entries for each cache. Defaults to {@link #DEFAULT_MAX_SIZE}.
+	 *
+	 * @param maxSize maximum number of entries
+	 */
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		for (Entry<String, BoundedCache> entry : caches.entrySet()) {
+			entry.getValue().setMaxSize(getMaxSize(entry.getKey()));
+		}
+	}
+
+	/**
+	 * Set the maximum number of entries for specific caches, overriding the default maximum size.
+	 *
+	 * @param maxSizes maximum number of entries indexed by cache id
+	 */
+	public void setMaxSizes(Map<String, Integer> maxSizes) {
+		this.maxSizes = new HashMap<String, Integer>(maxSizes);
+		for (Entry<String, BoundedCache> entry : caches.entrySet()) {
+			entry.getValue().setMaxSize(getMaxSize(entry.getKey()));
+		}
+	}
+
+	private int getMaxSize(String cacheId) {
+		Integer size = maxSizes.get(cacheId);
+		if (null != size) {
+			return size;
+		}
+		return StyleServiceImpl.CACHE_KEY.equals(cacheId) ? Integer.MAX_VALUE : maxSize;
 	}
 
 	/**
 	 * Helper class that stores extra data (expire time) about an object in the cache.
-	 * 
+	 *
 	 * @author Oliver May
 	 */
-	private class CachedObject {
-		private Object object;
-		private long expireTime;
+	private static final class CachedObject {
+
+		private final Object object;
+
+		private final long expireTime;
+
 		public CachedObject(Object object, long expireTime) {
 			this.object = object;
 			this.expireTime = expireTime;
@@ -111,7 +180,177 @@ public class DefaultCacheService implements CacheService {
 		public long getExpireTime() {
 			return expireTime;
 		}
+	}
+
+	/**
+	 * A single cache, bounded by number of entries. The entries are kept in access order, so the least recently used
+	 * entry is evicted first.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class BoundedCache {
+
+		private final LinkedHashMap<Object, CachedObject> entries =
+				new LinkedHashMap<Object, CachedObject>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+
+		private int maxSize;
+
+		private long hitCount;
+
+		private long missCount;
+
+		private long evictionCount;
+
+		private long expirationCount;
+
+		private BoundedCache(int maxSize) {
+			this.maxSize = maxSize;
+		}
 
+		public synchronized void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+			evict();
+		}
+
+		public synchronized Object get(Object key) {
+			CachedObject co = entries.get(key);
+			if (null == co) {
+				missCount++;
+				return null;
+			}
+			if (co.getExpireTime() < System.currentTimeMillis()) {
+				entries.remove(key);
+				expirationCount++;
+				missCount++;
+				return null;
+			}
+			hitCount++;
+			return co.getObject();
+		}
+
+		public synchronized void put(Object key, CachedObject co) {
+			entries.put(key, co);
+			evict();
+		}
+
+		public synchronized void remove(Object key) {
+			entries.remove(key);
+		}
+
+		public synchronized void clear() {
+			entries.clear();
+		}
+
+		public synchronized void removeExpired(long now) {
+			Iterator<CachedObject> it = entries.values().iterator();
+			while (it.hasNext()) {
+				if (it.next().getExpireTime() < now) {
+					it.remove();
+					expirationCount++;
+				}
+			}
+		}
+
+		private void evict() {
+			Iterator<CachedObject> it = entries.values().iterator();
+			while (entries.size() > maxSize) {
+				it.next();
+				it.remove();
+				evictionCount++;
+			}
+		}
+
+		public synchronized CacheStatistics getStatistics() {
+			return new CacheStatistics(entries.size(), maxSize, hitCount, missCount, evictionCount, expirationCount);
+		}
 	}
 
+	/**
+	 * Snapshot of the statistics of a cache.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	public static final class CacheStatistics {
+
+		private final int size;
+
+		private final int maxSize;
+
+		private final long hitCount;
+
+		private final long missCount;
+
+		private final long evictionCount;
+
+		private final long expirationCount;
+
+		private CacheStatistics(int size, int maxSize, long hitCount, long missCount, long evictionCount,
+				long expirationCount) {
+			this.size = size;
+			this.maxSize = maxSize;
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+			this.expirationCount = expirationCount;
+		}
+
+		/**
+		 * Number of entries in the cache.
+		 *
+		 * @return number of entries
+		 */
+		public int getSize() {
+			return size;
+		}
+
+		/**
+		 * Maximum number of entries for the cache.
+		 *
+		 * @return maximum size
+		 */
+		public int getMaxSize() {
+			return maxSize;
+		}
+		/**
+		 * Number of gets which found a value.
+		 *
+		 * @return hit count
+		 */
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		/**
+		 * Number of gets which did not find a value (including expired values).
+		 *
+		 * @return miss count
+		 */
+		public long getMissCount() {
+			return missCount;
+		}
+
+		/**
+		 * Number of entries removed because the cache was full.
+		 *
+		 * @return eviction count
+		 */
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+
+		/**
+		 * Number of entries removed because they expired.
+		 *
+		 * @return expiration count
+		 */
+		public long getExpirationCount() {
+			return expirationCount;
+		}
+
+		@Override
+		public String toString() {
+			return "CacheStatistics{size=" + size + ", maxSize=" + maxSize + ", hitCount=" + hitCount + ", missCount="
+					+ missCount + ", evictionCount=" + evictionCount + ", expirationCount=" + expirationCount + "}";
+		}
+	}
 }
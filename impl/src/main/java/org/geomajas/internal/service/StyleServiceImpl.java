@@ -27,7 +27,9 @@ import org.springframework.util.DigestUtils;
  */
 @Component
 public class StyleServiceImpl implements StyleService {
-	private static final String CACHE_KEY = StyleServiceImpl.class.toString();
+
+	/** Id of the cache which contains the registered styles. */
+	static final String CACHE_KEY = StyleServiceImpl.class.toString();
 
 	@Autowired
 	private ConfigurationService configurationService;
@@ -0,0 +1,172 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.internal.service.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets which are linearly subdivided (like HdrHistogram). Values are
+ * recorded in microseconds with a relative precision of 1/8 (12.5%), up to about 35 minutes. Larger values are
+ * counted in the last bucket.
+ * <p/>
+ * Recording only uses atomic increments, so it can safely be called from many threads without locking.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BITS = 3;
+
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+
+	private static final int MAX_BITS = 31;
+
+	private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+
+	private static final int BUCKET_COUNT = (MAX_BITS - SUB_BITS + 1) * SUB_COUNT;
+
+	private static final long NANOS_PER_MICRO = 1000L;
+
+	private static final double PERCENT = 100.0;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong total = new AtomicLong();
+
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Record a duration.
+	 *
+	 * @param nanos duration in nanoseconds
+	 */
+	public void recordNanos(long nanos) {
+		long micros = nanos / NANOS_PER_MICRO;
+		if (micros < 0) {
+			micros = 0;
+		}
+		buckets.incrementAndGet(getBucket(micros));
+		count.incrementAndGet();
+		total.addAndGet(micros);
+		long currentMax = max.get();
+		while (micros > currentMax && !max.compareAndSet(currentMax, micros)) {
+			currentMax = max.get();
+		}
+	}
+
+	/**
+	 * Get the number of recorded values.
+	 *
+	 * @return number of recorded values
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Get the sum of all recorded values.
+	 *
+	 * @return total time in microseconds
+	 */
+	public long getTotalMicros() {
+		return total.get();
+	}
+
+	/**
+	 * Get the largest recorded value.
+	 *
+	 * @return maximum in microseconds
+	 */
+	public long getMaxMicros() {
+		return max.get();
+	}
+
+	/**
+	 * Get the average of the recorded values.
+	 *
+	 * @return average in microseconds, 0 when nothing was recorded
+	 */
+	public double getMeanMicros() {
+		long c = count.get();
+		if (0 == c) {
+			return 0;
+		}
+		return ((double) total.get()) / c;
+	}
+
+	/**
+	 * Get the (approximate) value below which the given percentage of the recorded values fall.
+	 *
+	 * @param percentile percentile, between 0 and 100
+	 * @return value at percentile in microseconds, this is the upper bound of the bucket containing the percentile
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long c = count.get();
+		if (0 == c) {
+			return 0;
+		}
+		long threshold = (long) Math.ceil(c * Math.min(percentile, PERCENT) / PERCENT);
+		if (threshold < 1) {
+			threshold = 1;
+		}
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += buckets.get(i);
+			if (seen >= threshold) {
+				return Math.min(getBucketUpperBound(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Reset all counters. Values recorded concurrently with the reset may be partially lost.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+	static int getBucket(long micros) {
+		long value = Math.min(micros, MAX_VALUE);
+		if (value < SUB_COUNT) {
+			return (int) value;
+		}
+		int msb = 63 - Long.numberOfLeadingZeros(value);
+		int shift = msb - SUB_BITS;
+		int sub = (int) ((value >>> shift) & (SUB_COUNT - 1));
+		return (shift + 1) * SUB_COUNT + sub;
+	}
+
+	static long getBucketUpperBound(int bucket) {
+		if (bucket < SUB_COUNT) {
+			return bucket;
+		}
+		int shift = bucket / SUB_COUNT - 1;
+		int sub = bucket % SUB_COUNT;
+		return ((((long) SUB_COUNT + sub + 1) << shift)) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + getCount() + " mean=" + Math.round(getMeanMicros()) + "us p50=" +
+				getValueAtPercentile(50) + "us p90=" + getValueAtPercentile(90) + "us p99=" +
+				getValueAtPercentile(99) + "us max=" + getMaxMicros() + "us";
+	}
+}
@@ -16,23 +16,52 @@ import java.util.Map;
 
 import org.geomajas.global.ExceptionCode;
 import org.geomajas.global.GeomajasException;
+import org.geomajas.service.pipeline.PipelineCode;
 import org.geomajas.service.pipeline.PipelineContext;
+import org.geomajas.service.pipeline.PipelineKey;
 
 /**
  * Context which is provided to a pipeline context to help execute.
+ * <p/>
+ * Values for registered {@link PipelineKey}s are stored in an array, indexed by the key's slot. Integer values which
+ * are put using {@link #putInt(PipelineKey, int)} are stored unboxed. The map is only used for keys which are not
+ * registered or for values which do not match the type of the registered key.
  *
  * @author Joachim Van der Auwera
  */
 public class PipelineContextImpl implements PipelineContext {
 
-	private Map<String, Object> map = new HashMap<String, Object>();
+	/** Marks a slot which contains a null value. */
+	private static final Object NULL_VALUE = new Object();
+
+	/** Marks a slot for which the value is stored in the ints array. */
+	private static final Object INT_VALUE = new Object();
+
+	static {
+		// make sure the standard keys are registered before the first context is created
+		PipelineCode.LAYER.getIndex();
+	}
+
+	private Object[] values = new Object[PipelineKey.getKeyCount()];
+
+	private int[] ints;
+
+	private Map<String, Object> map;
 
 	private boolean finished;
 
 	public boolean containsKey(String key) {
-		return map.containsKey(key);
+		PipelineKey<?> typedKey = PipelineKey.get(key);
+		if (null != typedKey && null != getSlot(typedKey)) {
+			return true;
+		}
+		return null != map && map.containsKey(key);
 	}
-	
+
+	public boolean containsKey(PipelineKey<?> key) {
+		return null != getSlot(key) || (null != map && map.containsKey(key.getName()));
+	}
+
 	public Object get(String key) throws GeomajasException {
 		Object res = getOptional(key);
 		if (null == res) {
@@ -42,7 +71,17 @@ public class PipelineContextImpl implements PipelineContext {
 	}
 
 	public Object getOptional(String key) {
-		return map.get(key);
+		PipelineKey<?> typedKey = PipelineKey.get(key);
+		if (null != typedKey) {
+			Object slot = getSlot(typedKey);
+			if (null != slot) {
+				return decode(typedKey, slot);
+			}
+		}
+		if (null != map) {
+			return map.get(key);
+		}
+		return null;
 	}
 
 	public <TYPE> TYPE get(String key, Class<TYPE> type) throws GeomajasException {
@@ -53,8 +92,9 @@ public class PipelineContextImpl implements PipelineContext {
 		return res;
 	}
 
+	@SuppressWarnings("unchecked")
 	public <TYPE> TYPE getOptional(String key, Class<TYPE> type, TYPE defaultValue) {
-		Object obj = map.get(key);
+		Object obj = getOptional(key);
 		if (null != obj && type.isAssignableFrom(obj.getClass())) {
 			return (TYPE) obj;
 		}
@@ -65,13 +105,90 @@ public class PipelineContextImpl implements PipelineContext {
 		return getOptional(key, type, null);
 	}
 
+	@SuppressWarnings("unchecked")
 	public Object put(String key, Object value) {
-		if (null != key) {
-			return map.put(key, value);
+		if (null == key) {
+			return null;
+		}
+		PipelineKey<Object> typedKey = (PipelineKey<Object>) PipelineKey.get(key);
+		if (null != typedKey && (null == value || typedKey.getType().isInstance(value))) {
+			return put(typedKey, value);
+		}
+		// not registered or not the registered type, store in the map
+		Object previous = getOptional(key);
+		if (null != typedKey && typedKey.getIndex() < values.length) {
+			values[typedKey.getIndex()] = null;
+		}
+		if (null == map) {
+			map = new HashMap<String, Object>();
+		}
+		map.put(key, value);
+		return previous;
+	}
+
+	public <TYPE> TYPE get(PipelineKey<TYPE> key) throws GeomajasException {
+		TYPE res = getOptional(key);
+		if (null == res) {
+			throw new GeomajasException(ExceptionCode.PIPELINE_CONTEXT_MISSING, key.getName());
+		}
+		return res;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <TYPE> TYPE getOptional(PipelineKey<TYPE> key) {
+		Object slot = getSlot(key);
+		if (null != slot) {
+			return (TYPE) decode(key, slot);
+		}
+		if (null != map) {
+			// value may have been put before the key was registered
+			Object obj = map.get(key.getName());
+			if (key.getType().isInstance(obj)) {
+				return (TYPE) obj;
+			}
 		}
 		return null;
 	}
 
+	public <TYPE> TYPE getOptional(PipelineKey<TYPE> key, TYPE defaultValue) {
+		TYPE res = getOptional(key);
+		if (null == res) {
+			return defaultValue;
+		}
+		return res;
+	}
+
+	public int getInt(PipelineKey<Integer> key) throws GeomajasException {
+		if (INT_VALUE == getSlot(key)) {
+			return ints[key.getIndex()];
+		}
+		return get(key);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <TYPE> TYPE put(PipelineKey<TYPE> key, TYPE value) {
+		TYPE previous = getOptional(key);
+		ensureCapacity(key.getIndex());
+		values[key.getIndex()] = null == value ? NULL_VALUE : value;
+		if (null != map) {
+			map.remove(key.getName());
+		}
+		return previous;
+	}
+
+	public void putInt(PipelineKey<Integer> key, int value) {
+		int index = key.getIndex();
+		ensureCapacity(index);
+		if (null == ints) {
+			ints = new int[values.length];
+		}
+		ints[index] = value;
+		values[index] = INT_VALUE;
+		if (null != map) {
+			map.remove(key.getName());
+		}
+	}
+
 	public boolean isFinished() {
 		return finished;
 	}
@@ -80,4 +197,41 @@ public class PipelineContextImpl implements PipelineContext {
 		this.finished = finished;
 	}
 
+	private Object getSlot(PipelineKey<?> key) {
+		int index = key.getIndex();
+		if (index < values.length) {
+			return values[index];
+		}
+		return null;
+	}
+
+	private Object decode(PipelineKey<?> key, Object slot) {
+		if (NULL_VALUE == slot) {
+			return null;
+		}
+		if (INT_VALUE == slot) {
+			return ints[key.getIndex()];
+		}
+		return slot;
+	}
+
+	private void ensureCapacity(int index) {
+		if (index >= values.length) {
+			// keys were registered after this context was created
+			int length = Math.max(index + 1, PipelineKey.getKeyCount());
+			Object[] newValues = new Object[length];
+			System.arraycopy(values, 0, newValues, 0, values.length);
+			values = newValues;
+			if (null != ints) {
+				int[] newInts = new int[length];
+				System.arraycopy(ints, 0, newInts, 0, ints.length);
+				ints = newInts;
+			}
+		} else if (null != ints && index >= ints.length) {
+			int[] newInts = new int[values.length];
+			System.arraycopy(ints, 0, newInts, 0, ints.length);
+			ints = newInts;
+		}
+	}
+
 }
@@ -0,0 +1,268 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.internal.service.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.geomajas.global.GeomajasException;
+import org.geomajas.service.pipeline.PipelineContext;
+import org.geomajas.service.pipeline.PipelineInfo;
+import org.geomajas.service.pipeline.PipelineInterceptor;
+import org.geomajas.service.pipeline.PipelineInterceptorErrorHandler;
+import org.geomajas.service.pipeline.PipelineInterceptor.ExecutionMode;
+import org.geomajas.service.pipeline.PipelineStep;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiled execution plan for a pipeline. The nested structure of steps and interceptor steps is flattened into
+ * arrays. For each interceptor, the range of nested steps is resolved when compiling, so executing the pipeline only
+ * needs to walk the arrays.
+ *
+ * @param <RESPONSE> type of response object for the pipeline
+ *
+ * @author Joachim Van der Auwera
+ */
+final class PipelinePlan<RESPONSE> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PipelinePlan.class);
+
+	private static final String NO_LAYER = "";
+
+	private static final double NANOS_PER_SECOND = 1000000000.0;
+
+	private final PipelineInfo<RESPONSE> pipeline;
+
+	private final String pipelineName;
+
+	private final PipelineStep<RESPONSE>[] steps;
+
+	private final PipelineInterceptor<RESPONSE>[] interceptors;
+
+	private final int[] ends;
+
+	private final ConcurrentMap<String, PlanRecorder> recorders = new ConcurrentHashMap<String, PlanRecorder>();
+
+	/**
+	 * Compile the plan for a pipeline. The pipeline should already be extended and intercepted.
+	 *
+	 * @param pipeline pipeline to compile
+	 */
+	@SuppressWarnings("unchecked")
+	PipelinePlan(PipelineInfo<RESPONSE> pipeline) {
+		this.pipeline = pipeline;
+		this.pipelineName = pipeline.getPipelineName();
+		List<PipelineStep<RESPONSE>> stepList = new ArrayList<PipelineStep<RESPONSE>>();
+		List<PipelineInterceptor<RESPONSE>> interceptorList = new ArrayList<PipelineInterceptor<RESPONSE>>();
+		List<Integer> endList = new ArrayList<Integer>();
+		if (null != pipeline.getPipeline()) {
+			flatten(pipeline.getPipeline(), stepList, interceptorList, endList);
+		}
+		int size = stepList.size();
+		steps = stepList.toArray(new PipelineStep[size]);
+		interceptors = interceptorList.toArray(new PipelineInterceptor[size]);
+		ends = new int[size];
+		for (int i = 0; i < size; i++) {
+			ends[i] = endList.get(i);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void flatten(List<PipelineStep<RESPONSE>> nested, List<PipelineStep<RESPONSE>> stepList,
+			List<PipelineInterceptor<RESPONSE>> interceptorList, List<Integer> endList) {
+		for (PipelineStep<RESPONSE> step : nested) {
+			int index = stepList.size();
+			stepList.add(step);
+			endList.add(index + 1);
+			if (step instanceof PipelineServiceImpl.PipelineInterceptorStep) {
+				PipelineServiceImpl<RESPONSE>.PipelineInterceptorStep<RESPONSE> interceptorStep =
+						(PipelineServiceImpl<RESPONSE>.PipelineInterceptorStep<RESPONSE>) step;
+				interceptorList.add(interceptorStep.getInterceptor());
+				flatten(interceptorStep.getSteps(), stepList, interceptorList, endList);
+				endList.set(index, stepList.size());
+			} else {
+				interceptorList.add(null);
+			}
+		}
+	}
+
+	/**
+	 * Get the pipeline for which this is the plan.
+	 *
+	 * @return pipeline
+	 */
+	PipelineInfo<RESPONSE> getPipeline() {
+		return pipeline;
+	}
+
+	/**
+	 * Execute the plan.
+	 *
+	 * @param context pipeline context
+	 * @param response response object
+	 * @param statistics statistics, can be null
+	 * @param layerId layer id for the statistics
+	 * @throws GeomajasException oops
+	 */
+	void execute(PipelineContext context, RESPONSE response, PipelineStatistics statistics, String layerId)
+			throws GeomajasException {
+		PlanRecorder recorder = null;
+		if (null != statistics && statistics.isEnabled()) {
+			recorder = getRecorder(statistics, layerId);
+		}
+		LOG.debug("execute pipeline {}", pipelineName);
+		long ps = System.nanoTime();
+		try {
+			execute(0, steps.length, null, context, response, recorder);
+		} finally {
+			long duration = System.nanoTime() - ps;
+			if (null != recorder) {
+				recorder.recorder.recordPipeline(duration);
+			}
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("pipeline done, {}, time {}s", pipelineName, duration / NANOS_PER_SECOND);
+			}
+		}
+	}
+
+	private void execute(int from, int to, String parentId, PipelineContext context, RESPONSE response,
+			PlanRecorder recorder) throws GeomajasException {
+		int index = from;
+		while (index < to) {
+			if (context.isFinished()) {
+				if (null == parentId) {
+					LOG.debug("context finished, pipeline {} execution done.", pipelineName);
+				} else {
+					LOG.debug("context finished, interceptor {} execution done", parentId);
+				}
+				return;
+			}
+			PipelineStep<RESPONSE> step = steps[index];
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("execute step {} for {}", step.getId(), null == parentId ? pipelineName : parentId);
+			}
+			long ts = System.nanoTime();
+			try {
+				if (null == interceptors[index]) {
+					step.execute(context, response);
+				} else {
+					intercept(index, context, response, recorder);
+				}
+			} finally {
+				long duration = System.nanoTime() - ts;
+				if (null != recorder) {
+					recorder.steps[index].recordNanos(duration);
+				}
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("done step {}, time {}s", step.getId(), duration / NANOS_PER_SECOND);
+				}
+			}
+			index = ends[index];
+		}
+	}
+
+	private void intercept(int index, PipelineContext context, RESPONSE response, PlanRecorder recorder)
+			throws GeomajasException {
+		PipelineInterceptor<RESPONSE> interceptor = interceptors[index];
+		String interceptorId = interceptor.getId();
+		LOG.debug("execute beforeSteps for interceptor {}", interceptorId);
+		long its = System.nanoTime();
+		ExecutionMode mode = interceptor.beforeSteps(context, response);
+		if (mode == null) {
+			mode = ExecutionMode.EXECUTE_ALL;
+		}
+		if (null != recorder) {
+			recorder.interceptors[index].recordBefore(mode, System.nanoTime() - its);
+		}
+		try {
+			switch (mode) {
+				case EXECUTE_ALL:
+				case EXECUTE_STEPS_NOT_AFTER:
+					execute(index + 1, ends[index], interceptorId, context, response, recorder);
+					break;
+				default:
+					LOG.debug("skipping steps for interceptor {}", interceptorId);
+			}
+			switch (mode) {
+				case EXECUTE_ALL:
+				case EXECUTE_SKIP_STEPS:
+					long ats = System.nanoTime();
+					interceptor.afterSteps(context, response);
+					if (null != recorder) {
+						recorder.interceptors[index].recordAfter(System.nanoTime() - ats);
+					}
+					break;
+				default:
+					LOG.debug("skipping afterSteps for interceptor {}", interceptorId);
+			}
+		} catch (GeomajasException ge) {
+			onError(interceptor, context, response, ge);
+			throw ge;
+		} catch (RuntimeException re) {
+			onError(interceptor, context, response, re);
+			throw re;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void onError(PipelineInterceptor<RESPONSE> interceptor, PipelineContext context, RESPONSE response,
+			Exception error) {
+		if (interceptor instanceof PipelineInterceptorErrorHandler) {
+			try {
+				((PipelineInterceptorErrorHandler<RESPONSE>) interceptor).onError(context, response, error);
+			} catch (RuntimeException re) {
+				LOG.warn("Error handler for interceptor " + interceptor.getId() + " failed.", re);
+			}
+		}
+	}
+
+	private PlanRecorder getRecorder(PipelineStatistics statistics, String layerId) {
+		String key = null == layerId ? NO_LAYER : layerId;
+		PlanRecorder recorder = recorders.get(key);
+		if (null == recorder) {
+			PlanRecorder created = new PlanRecorder(statistics.getRecorder(pipelineName, layerId));
+			recorder = recorders.putIfAbsent(key, created);
+			if (null == recorder) {
+				recorder = created;
+			}
+		}
+		return recorder;
+	}
+
+	/**
+	 * Statistics for the plan and a layer, resolved by index in the plan.
+	 */
+	private final class PlanRecorder {
+
+		private final PipelineStatistics.Recorder recorder;
+
+		private final LatencyHistogram[] steps;
+
+		private final PipelineStatistics.InterceptorStatistics[] interceptors;
+
+		private PlanRecorder(PipelineStatistics.Recorder recorder) {
+			this.recorder = recorder;
+			int size = PipelinePlan.this.steps.length;
+			steps = new LatencyHistogram[size];
+			interceptors = new PipelineStatistics.InterceptorStatistics[size];
+			for (int i = 0; i < size; i++) {
+				steps[i] = recorder.getStep(PipelinePlan.this.steps[i].getId());
+				if (null != PipelinePlan.this.interceptors[i]) {
+					interceptors[i] = recorder.getInterceptor(PipelinePlan.this.interceptors[i].getId());
+				}
+			}
+		}
+	}
+}
@@ -15,6 +15,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -26,10 +27,10 @@ import org.geomajas.service.pipeline.PipelineContext;
 import org.geomajas.service.pipeline.PipelineHook;
 import org.geomajas.service.pipeline.PipelineInfo;
 import org.geomajas.service.pipeline.PipelineInterceptor;
+import org.geomajas.service.pipeline.PipelineInterceptorErrorHandler;
 import org.geomajas.service.pipeline.PipelineInterceptor.ExecutionMode;
 import org.geomajas.service.pipeline.PipelineService;
 import org.geomajas.service.pipeline.PipelineStep;
-import org.geotools.util.Utilities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -54,60 +55,59 @@ public class PipelineServiceImpl<RESPONSE> implements PipelineService<RESPONSE>
 	@Autowired
 	private List<PipelineInfo<RESPONSE>> pipelineInfos;
 
-	private Map<PipelineStamp, PipelineInfo<RESPONSE>> pipelineMap;
+	private Map<String, PipelineEntry<RESPONSE>> pipelineMap;
+
+	private Map<PipelineInfo<RESPONSE>, PipelinePlan<RESPONSE>> planMap;
+
+	@Autowired(required = false)
+	private PipelineStatistics statistics;
 
 	/** @inheritDoc */
 	public void execute(String key, String layerId, PipelineContext context, RESPONSE response)
 			throws GeomajasException {
-		execute(getPipeline(key, layerId), context, response);
+		execute(getPlan(key, layerId), context, response, layerId);
 	}
 
 	/** @inheritDoc */
 	public void execute(PipelineInfo<RESPONSE> pipeline, PipelineContext startContext, RESPONSE response)
 			throws GeomajasException {
+		PipelinePlan<RESPONSE> plan = planMap.get(pipeline);
+		if (null == plan) {
+			// not a configured pipeline, compile on the fly
+			plan = new PipelinePlan<RESPONSE>(pipeline);
+		}
+		execute(plan, startContext, response, pipeline.getLayerId());
+	}
+
+	private void execute(PipelinePlan<RESPONSE> plan, PipelineContext startContext, RESPONSE response,
+			String layerId) throws GeomajasException {
 		PipelineContext context = startContext;
 		if (null == context) {
 			context = createContext();
 		}
-		long ps = 0;
-		if (log.isDebugEnabled()) {
-			ps = System.currentTimeMillis();
-			log.debug("execute pipeline {}", pipeline.getPipelineName());
-		}
-		for (PipelineStep<RESPONSE> step : pipeline.getPipeline()) {
-			if (context.isFinished()) {
-				log.debug("context finished, pipeline {} execution done.", pipeline.getPipelineName());
-				break;
-			}
-			long ts = 0;
-			if (log.isDebugEnabled()) {
-				log.debug("execute step {} for pipeline {}.", step.getId(), pipeline.getPipelineName());
-				ts = System.currentTimeMillis();
-			}
-			step.execute(context, response);
-			if (log.isDebugEnabled()) {
-				log.debug("done step {}, time {}s", step.getId(), (System.currentTimeMillis() - ts) / 1000.0);
-			}
-		}
-		if (log.isDebugEnabled()) {
-			log.debug("pipeline done, {}, time {}s", pipeline.getPipelineName(),
-					(System.currentTimeMillis() - ps) / 1000.0);
-		}
+		plan.execute(context, response, statistics, layerId);
 	}
 
 	/** @inheritDoc */
-	@SuppressWarnings("unchecked")
 	public PipelineInfo<RESPONSE> getPipeline(String pipelineName, String layerId) throws GeomajasException {
-		PipelineStamp stamp = new PipelineStamp(pipelineName, layerId);
-		PipelineInfo<RESPONSE> pipeline = pipelineMap.get(stamp);
-		if (null == pipeline) {
-			stamp = new PipelineStamp(pipelineName, null);
-			pipeline = pipelineMap.get(stamp);
+		return getPlan(pipelineName, layerId).getPipeline();
+	}
+
+	private PipelinePlan<RESPONSE> getPlan(String pipelineName, String layerId) throws GeomajasException {
+		PipelinePlan<RESPONSE> plan = null;
+		PipelineEntry<RESPONSE> entry = pipelineMap.get(pipelineName);
+		if (null != entry) {
+			if (null != layerId) {
+				plan = entry.layerPlans.get(layerId);
+			}
+			if (null == plan) {
+				plan = entry.defaultPlan;
+			}
 		}
-		if (null == pipeline) {
+		if (null == plan) {
 			throw new GeomajasException(ExceptionCode.PIPELINE_UNKNOWN, pipelineName, layerId);
 		}
-		return pipeline;
+		return plan;
 	}
 
 	/** @inheritDoc */
@@ -155,17 +155,35 @@ public class PipelineServiceImpl<RESPONSE> implements PipelineService<RESPONSE>
 		for (PipelineInfo<RESPONSE> pipeline : delegateLast) {
 			interceptPipeline(pipeline);
 		}
-		// remove double names
-		pipelineMap = new HashMap<PipelineStamp, PipelineInfo<RESPONSE>>();
+		// remove double names and compile the execution plans
+		pipelineMap = new HashMap<String, PipelineEntry<RESPONSE>>();
+		planMap = new IdentityHashMap<PipelineInfo<RESPONSE>, PipelinePlan<RESPONSE>>();
 		for (PipelineInfo<RESPONSE> pipeline : pipelineInfos) {
-			// equal stamps will be overwritten here, last one wins !
-			pipelineMap.put(new PipelineStamp(pipeline), pipeline);
+			PipelinePlan<RESPONSE> plan = new PipelinePlan<RESPONSE>(pipeline);
+			planMap.put(pipeline, plan);
+			PipelineEntry<RESPONSE> entry = pipelineMap.get(pipeline.getPipelineName());
+			if (null == entry) {
+				entry = new PipelineEntry<RESPONSE>();
+				pipelineMap.put(pipeline.getPipelineName(), entry);
+			}
+			// equal name and layer will be overwritten here, last one wins !
+			if (null == pipeline.getLayerId()) {
+				entry.defaultPlan = plan;
+			} else {
+				entry.layerPlans.put(pipeline.getLayerId(), plan);
+			}
 		}
 		if (log.isDebugEnabled()) {
 			log.debug("listing pipeline structures");
-			for (PipelineInfo<RESPONSE> pipeline : pipelineMap.values()) {
-				log.debug("");
-				print(pipeline);
+			for (PipelineEntry<RESPONSE> entry : pipelineMap.values()) {
+				if (null != entry.defaultPlan) {
+					log.debug("");
+					print(entry.defaultPlan.getPipeline());
+				}
+				for (PipelinePlan<RESPONSE> plan : entry.layerPlans.values()) {
+					log.debug("");
+					print(plan.getPipeline());
+				}
 			}
 		}
 	}
@@ -384,52 +402,52 @@ public class PipelineServiceImpl<RESPONSE> implements PipelineService<RESPONSE>
 			return toStep;
 		}
 
+		public PipelineInterceptor<T> getInterceptor() {
+			return interceptor;
+		}
+
 		public void execute(PipelineContext context, T response) throws GeomajasException {
 			log.debug("execute beforeSteps for interceptor {}", interceptor.getId());
-			long its = 0;
-			if (log.isDebugEnabled()) {
-				its  = System.currentTimeMillis();
-			}
 			ExecutionMode mode = interceptor.beforeSteps(context, response);
 			if (mode == null) {
 				mode = ExecutionMode.EXECUTE_ALL;
 			}
-			switch (mode) {
-				case EXECUTE_ALL:
-				case EXECUTE_STEPS_NOT_AFTER:
-					if (!context.isFinished()) {
+			try {
+				switch (mode) {
+					case EXECUTE_ALL:
+					case EXECUTE_STEPS_NOT_AFTER:
 						for (PipelineStep<T> step : getSteps()) {
 							if (context.isFinished()) {
 								log.debug("context finished, interceptor {} execution done", interceptor.getId());
 								break;
 							}
-							long ts = 0;
-							if (log.isDebugEnabled()) {
-								ts = System.currentTimeMillis();
-								log.debug("execute step {} for interceptor {}", step.getId(), interceptor.getId());
-							}
 							step.execute(context, response);
-							if (log.isDebugEnabled()) {
-								log.debug("done step {}, time {}s", step.getId(),
-										(System.currentTimeMillis() - ts) / 1000.0);
-							}
 						}
-					}
-					break;
-				default:
-					log.debug("skipping steps for interceptor {}", interceptor.getId());
-			}
-			switch (mode) {
-				case EXECUTE_ALL:
-				case EXECUTE_SKIP_STEPS:
-					interceptor.afterSteps(context, response);
-					break;
-				default:
-					log.debug("skipping afterSteps for interceptor {}", interceptor.getId());
+						break;
+					default:
+						log.debug("skipping steps for interceptor {}", interceptor.getId());
+				}
+				switch (mode) {
+					case EXECUTE_ALL:
+					case EXECUTE_SKIP_STEPS:
+						interceptor.afterSteps(context, response);
+						break;
+					default:
+						log.debug("skipping afterSteps for interceptor {}", interceptor.getId());
+				}
+			} catch (GeomajasException ge) {
+				onError(context, response, ge);
+				throw ge;
+			} catch (RuntimeException re) {
+				onError(context, response, re);
+				throw re;
 			}
-			if (log.isDebugEnabled()) {
-				log.debug("beforeSteps done for {}, time {}s", interceptor.getId(),
-						(System.currentTimeMillis() - its) / 1000.0);
+		}
+
+		@SuppressWarnings("unchecked")
+		private void onError(PipelineContext context, T response, Exception error) {
+			if (interceptor instanceof PipelineInterceptorErrorHandler) {
+				((PipelineInterceptorErrorHandler<T>) interceptor).onError(context, response, error);
 			}
 		}
 	}
@@ -448,43 +466,15 @@ public class PipelineServiceImpl<RESPONSE> implements PipelineService<RESPONSE>
 	}
 
 	/**
-	 * Stamp for detection of duplicate pipelines.
-	 * 
-	 * @author Jan De Moerloose
+	 * Compiled plans for one pipeline name, the default plan and the layer specific plans.
+	 *
+	 * @param <T> type of response object for the pipeline
 	 */
-	private static final class PipelineStamp {
-
-		private final String name;
-
-		private final String layerId;
+	private static final class PipelineEntry<T> {
 
-		public PipelineStamp(PipelineInfo info) {
-			this.name = info.getPipelineName();
-			this.layerId = info.getLayerId();
-		}
-
-		public PipelineStamp(String name, String layerId) {
-			this.name = name;
-			this.layerId = layerId;
-		}
+		private PipelinePlan<T> defaultPlan;
 
-		public boolean equals(Object otherObject) {
-			if (this == otherObject) {
-				return true;
-			}
-			if (otherObject == null || !(otherObject instanceof PipelineStamp)) {
-				return false;
-			}
-			PipelineStamp otherStamp = (PipelineStamp) otherObject;
-			return Utilities.equals(name, otherStamp.name) && Utilities.equals(layerId, otherStamp.layerId);
-		}
-
-		public int hashCode() {
-			int result = 13;
-			result = Utilities.hash(name, result);
-			result = Utilities.hash(layerId, result);
-			return result;
-		}
+		private final Map<String, PipelinePlan<T>> layerPlans = new HashMap<String, PipelinePlan<T>>();
 	}
 
 }
@@ -0,0 +1,357 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.internal.service.pipeline;
+
+import org.geomajas.service.pipeline.PipelineInterceptor.ExecutionMode;
+import org.geomajas.service.pipeline.PipelineStatisticsService;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Always-on statistics for pipeline execution. For each pipeline and layer combination, the execution time of the
+ * pipeline, of each step and of each interceptor is recorded in a {@link LatencyHistogram}. For interceptors, the
+ * returned {@link ExecutionMode} is counted as well, which shows the hit rate for caching interceptors.
+ * <p/>
+ * Recording is lock-free, it only uses atomic counters. The statistics can be inspected using JMX (see
+ * {@link PipelineStatisticsService}) or the statistics controller.
+ *
+ * @author Joachim Van der Auwera
+ */
+@Component("service.PipelineStatistics")
+public class PipelineStatistics implements PipelineStatisticsService {
+
+	private static final String NO_LAYER = "";
+
+	private static final String NO_ID = "?";
+
+	private static final String SEPARATOR = "/";
+
+	private static final String SPACE = " ";
+
+	private static final String BEFORE = ".beforeSteps";
+
+	private static final String AFTER = ".afterSteps";
+
+	private volatile boolean enabled = true;
+
+	private final AtomicLong invocationCount = new AtomicLong();
+
+	private final ConcurrentMap<String, ConcurrentMap<String, Recorder>> recorders =
+			new ConcurrentHashMap<String, ConcurrentMap<String, Recorder>>();
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Get the recorder for a pipeline and layer.
+	 *
+	 * @param pipelineName pipeline name
+	 * @param layerId layer id, can be null
+	 * @return recorder or null when statistics are disabled
+	 */
+	public Recorder getRecorder(String pipelineName, String layerId) {
+		if (!enabled) {
+			return null;
+		}
+		String layer = null == layerId ? NO_LAYER : layerId;
+		ConcurrentMap<String, Recorder> layerRecorders = recorders.get(pipelineName);
+		if (null == layerRecorders) {
+			ConcurrentMap<String, Recorder> created = new ConcurrentHashMap<String, Recorder>();
+			layerRecorders = recorders.putIfAbsent(pipelineName, created);
+			if (null == layerRecorders) {
+				layerRecorders = created;
+			}
+		}
+		Recorder recorder = layerRecorders.get(layer);
+		if (null == recorder) {
+			Recorder created = new Recorder(pipelineName, layer);
+			recorder = layerRecorders.putIfAbsent(layer, created);
+			if (null == recorder) {
+				recorder = created;
+			}
+		}
+		return recorder;
+	}
+
+	@Override
+	public long getInvocationCount() {
+		return invocationCount.get();
+	}
+
+	@Override
+	public String[] getStatistics() {
+		List<String> lines = new ArrayList<String>();
+		for (Recorder recorder : getRecorders()) {
+			recorder.addStatistics(lines);
+		}
+		Collections.sort(lines);
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	@Override
+	public String[] getHotSteps(int count) {
+		List<Map.Entry<String, LatencyHistogram>> all = new ArrayList<Map.Entry<String, LatencyHistogram>>();
+		for (Recorder recorder : getRecorders()) {
+			String prefix = recorder.prefix + SEPARATOR;
+			for (Map.Entry<String, LatencyHistogram> entry : recorder.steps.entrySet()) {
+				all.add(new KeyedHistogram(prefix + entry.getKey(), entry.getValue()));
+			}
+			for (Map.Entry<String, InterceptorStatistics> entry : recorder.interceptors.entrySet()) {
+				all.add(new KeyedHistogram(prefix + entry.getKey() + BEFORE, entry.getValue().before));
+				all.add(new KeyedHistogram(prefix + entry.getKey() + AFTER, entry.getValue().after));
+			}
+		}
+		Collections.sort(all, new Comparator<Map.Entry<String, LatencyHistogram>>() {
+
+			public int compare(Map.Entry<String, LatencyHistogram> o1, Map.Entry<String, LatencyHistogram> o2) {
+				long t1 = o1.getValue().getTotalMicros();
+				long t2 = o2.getValue().getTotalMicros();
+				return t1 < t2 ? 1 : (t1 == t2 ? 0 : -1);
+			}
+		});
+		List<String> lines = new ArrayList<String>();
+		for (int i = 0; i < all.size() && i < count; i++) {
+			Map.Entry<String, LatencyHistogram> entry = all.get(i);
+			lines.add(entry.getKey() + " total=" + entry.getValue().getTotalMicros() + "us " + entry.getValue());
+		}
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	@Override
+	public void clear() {
+		// reset in place, recorders are cached by the compiled pipeline plans
+		for (Recorder recorder : getRecorders()) {
+			recorder.reset();
+		}
+		invocationCount.set(0);
+	}
+
+	private List<Recorder> getRecorders() {
+		List<Recorder> all = new ArrayList<Recorder>();
+		for (ConcurrentMap<String, Recorder> layerRecorders : recorders.values()) {
+			all.addAll(layerRecorders.values());
+		}
+		return all;
+	}
+
+	/**
+	 * Statistics recorder for one pipeline/layer combination.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	public final class Recorder {
+
+		private final String prefix;
+
+		private final LatencyHistogram pipeline = new LatencyHistogram();
+
+		private final ConcurrentMap<String, LatencyHistogram> steps =
+				new ConcurrentHashMap<String, LatencyHistogram>();
+
+		private final ConcurrentMap<String, InterceptorStatistics> interceptors =
+				new ConcurrentHashMap<String, InterceptorStatistics>();
+
+		private Recorder(String pipelineName, String layerId) {
+			this.prefix = pipelineName + SEPARATOR + layerId;
+		}
+
+		/**
+		 * Record the execution time of the entire pipeline.
+		 *
+		 * @param nanos duration in nanoseconds
+		 */
+		public void recordPipeline(long nanos) {
+			invocationCount.incrementAndGet();
+			pipeline.recordNanos(nanos);
+		}
+
+		/**
+		 * Record the execution time of a step. For interceptors, this includes the nested steps.
+		 *
+		 * @param stepId step id
+		 * @param nanos duration in nanoseconds
+		 */
+		public void recordStep(String stepId, long nanos) {
+			getStep(stepId).recordNanos(nanos);
+		}
+
+		/**
+		 * Get the histogram for a step.
+		 *
+		 * @param stepId step id
+		 * @return step histogram
+		 */
+		public LatencyHistogram getStep(String stepId) {
+			String key = null == stepId ? NO_ID : stepId;
+			LatencyHistogram histogram = steps.get(key);
+			if (null == histogram) {
+				LatencyHistogram created = new LatencyHistogram();
+				histogram = steps.putIfAbsent(key, created);
+				if (null == histogram) {
+					histogram = created;
+				}
+			}
+			return histogram;
+		}
+
+		/**
+		 * Get the statistics for an interceptor.
+		 *
+		 * @param interceptorId interceptor id
+		 * @return interceptor statistics
+		 */
+		public InterceptorStatistics getInterceptor(String interceptorId) {
+			String key = null == interceptorId ? NO_ID : interceptorId;
+			InterceptorStatistics statistics = interceptors.get(key);
+			if (null == statistics) {
+				InterceptorStatistics created = new InterceptorStatistics();
+				statistics = interceptors.putIfAbsent(key, created);
+				if (null == statistics) {
+					statistics = created;
+				}
+			}
+			return statistics;
+		}
+
+		private void reset() {
+			pipeline.reset();
+			for (LatencyHistogram histogram : steps.values()) {
+				histogram.reset();
+			}
+			for (InterceptorStatistics statistics : interceptors.values()) {
+				statistics.reset();
+			}
+		}
+
+		private void addStatistics(List<String> lines) {
+			// histograms are created up front by the pipeline plans, only list what was actually executed
+			if (0 == pipeline.getCount()) {
+				return;
+			}
+			lines.add(prefix + SPACE + pipeline);
+			for (Map.Entry<String, LatencyHistogram> entry : steps.entrySet()) {
+				if (0 != entry.getValue().getCount()) {
+					lines.add(prefix + SEPARATOR + entry.getKey() + SPACE + entry.getValue());
+				}
+			}
+			for (Map.Entry<String, InterceptorStatistics> entry : interceptors.entrySet()) {
+				String key = prefix + SEPARATOR + entry.getKey();
+				InterceptorStatistics statistics = entry.getValue();
+				if (0 == statistics.before.getCount()) {
+					continue;
+				}
+				lines.add(key + BEFORE + SPACE + statistics.before);
+				lines.add(key + AFTER + SPACE + statistics.after);
+				StringBuilder modes = new StringBuilder(key).append(".mode");
+				for (ExecutionMode mode : ExecutionMode.values()) {
+					modes.append(SPACE).append(mode.name()).append('=').append(statistics.getModeCount(mode));
+				}
+				lines.add(modes.toString());
+			}
+		}
+	}
+
+	/**
+	 * Statistics for one interceptor in a pipeline.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	public static final class InterceptorStatistics {
+
+		private final LatencyHistogram before = new LatencyHistogram();
+
+		private final LatencyHistogram after = new LatencyHistogram();
+
+		private final AtomicLongArray modes = new AtomicLongArray(ExecutionMode.values().length);
+
+		/**
+		 * Record the execution of {@link org.geomajas.service.pipeline.PipelineInterceptor#beforeSteps}.
+		 *
+		 * @param mode returned execution mode
+		 * @param nanos duration in nanoseconds
+		 */
+		public void recordBefore(ExecutionMode mode, long nanos) {
+			before.recordNanos(nanos);
+			modes.incrementAndGet(mode.ordinal());
+		}
+
+		/**
+		 * Record the execution of {@link org.geomajas.service.pipeline.PipelineInterceptor#afterSteps}.
+		 *
+		 * @param nanos duration in nanoseconds
+		 */
+		public void recordAfter(long nanos) {
+			after.recordNanos(nanos);
+		}
+
+		/**
+		 * Get the number of times the given execution mode was returned by the interceptor.
+		 *
+		 * @param mode execution mode
+		 * @return count
+		 */
+		public long getModeCount(ExecutionMode mode) {
+			return modes.get(mode.ordinal());
+		}
+
+		private void reset() {
+			before.reset();
+			after.reset();
+			for (int i = 0; i < modes.length(); i++) {
+				modes.set(i, 0);
+			}
+		}
+	}
+
+	/**
+	 * Map entry for ranking interceptor histograms together with the step histograms.
+	 */
+	private static final class KeyedHistogram implements Map.Entry<String, LatencyHistogram> {
+
+		private final String key;
+
+		private final LatencyHistogram value;
+
+		private KeyedHistogram(String key, LatencyHistogram value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public LatencyHistogram getValue() {
+			return value;
+		}
+
+		public LatencyHistogram setValue(LatencyHistogram value) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
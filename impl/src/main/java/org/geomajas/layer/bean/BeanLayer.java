@@ -29,16 +29,19 @@ import org.geomajas.configuration.SortType;
 import org.geomajas.configuration.VectorLayerInfo;
 import org.geomajas.global.ExceptionCode;
 import org.geomajas.global.GeomajasException;
+import org.geomajas.internal.index.FeatureIndex;
 import org.geomajas.layer.LayerException;
 import org.geomajas.layer.VectorLayer;
 import org.geomajas.layer.VectorLayerAssociationSupport;
 import org.geomajas.layer.VectorLayerLazyFeatureConversionSupport;
+import org.geomajas.layer.VectorLayerPagingSupport;
 import org.geomajas.layer.entity.EntityAttributeService;
 import org.geomajas.layer.feature.Attribute;
 import org.geomajas.layer.feature.FeatureModel;
 import org.geomajas.service.DtoConverterService;
 import org.geomajas.service.FilterService;
 import org.geomajas.service.GeoService;
+import org.geotools.filter.visitor.ExtractBoundsFilterVisitor;
 import org.opengis.filter.Filter;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.slf4j.Logger;
@@ -56,7 +59,8 @@ import com.vividsolutions.jts.geom.Geometry;
  */
 @Api
 @edu.umd.cs.findbugs.annotations.SuppressWarnings("IS2_INCONSISTENT_SYNC")
-public class BeanLayer implements VectorLayer, VectorLayerAssociationSupport, VectorLayerLazyFeatureConversionSupport {
+public class BeanLayer implements VectorLayer, VectorLayerAssociationSupport, VectorLayerLazyFeatureConversionSupport,
+		VectorLayerPagingSupport {
 
 	private final Logger log = LoggerFactory.getLogger(BeanLayer.class);
 
@@ -68,6 +72,11 @@ public class BeanLayer implements VectorLayer, VectorLayerAssociationSupport, Ve
 	 */
 	private final List<Object> features = new ArrayList<Object>();
 
+	/**
+	 * Spatial index for the features, used to answer the spatial part of filters.
+	 */
+	private final FeatureIndex<Object> index = new FeatureIndex<Object>();
+
 	private BeanFeatureModel featureModel;
 
 	private VectorLayerInfo layerInfo;
@@ -131,6 +140,10 @@ public class BeanLayer implements VectorLayer, VectorLayerAssociationSupport, Ve
 		return useLazyFeatureConversion;
 	}
 
+	public boolean isPagingSupported() {
+		return true;
+	}
+
 	/**
 	 * Configure whether lazy feature conversion should be enabled for this layer. Default is true.
 	 *
@@ -143,7 +156,10 @@ public class BeanLayer implements VectorLayer, VectorLayerAssociationSupport, Ve
 	}
 
 	/**
-	 * This implementation does not support the 'offset' and 'maxResultSize' parameters.
+	 * The 'offset' and 'maxResultSize' parameters are applied after sorting.
+	 * <p/>
+	 * When the filter limits the features to an area, the candidates are selected using a spatial index and the
+	 * filter is only evaluated for these candidates.
 	 */
 	public Iterator<?> getElements(Filter filter, int offset, int maxResultSize) throws LayerException {
 		if (null == filter) {
@@ -151,8 +167,10 @@ public class BeanLayer implements VectorLayer, VectorLayerAssociationSupport, Ve
 		}
 		List<Object> filteredList = new ArrayList<Object>();
 		try {
+			Envelope bounds = getFilterBounds(filter);
 			synchronized (featuresById) {
-				for (Object feature : featuresById.values()) {
+				Iterable<Object> candidates = null != bounds ? index.query(bounds) : featuresById.values();
+				for (Object feature : candidates) {
 					if (filter.evaluate(feature)) {
 						filteredList.add(feature);
 					}
@@ -165,10 +183,12 @@ public class BeanLayer implements VectorLayer, VectorLayerAssociationSupport, Ve
 		if (comparator != null) {
 			Collections.sort(filteredList, comparator);
 		}
-		if (maxResultSize > 0) {
-			int fromIndex = Math.max(0, offset);
-			int toIndex = Math.min(offset + maxResultSize, filteredList.size());
-			toIndex = Math.max(fromIndex, toIndex);
+		if (maxResultSize > 0 || offset > 0) {
+			int fromIndex = Math.min(Math.max(0, offset), filteredList.size());
+			int toIndex = filteredList.size();
+			if (maxResultSize > 0) {
+				toIndex = Math.min(fromIndex + maxResultSize, toIndex);
+			}
 			return filteredList.subList(fromIndex, toIndex).iterator();
 		} else {
 			return filteredList.iterator();
@@ -223,6 +243,7 @@ public class BeanLayer implements VectorLayer, VectorLayerAssociationSupport, Ve
 			}
 			features.add(feature);
 			featuresById.put(newId, feature);
+			index.put(newId, feature, getEnvelope(feature));
 			return feature;
 		}
 	}
@@ -239,10 +260,13 @@ public class BeanLayer implements VectorLayer, VectorLayerAssociationSupport, Ve
 
 	public Object saveOrUpdate(Object feature) throws LayerException {
 		synchronized (featuresById) {
-			if (!featuresById.containsKey(getFeatureModel().getId(feature))) {
+			String featureId = getFeatureModel().getId(feature);
+			if (!featuresById.containsKey(featureId)) {
 				return create(feature);
 			} else {
-				// Nothing to do
+				// the stored bean is updated in place, only the geometry in the index may need updating
+				Object stored = featuresById.get(featureId);
+				index.put(featureId, stored, getEnvelope(stored));
 				return feature;
 			}
 		}
@@ -253,6 +277,7 @@ public class BeanLayer implements VectorLayer, VectorLayerAssociationSupport, Ve
 			Object o = featuresById.remove(featureId);
 			if (null != o) {
 				features.remove(o);
+				index.remove(featureId);
 			}
 		}
 	}
@@ -274,6 +299,7 @@ public class BeanLayer implements VectorLayer, VectorLayerAssociationSupport, Ve
 					for (Object f : features) {
 						String id = featureModel.getId(f);
 						featuresById.put(featureModel.getId(f), f);
+						index.add(id, f, getEnvelope(f));
 						try {
 							int idInt = Integer.parseInt(id);
 							if (nextId <= idInt) {
@@ -283,6 +309,7 @@ public class BeanLayer implements VectorLayer, VectorLayerAssociationSupport, Ve
 							nextId = random.nextInt();
 						}
 					}
+					index.build();
 				}
 			}
 		}
@@ -330,15 +357,42 @@ public class BeanLayer implements VectorLayer, VectorLayerAssociationSupport, Ve
 				entityMappingService);
 		filterService.registerFeatureModel(featureModel);
 		synchronized (featuresById) {
+			index.clear();
 			for (Object f : features) {
 				if (f instanceof FeatureModelAware) {
 					((FeatureModelAware) f).setFeatureModel(featureModel);
 				}
-				featuresById.put(featureModel.getId(f), f);
+				String featureId = featureModel.getId(f);
+				featuresById.put(featureId, f);
+				index.add(featureId, f, getEnvelope(f));
 			}
+			index.build();
 		}
 	}
 
+	/**
+	 * Get the area to which the filter limits the features.
+	 *
+	 * @param filter filter
+	 * @return bounds or null when the filter does not limit the area
+	 */
+	private Envelope getFilterBounds(Filter filter) {
+		Object bounds = filter.accept(ExtractBoundsFilterVisitor.BOUNDS_VISITOR, null);
+		if (bounds instanceof Envelope) {
+			Envelope envelope = (Envelope) bounds;
+			if (!envelope.isNull() && !Double.isInfinite(envelope.getWidth())
+					&& !Double.isInfinite(envelope.getHeight())) {
+				return envelope;
+			}
+		}
+		return null;
+	}
+
+	private Envelope getEnvelope(Object feature) throws LayerException {
+		Geometry geometry = featureModel.getGeometry(feature);
+		return null == geometry ? null : geometry.getEnvelopeInternal();
+	}
+
 	protected void initComparator() throws LayerException {
 		SortType sortType = getFeatureInfo().getSortType();
 		String name = getFeatureInfo().getSortAttributeName();
@@ -11,9 +11,14 @@
 
 package org.geomajas.internal.layer.vector;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.geomajas.configuration.NamedStyleInfo;
 import org.geomajas.internal.service.pipeline.PipelineContextImpl;
 import org.geomajas.layer.bean.BeanLayer;
+import org.geomajas.layer.feature.InternalFeature;
+import org.geomajas.layer.pipeline.FeatureSink;
 import org.geomajas.layer.pipeline.GetFeaturesContainer;
 import org.geomajas.service.pipeline.PipelineCode;
 import org.geomajas.service.pipeline.PipelineContext;
@@ -153,6 +158,42 @@ public class GetFeaturesEachStepTest {
 		Assert.assertEquals("15", result.getFeatures().get(9).getId());
 	}
 
+	@Test
+	public void testFeatureSink() throws Exception {
+		final List<String> ids = new ArrayList<String>();
+		GetFeaturesContainer result = new GetFeaturesContainer();
+		result.setFeatureSink(new FeatureSink() {
+
+			public boolean add(InternalFeature feature) {
+				ids.add(feature.getId());
+				return true;
+			}
+		});
+		gfes.execute(getPipelineContext(5, 10), result);
+
+		Assert.assertEquals(0, result.getFeatures().size());
+		Assert.assertEquals(10, ids.size());
+		Assert.assertEquals("6", ids.get(0));
+		Assert.assertEquals("15", ids.get(9));
+	}
+
+	@Test
+	public void testFeatureSinkStop() throws Exception {
+		final List<String> ids = new ArrayList<String>();
+		GetFeaturesContainer result = new GetFeaturesContainer();
+		result.setFeatureSink(new FeatureSink() {
+
+			public boolean add(InternalFeature feature) {
+				ids.add(feature.getId());
+				return ids.size() < 3;
+			}
+		});
+		gfes.execute(getPipelineContext(0, Integer.MAX_VALUE), result);
+
+		Assert.assertEquals(3, ids.size());
+		Assert.assertEquals("3", ids.get(2));
+	}
+
 	// ----------------------------------------------------------
 	
 	private PipelineContext getPipelineContext(int offset, int limit, Boolean forcePaging) {
@@ -0,0 +1,106 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.internal.rendering;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.text.DecimalFormat;
+
+/**
+ * Test for {@link FastNumberFormat}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class FastNumberFormatTest {
+
+	@Test
+	public void testWrite() throws Exception {
+		StringWriter writer = new StringWriter();
+		DefaultSvgDocument document = new DefaultSvgDocument(writer, false);
+		DecimalFormat formatter = document.getFormatter();
+		FastNumberFormat format = new FastNumberFormat(formatter);
+		Assert.assertEquals("1.234", format(format, 1.234));
+		Assert.assertEquals("1.23457", format(format, 1.23456789));
+		Assert.assertEquals("-9.87654", format(format, -9.87654321));
+		Assert.assertEquals("0", format(format, 0.000001));
+		Assert.assertEquals("0", format(format, -0.000001));
+		Assert.assertEquals("120", format(format, 120));
+		Assert.assertEquals("0.05", format(format, 0.05));
+		document.setMinimumFractionDigits(4);
+		document.setMaximumFractionDigits(6);
+		Assert.assertEquals("1.2340", format(format, 1.234));
+		Assert.assertEquals("1.234568", format(format, 1.23456789));
+		Assert.assertEquals("-9.876543", format(format, -9.87654321));
+		Assert.assertEquals("0.0000", format(format, 0));
+		// changing the decimal format directly is also picked up
+		formatter.setMinimumFractionDigits(0);
+		formatter.setMaximumFractionDigits(0);
+		Assert.assertEquals("10", format(format, 9.876));
+		Assert.assertEquals("-3", format(format, -2.6));
+	}
+
+	@Test
+	public void testTies() throws Exception {
+		StringWriter writer = new StringWriter();
+		DefaultSvgDocument document = new DefaultSvgDocument(writer, false);
+		DecimalFormat formatter = document.getFormatter();
+		FastNumberFormat format = new FastNumberFormat(formatter);
+		double[] ties = {0.5, 1.5, 2.5, -0.5, -2.5, 0.125, 0.375, 2.675, 1.005, 0.045, 1.115, 1234.5625, 0.000005,
+				0.000015, 0.000025, -0.000035};
+		for (int digits = 0; digits <= 5; digits++) {
+			document.setMaximumFractionDigits(digits);
+			for (double tie : ties) {
+				Assert.assertEquals("value " + tie + ", digits " + digits, decimalFormat(formatter, tie),
+						format(format, tie));
+			}
+			for (int i = -1000; i < 1000; i++) {
+				double value = (i + 0.5) / 1000;
+				Assert.assertEquals("value " + value + ", digits " + digits, decimalFormat(formatter, value),
+						format(format, value));
+			}
+		}
+	}
+
+	@Test
+	public void testFallback() throws Exception {
+		StringWriter writer = new StringWriter();
+		DefaultSvgDocument document = new DefaultSvgDocument(writer, false);
+		FastNumberFormat format = new FastNumberFormat(document.getFormatter());
+		Assert.assertEquals(document.getFormatter().format(1e20), format(format, 1e20));
+		Assert.assertEquals(document.getFormatter().format(Double.NaN), format(format, Double.NaN));
+	}
+
+	@Test
+	public void testDocument() throws Exception {
+		StringWriter writer = new StringWriter();
+		DefaultSvgDocument document = new DefaultSvgDocument(writer, false);
+		document.writeElement("rect", false);
+		document.writeAttribute("width", 12.5);
+		document.writeAttribute("title", "a < b & c");
+		document.closeElement();
+		Assert.assertEquals("<rect width=\"12.5\" title=\"a &lt; b &amp; c\"/>", writer.toString());
+	}
+
+	private String decimalFormat(DecimalFormat formatter, double value) {
+		String result = formatter.format(value);
+		// negative zero is written without sign
+		return result.matches("-[0.]*") ? result.substring(1) : result;
+	}
+
+	private String format(FastNumberFormat format, double value) throws Exception {
+		StringWriter writer = new StringWriter();
+		format.write(writer, value);
+		return writer.toString();
+	}
+}
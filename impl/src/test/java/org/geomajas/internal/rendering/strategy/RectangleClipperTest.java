@@ -0,0 +1,102 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.internal.rendering.strategy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.MultiLineString;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.io.WKTReader;
+
+/**
+ * Test for {@link RectangleClipper}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class RectangleClipperTest {
+
+	private static final double DELTA = 1e-9;
+
+	private static final Envelope CLIP = new Envelope(0, 10, 0, 10);
+
+	private final WKTReader reader = new WKTReader();
+
+	@Test
+	public void testInside() throws Exception {
+		Geometry geometry = reader.read("POLYGON((1 1, 5 1, 5 5, 1 5, 1 1))");
+		Assert.assertSame(geometry, RectangleClipper.clip(geometry, CLIP));
+	}
+
+	@Test
+	public void testOutside() throws Exception {
+		Geometry clipped = RectangleClipper.clip(reader.read("POLYGON((20 20, 25 20, 25 25, 20 20))"), CLIP);
+		Assert.assertTrue(clipped.isEmpty());
+		clipped = RectangleClipper.clip(reader.read("POINT(20 20)"), CLIP);
+		Assert.assertTrue(clipped.isEmpty());
+	}
+
+	@Test
+	public void testPolygon() throws Exception {
+		Geometry geometry = reader.read("POLYGON((-5 -5, 5 -5, 5 5, -5 5, -5 -5), (-1 -1, 1 -1, 1 1, -1 1, -1 -1))");
+		Geometry clipped = RectangleClipper.clip(geometry, CLIP);
+		Assert.assertTrue(clipped instanceof Polygon);
+		Assert.assertEquals(geometry.intersection(reader.read("POLYGON((0 0, 10 0, 10 10, 0 10, 0 0))")).getArea(),
+				clipped.getArea(), DELTA);
+		Assert.assertEquals(new Envelope(0, 5, 0, 5), clipped.getEnvelopeInternal());
+	}
+
+	@Test
+	public void testBigPolygon() throws Exception {
+		Geometry geometry = reader.read("POLYGON((-100 -100, 100 -100, 100 100, -100 100, -100 -100))");
+		Geometry clipped = RectangleClipper.clip(geometry, CLIP);
+		Assert.assertEquals(100, clipped.getArea(), DELTA);
+		Assert.assertEquals(CLIP, clipped.getEnvelopeInternal());
+	}
+
+	@Test
+	public void testMultiPolygon() throws Exception {
+		Geometry geometry = reader.read("MULTIPOLYGON(((-5 -5, 5 -5, 5 5, -5 -5)), ((20 20, 25 20, 25 25, 20 20)))");
+		Geometry clipped = RectangleClipper.clip(geometry, CLIP);
+		Assert.assertTrue(clipped instanceof Polygon);
+		Assert.assertEquals(12.5, clipped.getArea(), DELTA);
+	}
+
+	@Test
+	public void testLine() throws Exception {
+		Geometry geometry = reader.read("LINESTRING(-5 5, 5 5, 5 15, 8 15, 8 5, 15 5)");
+		Geometry clipped = RectangleClipper.clip(geometry, CLIP);
+		Assert.assertTrue(clipped instanceof MultiLineString);
+		Assert.assertEquals(2, clipped.getNumGeometries());
+		Assert.assertEquals(reader.read("LINESTRING(0 5, 5 5, 5 10)"), clipped.getGeometryN(0));
+		Assert.assertEquals(reader.read("LINESTRING(8 10, 8 5, 10 5)"), clipped.getGeometryN(1));
+	}
+
+	@Test
+	public void testLineCrossing() throws Exception {
+		Geometry clipped = RectangleClipper.clip(reader.read("LINESTRING(-10 -10, 20 20)"), CLIP);
+		Assert.assertTrue(clipped instanceof LineString);
+		Assert.assertEquals(reader.read("LINESTRING(0 0, 10 10)"), clipped);
+	}
+
+	@Test
+	public void testClipSegment() {
+		double[] segment = {-5, 5, 5, 5};
+		Assert.assertTrue(RectangleClipper.clipSegment(segment, 0, 0, 10, 10));
+		Assert.assertArrayEquals(new double[] {0, 5, 5, 5}, segment, DELTA);
+		segment = new double[] {-5, -5, 15, -5};
+		Assert.assertFalse(RectangleClipper.clipSegment(segment, 0, 0, 10, 10));
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.internal.rendering.writer.binary;
+
+import org.geomajas.configuration.FeatureStyleInfo;
+import org.geomajas.internal.layer.feature.InternalFeatureImpl;
+import org.geomajas.internal.layer.tile.InternalTileImpl;
+import org.geomajas.layer.tile.TileCode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * Test for {@link BinaryTileWriter}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class BinaryTileWriterTest {
+
+	private final GeometryFactory factory = new GeometryFactory();
+
+	@Test
+	public void testVarint() {
+		Assert.assertEquals(0, BinaryTileWriter.zigzag(0));
+		Assert.assertEquals(1, BinaryTileWriter.zigzag(-1));
+		Assert.assertEquals(2, BinaryTileWriter.zigzag(1));
+		Assert.assertEquals(3, BinaryTileWriter.zigzag(-2));
+		Assert.assertEquals(9, BinaryTileWriter.command(BinaryTileWriter.COMMAND_MOVE_TO, 1));
+		Assert.assertEquals(15, BinaryTileWriter.command(BinaryTileWriter.COMMAND_CLOSE_PATH, 1));
+	}
+
+	@Test
+	public void testWrite() throws Exception {
+		InternalTileImpl tile = new InternalTileImpl(new TileCode(0, 0, 0), new Envelope(0, 100, 0, 100), 1);
+		tile.setScreenWidth(100);
+		tile.setScreenHeight(100);
+		FeatureStyleInfo style = new FeatureStyleInfo();
+		style.setStyleId("parcel");
+		Coordinate[] ring = new Coordinate[] {new Coordinate(0, 0), new Coordinate(10, 0), new Coordinate(10, 10),
+				new Coordinate(0, 0)};
+		tile.addFeature(feature("1", factory.createPolygon(factory.createLinearRing(ring), null), style));
+		tile.addFeature(feature("2", factory.createPoint(new Coordinate(5, 5)), style));
+		tile.addFeature(feature("3", factory.createPoint(new Coordinate(5, 5)), null));
+
+		// scale 2, pan origin (0,10) -> screen x = 2x, screen y = 20 - 2y
+		byte[] data = new BinaryTileWriter(2, new Coordinate(0, 10)).write(tile);
+		Reader reader = new Reader(data);
+		Assert.assertEquals(BinaryTileWriter.VERSION, reader.varint());
+		Assert.assertEquals(100, reader.varint());
+		Assert.assertEquals(100, reader.varint());
+		Assert.assertEquals(1, reader.varint()); // style count
+		Assert.assertEquals("parcel", reader.string());
+		Assert.assertEquals(2, reader.varint()); // feature without style is skipped
+
+		Assert.assertEquals("1", reader.string());
+		Assert.assertEquals(0, reader.varint());
+		Assert.assertEquals(BinaryTileWriter.TYPE_POLYGON, reader.varint());
+		Assert.assertEquals(9, reader.varint()); // geometry ints
+		Assert.assertEquals(BinaryTileWriter.command(BinaryTileWriter.COMMAND_MOVE_TO, 1), reader.varint());
+		Assert.assertEquals(0, reader.signed());
+		Assert.assertEquals(20, reader.signed());
+		Assert.assertEquals(BinaryTileWriter.command(BinaryTileWriter.COMMAND_LINE_TO, 2), reader.varint());
+		Assert.assertEquals(20, reader.signed());
+		Assert.assertEquals(0, reader.signed());
+		Assert.assertEquals(0, reader.signed());
+		Assert.assertEquals(-20, reader.signed());
+		Assert.assertEquals(BinaryTileWriter.command(BinaryTileWriter.COMMAND_CLOSE_PATH, 1), reader.varint());
+
+		Assert.assertEquals("2", reader.string());
+		Assert.assertEquals(0, reader.varint());
+		Assert.assertEquals(BinaryTileWriter.TYPE_POINT, reader.varint());
+		Assert.assertEquals(3, reader.varint());
+		Assert.assertEquals(BinaryTileWriter.command(BinaryTileWriter.COMMAND_MOVE_TO, 1), reader.varint());
+		Assert.assertEquals(10, reader.signed());
+		Assert.assertEquals(10, reader.signed());
+		Assert.assertEquals(data.length, reader.pos);
+	}
+
+	@Test
+	public void testCollapsedLine() throws Exception {
+		InternalTileImpl tile = new InternalTileImpl(new TileCode(0, 0, 0), new Envelope(0, 100, 0, 100), 1);
+		FeatureStyleInfo style = new FeatureStyleInfo();
+		style.setStyleId("road");
+		Coordinate[] line = new Coordinate[] {new Coordinate(0, 0), new Coordinate(0.1, 0.1),
+				new Coordinate(0.2, 0.2)};
+		tile.addFeature(feature("1", factory.createLineString(line), style));
+
+		byte[] data = new BinaryTileWriter(1, new Coordinate(0, 0)).write(tile);
+		Reader reader = new Reader(data);
+		reader.varint();
+		reader.varint();
+		reader.varint();
+		reader.varint();
+		reader.string();
+		Assert.assertEquals(1, reader.varint());
+		Assert.assertEquals("1", reader.string());
+		Assert.assertEquals(0, reader.varint());
+		Assert.assertEquals(BinaryTileWriter.TYPE_LINESTRING, reader.varint());
+		Assert.assertEquals(6, reader.varint());
+		Assert.assertEquals(BinaryTileWriter.command(BinaryTileWriter.COMMAND_MOVE_TO, 1), reader.varint());
+		Assert.assertEquals(0, reader.signed());
+		Assert.assertEquals(0, reader.signed());
+		// rounded positions which do not move are skipped, a zero length line remains
+		Assert.assertEquals(BinaryTileWriter.command(BinaryTileWriter.COMMAND_LINE_TO, 1), reader.varint());
+		Assert.assertEquals(0, reader.signed());
+		Assert.assertEquals(0, reader.signed());
+	}
+
+	private InternalFeatureImpl feature(String id, Geometry geometry, FeatureStyleInfo style) {
+		InternalFeatureImpl feature = new InternalFeatureImpl();
+		feature.setId(id);
+		feature.setGeometry(geometry);
+		feature.setStyleDefinition(style);
+		return feature;
+	}
+
+	/** Minimal decoder for the test. */
+	private static final class Reader {
+
+		private final byte[] data;
+
+		private int pos;
+
+		private Reader(byte[] data) {
+			this.data = data;
+		}
+
+		private int varint() {
+			int result = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = data[pos++];
+				result |= (b & 0x7f) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return result;
+		}
+
+		private int signed() {
+			int value = varint();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		private String string() throws Exception {
+			int length = varint();
+			String result = new String(data, pos, length, "UTF-8");
+			pos += length;
+			return result;
+		}
+	}
+}
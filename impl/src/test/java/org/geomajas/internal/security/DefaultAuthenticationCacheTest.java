@@ -0,0 +1,114 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.internal.security;
+
+import java.util.Date;
+
+import org.geomajas.security.Authentication;
+import org.geomajas.security.BaseAuthorization;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link DefaultAuthenticationCache}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class DefaultAuthenticationCacheTest {
+
+	private static final String TOKEN = "token";
+
+	@Test
+	public void testNotCacheable() {
+		DefaultAuthenticationCache cache = new DefaultAuthenticationCache();
+		cache.putAuthentication(TOKEN, new Authentication[] {createAuthentication()});
+		Assert.assertNull(cache.getAuthentication(TOKEN));
+		Assert.assertNull(cache.getSnapshot(TOKEN));
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testValidUntil() {
+		DefaultAuthenticationCache cache = new DefaultAuthenticationCache();
+		Authentication valid = createAuthentication();
+		valid.setValidUntil(new Date(System.currentTimeMillis() + 60000));
+		cache.putAuthentication(TOKEN, new Authentication[] {valid});
+		Authentication[] cached = cache.getAuthentication(TOKEN);
+		Assert.assertNotNull(cached);
+		Assert.assertSame(valid, cached[0]);
+		Assert.assertNotNull(cache.getSnapshot(TOKEN));
+		Assert.assertNull(cache.getAuthentication(null));
+
+		// explicit invalidation
+		cache.putAuthentication(TOKEN, null);
+		Assert.assertNull(cache.getAuthentication(TOKEN));
+
+		// expired
+		Authentication expired = createAuthentication();
+		expired.setValidUntil(new Date(System.currentTimeMillis() - 1));
+		cache.putAuthentication(TOKEN, new Authentication[] {valid, expired});
+		Assert.assertNull(cache.getAuthentication(TOKEN));
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testExtendValid() {
+		DefaultAuthenticationCache cache = new DefaultAuthenticationCache();
+		long start = System.currentTimeMillis();
+		Authentication authentication = createAuthentication();
+		authentication.setExtendValid(60000);
+		authentication.setInvalidAfter(new Date(start + 30000));
+		cache.putAuthentication(TOKEN, new Authentication[] {authentication});
+		Assert.assertNotNull(cache.getAuthentication(TOKEN));
+		// validity is extended but limited by invalidAfter
+		Assert.assertEquals(start + 30000, authentication.getValidUntil().getTime());
+	}
+
+	@Test
+	public void testMaxSizeAndCleanUp() {
+		DefaultAuthenticationCache cache = new DefaultAuthenticationCache();
+		cache.setMaxSize(2);
+		for (int i = 0; i < 3; i++) {
+			Authentication authentication = createAuthentication();
+			authentication.setValidUntil(new Date(System.currentTimeMillis() + 60000));
+			cache.putAuthentication(TOKEN + i, new Authentication[] {authentication});
+		}
+		Assert.assertTrue(cache.size() <= 2);
+		Assert.assertNotNull(cache.getAuthentication(TOKEN + 2));
+
+		Authentication expired = createAuthentication();
+		expired.setValidUntil(new Date(System.currentTimeMillis() - 1));
+		cache.clear();
+		cache.putAuthentication(TOKEN, new Authentication[] {expired});
+		Assert.assertEquals(1, cache.size());
+		cache.cleanUp();
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testSnapshot() {
+		SecurityContextSnapshot snapshot = new SecurityContextSnapshot();
+		Assert.assertFalse(snapshot.contains("a"));
+		snapshot.put("a", null);
+		Assert.assertTrue(snapshot.contains("a"));
+		Assert.assertNull(snapshot.get("a"));
+		snapshot.put("b", Boolean.TRUE);
+		Assert.assertEquals(Boolean.TRUE, snapshot.get("b"));
+	}
+
+	private Authentication createAuthentication() {
+		Authentication authentication = new Authentication();
+		authentication.setAuthorizations(new BaseAuthorization[] {new AllowBaseAuthorization()});
+		return authentication;
+	}
+}
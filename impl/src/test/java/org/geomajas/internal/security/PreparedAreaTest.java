@@ -0,0 +1,66 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.internal.security;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.WKTReader;
+
+/**
+ * Test for {@link PreparedArea}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class PreparedAreaTest {
+
+	private static final String AREA = "POLYGON((0 0,10 0,10 10,5 5,0 10,0 0))";
+
+	private final WKTReader reader = new WKTReader();
+
+	@Test
+	public void testPartlySufficient() throws Exception {
+		PreparedArea area = new PreparedArea(geometry(AREA), true);
+		Assert.assertTrue(area.isPartlySufficient());
+		Assert.assertTrue(area.accepts(geometry("POINT(2 2)")));
+		Assert.assertTrue(area.accepts(geometry("LINESTRING(-5 1,5 1)")));
+		// inside the envelope but outside the area
+		Assert.assertFalse(area.accepts(geometry("POINT(5 8)")));
+		// outside the envelope
+		Assert.assertFalse(area.accepts(geometry("POINT(20 20)")));
+		Assert.assertFalse(area.accepts(null));
+	}
+
+	@Test
+	public void testWithin() throws Exception {
+		PreparedArea area = new PreparedArea(geometry(AREA), false);
+		Assert.assertFalse(area.isPartlySufficient());
+		Assert.assertTrue(area.accepts(geometry("POINT(2 2)")));
+		Assert.assertTrue(area.accepts(geometry("LINESTRING(1 1,9 1)")));
+		Assert.assertFalse(area.accepts(geometry("LINESTRING(-5 1,5 1)")));
+		Assert.assertFalse(area.accepts(geometry("LINESTRING(1 8,9 8)")));
+		Assert.assertFalse(area.accepts(geometry("POINT(20 20)")));
+	}
+
+	@Test
+	public void testEmptyArea() throws Exception {
+		PreparedArea area = new PreparedArea(geometry("POLYGON EMPTY"), true);
+		Assert.assertFalse(area.accepts(geometry("POINT(2 2)")));
+		area = new PreparedArea(geometry("POLYGON EMPTY"), false);
+		Assert.assertFalse(area.accepts(geometry("POINT(2 2)")));
+	}
+
+	private Geometry geometry(String wkt) throws Exception {
+		return reader.read(wkt);
+	}
+}
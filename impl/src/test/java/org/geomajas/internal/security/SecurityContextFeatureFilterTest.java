@@ -16,8 +16,10 @@ import java.util.List;
 
 import junit.framework.Assert;
 
+import org.geomajas.layer.feature.InternalFeature;
 import org.geomajas.security.Authentication;
 import org.geomajas.security.BaseAuthorization;
+import org.geomajas.security.FeatureVisibilityFilterAuthorization;
 import org.geomajas.security.SecurityContext;
 import org.geomajas.security.VectorLayerSelectFilterAuthorization;
 import org.geomajas.security.allowall.AllowAllAuthorization;
@@ -107,6 +109,43 @@ public class SecurityContextFeatureFilterTest {
 		Assert.assertEquals("[[ name is like bla% ] AND [ name is like bla% ]]", filter.toString());
 	}
 
+	@Test
+	public void testVisibilityFilterAllVisible() {
+		DefaultSecurityContext securityContext = (DefaultSecurityContext)this.securityContext;
+		List<Authentication> authentications = new ArrayList<Authentication>();
+		authentications.add(getVisibilityFilterAuthentication(true));
+		authentications.add(getAuthentication());
+		securityContext.setAuthentications("token", authentications);
+		Assert.assertEquals(Filter.INCLUDE, securityContext.getFeatureVisibilityFilter(LAYER_ID));
+		Assert.assertTrue(securityContext.isFeatureVisibleByFilter(LAYER_ID));
+	}
+
+	@Test
+	public void testVisibilityFilterNotExpressible() {
+		DefaultSecurityContext securityContext = (DefaultSecurityContext)this.securityContext;
+		List<Authentication> authentications = new ArrayList<Authentication>();
+		authentications.add(getVisibilityFilterAuthentication(true));
+		authentications.add(getVisibilityFilterAuthentication(false));
+		securityContext.setAuthentications("token", authentications);
+		Assert.assertNull(securityContext.getFeatureVisibilityFilter(LAYER_ID));
+		Assert.assertFalse(securityContext.isFeatureVisibleByFilter(LAYER_ID));
+	}
+
+	@Test
+	public void testVisibilityFilterCombined() {
+		DefaultSecurityContext securityContext = (DefaultSecurityContext)this.securityContext;
+		List<Authentication> authentications = new ArrayList<Authentication>();
+		authentications.add(getVisibilityFilterAuthentication(true));
+		authentications.add(getVisibilityFilterAuthentication(true));
+		securityContext.setAuthentications("token", authentications);
+		Filter filter = securityContext.getFeatureVisibilityFilter(LAYER_ID);
+		Assert.assertNotNull(filter);
+		// these tests are (geotools) implementation dependent
+		Assert.assertEquals("org.geotools.filter.OrImpl", filter.getClass().getName());
+		Assert.assertEquals("[[ name is like vis% ] OR [ name is like vis% ]]", filter.toString());
+		Assert.assertTrue(securityContext.isFeatureVisibleByFilter(LAYER_ID));
+	}
+
 	private Authentication getAuthentication() {
 		Authentication auth = new Authentication();
 		auth.setAuthorizations(new BaseAuthorization[]{new AllowAllAuthorization()});
@@ -123,6 +162,49 @@ public class SecurityContextFeatureFilterTest {
 		return auth;
 	}
 
+	private Authentication getVisibilityFilterAuthentication(boolean expressible) {
+		Authentication auth = new Authentication();
+		auth.setAuthorizations(new BaseAuthorization[]{new VisibilityFilterAuthorization(expressible)});
+		auth.setSecurityServiceId(SECURITY_SERVICE_ID);
+		auth.setUserId(USER_ID);
+		return auth;
+	}
+
+	private class VisibilityFilterAuthorization extends AllowAllAuthorization
+			implements FeatureVisibilityFilterAuthorization {
+
+		private final boolean expressible;
+
+		public VisibilityFilterAuthorization(boolean expressible) {
+			this.expressible = expressible;
+		}
+
+		public Filter getFeatureVisibilityFilter(String layerId) {
+			return expressible ? filterService.createLikeFilter("name", "vis%") : null;
+		}
+
+		public boolean isFeatureVisible(String layerId, InternalFeature feature) {
+			return true;
+		}
+
+		public boolean isFeatureUpdateAuthorized(String layerId, InternalFeature feature) {
+			return true;
+		}
+
+		public boolean isFeatureUpdateAuthorized(String layerId, InternalFeature orgFeature,
+				InternalFeature newFeature) {
+			return true;
+		}
+
+		public boolean isFeatureDeleteAuthorized(String layerId, InternalFeature feature) {
+			return true;
+		}
+
+		public boolean isFeatureCreateAuthorized(String layerId, InternalFeature feature) {
+			return true;
+		}
+	}
+
 	private class FilterAuthorization extends AllowAllAuthorization implements VectorLayerSelectFilterAuthorization {
 		public Filter getFeatureFilter(String layerId) {
 			return filterService.createLikeFilter("name", "bla%");
@@ -0,0 +1,94 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+package org.geomajas.internal.service;
+
+import org.geomajas.internal.service.DefaultCacheService.CacheStatistics;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for the eviction and statistics in {@link DefaultCacheService}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class DefaultCacheServiceTest {
+
+	private static final String CACHE = "test";
+
+	@Test
+	public void testStatistics() {
+		DefaultCacheService cacheService = new DefaultCacheService();
+		Assert.assertNull(cacheService.get(CACHE, "key"));
+		Assert.assertNull(cacheService.getStatistics(CACHE)); // get does not create the cache
+		cacheService.put(CACHE, "key", "value");
+		Assert.assertEquals("value", cacheService.get(CACHE, "key"));
+		Assert.assertNull(cacheService.get(CACHE, "other"));
+		CacheStatistics statistics = cacheService.getStatistics(CACHE);
+		Assert.assertEquals(1, statistics.getSize());
+		Assert.assertEquals(DefaultCacheService.DEFAULT_MAX_SIZE, statistics.getMaxSize());
+		Assert.assertEquals(1, statistics.getHitCount());
+		Assert.assertEquals(1, statistics.getMissCount());
+
+		cacheService.put(CACHE, "key", "other value");
+		Assert.assertEquals(1, cacheService.getStatistics(CACHE).getSize());
+		cacheService.remove(CACHE, "key");
+		Assert.assertEquals(0, cacheService.getStatistics(CACHE).getSize());
+	}
+
+	@Test
+	public void testExpireOnAccess() {
+		DefaultCacheService cacheService = new DefaultCacheService();
+		cacheService.put(CACHE, "key", "value", -1L);
+		Assert.assertNull(cacheService.get(CACHE, "key"));
+		CacheStatistics statistics = cacheService.getStatistics(CACHE);
+		Assert.assertEquals(0, statistics.getSize());
+		Assert.assertEquals(1, statistics.getExpirationCount());
+
+		cacheService.put(CACHE, "key", "value", Long.MAX_VALUE);
+		Assert.assertEquals("value", cacheService.get(CACHE, "key"));
+	}
+
+	@Test
+	public void testEvictLeastRecentlyUsed() {
+		DefaultCacheService cacheService = new DefaultCacheService();
+		cacheService.setMaxSize(10);
+		for (int i = 0; i < 10; i++) {
+			cacheService.put(CACHE, "key" + i, "value");
+		}
+		Assert.assertEquals(0, cacheService.getStatistics(CACHE).getEvictionCount());
+		Assert.assertEquals("value", cacheService.get(CACHE, "key0")); // most recently used now
+		cacheService.put(CACHE, "key10", "value");
+
+		CacheStatistics statistics = cacheService.getStatistics(CACHE);
+		Assert.assertEquals(10, statistics.getSize());
+		Assert.assertEquals(1, statistics.getEvictionCount());
+		Assert.assertEquals("value", cacheService.get(CACHE, "key0"));
+		Assert.assertEquals("value", cacheService.get(CACHE, "key10"));
+		Assert.assertNull(cacheService.get(CACHE, "key1"));
+
+		cacheService.setMaxSize(5);
+		Assert.assertEquals(5, cacheService.getStatistics(CACHE).getSize());
+		Assert.assertEquals("value", cacheService.get(CACHE, "key10"));
+	}
+
+	@Test
+	public void testRegisteredStylesNotEvicted() {
+		DefaultCacheService cacheService = new DefaultCacheService();
+		cacheService.setMaxSize(1);
+		for (int i = 0; i < 10; i++) {
+			cacheService.put(StyleServiceImpl.CACHE_KEY, "style" + i, "value");
+		}
+		for (int i = 0; i < 10; i++) {
+			Assert.assertEquals("value", cacheService.get(StyleServiceImpl.CACHE_KEY, "style" + i));
+		}
+		Assert.assertEquals(0, cacheService.getStatistics(StyleServiceImpl.CACHE_KEY).getEvictionCount());
+	}
+}
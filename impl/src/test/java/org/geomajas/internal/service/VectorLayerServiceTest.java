@@ -21,6 +21,7 @@ import java.util.Map;
 
 import junit.framework.Assert;
 
+import org.apache.commons.codec.binary.Base64;
 import org.geomajas.configuration.NamedStyleInfo;
 import org.geomajas.geometry.Crs;
 import org.geomajas.geometry.service.WktService;
@@ -37,6 +38,7 @@ import org.geomajas.layer.feature.attribute.StringAttribute;
 import org.geomajas.layer.tile.InternalTile;
 import org.geomajas.layer.tile.TileCode;
 import org.geomajas.layer.tile.TileMetadata;
+import org.geomajas.layer.tile.VectorTile;
 import org.geomajas.service.DtoConverterService;
 import org.geomajas.service.FilterService;
 import org.geomajas.service.GeoService;
@@ -277,6 +279,21 @@ public class VectorLayerServiceTest {
 
 	}
 
+	@Test
+	public void getBinaryTile() throws Exception {
+		TileMetadata tileMetadata = getTileMetadata();
+		InternalTile svgTile = layerService.getTile(tileMetadata);
+		tileMetadata.setRenderer(TileMetadata.PARAM_BINARY_RENDERER);
+		tileMetadata.setPaintLabels(true);
+		InternalTile tile = layerService.getTile(tileMetadata);
+		Assert.assertEquals(VectorTile.VectorTileContentType.BINARY_CONTENT, tile.getContentType());
+		Assert.assertEquals(3, tile.getFeatures().size());
+		Assert.assertTrue(Base64.decodeBase64(tile.getFeatureContent()).length > 0);
+		// even base64 encoded, the binary content is smaller than the SVG content
+		Assert.assertTrue(tile.getFeatureContent().length() < svgTile.getFeatureContent().length());
+		Assert.assertNotNull(tile.getLabelContent());
+	}
+
 	private TileMetadata getTileMetadata() {
 		TileMetadata tileMetadata = new TileMetadataImpl();
 		tileMetadata.setCrs("EPSG:4326");
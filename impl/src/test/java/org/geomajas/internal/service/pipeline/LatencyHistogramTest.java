@@ -0,0 +1,53 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.internal.service.pipeline;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link LatencyHistogram}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class LatencyHistogramTest {
+
+	@Test
+	public void testBuckets() {
+		for (long value = 0; value < 100000; value += 7) {
+			int bucket = LatencyHistogram.getBucket(value);
+			long upper = LatencyHistogram.getBucketUpperBound(bucket);
+			Assert.assertTrue(value <= upper);
+			Assert.assertTrue(upper - value <= value / 8);
+		}
+	}
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.recordNanos(i * 1000L); // 1 to 100 microseconds
+		}
+		Assert.assertEquals(100, histogram.getCount());
+		Assert.assertEquals(5050, histogram.getTotalMicros());
+		Assert.assertEquals(100, histogram.getMaxMicros());
+		Assert.assertEquals(50.5, histogram.getMeanMicros(), 0.001);
+		long p50 = histogram.getValueAtPercentile(50);
+		Assert.assertTrue(p50 >= 50 && p50 <= 57);
+		Assert.assertEquals(100, histogram.getValueAtPercentile(100));
+
+		histogram.reset();
+		Assert.assertEquals(0, histogram.getCount());
+		Assert.assertEquals(0, histogram.getValueAtPercentile(50));
+	}
+}
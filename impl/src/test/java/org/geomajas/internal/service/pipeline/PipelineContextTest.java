@@ -18,7 +18,9 @@ import junit.framework.Assert;
 
 import org.geomajas.global.ExceptionCode;
 import org.geomajas.global.GeomajasException;
+import org.geomajas.service.pipeline.PipelineCode;
 import org.geomajas.service.pipeline.PipelineContext;
+import org.geomajas.service.pipeline.PipelineKey;
 import org.junit.Test;
 
 /**
@@ -73,4 +75,70 @@ public class PipelineContextTest {
 		Assert.assertTrue(context.containsKey("int"));
 		Assert.assertFalse(context.containsKey("other"));
 	}
+
+	@Test
+	public void testTypedKey() throws Exception {
+		PipelineContext context = new PipelineContextImpl();
+		Assert.assertNull(context.getOptional(PipelineCode.LAYER_ID));
+		Assert.assertEquals("dflt", context.getOptional(PipelineCode.LAYER_ID, "dflt"));
+		try {
+			context.get(PipelineCode.LAYER_ID);
+			Assert.fail("should have thrown an exception");
+		} catch (GeomajasException ge) {
+			Assert.assertEquals(ExceptionCode.PIPELINE_CONTEXT_MISSING, ge.getExceptionCode());
+		}
+		Assert.assertNull(context.put(PipelineCode.LAYER_ID, "beans"));
+		Assert.assertEquals("beans", context.get(PipelineCode.LAYER_ID));
+		Assert.assertEquals("beans", context.get(PipelineCode.LAYER_ID_KEY));
+		Assert.assertEquals("beans", context.put(PipelineCode.LAYER_ID_KEY, "other"));
+		Assert.assertEquals("other", context.get(PipelineCode.LAYER_ID));
+
+		// a value of another type is only available through the string key
+		context.put(PipelineCode.LAYER_ID_KEY, 3);
+		Assert.assertNull(context.getOptional(PipelineCode.LAYER_ID));
+		Assert.assertEquals(3, context.get(PipelineCode.LAYER_ID_KEY));
+		Assert.assertTrue(context.containsKey(PipelineCode.LAYER_ID));
+		context.put(PipelineCode.LAYER_ID, "back");
+		Assert.assertEquals("back", context.get(PipelineCode.LAYER_ID_KEY, String.class));
+
+		context.put(PipelineCode.FILTER, null);
+		Assert.assertTrue(context.containsKey(PipelineCode.FILTER));
+		Assert.assertTrue(context.containsKey(PipelineCode.FILTER_KEY));
+		Assert.assertNull(context.getOptional(PipelineCode.FILTER_KEY));
+	}
+
+	@Test
+	public void testInt() throws Exception {
+		PipelineContext context = new PipelineContextImpl();
+		context.putInt(PipelineCode.OFFSET, 1234);
+		Assert.assertEquals(1234, context.getInt(PipelineCode.OFFSET));
+		Assert.assertEquals(1234, (int) context.get(PipelineCode.OFFSET));
+		Assert.assertEquals(1234, context.get(PipelineCode.OFFSET_KEY));
+		Assert.assertEquals(1234, (int) context.get(PipelineCode.OFFSET_KEY, Integer.class));
+		context.put(PipelineCode.MAX_RESULT_SIZE_KEY, 5);
+		Assert.assertEquals(5, context.getInt(PipelineCode.MAX_RESULT_SIZE));
+		try {
+			context.getInt(PipelineCode.INDEX);
+			Assert.fail("should have thrown an exception");
+		} catch (GeomajasException ge) {
+			Assert.assertEquals(ExceptionCode.PIPELINE_CONTEXT_MISSING, ge.getExceptionCode());
+		}
+	}
+
+	@Test
+	public void testKeyRegisteredLater() throws Exception {
+		PipelineContext context = new PipelineContextImpl();
+		context.put("pipelineContextTestLate", "before");
+		PipelineKey<String> key = PipelineKey.create("pipelineContextTestLate", String.class);
+		Assert.assertSame(key, PipelineKey.create("pipelineContextTestLate", String.class));
+		Assert.assertEquals("before", context.get(key));
+		context.put(key, "after");
+		Assert.assertEquals("after", context.get("pipelineContextTestLate"));
+		try {
+			PipelineKey.create("pipelineContextTestLate", Integer.class);
+			Assert.fail("should have thrown an exception");
+		} catch (IllegalArgumentException iae) {
+			// expected
+		}
+	}
 }
@@ -0,0 +1,95 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.internal.service.pipeline;
+
+import junit.framework.Assert;
+
+import org.geomajas.layer.feature.attribute.StringAttribute;
+import org.geomajas.service.pipeline.PipelineContext;
+import org.geomajas.service.pipeline.PipelineService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * Test for {@link PipelineStatistics}, verifies that pipeline execution is recorded.
+ *
+ * @author Joachim Van der Auwera
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = { "/org/geomajas/spring/geomajasContext.xml",
+		"/org/geomajas/internal/rendering/pipeline/pipelineContext.xml" })
+public class PipelineStatisticsTest {
+
+	@Autowired
+	private PipelineService pipelineService;
+
+	@Autowired
+	private PipelineStatistics statistics;
+
+	@Before
+	public void clear() {
+		statistics.clear();
+	}
+
+	@Test
+	public void testStepsRecorded() throws Exception {
+		StringAttribute response = new StringAttribute("bla");
+		PipelineContext context = pipelineService.createContext();
+		context.put("start", "start");
+		pipelineService.execute("pipelineTest", null, context, response);
+		Assert.assertEquals(1, statistics.getInvocationCount());
+		String[] lines = statistics.getStatistics();
+		Assert.assertTrue(contains(lines, "pipelineTest/ count=1"));
+		Assert.assertTrue(contains(lines, "pipelineTest//s1 count=1"));
+		Assert.assertTrue(contains(lines, "pipelineTest//s3 count=1"));
+		Assert.assertEquals(2, statistics.getHotSteps(2).length);
+	}
+
+	@Test
+	public void testInterceptorModeRecorded() throws Exception {
+		StringAttribute response = new StringAttribute("bla");
+		PipelineContext context = pipelineService.createContext();
+		pipelineService.execute("interceptorExecutionMode4", "base", context, response);
+		Assert.assertEquals("bla_before_s2", response.getValue());
+		String[] lines = statistics.getStatistics();
+		Assert.assertTrue(contains(lines, "interceptorExecutionMode4/base/interceptor.mode EXECUTE_ALL=0 " +
+				"EXECUTE_SKIP_STEPS=0 EXECUTE_STEPS_NOT_AFTER=0 EXECUTE_NONE=1"));
+		Assert.assertTrue(contains(lines, "interceptorExecutionMode4/base/interceptor.afterSteps count=0"));
+		Assert.assertFalse(contains(lines, "interceptorExecutionMode4/base/s1 "));
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		statistics.setEnabled(false);
+		try {
+			StringAttribute response = new StringAttribute("bla");
+			pipelineService.execute("interceptorExecutionMode4", "base", pipelineService.createContext(), response);
+			Assert.assertEquals(0, statistics.getInvocationCount());
+			Assert.assertEquals(0, statistics.getStatistics().length);
+		} finally {
+			statistics.setEnabled(true);
+		}
+	}
+
+	private boolean contains(String[] lines, String start) {
+		for (String line : lines) {
+			if (line.startsWith(start)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
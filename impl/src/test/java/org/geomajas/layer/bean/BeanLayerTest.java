@@ -11,6 +11,8 @@
 
 package org.geomajas.layer.bean;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Iterator;
 import java.util.List;
@@ -32,6 +34,7 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.LinearRing;
@@ -185,6 +188,54 @@ public class BeanLayerTest {
 		Assert.assertNotNull(layer.read("4")); // should be assigned id 4
 	}
 
+	@Test
+	public void spatialFilter() throws Exception {
+		// bean1 covers (0,0)-(1,1), bean2 (4,0)-(6,3) and bean3 (2,1)-(7,2)
+		Filter bbox = filterService.createBboxFilter("EPSG:4326", new Envelope(0, 1.5, 0, 1.5), "geometry");
+		Filter bean3 = filterService.createCompareFilter("stringAttr", "=", "bean3");
+		Assert.assertEquals(Arrays.asList("1"), ids(layer.getElements(bbox, 0, 0)));
+		Assert.assertEquals(Arrays.asList("1"), ids(layer.getElements(filterService.createAndFilter(bbox,
+				filterService.createCompareFilter("stringAttr", "=", "bean1")), 0, 0)));
+		Assert.assertTrue(ids(layer.getElements(filterService.createAndFilter(bbox, bean3), 0, 0)).isEmpty());
+		// the area is not limited, all features need to be considered
+		Assert.assertEquals(Arrays.asList("1", "3"),
+				ids(layer.getElements(filterService.createOrFilter(bbox, bean3), 0, 0)));
+		Assert.assertEquals(Arrays.asList("2", "3"),
+				ids(layer.getElements(filterService.createLogicFilter(bbox, "not", null), 0, 0)));
+		Filter right = filterService.createBboxFilter("EPSG:4326", new Envelope(3, 4.5, 0, 1.5), "geometry");
+		Assert.assertEquals(Arrays.asList("3"), ids(layer.getElements(filterService.createAndFilter(right,
+				filterService.parseFilter("NOT (stringAttr = 'bean2')")), 0, 0)));
+	}
+
+	@Test
+	public void saveOrUpdateKeepsIndex() throws Exception {
+		FeatureBean copy = new FeatureBean();
+		copy.setId(1L);
+		copy.setGeometry("MULTIPOLYGON(((10 10,11 10,11 11,10 11,10 10)))");
+		layer.saveOrUpdate(copy);
+		// the stored bean remains indexed with its own geometry
+		Filter bbox = filterService.createBboxFilter("EPSG:4326", new Envelope(0, 1.5, 0, 1.5), "geometry");
+		List<String> found = ids(layer.getElements(bbox, 0, 0));
+		Assert.assertEquals(Arrays.asList("1"), found);
+		Assert.assertNotSame(copy, layer.getElements(bbox, 0, 0).next());
+	}
+
+	@Test
+	public void testPaging() throws Exception {
+		Assert.assertEquals(2, count(layer.getElements(null, 1, 0)));
+		Assert.assertEquals(1, count(layer.getElements(null, 1, 1)));
+		Assert.assertEquals(1, count(layer.getElements(null, 2, 5)));
+		Assert.assertEquals(0, count(layer.getElements(null, 5, 0)));
+	}
+
+	private List<String> ids(Iterator<?> it) throws LayerException {
+		List<String> ids = new ArrayList<String>();
+		while (it.hasNext()) {
+			ids.add(layer.getFeatureModel().getId(it.next()));
+		}
+		return ids;
+	}
+
 	private int count(Iterator it) {
 		int count = 0;
 		while (it.hasNext()) {
@@ -11,15 +11,25 @@
 
 package org.geomajas.plugin.caching.infinispan.cache;
 
-import org.geomajas.plugin.caching.service.CacheService;
+import org.geomajas.plugin.caching.service.CacheEvictionListener;
+import org.geomajas.plugin.caching.service.ObservableCacheService;
 import org.infinispan.Cache;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntriesEvicted;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryRemoved;
+import org.infinispan.notifications.cachelistener.event.CacheEntriesEvictedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryRemovedEvent;
 
 /**
  * Geomajas cache based on infinispan.
+ * <p/>
+ * Evicted entries are reported to the eviction listeners. The cache is only fully observable when it is local, has no
+ * persistent store and no expiration, as infinispan does not notify about expired entries.
  *
  * @author Joachim Van der Auwera
  */
-public class InfinispanCacheService implements CacheService {
+public class InfinispanCacheService implements ObservableCacheService {
 
 	private final Cache<String, Object> cache;
 
@@ -66,4 +76,63 @@ public class InfinispanCacheService implements CacheService {
 	public void drop() {
 		clear();
 	}
+
+	@Override
+	public boolean isFullyObservable() {
+		Configuration configuration = cache.getCacheConfiguration();
+		return !configuration.clustering().cacheMode().isClustered()
+				&& configuration.persistence().stores().isEmpty()
+				&& configuration.expiration().lifespan() < 0 && configuration.expiration().maxIdle() < 0;
+	}
+
+	@Override
+	public void addEvictionListener(CacheEvictionListener listener) {
+		cache.addListener(new EvictionListenerAdapter(listener));
+	}
+
+	/**
+	 * Infinispan listener which passes evicted and removed keys to a {@link CacheEvictionListener}.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	@Listener
+	public static class EvictionListenerAdapter {
+
+		private final CacheEvictionListener listener;
+
+		/**
+		 * Create a {@link EvictionListenerAdapter}.
+		 *
+		 * @param listener listener to notify
+		 */
+		public EvictionListenerAdapter(CacheEvictionListener listener) {
+			this.listener = listener;
+		}
+
+		/**
+		 * Notify the listener about evicted entries.
+		 *
+		 * @param event eviction event
+		 */
+		@CacheEntriesEvicted
+		public void evicted(CacheEntriesEvictedEvent<String, Object> event) {
+			if (!event.isPre()) {
+				for (String key : event.getEntries().keySet()) {
+					listener.evicted(key);
+				}
+			}
+		}
+
+		/**
+		 * Notify the listener about removed entries.
+		 *
+		 * @param event removal event
+		 */
+		@CacheEntryRemoved
+		public void removed(CacheEntryRemovedEvent<String, Object> event) {
+			if (!event.isPre()) {
+				listener.evicted(event.getKey());
+			}
+		}
+	}
 }
@@ -0,0 +1,109 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.caching.cache;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.PreDestroy;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.layer.Layer;
+import org.geomajas.plugin.caching.service.CacheCategory;
+import org.geomajas.plugin.caching.service.CacheFactory;
+import org.geomajas.plugin.caching.service.CacheService;
+
+/**
+ * {@link CacheFactory} which creates a {@link MappedFileCacheService} for each layer/category combination. The cached
+ * objects are stored off-heap in memory mapped files on local disk.
+ * <p/>
+ * Each cache uses its own sub-directory of the configured directory. The maximum size applies to each cache
+ * separately.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api
+public class MappedFileCacheFactory implements CacheFactory {
+
+	private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024; // 64MB
+
+	private static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024; // 1GB
+
+	private String directory = new File(System.getProperty("java.io.tmpdir"), "geomajas-cache").getPath();
+
+	private int segmentSize = DEFAULT_SEGMENT_SIZE;
+
+	private long maxSize = DEFAULT_MAX_SIZE;
+
+	private final Map<String, MappedFileCacheService> caches = new HashMap<String, MappedFileCacheService>();
+
+	/**
+	 * Set the directory in which the segment files are stored. Defaults to "geomajas-cache" in the temporary
+	 * directory.
+	 * <p/>
+	 * The directory should not be shared by several applications, existing segment files are removed.
+	 *
+	 * @param directory cache directory
+	 * @since 1.18.0
+	 */
+	@Api
+	public void setDirectory(String directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Set the size of the segment files in bytes. Objects which are larger are not cached. Defaults to 64MB.
+	 *
+	 * @param segmentSize segment size in bytes
+	 * @since 1.18.0
+	 */
+	@Api
+	public void setSegmentSize(int segmentSize) {
+		this.segmentSize = segmentSize;
+	}
+
+	/**
+	 * Set the maximum size of each cache in bytes. The oldest objects are evicted when a cache grows larger. Defaults
+	 * to 1GB.
+	 *
+	 * @param maxSize maximum cache size in bytes
+	 * @since 1.18.0
+	 */
+	@Api
+	public void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	@Override
+	public synchronized CacheService create(Layer layer, CacheCategory category) {
+		String name = (null == layer ? "_default" : layer.getId()) + "-" + category.getName();
+		MappedFileCacheService cacheService = caches.get(name);
+		if (null == cacheService) {
+			cacheService = new MappedFileCacheService(new File(directory, name), segmentSize, maxSize);
+			caches.put(name, cacheService);
+		}
+		return cacheService;
+	}
+
+	/**
+	 * Remove the segment files when the factory is destroyed.
+	 */
+	@PreDestroy
+	protected synchronized void destroy() {
+		for (MappedFileCacheService cacheService : caches.values()) {
+			cacheService.drop();
+		}
+		caches.clear();
+	}
+}
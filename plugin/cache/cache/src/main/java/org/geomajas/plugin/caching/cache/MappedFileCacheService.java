@@ -0,0 +1,439 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.caching.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.plugin.caching.service.CacheEvictionListener;
+import org.geomajas.plugin.caching.service.CacheService;
+import org.geomajas.plugin.caching.service.ObservableCacheService;
+import org.jboss.serial.io.JBossObjectInputStream;
+import org.jboss.serial.io.JBossObjectOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link CacheService} which stores the serialized objects in memory mapped files on local disk. Only the key index is
+ * kept on the heap.
+ * <p/>
+ * Objects are appended to fixed size segment files. When the total size of the segments exceeds the maximum size, the
+ * oldest segment is dropped (evicting all objects it contains). Segments in which less than a quarter of the data is
+ * still in use are compacted by copying the remaining objects to the current segment.
+ * <p/>
+ * The segment files are private to the cache, existing segments are removed when the cache is created. Objects which
+ * cannot be serialized or which are larger than a segment are not cached. Evicted and uncacheable objects are reported
+ * to the eviction listeners.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api
+public class MappedFileCacheService implements ObservableCacheService {
+
+	private static final String SEGMENT_PREFIX = "segment-";
+
+	private static final String SEGMENT_SUFFIX = ".dat";
+
+	private static final int SERIALIZED_BUFFER_SIZE = 4096;
+
+	private static final int COMPACT_FRACTION = 4;
+
+	private final Logger log = LoggerFactory.getLogger(MappedFileCacheService.class);
+
+	private final File directory;
+
+	private final int segmentSize;
+
+	private final long maxSize;
+
+	private final Map<String, Entry> index = new HashMap<String, Entry>();
+
+	private final LinkedList<Segment> segments = new LinkedList<Segment>();
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final List<CacheEvictionListener> listeners = new CopyOnWriteArrayList<CacheEvictionListener>();
+
+	private Segment active;
+
+	private int segmentCount;
+
+	/**
+	 * Create a {@link MappedFileCacheService}.
+	 *
+	 * @param directory directory for the segment files, created when needed
+	 * @param segmentSize size of a segment file in bytes, this is also the maximum size of a cached object
+	 * @param maxSize maximum total size of the segment files in bytes
+	 * @since 1.18.0
+	 */
+	@Api
+	public MappedFileCacheService(File directory, int segmentSize, long maxSize) {
+		if (segmentSize <= 0 || maxSize < segmentSize) {
+			throw new IllegalArgumentException("Segment size should be positive and not exceed the maximum size.");
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.maxSize = maxSize;
+		deleteSegmentFiles();
+	}
+
+	@Override
+	public void put(String key, Object object) {
+		byte[] data = serialize(object);
+		List<String> evicted = new ArrayList<String>();
+		lock.writeLock().lock();
+		try {
+			Segment changed = removeEntry(key);
+			if (null != data) {
+				append(key, data);
+			} else {
+				evicted.add(key);
+			}
+			compactIfNeeded(changed);
+			evictIfNeeded(evicted);
+		} catch (IOException ioe) {
+			log.warn("Could not write " + key + " to cache in " + directory + ".", ioe);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		for (String evictedKey : evicted) {
+			for (CacheEvictionListener listener : listeners) {
+				listener.evicted(evictedKey);
+			}
+		}
+	}
+
+	@Override
+	public Object get(String key) {
+		byte[] data;
+		lock.readLock().lock();
+		try {
+			Entry entry = index.get(key);
+			if (null == entry) {
+				return null;
+			}
+			data = new byte[entry.length];
+			ByteBuffer buffer = entry.segment.buffer.duplicate();
+			buffer.position(entry.offset);
+			buffer.get(data);
+		} finally {
+			lock.readLock().unlock();
+		}
+		return deserialize(key, data);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <TYPE> TYPE get(String key, Class<TYPE> type) {
+		Object res = get(key);
+		if (type.isInstance(res)) {
+			return (TYPE) res;
+		}
+		return null;
+	}
+
+	@Override
+	public void remove(String key) {
+		lock.writeLock().lock();
+		try {
+			compactIfNeeded(removeEntry(key));
+		} catch (IOException ioe) {
+			log.warn("Could not compact cache in " + directory + ".", ioe);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			index.clear();
+			for (Segment segment : segments) {
+				segment.delete();
+			}
+			segments.clear();
+			active = null;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void drop() {
+		clear();
+		if (directory.exists() && !directory.delete()) {
+			log.debug("Could not delete cache directory {}.", directory);
+		}
+	}
+
+	@Override
+	public boolean isFullyObservable() {
+		return true; // segments are private to this instance
+	}
+
+	@Override
+	public void addEvictionListener(CacheEvictionListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Number of objects in the cache.
+	 *
+	 * @return number of cached objects
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return index.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Total size of the segment files which are currently in use.
+	 *
+	 * @return size in bytes
+	 */
+	public long getSegmentsSize() {
+		lock.readLock().lock();
+		try {
+			return (long) segments.size() * segmentSize;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void append(String key, byte[] data) throws IOException {
+		if (null == active || active.position + data.length > segmentSize) {
+			active = new Segment(new File(directory, SEGMENT_PREFIX + (segmentCount++) + SEGMENT_SUFFIX),
+					segmentSize);
+			segments.add(active);
+		}
+		ByteBuffer buffer = active.buffer.duplicate();
+		buffer.position(active.position);
+		buffer.put(data);
+		index.put(key, new Entry(active, active.position, data.length));
+		active.keys.add(key);
+		active.position += data.length;
+		active.live += data.length;
+	}
+
+	private Segment removeEntry(String key) {
+		Entry entry = index.remove(key);
+		if (null == entry) {
+			return null;
+		}
+		entry.segment.keys.remove(key);
+		entry.segment.live -= entry.length;
+		return entry.segment;
+	}
+
+	private void compactIfNeeded(Segment segment) throws IOException {
+		if (null == segment || segment == active || !segments.contains(segment)
+				|| segment.live > segment.position / COMPACT_FRACTION) {
+			return;
+		}
+		log.debug("Compact {}, {} bytes in use", segment.file, segment.live);
+		segments.remove(segment);
+		for (String key : new ArrayList<String>(segment.keys)) {
+			Entry entry = index.get(key);
+			byte[] data = new byte[entry.length];
+			ByteBuffer buffer = segment.buffer.duplicate();
+			buffer.position(entry.offset);
+			buffer.get(data);
+			append(key, data);
+		}
+		segment.delete();
+	}
+
+	private void evictIfNeeded(List<String> evicted) {
+		while (segments.size() > 1 && (long) segments.size() * segmentSize > maxSize) {
+			Segment oldest = segments.removeFirst();
+			log.debug("Evict {}, {} objects", oldest.file, oldest.keys.size());
+			for (String key : oldest.keys) {
+				index.remove(key);
+			}
+			evicted.addAll(oldest.keys);
+			oldest.delete();
+		}
+	}
+
+	private byte[] serialize(Object object) {
+		if (null == object) {
+			return null;
+		}
+		try {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(SERIALIZED_BUFFER_SIZE);
+			JBossObjectOutputStream serialize = new JBossObjectOutputStream(baos);
+			serialize.writeObject(object);
+			serialize.flush();
+			serialize.close();
+			if (baos.size() > segmentSize) {
+				log.debug("Object of {} bytes is too large to cache.", baos.size());
+				return null;
+			}
+			return baos.toByteArray();
+		} catch (IOException ioe) {
+			log.warn("Could not serialize " + object.getClass().getName() + ", it is not cached.", ioe);
+			return null;
+		}
+	}
+
+	private Object deserialize(String key, byte[] data) {
+		try {
+			JBossObjectInputStream deserialize = new JBossObjectInputStream(new ByteArrayInputStream(data));
+			return deserialize.readObject();
+		} catch (ClassNotFoundException cnfe) {
+			log.warn("Could not deserialize " + key + ", ignoring cached object.", cnfe);
+		} catch (IOException ioe) {
+			log.warn("Could not deserialize " + key + ", ignoring cached object.", ioe);
+		}
+		return null;
+	}
+
+	private void deleteSegmentFiles() {
+		File[] files = directory.listFiles();
+		if (null != files) {
+			for (File file : files) {
+				String name = file.getName();
+				if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX) && !file.delete()) {
+					log.warn("Could not delete old cache segment {}.", file);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Location of a cached object.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class Entry {
+
+		private final Segment segment;
+
+		private final int offset;
+
+		private final int length;
+
+		private Entry(Segment segment, int offset, int length) {
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+	/**
+	 * Memory mapped segment file.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class Segment {
+
+		private final File file;
+
+		private final MappedByteBuffer buffer;
+
+		private final Set<String> keys = new HashSet<String>();
+
+		private int position;
+
+		private int live;
+
+		private Segment(File file, int size) throws IOException {
+			this.file = file;
+			File parent = file.getParentFile();
+			if (!parent.isDirectory() && !parent.mkdirs()) {
+				throw new IOException("Could not create cache directory " + parent);
+			}
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				raf.setLength(size);
+				// the mapping remains valid after the channel is closed
+				buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+			} finally {
+				raf.close();
+			}
+		}
+
+		/**
+		 * Unmap and delete the segment file. The buffer may no longer be used afterwards, this is assured by only
+		 * accessing the buffers while holding the lock.
+		 */
+		private void delete() {
+			keys.clear();
+			unmap(buffer);
+			if (!file.delete()) {
+				file.deleteOnExit();
+			}
+		}
+	}
+
+	/**
+	 * Release the memory mapping immediately instead of waiting for the buffer to be garbage collected, which may
+	 * take long as the buffer object itself is small. Keeping the mappings would use address space and (on some
+	 * platforms) prevent the files from being deleted.
+	 *
+	 * @param buffer buffer to unmap
+	 */
+	private static void unmap(MappedByteBuffer buffer) {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner;
+			try {
+				invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			} catch (NoSuchMethodException nsme) {
+				invokeCleaner = null;
+			}
+			if (null != invokeCleaner) {
+				// Java 9 and later
+				Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				invokeCleaner.invoke(theUnsafe.get(null), buffer);
+			} else {
+				// before Java 9, sun.nio.ch.DirectBuffer.cleaner().clean()
+				Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(buffer);
+				if (null != cleaner) {
+					Method clean = cleaner.getClass().getMethod("clean");
+					clean.setAccessible(true);
+					clean.invoke(cleaner);
+				}
+			}
+		} catch (Exception e) { // NOSONAR
+			// not available on this JVM, the mapping is released when the buffer is garbage collected
+		}
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.caching.index;
+
+import org.geomajas.annotation.FutureApi;
+import org.geomajas.layer.Layer;
+import org.geomajas.plugin.caching.service.CacheCategory;
+import org.geomajas.plugin.caching.service.CacheIndexFactory;
+import org.geomajas.plugin.caching.service.CacheIndexService;
+
+/**
+ * Create an in-memory spatial index (quadtree) for each layer/category combination. Only the entries which overlap
+ * an invalidated area are removed from the cache.
+ *
+ * @author Joachim Van der Auwera
+ */
+@FutureApi
+public class InMemoryIndexFactory implements CacheIndexFactory {
+
+	@Override
+	public CacheIndexService create(Layer layer, CacheCategory category) {
+		return new InMemoryIndexService();
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.caching.index;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.ItemVisitor;
+import com.vividsolutions.jts.index.quadtree.Quadtree;
+import org.geomajas.plugin.caching.service.CacheEvictionListener;
+import org.geomajas.plugin.caching.service.CacheIndexService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Spatial index implementation which keeps a quadtree of the cached envelopes in memory. Only the keys for which the
+ * envelope overlaps are returned when invalidating.
+ * <p/>
+ * The quadtree is updated incrementally and guarded by a read/write lock, so concurrent lookups do not block each
+ * other. Keys which were put without envelope (or with a null envelope) are considered to overlap everything.
+ * <p/>
+ * The index only knows the entries which were put in this JVM. It therefore needs to be notified about the entries
+ * which the cache evicts by itself and can only be used for caches which are fully observable, see
+ * {@link org.geomajas.plugin.caching.service.ObservableCacheService#isFullyObservable()}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class InMemoryIndexService implements CacheIndexService, CacheEvictionListener {
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Quadtree tree = new Quadtree();
+
+	private final Map<String, Envelope> envelopes = new HashMap<String, Envelope>();
+
+	private final Set<String> unbounded = new HashSet<String>();
+
+	@Override
+	public void put(String key, Envelope envelope) {
+		lock.writeLock().lock();
+		try {
+			removeInternal(key);
+			if (null == envelope || envelope.isNull()) {
+				unbounded.add(key);
+			} else {
+				Envelope copy = new Envelope(envelope); // assure the indexed envelope can not be modified
+				envelopes.put(key, copy);
+				tree.insert(copy, key);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void remove(String key) {
+		lock.writeLock().lock();
+		try {
+			removeInternal(key);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void evicted(String key) {
+		remove(key);
+	}
+
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			for (Map.Entry<String, Envelope> entry : envelopes.entrySet()) {
+				tree.remove(entry.getValue(), entry.getKey());
+			}
+			envelopes.clear();
+			unbounded.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void drop() {
+		clear();
+	}
+
+	@Override
+	public List<String> getOverlappingKeys(Envelope envelope) {
+		if (null == envelope || envelope.isNull()) {
+			return ALL_KEYS;
+		}
+		final Envelope search = envelope;
+		final List<String> keys = new ArrayList<String>();
+		lock.readLock().lock();
+		try {
+			keys.addAll(unbounded);
+			// the quadtree returns candidates, filter on the actual envelope
+			tree.query(search, new ItemVisitor() {
+
+				public void visitItem(Object item) {
+					String key = (String) item;
+					Envelope keyEnvelope = envelopes.get(key);
+					if (null != keyEnvelope && keyEnvelope.intersects(search)) {
+						keys.add(key);
+					}
+				}
+			});
+		} finally {
+			lock.readLock().unlock();
+		}
+		return keys;
+	}
+
+	@Override
+	public Envelope getEnvelope(String key) {
+		lock.readLock().lock();
+		try {
+			Envelope envelope = envelopes.get(key);
+			return null == envelope ? null : new Envelope(envelope);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Get the number of keys in the index.
+	 *
+	 * @return number of indexed keys
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return envelopes.size() + unbounded.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void removeInternal(String key) {
+		Envelope old = envelopes.remove(key);
+		if (null != old) {
+			tree.remove(old, key);
+		}
+		unbounded.remove(key);
+	}
+}
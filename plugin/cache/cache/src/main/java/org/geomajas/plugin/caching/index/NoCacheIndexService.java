@@ -48,4 +48,9 @@ public class NoCacheIndexService implements CacheIndexService {
 	public List<String> getOverlappingKeys(Envelope envelope) {
 		return ALL_KEYS;
 	}
+
+	@Override
+	public Envelope getEnvelope(String key) {
+		return null;
+	}
 }
@@ -53,4 +53,9 @@ public class NoInvalidateIndexService implements CacheIndexService {
 	public List<String> getOverlappingKeys(Envelope envelope) {
 		return EMPTY_LIST;
 	}
+
+	@Override
+	public Envelope getEnvelope(String key) {
+		return null;
+	}
 }
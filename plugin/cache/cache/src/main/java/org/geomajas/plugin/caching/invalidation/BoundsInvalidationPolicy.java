@@ -0,0 +1,80 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.plugin.caching.invalidation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.plugin.caching.service.CacheIndexService;
+import org.geomajas.plugin.caching.service.CacheInvalidationPolicy;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Invalidation policy for cached bounds. The cached objects are expected to be indexed using the bounds themselves.
+ * <p/>
+ * Cached bounds remain valid when the old geometry lies strictly inside them (removing it cannot shrink the bounds)
+ * and the new geometry lies within them (adding it cannot grow the bounds). Only the other bounds are invalidated,
+ * including the bounds which do not overlap the change but which may need to grow to include the new geometry.
+ * Bounds which are not known (no envelope, for example because the bounds were requested in a coordinate reference
+ * system which differs from the layer coordinate reference system) are always invalidated.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api
+public class BoundsInvalidationPolicy implements CacheInvalidationPolicy {
+
+	private static final Envelope EVERYWHERE =
+			new Envelope(-Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, Double.MAX_VALUE);
+
+	@Override
+	public List<String> getInvalidatedKeys(CacheIndexService index, Geometry oldGeometry, Geometry newGeometry) {
+		Envelope oldEnvelope = getEnvelope(oldGeometry);
+		Envelope newEnvelope = getEnvelope(newGeometry);
+		// the bounds may need to grow anywhere, so all cached bounds are candidates
+		List<String> candidates = index.getOverlappingKeys(EVERYWHERE);
+		if (CacheIndexService.ALL_KEYS == candidates) {
+			return candidates;
+		}
+		List<String> keys = new ArrayList<String>();
+		for (String key : candidates) {
+			Envelope bounds = index.getEnvelope(key);
+			if (null == bounds || isAffected(bounds, oldEnvelope, newEnvelope)) {
+				keys.add(key);
+			}
+		}
+		return keys;
+	}
+
+	private boolean isAffected(Envelope bounds, Envelope oldEnvelope, Envelope newEnvelope) {
+		if (null != oldEnvelope && oldEnvelope.intersects(bounds) && !isInterior(oldEnvelope, bounds)) {
+			return true; // bounds may shrink
+		}
+		return null != newEnvelope && !bounds.contains(newEnvelope); // bounds may grow
+	}
+
+	private boolean isInterior(Envelope envelope, Envelope bounds) {
+		return bounds.getMinX() < envelope.getMinX() && envelope.getMaxX() < bounds.getMaxX() &&
+				bounds.getMinY() < envelope.getMinY() && envelope.getMaxY() < bounds.getMaxY();
+	}
+
+	private Envelope getEnvelope(Geometry geometry) {
+		if (null == geometry || geometry.isEmpty()) {
+			return null;
+		}
+		return geometry.getEnvelopeInternal();
+	}
+}
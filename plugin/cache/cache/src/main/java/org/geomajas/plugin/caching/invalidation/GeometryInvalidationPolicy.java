@@ -0,0 +1,80 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.plugin.caching.invalidation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.plugin.caching.service.CacheIndexService;
+import org.geomajas.plugin.caching.service.CacheInvalidationPolicy;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+
+/**
+ * Invalidation policy which only invalidates the cached objects whose envelope intersects the old or new geometry of
+ * the feature.
+ * <p/>
+ * Only the envelope of the cached object is known, so each tile at each level which the geometry crosses is
+ * invalidated, while the tiles which only overlap the envelope of the geometry (for example inside the bend of a line)
+ * stay cached. Objects without envelope are always invalidated.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api
+public class GeometryInvalidationPolicy implements CacheInvalidationPolicy {
+
+	@Override
+	public List<String> getInvalidatedKeys(CacheIndexService index, Geometry oldGeometry, Geometry newGeometry) {
+		Envelope area = new Envelope();
+		PreparedGeometry oldPrepared = prepare(oldGeometry, area);
+		PreparedGeometry newPrepared = prepare(newGeometry, area);
+		if (area.isNull()) {
+			return Collections.emptyList();
+		}
+		List<String> candidates = index.getOverlappingKeys(area);
+		if (CacheIndexService.ALL_KEYS == candidates) {
+			return candidates;
+		}
+		List<String> keys = new ArrayList<String>();
+		for (String key : candidates) {
+			Envelope envelope = index.getEnvelope(key);
+			if (null == envelope || intersects(oldPrepared, envelope) || intersects(newPrepared, envelope)) {
+				keys.add(key);
+			}
+		}
+		return keys;
+	}
+
+	private PreparedGeometry prepare(Geometry geometry, Envelope area) {
+		if (null == geometry || geometry.isEmpty()) {
+			return null;
+		}
+		area.expandToInclude(geometry.getEnvelopeInternal());
+		return PreparedGeometryFactory.prepare(geometry);
+	}
+
+	private boolean intersects(PreparedGeometry prepared, Envelope envelope) {
+		if (null == prepared) {
+			return false;
+		}
+		Geometry geometry = prepared.getGeometry();
+		return geometry.getEnvelopeInternal().intersects(envelope) &&
+				prepared.intersects(geometry.getFactory().toGeometry(envelope));
+	}
+}
@@ -27,7 +27,7 @@ public class CacheContextImpl implements CacheContext {
 
 	private static final long serialVersionUID = 100L;
 
-	private final transient Logger log = LoggerFactory.getLogger(CacheContextImpl.class);
+	private static final Logger LOG = LoggerFactory.getLogger(CacheContextImpl.class);
 
 	private final Map<String, Object> map = new HashMap<String, Object>();
 
@@ -75,7 +75,7 @@ public class CacheContextImpl implements CacheContext {
 		} else {
 			for (Map.Entry<String, Object> one : map.entrySet()) {
 				if (!objectEquals(one.getValue(), that.map.get(one.getKey()))) {
-					log.debug("Map key {} does not match.", one.getKey());
+					LOG.debug("Map key {} does not match.", one.getKey());
 					return false;
 				}
 			}
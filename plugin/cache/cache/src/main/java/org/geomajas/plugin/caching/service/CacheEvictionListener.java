@@ -0,0 +1,32 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.plugin.caching.service;
+
+import org.geomajas.annotation.FutureApi;
+
+/**
+ * Listener which is notified about entries which a {@link ObservableCacheService} dropped by itself (for example
+ * because of eviction).
+ *
+ * @author Joachim Van der Auwera
+ */
+@FutureApi(allMethods = true)
+public interface CacheEvictionListener {
+
+	/**
+	 * The entry for the given key is no longer in the cache.
+	 *
+	 * @param key key of the entry which was dropped
+	 */
+	void evicted(String key);
+}
@@ -70,4 +70,13 @@ public interface CacheIndexService {
 	 * @return list of keys of spatial objects which my overlap with the geometry
 	 */
 	List<String> getOverlappingKeys(Envelope envelope);
+
+	/**
+	 * Get the envelope which was indexed for a key.
+	 *
+	 * @param key key of the spatial object
+	 * @return indexed envelope, null when the key is not known or not bounded
+	 * @since 1.18.0
+	 */
+	Envelope getEnvelope(String key);
 }
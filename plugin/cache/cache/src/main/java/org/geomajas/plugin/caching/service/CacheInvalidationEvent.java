@@ -0,0 +1,119 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.plugin.caching.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.geomajas.annotation.Api;
+import org.springframework.context.ApplicationEvent;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Event which is published in the application context when cached objects are invalidated, dropped or cleared.
+ * <p/>
+ * Listen to these events (using an {@link org.springframework.context.ApplicationListener} bean) to propagate the
+ * invalidation to clients or to distributed caches. The events are published synchronously in the thread which
+ * caused the invalidation, listeners should hand off any slow work.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+public class CacheInvalidationEvent extends ApplicationEvent {
+
+	private static final long serialVersionUID = 1180L;
+
+	private final String layerId;
+
+	private final CacheCategory category;
+
+	private final Envelope area;
+
+	private final boolean allKeys;
+
+	private final List<String> keys;
+
+	/**
+	 * Create an invalidation event.
+	 *
+	 * @param source object which published the event
+	 * @param layerId layer id, null for the caches which are not layer specific
+	 * @param category cache category
+	 * @param area area which was invalidated, null when not known
+	 * @param keys invalidated keys, {@link CacheIndexService#ALL_KEYS} when the cache was cleared
+	 */
+	public CacheInvalidationEvent(Object source, String layerId, CacheCategory category, Envelope area,
+			List<String> keys) {
+		super(source);
+		this.layerId = layerId;
+		this.category = category;
+		this.area = null == area ? null : new Envelope(area);
+		this.allKeys = CacheIndexService.ALL_KEYS == keys;
+		this.keys = allKeys ? Collections.<String>emptyList() :
+				Collections.unmodifiableList(new ArrayList<String>(keys));
+	}
+
+	/**
+	 * Get the id of the layer for which objects were invalidated.
+	 *
+	 * @return layer id, null for the caches which are not layer specific
+	 */
+	public String getLayerId() {
+		return layerId;
+	}
+
+	/**
+	 * Get the cache category in which objects were invalidated.
+	 *
+	 * @return cache category
+	 */
+	public CacheCategory getCategory() {
+		return category;
+	}
+
+	/**
+	 * Get the area which was invalidated.
+	 *
+	 * @return invalidated area (in layer coordinates), null when not known or when the cache was cleared
+	 */
+	public Envelope getArea() {
+		return area;
+	}
+
+	/**
+	 * Were all objects in the cache invalidated?
+	 *
+	 * @return true when the cache was cleared or dropped
+	 */
+	public boolean isAllKeys() {
+		return allKeys;
+	}
+
+	/**
+	 * Get the keys of the invalidated objects.
+	 *
+	 * @return invalidated keys, empty when {@link #isAllKeys()} is true
+	 */
+	public List<String> getKeys() {
+		return keys;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheInvalidationEvent{layerId=" + layerId + ", category=" + category + ", area=" + area +
+				", allKeys=" + allKeys + ", keys=" + keys + '}';
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.plugin.caching.service;
+
+import javax.validation.constraints.NotNull;
+
+import org.geomajas.annotation.Api;
+
+/**
+ * Configuration of the {@link CacheInvalidationPolicy} for a layer and/or cache category.
+ * <p/>
+ * When no configuration matches, the bounds category uses
+ * {@link org.geomajas.plugin.caching.invalidation.BoundsInvalidationPolicy} and all other categories use
+ * {@link org.geomajas.plugin.caching.invalidation.GeometryInvalidationPolicy}.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+public class CacheInvalidationInfo extends LayerCategoryInfo {
+
+	@NotNull
+	private CacheInvalidationPolicy invalidationPolicy;
+
+	/**
+	 * Get the invalidation policy.
+	 *
+	 * @return invalidation policy
+	 */
+	public CacheInvalidationPolicy getInvalidationPolicy() {
+		return invalidationPolicy;
+	}
+
+	/**
+	 * Set the invalidation policy.
+	 *
+	 * @param invalidationPolicy invalidation policy
+	 */
+	public void setInvalidationPolicy(CacheInvalidationPolicy invalidationPolicy) {
+		this.invalidationPolicy = invalidationPolicy;
+	}
+
+}
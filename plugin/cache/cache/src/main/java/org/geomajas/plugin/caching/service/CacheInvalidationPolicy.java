@@ -0,0 +1,42 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.plugin.caching.service;
+
+import java.util.List;
+
+import org.geomajas.annotation.Api;
+
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Policy which determines which cached objects in a cache category need to be invalidated when a feature changes.
+ * <p/>
+ * The policy can use the spatial index of the cache to find the candidates and to check their envelope. The
+ * geometries are expressed in the layer coordinate system.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+public interface CacheInvalidationPolicy {
+
+	/**
+	 * Get the keys of the cached objects which are affected by a change of a feature.
+	 *
+	 * @param index spatial index for the cache
+	 * @param oldGeometry geometry before the change, null for a new feature
+	 * @param newGeometry geometry after the change, null for a deleted feature
+	 * @return keys of the objects which need to be invalidated, {@link CacheIndexService#ALL_KEYS} to clear the cache
+	 */
+	List<String> getInvalidatedKeys(CacheIndexService index, Geometry oldGeometry, Geometry newGeometry);
+}
@@ -13,25 +13,47 @@ package org.geomajas.plugin.caching.service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.WeakHashMap;
 
 import org.geomajas.geometry.Crs;
 import org.geomajas.global.CacheableObject;
 import org.geomajas.service.pipeline.PipelineContext;
 import org.jboss.serial.io.JBossObjectOutputStream;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.BinaryLogicOperator;
+import org.opengis.filter.ExcludeFilter;
 import org.opengis.filter.Filter;
+import org.opengis.filter.Id;
+import org.opengis.filter.IncludeFilter;
+import org.opengis.filter.Not;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsLike;
+import org.opengis.filter.PropertyIsNull;
+import org.opengis.filter.expression.BinaryExpression;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Function;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.spatial.BinarySpatialOperator;
+import org.opengis.filter.spatial.DistanceBufferOperator;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import com.twmacinta.util.MD5;
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 
 /**
  * Implementation of {@link CacheKeyService}.
+ * <p/>
+ * The key is a 128-bit hash of the context values. Strings, numbers, geometries, filters and {@link CacheableObject}s
+ * are hashed structurally, only unknown objects are serialized.
  *
  * @author Joachim Van der Auwera
  */
@@ -50,77 +72,98 @@ public class CacheKeyServiceImpl implements CacheKeyService {
 			'u', 'v', 'w', 'x', 'y', 'z',
 			'0', '1', '2', '3', '4', '5', '6', '7', '8', '9'};
 
-	private static final String ENCODING = "UTF-8";
+	private static final int TYPE_NULL = 0;
+	private static final int TYPE_STRING = 1;
+	private static final int TYPE_LONG = 2;
+	private static final int TYPE_DOUBLE = 3;
+	private static final int TYPE_BOOLEAN = 4;
+	private static final int TYPE_ENUM = 5;
+	private static final int TYPE_CACHEABLE = 6;
+	private static final int TYPE_CRS = 7;
+	private static final int TYPE_GEOMETRY = 8;
+	private static final int TYPE_ENVELOPE = 9;
+	private static final int TYPE_FILTER = 10;
+	private static final int TYPE_SERIALIZED = 11;
 
 	private final Logger log = LoggerFactory.getLogger(CacheKeyServiceImpl.class);
 
+	private final Map<CoordinateReferenceSystem, String> crsWkt = new WeakHashMap<CoordinateReferenceSystem, String>();
+
 	private final Random random = new Random();
 
 	@Override
 	public String getCacheKey(CacheContext context) {
-		try {
-			MD5 md5 = new MD5();
-			StringBuilder toHash = new StringBuilder(BASE_KEY_LENGTH);
-			if (context instanceof CacheContextImpl) {
-				CacheContextImpl cci = (CacheContextImpl) context;
-				for (Map.Entry<String, Object> entry : cci.entries()) {
-					md5.Update(entry.getKey(), ENCODING);
-					md5.Update(":");
-					if (log.isTraceEnabled()) {
-						toHash.append(entry.getKey());
-						toHash.append(":");
-					}
-					Object value = entry.getValue();
-					if (null != value) {
-						String cid = getCacheId(value);
-						md5.Update(cid, ENCODING);
-						if (log.isTraceEnabled()) {
-							toHash.append(cid);
-						}
-					}
-					md5.Update("-");
-					if (log.isTraceEnabled()) {
-						toHash.append("-");
-					}
+		KeyHasher hasher = new KeyHasher();
+		StringBuilder toHash = log.isTraceEnabled() ? new StringBuilder(BASE_KEY_LENGTH) : null;
+		if (context instanceof CacheContextImpl) {
+			CacheContextImpl cci = (CacheContextImpl) context;
+			for (Map.Entry<String, Object> entry : cci.entries()) {
+				hasher.putString(entry.getKey());
+				Object value = entry.getValue();
+				if (null != value) {
+					putValue(hasher, value);
+				} else {
+					hasher.putByte(TYPE_NULL);
 				}
-			} else {
-				String cid = getCacheId(context);
-				md5.Update(cid, ENCODING);
-				if (log.isTraceEnabled()) {
-					toHash.append(cid);
+				if (null != toHash) {
+					toHash.append(entry.getKey());
+					toHash.append(":");
+					toHash.append(String.valueOf(value));
+					toHash.append("-");
 				}
 			}
-			String key = md5.asHex();
-			if (log.isTraceEnabled()) {
-				log.trace("key for context {} which is a hash for {}", key, forceAscii(toHash));
-			}
-			if (log.isDebugEnabled()) {
-				log.debug("key for context {}", key);
+		} else {
+			putValue(hasher, context);
+			if (null != toHash) {
+				toHash.append(String.valueOf(context));
 			}
-			
-			return key;
-		} catch (UnsupportedEncodingException uee) {
-			log.error("Impossible error, UTF-8 should be supported:" + uee.getMessage(), uee);
-			return null;
 		}
+		String key = hasher.asHex();
+		if (null != toHash) {
+			log.trace("key for context {} which is a hash for {}", key, forceAscii(toHash));
+		}
+		if (log.isDebugEnabled()) {
+			log.debug("key for context {}", key);
+		}
+		return key;
 	}
 
-	private String getCacheId(Object value) {
-		if (value instanceof CacheableObject) {
-			return ((CacheableObject) value).getCacheId();
+	/**
+	 * Append a value to the hash. Known types are hashed structurally (without building string representations),
+	 * other objects are serialized.
+	 *
+	 * @param hasher hasher
+	 * @param value value to add, not null
+	 */
+	private void putValue(KeyHasher hasher, Object value) {
+		if (value instanceof String) {
+			hasher.putByte(TYPE_STRING).putString((String) value);
+		} else if (value instanceof Integer || value instanceof Long || value instanceof Short
+				|| value instanceof Byte) {
+			hasher.putByte(TYPE_LONG).putLong(((Number) value).longValue());
+		} else if (value instanceof Double || value instanceof Float) {
+			hasher.putByte(TYPE_DOUBLE).putDouble(((Number) value).doubleValue());
+		} else if (value instanceof Boolean) {
+			hasher.putByte(TYPE_BOOLEAN).putBoolean((Boolean) value);
+		} else if (value instanceof Enum) {
+			hasher.putByte(TYPE_ENUM).putString(value.getClass().getName()).putString(((Enum<?>) value).name());
+		} else if (value instanceof CacheableObject) {
+			hasher.putByte(TYPE_CACHEABLE).putString(((CacheableObject) value).getCacheId());
 		} else if (value instanceof Crs) {
-			return ((Crs) value).getId();
+			hasher.putByte(TYPE_CRS).putString(((Crs) value).getId());
 		} else if (value instanceof CoordinateReferenceSystem) {
-			return ((CoordinateReferenceSystem) value).toWKT();
+			hasher.putByte(TYPE_CRS).putString(getWkt((CoordinateReferenceSystem) value));
 		} else if (value instanceof Geometry) {
-			return ((Geometry) value).toText();
+			hasher.putByte(TYPE_GEOMETRY).putGeometry((Geometry) value);
+		} else if (value instanceof Envelope) {
+			Envelope envelope = (Envelope) value;
+			hasher.putByte(TYPE_ENVELOPE).putDouble(envelope.getMinX()).putDouble(envelope.getMinY())
+					.putDouble(envelope.getMaxX()).putDouble(envelope.getMaxY());
 		} else if (value instanceof Filter) {
-			return value.toString();
-		} else if (value instanceof Integer) {
-			return Integer.toString((Integer) value);
-		} else if (value instanceof String) {
-			return value.toString();
+			hasher.putByte(TYPE_FILTER);
+			putFilter(hasher, (Filter) value);
 		} else {
+			hasher.putByte(TYPE_SERIALIZED);
 			try {
 				log.debug("Serializing {} for unique id", value.getClass().getName());
 				ByteArrayOutputStream baos = new ByteArrayOutputStream(SERIALIZED_BUFFER_SIZE);
@@ -128,13 +171,123 @@ public class CacheKeyServiceImpl implements CacheKeyService {
 				serialize.writeObject(value);
 				serialize.flush();
 				serialize.close();
-				return baos.toString("UTF-8");
+				hasher.putBytes(baos.toByteArray());
 			} catch (IOException ioe) {
-				String fallback = value.toString();
 				log.error("Could not serialize " + value + ", falling back to toString() which may cause problems.",
 						ioe);
-				return fallback;
+				hasher.putString(value.toString());
+			}
+		}
+	}
+
+	/**
+	 * Append a filter to the hash by walking the filter tree. Unknown filter types use their string representation.
+	 *
+	 * @param hasher hasher
+	 * @param filter filter
+	 */
+	private void putFilter(KeyHasher hasher, Filter filter) {
+		if (null == filter) {
+			hasher.putByte(TYPE_NULL);
+			return;
+		}
+		hasher.putString(filter.getClass().getName());
+		if (filter instanceof IncludeFilter || filter instanceof ExcludeFilter) {
+			return;
+		} else if (filter instanceof BinaryLogicOperator) {
+			List<Filter> children = ((BinaryLogicOperator) filter).getChildren();
+			hasher.putInt(children.size());
+			for (Filter child : children) {
+				putFilter(hasher, child);
+			}
+		} else if (filter instanceof Not) {
+			putFilter(hasher, ((Not) filter).getFilter());
+		} else if (filter instanceof BinaryComparisonOperator) {
+			BinaryComparisonOperator comparison = (BinaryComparisonOperator) filter;
+			hasher.putBoolean(comparison.isMatchingCase());
+			putExpression(hasher, comparison.getExpression1());
+			putExpression(hasher, comparison.getExpression2());
+		} else if (filter instanceof BinarySpatialOperator) {
+			BinarySpatialOperator spatial = (BinarySpatialOperator) filter;
+			putExpression(hasher, spatial.getExpression1());
+			putExpression(hasher, spatial.getExpression2());
+			if (filter instanceof DistanceBufferOperator) {
+				DistanceBufferOperator distance = (DistanceBufferOperator) filter;
+				hasher.putDouble(distance.getDistance()).putString(distance.getDistanceUnits());
+			}
+		} else if (filter instanceof PropertyIsLike) {
+			PropertyIsLike like = (PropertyIsLike) filter;
+			hasher.putBoolean(like.isMatchingCase()).putString(like.getLiteral()).putString(like.getWildCard())
+					.putString(like.getSingleChar()).putString(like.getEscape());
+			putExpression(hasher, like.getExpression());
+		} else if (filter instanceof PropertyIsBetween) {
+			PropertyIsBetween between = (PropertyIsBetween) filter;
+			putExpression(hasher, between.getExpression());
+			putExpression(hasher, between.getLowerBoundary());
+			putExpression(hasher, between.getUpperBoundary());
+		} else if (filter instanceof PropertyIsNull) {
+			putExpression(hasher, ((PropertyIsNull) filter).getExpression());
+		} else if (filter instanceof Id) {
+			// identifier order is not relevant, sort them to get a stable hash
+			List<String> ids = new ArrayList<String>();
+			for (Object id : ((Id) filter).getIDs()) {
+				ids.add(String.valueOf(id));
+			}
+			Collections.sort(ids);
+			hasher.putInt(ids.size());
+			for (String id : ids) {
+				hasher.putString(id);
+			}
+		} else {
+			hasher.putString(filter.toString());
+		}
+	}
+
+	private void putExpression(KeyHasher hasher, Expression expression) {
+		if (null == expression) {
+			hasher.putByte(TYPE_NULL);
+			return;
+		}
+		hasher.putString(expression.getClass().getName());
+		if (expression instanceof PropertyName) {
+			hasher.putString(((PropertyName) expression).getPropertyName());
+		} else if (expression instanceof Literal) {
+			Object value = ((Literal) expression).getValue();
+			if (null != value) {
+				putValue(hasher, value);
+			} else {
+				hasher.putByte(TYPE_NULL);
+			}
+		} else if (expression instanceof Function) {
+			Function function = (Function) expression;
+			hasher.putString(function.getName());
+			List<Expression> parameters = function.getParameters();
+			hasher.putInt(parameters.size());
+			for (Expression parameter : parameters) {
+				putExpression(hasher, parameter);
+			}
+		} else if (expression instanceof BinaryExpression) {
+			putExpression(hasher, ((BinaryExpression) expression).getExpression1());
+			putExpression(hasher, ((BinaryExpression) expression).getExpression2());
+		} else {
+			hasher.putString(expression.toString());
+		}
+	}
+
+	/**
+	 * Get the WKT for a CRS. Building the WKT is expensive, the result is memoised.
+	 *
+	 * @param crs CRS
+	 * @return WKT
+	 */
+	private String getWkt(CoordinateReferenceSystem crs) {
+		synchronized (crsWkt) {
+			String wkt = crsWkt.get(crs);
+			if (null == wkt) {
+				wkt = crs.toWKT();
+				crsWkt.put(crs, wkt);
 			}
+			return wkt;
 		}
 	}
 
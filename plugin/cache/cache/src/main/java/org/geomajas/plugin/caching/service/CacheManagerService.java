@@ -12,6 +12,7 @@
 package org.geomajas.plugin.caching.service;
 
 import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
 import org.geomajas.annotation.Api;
 import org.geomajas.layer.Layer;
 
@@ -99,6 +100,17 @@ public interface CacheManagerService {
 	 */
 	void invalidate(Layer layer, Envelope envelope);
 
+	/**
+	 * Invalidate the cached objects which are affected by a change of a feature geometry. The
+	 * {@link CacheInvalidationPolicy} of each cache category determines which objects are invalidated.
+	 *
+	 * @param layer layer for which cached objects need to be invalidated
+	 * @param oldGeometry geometry before the change (in layer coordinates), null for a new feature
+	 * @param newGeometry geometry after the change (in layer coordinates), null for a deleted feature
+	 * @since 1.18.0
+	 */
+	void invalidate(Layer layer, Geometry oldGeometry, Geometry newGeometry);
+
 	/**
 	 * Invalidate all the cached objects for a specific layer.
 	 *
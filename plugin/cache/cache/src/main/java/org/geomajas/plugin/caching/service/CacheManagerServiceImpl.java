@@ -12,15 +12,19 @@
 package org.geomajas.plugin.caching.service;
 
 import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
 import org.geomajas.layer.Layer;
+import org.geomajas.plugin.caching.index.NoCacheIndexService;
+import org.geomajas.plugin.caching.invalidation.BoundsInvalidationPolicy;
+import org.geomajas.plugin.caching.invalidation.GeometryInvalidationPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -41,6 +45,10 @@ public class CacheManagerServiceImpl implements CacheManagerService {
 	private final Map<String, Map<CacheCategory, IndexedCache>> caches =
 			new ConcurrentHashMap<String, Map<CacheCategory, IndexedCache>>();
 
+	private final CacheInvalidationPolicy geometryInvalidationPolicy = new GeometryInvalidationPolicy();
+
+	private final CacheInvalidationPolicy boundsInvalidationPolicy = new BoundsInvalidationPolicy();
+
 	@Override
 	public void put(Layer layer, CacheCategory category, String key, Object object, Envelope envelope) {
 		if (log.isDebugEnabled()) {
@@ -85,11 +93,13 @@ public class CacheManagerServiceImpl implements CacheManagerService {
 		IndexedCache cache = getCache(layer, category, false);
 		if (null != cache) {
 			cache.drop();
+			publish(layer, category, null, CacheIndexService.ALL_KEYS);
 		}
 		if (null != layer) {
 			IndexedCache metaCache = getCache(null, category, false);
 			if (null != metaCache) {
 				metaCache.clear();
+				publish(null, category, null, CacheIndexService.ALL_KEYS);
 			}
 		}
 	}
@@ -101,17 +111,14 @@ public class CacheManagerServiceImpl implements CacheManagerService {
 		}
 		if (null != layer) {
 			// drop requested layer if not null
-			List<IndexedCache> layerCaches = getCaches(layer);
-			for (IndexedCache cache : layerCaches) {
-				cache.drop();
+			for (Map.Entry<CacheCategory, IndexedCache> entry : getCacheMap(layer).entrySet()) {
+				entry.getValue().drop();
+				publish(layer, entry.getKey(), null, CacheIndexService.ALL_KEYS);
 			}
 			caches.remove(getLayerId(layer));
 		}
 		// clear meta-layer
-		List<IndexedCache> layerCaches = getCaches(null);
-		for (IndexedCache cache : layerCaches) {
-			cache.clear();
-		}
+		clear(null);
 	}
 
 	@Override
@@ -121,12 +128,12 @@ public class CacheManagerServiceImpl implements CacheManagerService {
 		}
 		IndexedCache cache = getCache(layer, category, false);
 		if (null != cache) {
-			cache.invalidate(envelope);
+			publish(layer, category, envelope, cache.invalidate(envelope));
 		}
 		if (null != layer) {
 			IndexedCache metaCache = getCache(null, category, false);
 			if (null != metaCache) {
-				metaCache.invalidate(envelope);
+				publish(null, category, envelope, metaCache.invalidate(envelope));
 			}
 		}
 	}
@@ -136,28 +143,83 @@ public class CacheManagerServiceImpl implements CacheManagerService {
 		if (log.isDebugEnabled()) {
 			log.debug("Invalidate: {}", getLogLayerId(layer));
 		}
-		for (IndexedCache cache : getCaches(layer)) {
-			cache.invalidate(envelope);
+		for (Map.Entry<CacheCategory, IndexedCache> entry : getCacheMap(layer).entrySet()) {
+			publish(layer, entry.getKey(), envelope, entry.getValue().invalidate(envelope));
 		}
 		if (null != layer) {
-			for (IndexedCache cache : getCaches(null)) {
-				cache.invalidate(envelope);
+			for (Map.Entry<CacheCategory, IndexedCache> entry : getCacheMap(null).entrySet()) {
+				publish(null, entry.getKey(), envelope, entry.getValue().invalidate(envelope));
 			}
 		}
 	}
 
+	@Override
+	public void invalidate(Layer layer, Geometry oldGeometry, Geometry newGeometry) {
+		if (log.isDebugEnabled()) {
+			log.debug("Invalidate change: {}", getLogLayerId(layer));
+		}
+		Envelope area = new Envelope();
+		if (null != oldGeometry) {
+			area.expandToInclude(oldGeometry.getEnvelopeInternal());
+		}
+		if (null != newGeometry) {
+			area.expandToInclude(newGeometry.getEnvelopeInternal());
+		}
+		invalidate(layer, oldGeometry, newGeometry, area);
+		if (null != layer) {
+			invalidate(null, oldGeometry, newGeometry, area);
+		}
+	}
+
 	@Override
 	public void invalidate(Layer layer) {
 		if (log.isDebugEnabled()) {
 			log.debug("Invalidate: {}", getLogLayerId(layer));
 		}
-		for (IndexedCache cache : getCaches(layer)) {
-			cache.clear();
-		}
+		clear(layer);
 		if (null != layer) {
-			for (IndexedCache cache : getCaches(null)) {
-				cache.clear();
-			}
+			clear(null);
+		}
+	}
+
+	private void invalidate(Layer layer, Geometry oldGeometry, Geometry newGeometry, Envelope area) {
+		String layerId = getLayerId(layer);
+		for (Map.Entry<CacheCategory, IndexedCache> entry : getCacheMap(layer).entrySet()) {
+			CacheInvalidationPolicy policy = getInvalidationPolicy(layerId, entry.getKey());
+			publish(layer, entry.getKey(), area, entry.getValue().invalidate(policy, oldGeometry, newGeometry));
+		}
+	}
+
+	private void clear(Layer layer) {
+		for (Map.Entry<CacheCategory, IndexedCache> entry : getCacheMap(layer).entrySet()) {
+			entry.getValue().clear();
+			publish(layer, entry.getKey(), null, CacheIndexService.ALL_KEYS);
+		}
+	}
+
+	/**
+	 * Get the invalidation policy for the layer/category pair. When not configured, the bounds are invalidated using
+	 * {@link BoundsInvalidationPolicy}, other categories using {@link GeometryInvalidationPolicy}.
+	 *
+	 * @param layerId layer id
+	 * @param cacheCategory cache category
+	 * @return invalidation policy
+	 */
+	CacheInvalidationPolicy getInvalidationPolicy(String layerId, CacheCategory cacheCategory) {
+		CacheInvalidationInfo info = getInfo(layerId, cacheCategory, CacheInvalidationInfo.class);
+		if (null != info) {
+			return info.getInvalidationPolicy();
+		}
+		if (CacheCategory.BOUNDS.equals(cacheCategory)) {
+			return boundsInvalidationPolicy;
+		}
+		return geometryInvalidationPolicy;
+	}
+
+	private void publish(Layer layer, CacheCategory category, Envelope area, List<String> keys) {
+		if (CacheIndexService.ALL_KEYS == keys || !keys.isEmpty()) {
+			applicationContext.publishEvent(new CacheInvalidationEvent(this, null == layer ? null : layer.getId(),
+					category, CacheIndexService.ALL_KEYS == keys ? null : area, keys));
 		}
 	}
 
@@ -203,22 +265,48 @@ public class CacheManagerServiceImpl implements CacheManagerService {
 		return cache;
 	}
 
-	List<IndexedCache> getCaches(Layer layer) {
-		String layerId = getLayerId(layer);
-		List<IndexedCache> list = new ArrayList<IndexedCache>();
-		Map<CacheCategory, IndexedCache> layerCaches = caches.get(layerId);
+	private Map<CacheCategory, IndexedCache> getCacheMap(Layer layer) {
+		Map<CacheCategory, IndexedCache> map = new HashMap<CacheCategory, IndexedCache>();
+		Map<CacheCategory, IndexedCache> layerCaches = caches.get(getLayerId(layer));
 		if (null != layerCaches) {
-			list.addAll(layerCaches.values());
+			map.putAll(layerCaches);
 		}
-		return list;
+		return map;
 	}
 
 	IndexedCache createCache(Layer layer, CacheCategory cacheCategory) {
 		String layerId = getLayerId(layer);
 		CacheServiceInfo cacheServiceInfo = getInfo(layerId, cacheCategory, CacheServiceInfo.class);
 		CacheIndexInfo cacheIndexInfo = getInfo(layerId, cacheCategory, CacheIndexInfo.class);
-		return new IndexedCache(cacheServiceInfo.getCacheFactory().create(layer, cacheCategory),
-				cacheIndexInfo.getCacheIndexFactory().create(layer, cacheCategory));
+		CacheService cacheService = cacheServiceInfo.getCacheFactory().create(layer, cacheCategory);
+		CacheIndexService cacheIndexService = cacheIndexInfo.getCacheIndexFactory().create(layer, cacheCategory);
+		if (cacheIndexService instanceof CacheEvictionListener) {
+			cacheIndexService = observe(cacheService, cacheIndexService, layerId, cacheCategory);
+		}
+		return new IndexedCache(cacheService, cacheIndexService);
+	}
+
+	/**
+	 * Connect an index which needs to know about evicted entries to the cache. When the cache cannot report all
+	 * changes (persistent, clustered or expiring entries), the index is replaced by one which clears the entire cache
+	 * on invalidation.
+	 *
+	 * @param cacheService cache service
+	 * @param cacheIndexService index which needs to be notified of evictions
+	 * @param layerId layer id
+	 * @param cacheCategory category
+	 * @return index to use for the cache
+	 */
+	private CacheIndexService observe(CacheService cacheService, CacheIndexService cacheIndexService, String layerId,
+			CacheCategory cacheCategory) {
+		if (cacheService instanceof ObservableCacheService
+				&& ((ObservableCacheService) cacheService).isFullyObservable()) {
+			((ObservableCacheService) cacheService).addEvictionListener((CacheEvictionListener) cacheIndexService);
+			return cacheIndexService;
+		}
+		log.info("Cache for layer {} category {} cannot keep {} in sync, invalidation clears the entire cache.",
+				new Object[] {layerId, cacheCategory, cacheIndexService.getClass().getSimpleName()});
+		return new NoCacheIndexService();
 	}
 
 	/**
@@ -53,10 +53,23 @@ public interface CachingSupportService {
 	 * @param contextKey key to put the cache context in the pipeline context
 	 * @param keyKey key to put the cache key in the pipeline context
 	 * @param cacheContainer cache container
-	 * @param envelope envelope
+	 * @param envelope envelope in the coordinate reference system of the pipeline context (it is transformed to the
+	 *        layer coordinate reference system for indexing), null when not known
 	 */
 	void putContainer(PipelineContext pipelineContext, CachingSupportServiceContextAdder contextAdder,
 			CacheCategory category, String[] keys, String keyKey, String contextKey, CacheContainer cacheContainer,
 			Envelope envelope);
 
+	/**
+	 * Mark the computation of the containers which were not found by
+	 * {@link #getContainer(String, String, String[], CacheCategory, PipelineContext, CachingSupportServiceContextAdder,
+	 * Class)} as failed. Concurrent requests which are waiting for these containers receive the error immediately
+	 * instead of waiting for the coalescing timeout.
+	 *
+	 * @param pipelineContext pipeline context
+	 * @param error reason for the failure
+	 * @since 1.18.0
+	 */
+	void failContainers(PipelineContext pipelineContext, Exception error);
+
 }
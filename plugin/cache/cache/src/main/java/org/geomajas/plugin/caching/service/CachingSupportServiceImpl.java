@@ -11,11 +11,17 @@
 
 package org.geomajas.plugin.caching.service;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import com.vividsolutions.jts.geom.Envelope;
+import org.geomajas.global.GeomajasException;
 import org.geomajas.layer.VectorLayer;
 import org.geomajas.plugin.caching.step.CacheContainer;
+import org.geomajas.service.GeoService;
 import org.geomajas.service.pipeline.PipelineCode;
 import org.geomajas.service.pipeline.PipelineContext;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +29,13 @@ import org.springframework.stereotype.Component;
 
 /**
  * {@link CachingSupportService} implementation.
+ * <p/>
+ * Concurrent cache misses for the same key are coalesced. The first request computes the value, the other requests
+ * wait (up to the coalescing timeout) for the value to be put in the cache. When the computation fails (see
+ * {@link #failContainers(PipelineContext, Exception)}), the waiting requests fail with the same error.
+ * <p/>
+ * The envelopes are indexed in the layer coordinate reference system, as that is the coordinate reference system
+ * of the changed geometries which are used for invalidation.
  *
  * @author Joachim Van der Auwera
  * @author Jan De Moerloose
@@ -30,6 +43,11 @@ import org.springframework.stereotype.Component;
 @Component
 public class CachingSupportServiceImpl implements CachingSupportService {
 
+	private static final long COALESCING_TIMEOUT = 10000;
+
+	/** Pipeline key for the computations (flight per cache key key) which still need to be marked as complete. */
+	private static final String FLIGHTS_KEY = "cachingSupportFlights";
+
 	private final Logger log = LoggerFactory.getLogger(CachingSupportServiceImpl.class);
 
 	@Autowired
@@ -38,11 +56,26 @@ public class CachingSupportServiceImpl implements CachingSupportService {
 	@Autowired
 	private CacheKeyService cacheKeyService;
 
+	@Autowired
+	private GeoService geoService;
+
+	private SingleFlight<String, Object> singleFlight = new SingleFlight<String, Object>(COALESCING_TIMEOUT);
+
+	/**
+	 * Set the maximum time to wait for a concurrent request which is computing the same value.
+	 *
+	 * @param coalescingTimeout timeout in milliseconds
+	 */
+	public void setCoalescingTimeout(long coalescingTimeout) {
+		singleFlight = new SingleFlight<String, Object>(coalescingTimeout);
+	}
+
 	@Override
 	public <CONTAINER extends CacheContainer> CONTAINER getContainer(String keyKey, String contextKey,
 			String[] keys, CacheCategory category, PipelineContext pipelineContext,
 			CachingSupportServiceContextAdder contextAdder, Class<CONTAINER> containerClass) {
 		CONTAINER cc = null;
+		RuntimeException leaderFailure = null;
 		try {
 			VectorLayer layer = pipelineContext.getOptional(PipelineCode.LAYER_KEY, VectorLayer.class);
 			String cacheKey = null;
@@ -59,15 +92,26 @@ public class CachingSupportServiceImpl implements CachingSupportService {
 				}
 
 				cacheKey = cacheKeyService.getCacheKey(cacheContext);
-				cc = cacheManager.get(layer, category, cacheKey, containerClass);
-				while (null != cc) {
-					if (!cacheContext.equals(cc.getContext())) {
-						cacheKey = cacheKeyService.makeUnique(cacheKey);
-						cc = cacheManager.get(layer, category, cacheKey, containerClass);
+				cc = find(layer, category, cacheKey, cacheContext, containerClass, pipelineContext, keyKey, contextKey);
+				if (null == cc) {
+					// the cache key which will be used for storing the value, coalesce concurrent misses for it
+					String flightKey = getFlightKey(layer, category, getFreeKey(layer, category, cacheKey,
+							cacheContext));
+					SingleFlight.Flight<Object> flight = singleFlight.tryLead(flightKey);
+					if (null != flight) {
+						getFlights(pipelineContext, true).put(keyKey, flight);
 					} else {
-						pipelineContext.put(keyKey, cacheKey);
-						pipelineContext.put(contextKey, cacheContext);
-						return cc;
+						try {
+							if (singleFlight.await(flightKey)) {
+								cc = find(layer, category, cacheKey, cacheContext, containerClass, pipelineContext,
+										keyKey, contextKey);
+							}
+						} catch (RuntimeException re) {
+							leaderFailure = re;
+						} catch (Exception e) { // NOSONAR
+							leaderFailure = new IllegalStateException("Concurrent request for the same value failed: "
+									+ e.getMessage(), e);
+						}
 					}
 				}
 			}
@@ -75,6 +119,10 @@ public class CachingSupportServiceImpl implements CachingSupportService {
 			// have to prevent caching code from making the pipeline fail, log and discard errors
 			log.error("Error during caching step, only logged: " + t.getMessage(), t);
 		}
+		if (null != leaderFailure) {
+			// the concurrent request which was computing the same value failed, fail the same way
+			throw leaderFailure;
+		}
 		return cc;
 	}
 
@@ -106,12 +154,108 @@ public class CachingSupportServiceImpl implements CachingSupportService {
 			if (keyKey != null) {
 				pipelineContext.put(keyKey, cacheKey);
 			}
-			cacheManager.put(layer, category, cacheKey, cacheContainer, envelope);
+			cacheManager.put(layer, category, cacheKey, cacheContainer, toLayerCrs(pipelineContext, layer, envelope));
 			pipelineContext.put(keyKey, cacheKey);
 		} catch (Throwable t) { //NOPMD
 			// have to prevent caching code from making the pipeline fail, log and discard errors
 			log.error("Error during caching step, only logged: " + t.getMessage(), t);
+		} finally {
+			Map<String, SingleFlight.Flight<Object>> flights = getFlights(pipelineContext, false);
+			if (null != flights && null != flights.get(keyKey)) {
+				singleFlight.complete(flights.remove(keyKey));
+			}
+		}
+	}
+
+	/**
+	 * Transform the envelope from the coordinate reference system of the pipeline context to the layer coordinate
+	 * reference system.
+	 *
+	 * @param pipelineContext pipeline context
+	 * @param layer layer
+	 * @param envelope envelope in the coordinate reference system of the pipeline context
+	 * @return envelope in layer coordinate reference system
+	 * @throws GeomajasException transformation not available
+	 */
+	private Envelope toLayerCrs(PipelineContext pipelineContext, VectorLayer layer, Envelope envelope)
+			throws GeomajasException {
+		if (null == envelope || null == layer) {
+			return envelope;
 		}
+		CoordinateReferenceSystem crs = pipelineContext.getOptional(PipelineCode.CRS_KEY,
+				CoordinateReferenceSystem.class);
+		if (null == crs || crs.equals(layer.getCrs())) {
+			return envelope;
+		}
+		return geoService.transform(envelope, geoService.getCrsTransform(crs, layer.getCrs()));
+	}
+
+	@Override
+	public void failContainers(PipelineContext pipelineContext, Exception error) {
+		Map<String, SingleFlight.Flight<Object>> flights = getFlights(pipelineContext, false);
+		if (null != flights) {
+			for (SingleFlight.Flight<Object> flight : flights.values()) {
+				singleFlight.fail(flight, error);
+			}
+			flights.clear();
+		}
+	}
+
+	/**
+	 * Get the computations which were started using this pipeline context, by cache key key.
+	 *
+	 * @param pipelineContext pipeline context
+	 * @param create create the map when it does not exist yet
+	 * @return flights by cache key key, null when not created
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<String, SingleFlight.Flight<Object>> getFlights(PipelineContext pipelineContext, boolean create) {
+		Map<String, SingleFlight.Flight<Object>> flights = pipelineContext.getOptional(FLIGHTS_KEY, Map.class);
+		if (null == flights && create) {
+			flights = new HashMap<String, SingleFlight.Flight<Object>>();
+			pipelineContext.put(FLIGHTS_KEY, flights);
+		}
+		return flights;
+	}
+
+	/**
+	 * Find the container for the cache context, starting from the given key.
+	 *
+	 * @return container or null when not in cache
+	 */
+	private <CONTAINER extends CacheContainer> CONTAINER find(VectorLayer layer, CacheCategory category,
+			String cacheKey, CacheContext cacheContext, Class<CONTAINER> containerClass,
+			PipelineContext pipelineContext, String keyKey, String contextKey) {
+		CONTAINER cc = cacheManager.get(layer, category, cacheKey, containerClass);
+		while (null != cc) {
+			if (!cacheContext.equals(cc.getContext())) {
+				cacheKey = cacheKeyService.makeUnique(cacheKey);
+				cc = cacheManager.get(layer, category, cacheKey, containerClass);
+			} else {
+				pipelineContext.put(keyKey, cacheKey);
+				pipelineContext.put(contextKey, cacheContext);
+				return cc;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the first key, starting from the given key, which is not used for another cache context.
+	 *
+	 * @return free cache key
+	 */
+	private String getFreeKey(VectorLayer layer, CacheCategory category, String cacheKey, CacheContext cacheContext) {
+		CacheContainer cc = cacheManager.get(layer, category, cacheKey, CacheContainer.class);
+		while (null != cc && !cacheContext.equals(cc.getContext())) {
+			cacheKey = cacheKeyService.makeUnique(cacheKey);
+			cc = cacheManager.get(layer, category, cacheKey, CacheContainer.class);
+		}
+		return cacheKey;
+	}
+
+	private String getFlightKey(VectorLayer layer, CacheCategory category, String cacheKey) {
+		return (null == layer ? "" : layer.getId()) + "/" + category + "/" + cacheKey;
 	}
 
 }
@@ -12,6 +12,7 @@
 package org.geomajas.plugin.caching.service;
 
 import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -87,9 +88,25 @@ public class IndexedCache {
 	 * Invalidate all entries which (may) overlap with the given geometry.
 	 *
 	 * @param envelope envelope to test
+	 * @return invalidated keys, {@link CacheIndexService#ALL_KEYS} when the cache was cleared
 	 */
-	public void invalidate(Envelope envelope) {
-		List<String> keys = index.getOverlappingKeys(envelope);
+	public List<String> invalidate(Envelope envelope) {
+		return invalidate(index.getOverlappingKeys(envelope));
+	}
+
+	/**
+	 * Invalidate the entries which are affected by a change of a feature according to the invalidation policy.
+	 *
+	 * @param policy invalidation policy
+	 * @param oldGeometry geometry before the change, null for a new feature
+	 * @param newGeometry geometry after the change, null for a deleted feature
+	 * @return invalidated keys, {@link CacheIndexService#ALL_KEYS} when the cache was cleared
+	 */
+	public List<String> invalidate(CacheInvalidationPolicy policy, Geometry oldGeometry, Geometry newGeometry) {
+		return invalidate(policy.getInvalidatedKeys(index, oldGeometry, newGeometry));
+	}
+
+	private List<String> invalidate(List<String> keys) {
 		if (CacheIndexService.ALL_KEYS == keys) {
 			log.debug("clear all keys from cache");
 			clear();
@@ -99,6 +116,7 @@ public class IndexedCache {
 				remove(key);
 			}
 		}
+		return keys;
 	}
 
 	/**
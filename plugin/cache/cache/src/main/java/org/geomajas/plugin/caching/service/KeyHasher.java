@@ -0,0 +1,276 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.caching.service;
+
+import java.util.Arrays;
+
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+
+/**
+ * Builds a 128-bit non-cryptographic hash (MurmurHash3, x64 variant) over a sequence of primitive values.
+ * <p/>
+ * Values are appended in binary form (strings are prefixed with their length), so distinct sequences of values do not
+ * collapse to the same input. Geometries are hashed from their coordinates, without converting them to WKT.
+ * <p/>
+ * Instances are not thread safe, use one hasher per key.
+ *
+ * @author Joachim Van der Auwera
+ */
+final class KeyHasher {
+
+	private static final int INITIAL_SIZE = 256;
+
+	private static final long C1 = 0x87c37b91114253d5L;
+
+	private static final long C2 = 0x4cf5ad432745937fL;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private byte[] buffer = new byte[INITIAL_SIZE];
+
+	private int length;
+
+	/**
+	 * Append a boolean.
+	 *
+	 * @param value value
+	 * @return this hasher
+	 */
+	KeyHasher putBoolean(boolean value) {
+		return putByte(value ? 1 : 0);
+	}
+
+	/**
+	 * Append a byte.
+	 *
+	 * @param value value
+	 * @return this hasher
+	 */
+	KeyHasher putByte(int value) {
+		ensureCapacity(1);
+		buffer[length++] = (byte) value;
+		return this;
+	}
+
+	/**
+	 * Append an integer.
+	 *
+	 * @param value value
+	 * @return this hasher
+	 */
+	KeyHasher putInt(int value) {
+		ensureCapacity(4);
+		buffer[length++] = (byte) value;
+		buffer[length++] = (byte) (value >>> 8);
+		buffer[length++] = (byte) (value >>> 16);
+		buffer[length++] = (byte) (value >>> 24);
+		return this;
+	}
+
+	/**
+	 * Append a long.
+	 *
+	 * @param value value
+	 * @return this hasher
+	 */
+	KeyHasher putLong(long value) {
+		putInt((int) value);
+		return putInt((int) (value >>> 32));
+	}
+
+	/**
+	 * Append a double.
+	 *
+	 * @param value value
+	 * @return this hasher
+	 */
+	KeyHasher putDouble(double value) {
+		return putLong(Double.doubleToLongBits(value));
+	}
+
+	/**
+	 * Append a string, null is distinct from the empty string.
+	 *
+	 * @param value value
+	 * @return this hasher
+	 */
+	KeyHasher putString(String value) {
+		if (null == value) {
+			return putInt(-1);
+		}
+		int count = value.length();
+		putInt(count);
+		ensureCapacity(count * 2);
+		for (int i = 0; i < count; i++) {
+			char c = value.charAt(i);
+			buffer[length++] = (byte) c;
+			buffer[length++] = (byte) (c >>> 8);
+		}
+		return this;
+	}
+
+	/**
+	 * Append a byte array.
+	 *
+	 * @param value value
+	 * @return this hasher
+	 */
+	KeyHasher putBytes(byte[] value) {
+		putInt(value.length);
+		ensureCapacity(value.length);
+		System.arraycopy(value, 0, buffer, length, value.length);
+		length += value.length;
+		return this;
+	}
+
+	/**
+	 * Append a geometry. The geometry type, SRID and all ordinates are included.
+	 *
+	 * @param geometry geometry
+	 * @return this hasher
+	 */
+	KeyHasher putGeometry(Geometry geometry) {
+		putString(geometry.getGeometryType());
+		putInt(geometry.getSRID());
+		if (geometry instanceof Point) {
+			putCoordinates(((Point) geometry).getCoordinateSequence());
+		} else if (geometry instanceof LineString) {
+			putCoordinates(((LineString) geometry).getCoordinateSequence());
+		} else if (geometry instanceof Polygon) {
+			Polygon polygon = (Polygon) geometry;
+			putCoordinates(polygon.getExteriorRing().getCoordinateSequence());
+			int holes = polygon.getNumInteriorRing();
+			putInt(holes);
+			for (int i = 0; i < holes; i++) {
+				putCoordinates(polygon.getInteriorRingN(i).getCoordinateSequence());
+			}
+		} else if (geometry instanceof GeometryCollection) {
+			int parts = geometry.getNumGeometries();
+			putInt(parts);
+			for (int i = 0; i < parts; i++) {
+				putGeometry(geometry.getGeometryN(i));
+			}
+		} else {
+			putString(geometry.toText());
+		}
+		return this;
+	}
+
+	private void putCoordinates(CoordinateSequence sequence) {
+		int size = sequence.size();
+		putInt(size);
+		boolean hasZ = sequence.getDimension() > 2;
+		putBoolean(hasZ);
+		ensureCapacity(size * (hasZ ? 24 : 16));
+		for (int i = 0; i < size; i++) {
+			putDouble(sequence.getX(i));
+			putDouble(sequence.getY(i));
+			if (hasZ) {
+				putDouble(sequence.getOrdinate(i, CoordinateSequence.Z));
+			}
+		}
+	}
+
+	private void ensureCapacity(int extra) {
+		if (length + extra > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(length + extra, buffer.length * 2));
+		}
+	}
+
+	/**
+	 * Calculate the hash of all values which were appended.
+	 *
+	 * @return 128-bit hash as 32 hexadecimal characters
+	 */
+	String asHex() {
+		long h1 = 0;
+		long h2 = 0;
+		int blocks = length / 16;
+		for (int i = 0; i < blocks; i++) {
+			long k1 = getLong(i * 16);
+			long k2 = getLong(i * 16 + 8);
+
+			h1 ^= mixK1(k1);
+			h1 = Long.rotateLeft(h1, 27);
+			h1 += h2;
+			h1 = h1 * 5 + 0x52dce729;
+
+			h2 ^= mixK2(k2);
+			h2 = Long.rotateLeft(h2, 31);
+			h2 += h1;
+			h2 = h2 * 5 + 0x38495ab5;
+		}
+
+		int tail = blocks * 16;
+		long k1 = 0;
+		long k2 = 0;
+		for (int i = length - tail - 1; i >= 8; i--) {
+			k2 = (k2 << 8) | (buffer[tail + i] & 0xffL);
+		}
+		for (int i = Math.min(length - tail, 8) - 1; i >= 0; i--) {
+			k1 = (k1 << 8) | (buffer[tail + i] & 0xffL);
+		}
+		h1 ^= mixK1(k1);
+		h2 ^= mixK2(k2);
+
+		h1 ^= length;
+		h2 ^= length;
+		h1 += h2;
+		h2 += h1;
+		h1 = fmix(h1);
+		h2 = fmix(h2);
+		h1 += h2;
+		h2 += h1;
+
+		char[] hex = new char[32];
+		toHex(h1, hex, 0);
+		toHex(h2, hex, 16);
+		return new String(hex);
+	}
+
+	private long getLong(int offset) {
+		long value = 0;
+		for (int i = 7; i >= 0; i--) {
+			value = (value << 8) | (buffer[offset + i] & 0xffL);
+		}
+		return value;
+	}
+
+	private static long mixK1(long k1) {
+		return Long.rotateLeft(k1 * C1, 31) * C2;
+	}
+
+	private static long mixK2(long k2) {
+		return Long.rotateLeft(k2 * C2, 33) * C1;
+	}
+
+	private static long fmix(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+
+	private static void toHex(long value, char[] target, int offset) {
+		for (int i = 15; i >= 0; i--) {
+			target[offset + i] = HEX[(int) (value & 0xf)];
+			value >>>= 4;
+		}
+	}
+}
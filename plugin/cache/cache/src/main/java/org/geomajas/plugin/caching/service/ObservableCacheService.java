@@ -0,0 +1,42 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.plugin.caching.service;
+
+import org.geomajas.annotation.FutureApi;
+
+/**
+ * {@link CacheService} which reports the entries it drops by itself, allowing a {@link CacheIndexService} which keeps
+ * state per key to stay in sync with the cache content.
+ *
+ * @author Joachim Van der Auwera
+ */
+@FutureApi(allMethods = true)
+public interface ObservableCacheService extends CacheService {
+
+	/**
+	 * Are all changes to the cache content reported to the listeners? This is not the case when entries survive a
+	 * restart (persistent store), when they are shared with other nodes (clustered cache) or when entries can
+	 * disappear without notification (for example expiration).
+	 *
+	 * @return true when an index kept in local memory stays in sync with the cache content
+	 */
+	boolean isFullyObservable();
+
+	/**
+	 * Add a listener which is notified for every entry which is dropped without a call to
+	 * {@link #remove(String)}, {@link #clear()} or {@link #drop()}.
+	 *
+	 * @param listener eviction listener
+	 */
+	void addEvictionListener(CacheEvictionListener listener);
+}
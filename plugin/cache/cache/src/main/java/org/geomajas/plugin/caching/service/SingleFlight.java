@@ -0,0 +1,218 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.caching.service;
+
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.geomajas.annotation.Api;
+
+/**
+ * Coalesces concurrent computations of the same value (for example on a cache miss). The first caller for a key
+ * becomes the leader and computes the value, callers which arrive while the computation is running wait for the
+ * result instead of computing it again.
+ * <p/>
+ * Waiting is limited by a timeout. When the leader did not finish within the timeout, the waiting callers continue on
+ * their own, and the next caller can become the new leader.
+ * <p/>
+ * There are two ways to use this. {@link #execute(Object, Callable)} runs the computation and shares the result or
+ * exception with the callers which were waiting. Alternatively, {@link #tryLead(Object)}, {@link #await(Object)},
+ * {@link #complete(Flight)} and {@link #fail(Flight, Exception)} allow the computation to be spread over several
+ * calls, the waiting callers then retrieve the result themselves (typically from the cache). The leader finishes the
+ * computation using the handle which was returned by {@link #tryLead(Object)}, so a leader which was taken over
+ * after a timeout cannot finish the computation of the new leader.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+public class SingleFlight<K, V> {
+
+	private static final int PURGE_THRESHOLD = 1024;
+
+	private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<K, Flight<V>>();
+
+	private final long timeout;
+
+	/**
+	 * Create a single flight instance.
+	 *
+	 * @param timeout maximum time to wait for the leader in milliseconds
+	 */
+	public SingleFlight(long timeout) {
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Compute a value, or wait for the computation which is already running for the key.
+	 * <p/>
+	 * When the wait times out, the value is computed by the calling thread.
+	 *
+	 * @param key key
+	 * @param loader computation
+	 * @return value
+	 * @throws Exception exception thrown by the computation (possibly in the leader)
+	 */
+	public V execute(K key, Callable<V> loader) throws Exception {
+		Flight<V> flight = new Flight<V>(key);
+		if (start(key, flight)) {
+			try {
+				V value = loader.call();
+				flight.value = value;
+				return value;
+			} catch (Exception e) { // NOSONAR
+				flight.error = e;
+				throw e;
+			} finally {
+				finish(flight);
+			}
+		}
+		Flight<V> running = flights.get(key);
+		if (null != running && running.await(timeout)) {
+			if (null != running.error) {
+				throw running.error;
+			}
+			return running.value;
+		}
+		return loader.call();
+	}
+
+	/**
+	 * Try to become the leader for a key. When this returns a flight, the caller should call
+	 * {@link #complete(Flight)} or {@link #fail(Flight, Exception)} with it when the computation is done.
+	 *
+	 * @param key key
+	 * @return flight when the caller is the leader, null when a computation is already running
+	 */
+	public Flight<V> tryLead(K key) {
+		Flight<V> flight = new Flight<V>(key);
+		return start(key, flight) ? flight : null;
+	}
+
+	/**
+	 * Wait for the computation which is running for the key to finish.
+	 *
+	 * @param key key
+	 * @return true when the computation completed, false when it timed out or was not running
+	 * @throws Exception the computation failed, exception which was passed to {@link #fail(Flight, Exception)}
+	 */
+	public boolean await(K key) throws Exception {
+		Flight<V> running = flights.get(key);
+		if (null != running && running.await(timeout)) {
+			if (null != running.error) {
+				throw running.error;
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Mark a computation as completed. This has no effect on a computation which was taken over by another leader.
+	 *
+	 * @param flight flight which was returned by {@link #tryLead(Object)}
+	 */
+	public void complete(Flight<V> flight) {
+		finish(flight);
+	}
+
+	/**
+	 * Mark a computation as failed, the exception is thrown to the waiting callers. This has no effect on a
+	 * computation which was taken over by another leader.
+	 *
+	 * @param flight flight which was returned by {@link #tryLead(Object)}
+	 * @param error reason for the failure
+	 */
+	public void fail(Flight<V> flight, Exception error) {
+		flight.error = error;
+		finish(flight);
+	}
+
+	/**
+	 * Number of computations which are running.
+	 *
+	 * @return number of running computations
+	 */
+	public int size() {
+		return flights.size();
+	}
+
+	private boolean start(K key, Flight<V> flight) {
+		if (flights.size() > PURGE_THRESHOLD) {
+			purge();
+		}
+		Flight<V> running = flights.putIfAbsent(key, flight);
+		if (null == running) {
+			return true;
+		}
+		// take over when the previous leader did not finish in time (probably failed without notification)
+		return running.isExpired(timeout) && flights.replace(key, running, flight);
+	}
+
+	private void finish(Flight<V> flight) {
+		flights.remove(flight.key, flight);
+		flight.done.countDown();
+	}
+
+	private void purge() {
+		Iterator<Flight<V>> it = flights.values().iterator();
+		while (it.hasNext()) {
+			if (it.next().isExpired(timeout)) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Running computation, the leader uses this as handle to finish the computation.
+	 *
+	 * @param <V> value type
+	 * @author Joachim Van der Auwera
+	 * @since 1.18.0
+	 */
+	public static final class Flight<V> {
+
+		private final Object key;
+
+		private final long started = System.nanoTime();
+
+		private final CountDownLatch done = new CountDownLatch(1);
+
+		private volatile V value;
+
+		private volatile Exception error;
+
+		private Flight(Object key) {
+			this.key = key;
+		}
+
+		private boolean await(long timeout) {
+			long remaining = timeout - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+			try {
+				return 0 == done.getCount() || (remaining > 0 && done.await(remaining, TimeUnit.MILLISECONDS));
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+
+		private boolean isExpired(long timeout) {
+			return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) >= timeout;
+		}
+	}
+}
@@ -17,6 +17,7 @@ import org.geomajas.plugin.caching.service.CachingSupportService;
 import org.geomajas.plugin.caching.service.CachingSupportServiceContextAdder;
 import org.geomajas.service.pipeline.AbstractPipelineInterceptor;
 import org.geomajas.service.pipeline.PipelineContext;
+import org.geomajas.service.pipeline.PipelineInterceptorErrorHandler;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import com.vividsolutions.jts.geom.Envelope;
@@ -31,7 +32,7 @@ import com.vividsolutions.jts.geom.Envelope;
  */
 @Api(allMethods = true)
 public abstract class AbstractCachingInterceptor<T> extends AbstractPipelineInterceptor<T> implements
-		CachingSupportServiceContextAdder {
+		CachingSupportServiceContextAdder, PipelineInterceptorErrorHandler<T> {
 
 	@Autowired
 	private CachingSupportService cachingSupportService;
@@ -72,4 +73,17 @@ public abstract class AbstractCachingInterceptor<T> extends AbstractPipelineInte
 				envelope);
 	}
 
+	/**
+	 * Release the concurrent requests which are waiting for the containers this request was computing.
+	 *
+	 * @param context pipeline context
+	 * @param response pipeline response
+	 * @param error exception which was thrown
+	 * @since 1.18.0
+	 */
+	@Override
+	public void onError(PipelineContext context, T response, Exception error) {
+		cachingSupportService.failContainers(context, error);
+	}
+
 }
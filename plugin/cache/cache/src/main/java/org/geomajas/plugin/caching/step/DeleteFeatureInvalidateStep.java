@@ -88,7 +88,7 @@ public class DeleteFeatureInvalidateStep implements PipelineStep {
 							Geometry geometry = layer.getFeatureModel().getGeometry(featureObj);
 							if (null != geometry) {
 								recorder.record("layer", "Invalidate geometry for deleted feature");
-								cacheManager.invalidate(layer, geometry.getEnvelopeInternal());
+								cacheManager.invalidate(layer, geometry, null);
 							}
 						}
 					} else {
@@ -12,15 +12,22 @@
 package org.geomajas.plugin.caching.step;
 
 import org.geomajas.global.GeomajasException;
+import org.geomajas.layer.VectorLayer;
 import org.geomajas.layer.pipeline.GetBoundsContainer;
 import org.geomajas.plugin.caching.service.CacheCategory;
 import org.geomajas.service.TestRecorder;
 import org.geomajas.service.pipeline.PipelineCode;
 import org.geomajas.service.pipeline.PipelineContext;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.vividsolutions.jts.geom.Envelope;
+
 /**
  * Interceptor for caching the bounds.
+ * <p/>
+ * The bounds are only indexed when they are expressed in the layer coordinate reference system. Transformed bounds
+ * cannot be compared exactly with the changed geometries, so they are always invalidated when a feature changes.
  *
  * @author Jan De Moerloose
  */
@@ -47,9 +54,15 @@ public class GetBoundsCachingInterceptor extends AbstractSecurityContextCachingI
 	@Override
 	public void afterSteps(PipelineContext context, GetBoundsContainer response) throws GeomajasException {
 		recorder.record(CacheCategory.BOUNDS, "Put item in cache");
+		Envelope indexEnvelope = null;
+		VectorLayer layer = context.getOptional(PipelineCode.LAYER_KEY, VectorLayer.class);
+		CoordinateReferenceSystem crs = context.getOptional(PipelineCode.CRS_KEY, CoordinateReferenceSystem.class);
+		if (null != layer && (null == crs || crs.equals(layer.getCrs()))) {
+			indexEnvelope = response.getEnvelope();
+		}
 		putContainer(context, CacheCategory.BOUNDS, KEYS, CacheStepConstant.CACHE_BOUNDS_KEY,
 				CacheStepConstant.CACHE_BOUNDS_CONTEXT,
-				new BoundsCacheContainer(response.getEnvelope()), response.getEnvelope());
+				new BoundsCacheContainer(response.getEnvelope()), indexEnvelope);
 	}
 
 }
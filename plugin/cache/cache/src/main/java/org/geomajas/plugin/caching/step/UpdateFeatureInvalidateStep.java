@@ -11,7 +11,6 @@
 
 package org.geomajas.plugin.caching.step;
 
-import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import org.geomajas.global.GeomajasException;
 import org.geomajas.layer.VectorLayer;
@@ -63,31 +62,32 @@ public class UpdateFeatureInvalidateStep implements PipelineStep {
 			log.debug("UpdateFeatureInvalidateStep start");
 			VectorLayer layer = context.get(PipelineCode.LAYER_KEY, VectorLayer.class);
 
-			// invalidate the area of the old feature
+			// geometry of the old feature
+			Geometry oldGeometry = null;
 			InternalFeature oldFeature = context.getOptional(PipelineCode.OLD_FEATURE_KEY, InternalFeature.class);
 			if (null != oldFeature) {
 				// get original geometry from storage to assure not changed by transformation and available
 				Object feature = layer.read(oldFeature.getId());
 				context.put(PipelineCode.FEATURE_DATA_OBJECT_KEY, feature); // put in context to prevent getting twice
 				FeatureModel featureModel = layer.getFeatureModel();
-				Geometry oldGeometry = featureModel.getGeometry(feature);
+				oldGeometry = featureModel.getGeometry(feature);
 				if (null != oldGeometry) {
-					// invalidate
 					recorder.record("layer", "Invalidate geometry for old version of feature");
-					Envelope oldEnvelope = oldGeometry.getEnvelopeInternal();
-					log.debug("invalidate old feature area {}", oldEnvelope);
-					cacheManager.invalidate(layer, oldEnvelope);
+					log.debug("invalidate old feature area {}", oldGeometry.getEnvelopeInternal());
 				}
 			}
 
-			// invalidate area for new feature
+			// geometry of the new feature
 			InternalFeature feature = context.get(PipelineCode.FEATURE_KEY, InternalFeature.class);
 			Geometry geometry = feature.getGeometry();
 			if (null != geometry) {
 				recorder.record("layer", "Invalidate geometry for new feature");
-				Envelope envelope = geometry.getEnvelopeInternal();
-				log.debug("invalidate new feature area {}", envelope);
-				cacheManager.invalidate(layer, envelope);
+				log.debug("invalidate new feature area {}", geometry.getEnvelopeInternal());
+			}
+
+			// invalidate the objects which are affected by the change in one pass
+			if (null != oldGeometry || null != geometry) {
+				cacheManager.invalidate(layer, oldGeometry, geometry);
 			}
 		} catch (Throwable t) { //NOPMD
 			// have to prevent caching code from making the pipeline fail, log and discard errors
@@ -0,0 +1,116 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.caching.cache;
+
+import java.io.File;
+
+import org.geomajas.plugin.caching.index.InMemoryIndexService;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link MappedFileCacheService}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class MappedFileCacheServiceTest {
+
+	private static final int SEGMENT_SIZE = 4096;
+
+	private File directory;
+
+	private MappedFileCacheService cache;
+
+	@Before
+	public void setUp() {
+		directory = new File(System.getProperty("java.io.tmpdir"), "geomajas-cache-test-" + System.nanoTime());
+		cache = new MappedFileCacheService(directory, SEGMENT_SIZE, 4 * SEGMENT_SIZE);
+	}
+
+	@After
+	public void tearDown() {
+		cache.drop();
+		Assert.assertFalse(directory.exists());
+	}
+
+	@Test
+	public void testPutGet() {
+		Assert.assertNull(cache.get("a"));
+		cache.put("a", "value a");
+		cache.put("b", new byte[] {1, 2, 3});
+		Assert.assertEquals("value a", cache.get("a"));
+		Assert.assertEquals("value a", cache.get("a", String.class));
+		Assert.assertNull(cache.get("b", String.class));
+		Assert.assertArrayEquals(new byte[] {1, 2, 3}, cache.get("b", byte[].class));
+		cache.put("a", "other");
+		Assert.assertEquals("other", cache.get("a"));
+		cache.remove("a");
+		Assert.assertNull(cache.get("a"));
+		Assert.assertEquals(1, cache.size());
+		cache.clear();
+		Assert.assertNull(cache.get("b"));
+		Assert.assertEquals(0, cache.getSegmentsSize());
+	}
+
+	@Test
+	public void testTooLarge() {
+		cache.put("big", new byte[SEGMENT_SIZE]);
+		Assert.assertNull(cache.get("big"));
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testEviction() {
+		for (int i = 0; i < 100; i++) {
+			cache.put("key" + i, new byte[500]);
+		}
+		Assert.assertTrue(cache.getSegmentsSize() <= 4 * SEGMENT_SIZE);
+		Assert.assertNull(cache.get("key0"));
+		Assert.assertNotNull(cache.get("key99"));
+		Assert.assertTrue(cache.size() < 100);
+	}
+
+	@Test
+	public void testEvictionListener() {
+		InMemoryIndexService index = new InMemoryIndexService();
+		cache.addEvictionListener(index);
+		Assert.assertTrue(cache.isFullyObservable());
+		for (int i = 0; i < 100; i++) {
+			index.put("key" + i, null);
+			cache.put("key" + i, new byte[500]);
+		}
+		index.put("big", null);
+		cache.put("big", new byte[SEGMENT_SIZE]);
+		Assert.assertTrue(cache.size() < 100);
+		Assert.assertEquals(cache.size(), index.size());
+	}
+
+	@Test
+	public void testCompaction() {
+		// four objects fit in a segment
+		for (int i = 0; i < 6; i++) {
+			cache.put("key" + i, new byte[900]);
+		}
+		Assert.assertEquals(2 * SEGMENT_SIZE, cache.getSegmentsSize());
+		// remove most objects from the first segment, the remaining one is moved to the last segment
+		for (int i = 1; i < 4; i++) {
+			cache.remove("key" + i);
+		}
+		Assert.assertEquals(SEGMENT_SIZE, cache.getSegmentsSize());
+		Assert.assertNotNull(cache.get("key0"));
+		Assert.assertNotNull(cache.get("key5"));
+		Assert.assertEquals(3, cache.size());
+	}
+}
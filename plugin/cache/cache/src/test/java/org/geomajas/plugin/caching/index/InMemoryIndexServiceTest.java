@@ -0,0 +1,75 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.caching.index;
+
+import com.vividsolutions.jts.geom.Envelope;
+import org.geomajas.plugin.caching.service.CacheIndexService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Test for {@link InMemoryIndexService}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class InMemoryIndexServiceTest {
+
+	@Test
+	public void testOverlapping() {
+		InMemoryIndexService index = new InMemoryIndexService();
+		index.put("a", new Envelope(0, 10, 0, 10));
+		index.put("b", new Envelope(20, 30, 20, 30));
+		index.put("c", new Envelope(5, 25, 5, 25));
+
+		List<String> keys = index.getOverlappingKeys(new Envelope(1, 2, 1, 2));
+		Assert.assertEquals(1, keys.size());
+		Assert.assertTrue(keys.contains("a"));
+
+		keys = index.getOverlappingKeys(new Envelope(8, 22, 8, 22));
+		Assert.assertEquals(3, keys.size());
+
+		keys = index.getOverlappingKeys(new Envelope(100, 200, 100, 200));
+		Assert.assertTrue(keys.isEmpty());
+	}
+
+	@Test
+	public void testPutReplacesAndRemove() {
+		InMemoryIndexService index = new InMemoryIndexService();
+		index.put("a", new Envelope(0, 10, 0, 10));
+		index.put("a", new Envelope(50, 60, 50, 60));
+		Assert.assertEquals(1, index.size());
+		Assert.assertTrue(index.getOverlappingKeys(new Envelope(1, 2, 1, 2)).isEmpty());
+		Assert.assertEquals(1, index.getOverlappingKeys(new Envelope(55, 56, 55, 56)).size());
+
+		index.remove("a");
+		Assert.assertEquals(0, index.size());
+		Assert.assertTrue(index.getOverlappingKeys(new Envelope(55, 56, 55, 56)).isEmpty());
+	}
+
+	@Test
+	public void testUnboundedAndClear() {
+		InMemoryIndexService index = new InMemoryIndexService();
+		index.put("a", new Envelope(0, 10, 0, 10));
+		index.put("u", null);
+		List<String> keys = index.getOverlappingKeys(new Envelope(100, 200, 100, 200));
+		Assert.assertEquals(1, keys.size());
+		Assert.assertTrue(keys.contains("u"));
+
+		Assert.assertSame(CacheIndexService.ALL_KEYS, index.getOverlappingKeys(null));
+
+		index.clear();
+		Assert.assertEquals(0, index.size());
+		Assert.assertTrue(index.getOverlappingKeys(new Envelope(0, 200, 0, 200)).isEmpty());
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.plugin.caching.invalidation;
+
+import java.util.List;
+
+import org.geomajas.plugin.caching.index.InMemoryIndexService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * Test for {@link BoundsInvalidationPolicy}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class BoundsInvalidationPolicyTest {
+
+	private final GeometryFactory factory = new GeometryFactory();
+
+	private final BoundsInvalidationPolicy policy = new BoundsInvalidationPolicy();
+
+	private InMemoryIndexService index;
+
+	@Before
+	public void init() {
+		index = new InMemoryIndexService();
+		index.put("layer", new Envelope(0, 100, 0, 100));
+		index.put("filtered", new Envelope(60, 80, 60, 80));
+		index.put("empty", null);
+	}
+
+	@Test
+	public void testInteriorChangeKeepsBounds() {
+		List<String> keys = policy.getInvalidatedKeys(index, point(65, 65), point(70, 70));
+		Assert.assertEquals(1, keys.size());
+		Assert.assertTrue(keys.contains("empty"));
+	}
+
+	@Test
+	public void testGrowingBounds() {
+		// new geometry outside all bounds, even the bounds which do not overlap are invalidated
+		List<String> keys = policy.getInvalidatedKeys(index, null, point(200, 200));
+		Assert.assertEquals(3, keys.size());
+	}
+
+	@Test
+	public void testShrinkingBounds() {
+		// deleting a geometry on the edge of the bounds may shrink them
+		List<String> keys = policy.getInvalidatedKeys(index, point(100, 50), null);
+		Assert.assertEquals(2, keys.size());
+		Assert.assertTrue(keys.contains("layer"));
+		Assert.assertTrue(keys.contains("empty"));
+
+		keys = policy.getInvalidatedKeys(index, point(70, 60), null);
+		Assert.assertEquals(2, keys.size());
+		Assert.assertTrue(keys.contains("filtered"));
+		Assert.assertTrue(keys.contains("empty"));
+	}
+
+	private Geometry point(double x, double y) {
+		return factory.createPoint(new Coordinate(x, y));
+	}
+}
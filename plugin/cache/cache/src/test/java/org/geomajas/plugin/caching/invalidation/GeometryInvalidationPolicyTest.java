@@ -0,0 +1,90 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.plugin.caching.invalidation;
+
+import java.util.List;
+
+import org.geomajas.plugin.caching.index.InMemoryIndexService;
+import org.geomajas.plugin.caching.index.NoCacheIndexService;
+import org.geomajas.plugin.caching.service.CacheIndexService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * Test for {@link GeometryInvalidationPolicy}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class GeometryInvalidationPolicyTest {
+
+	private final GeometryFactory factory = new GeometryFactory();
+
+	private final GeometryInvalidationPolicy policy = new GeometryInvalidationPolicy();
+
+	@Test
+	public void testOnlyCrossedTiles() {
+		InMemoryIndexService index = new InMemoryIndexService();
+		// level 1, 2x2 tiles of 10x10
+		index.put("1-0-0", new Envelope(0, 10, 0, 10));
+		index.put("1-1-0", new Envelope(10, 20, 0, 10));
+		index.put("1-0-1", new Envelope(0, 10, 10, 20));
+		index.put("1-1-1", new Envelope(10, 20, 10, 20));
+		// level 0, one tile
+		index.put("0-0-0", new Envelope(0, 20, 0, 20));
+		index.put("unbounded", null);
+
+		// diagonal line, the envelope covers all tiles but the line does not cross the tiles in the corners
+		Geometry line = factory.createLineString(new Coordinate[] {new Coordinate(1, 1), new Coordinate(9, 9)});
+		List<String> keys = policy.getInvalidatedKeys(index, line, null);
+		Assert.assertEquals(3, keys.size());
+		Assert.assertTrue(keys.contains("1-0-0"));
+		Assert.assertTrue(keys.contains("0-0-0"));
+		Assert.assertTrue(keys.contains("unbounded"));
+
+		// L-shaped line, the envelope overlaps tile 1-1-1 but the line does not
+		line = factory.createLineString(new Coordinate[] {new Coordinate(5, 15), new Coordinate(5, 5),
+				new Coordinate(15, 5)});
+		keys = policy.getInvalidatedKeys(index, null, line);
+		Assert.assertEquals(5, keys.size());
+		Assert.assertFalse(keys.contains("1-1-1"));
+	}
+
+	@Test
+	public void testMovedPoint() {
+		InMemoryIndexService index = new InMemoryIndexService();
+		index.put("a", new Envelope(0, 10, 0, 10));
+		index.put("b", new Envelope(10, 20, 0, 10));
+		index.put("c", new Envelope(20, 30, 0, 10));
+		Geometry oldPoint = factory.createPoint(new Coordinate(5, 5));
+		Geometry newPoint = factory.createPoint(new Coordinate(25, 5));
+		List<String> keys = policy.getInvalidatedKeys(index, oldPoint, newPoint);
+		Assert.assertEquals(2, keys.size());
+		Assert.assertTrue(keys.contains("a"));
+		Assert.assertTrue(keys.contains("c"));
+	}
+
+	@Test
+	public void testNoGeometryOrNoIndex() {
+		InMemoryIndexService index = new InMemoryIndexService();
+		index.put("a", new Envelope(0, 10, 0, 10));
+		Assert.assertTrue(policy.getInvalidatedKeys(index, null, null).isEmpty());
+		Geometry point = factory.createPoint(new Coordinate(5, 5));
+		Assert.assertSame(CacheIndexService.ALL_KEYS, policy.getInvalidatedKeys(new NoCacheIndexService(), point,
+				null));
+	}
+}
@@ -48,4 +48,8 @@ public class DummyCacheIndexService implements CacheIndexService {
 		res.addAll(set);
 		return res;
 	}
+
+	public Envelope getEnvelope(String key) {
+		return null;
+	}
 }
@@ -0,0 +1,55 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.caching.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vividsolutions.jts.io.WKTReader;
+
+/**
+ * Test for {@link KeyHasher}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class KeyHasherTest {
+
+	private final WKTReader reader = new WKTReader();
+
+	@Test
+	public void testEmpty() {
+		Assert.assertEquals("00000000000000000000000000000000", new KeyHasher().asHex());
+	}
+
+	@Test
+	public void testValues() {
+		String key = new KeyHasher().putString("layer").putInt(5).putDouble(1.5).asHex();
+		Assert.assertEquals(32, key.length());
+		Assert.assertEquals(key, new KeyHasher().putString("layer").putInt(5).putDouble(1.5).asHex());
+		Assert.assertFalse(key.equals(new KeyHasher().putString("layer").putInt(6).putDouble(1.5).asHex()));
+		// strings are length prefixed, so moving characters between values changes the key
+		Assert.assertFalse(new KeyHasher().putString("ab").putString("c").asHex().equals(
+				new KeyHasher().putString("a").putString("bc").asHex()));
+		Assert.assertFalse(new KeyHasher().putString(null).asHex().equals(new KeyHasher().putString("").asHex()));
+	}
+
+	@Test
+	public void testGeometry() throws Exception {
+		String polygon = "POLYGON((0 0, 10 0, 10 10, 0 10, 0 0), (1 1, 2 1, 2 2, 1 1))";
+		String key = new KeyHasher().putGeometry(reader.read(polygon)).asHex();
+		Assert.assertEquals(key, new KeyHasher().putGeometry(reader.read(polygon)).asHex());
+		Assert.assertFalse(key.equals(new KeyHasher().putGeometry(
+				reader.read("POLYGON((0 0, 10 0, 10 10, 0 10, 0 0), (1 1, 3 1, 2 2, 1 1))")).asHex()));
+		Assert.assertFalse(new KeyHasher().putGeometry(reader.read("LINESTRING(0 0, 1 1)")).asHex().equals(
+				new KeyHasher().putGeometry(reader.read("MULTIPOINT((0 0), (1 1))")).asHex()));
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.caching.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link SingleFlight}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class SingleFlightTest {
+
+	private static final int THREADS = 8;
+
+	@Test
+	public void testExecuteCoalesced() throws Exception {
+		final SingleFlight<String, String> singleFlight = new SingleFlight<String, String>(10000);
+		final AtomicInteger calls = new AtomicInteger();
+		final CountDownLatch release = new CountDownLatch(1);
+		final Callable<String> loader = new Callable<String>() {
+
+			public String call() throws Exception {
+				calls.incrementAndGet();
+				release.await();
+				return "value";
+			}
+		};
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (int i = 0; i < THREADS; i++) {
+				results.add(executor.submit(new Callable<String>() {
+
+					public String call() throws Exception {
+						return singleFlight.execute("key", loader);
+					}
+				}));
+			}
+			Thread.sleep(200); // let all threads start waiting
+			release.countDown();
+			for (Future<String> result : results) {
+				Assert.assertEquals("value", result.get(5, TimeUnit.SECONDS));
+			}
+			Assert.assertEquals(1, calls.get());
+			Assert.assertEquals(0, singleFlight.size());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testFailure() throws Exception {
+		final SingleFlight<String, String> singleFlight = new SingleFlight<String, String>(10000);
+		final SingleFlight.Flight<String> flight = singleFlight.tryLead("key");
+		Assert.assertNotNull(flight);
+		Assert.assertNull(singleFlight.tryLead("key"));
+		final IOException failure = new IOException("oops");
+		new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100); // assure the failure happens while waiting
+				} catch (InterruptedException ie) {
+					// continue
+				}
+				singleFlight.fail(flight, failure);
+			}
+		}.start();
+		try {
+			singleFlight.await("key");
+			Assert.fail("failure should be propagated");
+		} catch (IOException ioe) {
+			Assert.assertSame(failure, ioe);
+		}
+		SingleFlight.Flight<String> next = singleFlight.tryLead("key");
+		Assert.assertNotNull(next);
+		singleFlight.complete(next);
+		Assert.assertFalse(singleFlight.await("key"));
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		SingleFlight<String, String> singleFlight = new SingleFlight<String, String>(100);
+		Assert.assertNotNull(singleFlight.tryLead("key"));
+		// leader never finishes
+		long start = System.currentTimeMillis();
+		Assert.assertFalse(singleFlight.await("key"));
+		Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+		// expired leader is replaced
+		SingleFlight.Flight<String> flight = singleFlight.tryLead("key");
+		Assert.assertNotNull(flight);
+		singleFlight.complete(flight);
+		Assert.assertEquals(0, singleFlight.size());
+	}
+
+	@Test
+	public void testStaleLeader() throws Exception {
+		final SingleFlight<String, String> singleFlight = new SingleFlight<String, String>(100);
+		SingleFlight.Flight<String> stale = singleFlight.tryLead("key");
+		Assert.assertNotNull(stale);
+		Thread.sleep(150);
+		// the first leader timed out, a new leader takes over
+		final SingleFlight.Flight<String> flight = singleFlight.tryLead("key");
+		Assert.assertNotNull(flight);
+		// the stale leader finishes late, this should not finish the computation of the new leader
+		singleFlight.fail(stale, new IOException("stale"));
+		singleFlight.complete(stale);
+		Assert.assertEquals(1, singleFlight.size());
+		Assert.assertNull(singleFlight.tryLead("key"));
+		new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(20); // assure the completion happens while waiting
+				} catch (InterruptedException ie) {
+					// continue
+				}
+				singleFlight.complete(flight);
+			}
+		}.start();
+		Assert.assertTrue(singleFlight.await("key")); // no exception from the stale leader
+		Assert.assertEquals(0, singleFlight.size());
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.layer.common.proxy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream which keeps a copy of the data which is read. When the end of the stream is reached the data is passed
+ * to {@link #complete(byte[])}, for example to put it in a cache.
+ * <p/>
+ * When the stream is closed before the end is reached (for example because the client aborted the request) or when the
+ * data is larger than the maximum size, the copy is abandoned and {@link #complete(byte[])} is not called.
+ * <p/>
+ * {@link #done()} is called once, as soon as the copy is either completed or abandoned.
+ *
+ * @author Joachim Van der Auwera
+ */
+abstract class CachingInputStream extends FilterInputStream {
+
+	private static final int DEFAULT_SIZE = 8192;
+
+	private static final int SKIP_BUFFER_SIZE = 4096;
+
+	private final int maxSize;
+
+	private ByteArrayOutputStream copy;
+
+	private boolean completed;
+
+	/**
+	 * Create a stream which copies the data.
+	 *
+	 * @param in stream to read from
+	 * @param expectedSize expected size, negative when unknown
+	 * @param maxSize maximum size of the copy
+	 */
+	protected CachingInputStream(InputStream in, long expectedSize, int maxSize) {
+		super(in);
+		this.maxSize = maxSize;
+		if (expectedSize <= maxSize) {
+			copy = new ByteArrayOutputStream(expectedSize >= 0 ? (int) expectedSize : DEFAULT_SIZE);
+		}
+	}
+
+	/**
+	 * Called with the full content when the end of the stream was reached.
+	 *
+	 * @param data content of the stream
+	 */
+	protected abstract void complete(byte[] data);
+
+	/**
+	 * Called once when the copy was completed or abandoned, either because the end of the stream was reached, the
+	 * data is too large or the stream was closed.
+	 */
+	protected void done() {
+		// nothing to do by default
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = super.read();
+		if (b < 0) {
+			end();
+		} else if (null != copy) {
+			copy.write(b);
+			checkSize();
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int count = super.read(b, off, len);
+		if (count < 0) {
+			end();
+		} else if (null != copy) {
+			copy.write(b, off, count);
+			checkSize();
+		}
+		return count;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		// read instead of skipping to keep the copy complete
+		byte[] buffer = new byte[(int) Math.min(SKIP_BUFFER_SIZE, Math.max(n, 0))];
+		long skipped = 0;
+		while (skipped < n) {
+			int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+			if (count < 0) {
+				break;
+			}
+			skipped += count;
+		}
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+		// mark not supported
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		throw new IOException("mark/reset not supported");
+	}
+
+	@Override
+	public void close() throws IOException {
+		// don't read the remainder from the server, the copy is incomplete so it is not cached
+		try {
+			super.close();
+		} finally {
+			copy = null;
+			finish();
+		}
+	}
+
+	private void checkSize() {
+		if (copy.size() > maxSize) {
+			copy = null;
+			finish();
+		}
+	}
+
+	private void end() {
+		if (!completed) {
+			if (null != copy) {
+				byte[] data = copy.toByteArray();
+				copy = null;
+				complete(data);
+			}
+			finish();
+		}
+	}
+
+	private void finish() {
+		if (!completed) {
+			completed = true;
+			done();
+		}
+	}
+}
@@ -12,14 +12,17 @@
 package org.geomajas.layer.common.proxy;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.geomajas.geometry.Bbox;
 import org.geomajas.layer.RasterLayer;
 import org.geomajas.plugin.caching.service.CacheCategory;
 import org.geomajas.plugin.caching.service.CacheManagerService;
+import org.geomajas.plugin.caching.service.SingleFlight;
 import org.geomajas.service.ConfigurationService;
 import org.geomajas.service.TestRecorder;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -46,6 +49,10 @@ public class CachingLayerHttpService extends LayerHttpServiceImpl {
 	/** {@link TestRecorder} message when getting image from cache. */
 	public static final String TEST_RECORDER_GET_FROM_CACHE = "Get from cache.";
 
+	private static final int MAX_CACHEABLE_SIZE = 10 * 1024 * 1024;
+
+	private static final long COALESCING_TIMEOUT = 30000;
+
 	@Autowired
 	private ConfigurationService configurationService;
 
@@ -58,8 +65,34 @@ public class CachingLayerHttpService extends LayerHttpServiceImpl {
 	@Autowired(required = false)
 	private LayerHttpServiceInterceptors interceptors;
 
+	private int maxCacheableSize = MAX_CACHEABLE_SIZE;
+
+	private SingleFlight<String, Object> singleFlight = new SingleFlight<String, Object>(COALESCING_TIMEOUT);
+
+	/**
+	 * Set the maximum size of a response which is put in the cache. Larger responses are streamed without caching.
+	 *
+	 * @param maxCacheableSize maximum size in bytes
+	 */
+	public void setMaxCacheableSize(int maxCacheableSize) {
+		this.maxCacheableSize = maxCacheableSize;
+	}
+
+	/**
+	 * Set the maximum time to wait for a concurrent request which is fetching the same URL.
+	 *
+	 * @param coalescingTimeout timeout in milliseconds
+	 */
+	public void setCoalescingTimeout(long coalescingTimeout) {
+		singleFlight = new SingleFlight<String, Object>(coalescingTimeout);
+	}
+
 	/**
 	 * Get the contents from the request URL.
+	 * <p/>
+	 * When the layer uses the cache and the content is not cached yet, the content is streamed from the server and put
+	 * in the cache when the stream has been read completely. Only successful responses are cached. Concurrent requests
+	 * for the same URL wait for the first one to put the content in the cache instead of fetching it again.
 	 *
 	 * @param url URL to get the response from
 	 * @param layer the raster layer
@@ -71,26 +104,79 @@ public class CachingLayerHttpService extends LayerHttpServiceImpl {
 			ProxyLayerSupport proxyLayer = (ProxyLayerSupport) layer;
 			if (proxyLayer.isUseCache() && null != cacheManagerService) {
 				Object cachedObject = cacheManagerService.get(proxyLayer, CacheCategory.RASTER, url);
+				if (null == cachedObject) {
+					String flightKey = proxyLayer.getId() + "/" + url;
+					SingleFlight.Flight<Object> flight = singleFlight.tryLead(flightKey);
+					if (null != flight) {
+						testRecorder.record(TEST_RECORDER_GROUP, TEST_RECORDER_PUT_IN_CACHE);
+						return getCachingStream(url, proxyLayer, flight);
+					}
+					// also read the cache after a timeout, the content may have been put in the meantime
+					await(flightKey);
+					cachedObject = cacheManagerService.get(proxyLayer, CacheCategory.RASTER, url);
+				}
 				if (null != cachedObject) {
 					testRecorder.record(TEST_RECORDER_GROUP, TEST_RECORDER_GET_FROM_CACHE);
 					return new ByteArrayInputStream((byte[]) cachedObject);
-				} else {
-					testRecorder.record(TEST_RECORDER_GROUP, TEST_RECORDER_PUT_IN_CACHE);
-					InputStream stream = super.getStream(url, proxyLayer);
-					ByteArrayOutputStream os = new ByteArrayOutputStream();
-					int b;
-					while ((b = stream.read()) >= 0) {
-						os.write(b);
-					}
-					cacheManagerService.put(proxyLayer, CacheCategory.RASTER, url, os.toByteArray(),
-							getLayerEnvelope(proxyLayer));
-					return new ByteArrayInputStream((byte[]) os.toByteArray());
 				}
 			}
 		}
 		return super.getStream(url, layer);
 	}
 
+	/**
+	 * Fetch the content and put it in the cache while it is being read. The coalesced requests are released as soon as
+	 * the content is in the cache, or when the stream is closed or too large to cache.
+	 */
+	private InputStream getCachingStream(final String url, final ProxyLayerSupport layer,
+			final SingleFlight.Flight<Object> flight) throws IOException {
+		InputStream stream;
+		long length;
+		try {
+			HttpResponse response = execute(url, layer);
+			HttpEntity entity = response.getEntity();
+			stream = entity.getContent();
+			length = entity.getContentLength();
+			if (HttpStatus.SC_OK != response.getStatusLine().getStatusCode() || length > maxCacheableSize) {
+				singleFlight.complete(flight);
+				return stream;
+			}
+		} catch (IOException ioe) {
+			singleFlight.fail(flight, ioe);
+			throw ioe;
+		} catch (RuntimeException re) {
+			singleFlight.fail(flight, re);
+			throw re;
+		}
+		return new CachingInputStream(stream, length, maxCacheableSize) {
+
+			@Override
+			protected void complete(byte[] data) {
+				cacheManagerService.put(layer, CacheCategory.RASTER, url, data, getLayerEnvelope(layer));
+			}
+
+			@Override
+			protected void done() {
+				singleFlight.complete(flight);
+			}
+		};
+	}
+
+	/**
+	 * Wait for a concurrent request for the same content.
+	 *
+	 * @throws IOException the concurrent request failed
+	 */
+	private void await(String flightKey) throws IOException {
+		try {
+			singleFlight.await(flightKey);
+		} catch (IOException ioe) {
+			throw ioe;
+		} catch (Exception e) { // NOSONAR
+			throw new IOException(e);
+		}
+	}
+
 	/**
 	 * Return the max bounds of the layer as envelope.
 	 * 
@@ -15,9 +15,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.HttpResponse;
@@ -25,8 +27,15 @@ import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.Credentials;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.impl.client.AbstractHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
 import org.apache.http.impl.client.SystemDefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
 import org.apache.http.params.BasicHttpParams;
 import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
@@ -40,6 +49,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 /**
  * Implementation of {@link LayerHttpService}. Non-caching implementation, see {@link CachingLayerHttpService} for the
  * component bean.
+ * <p/>
+ * The default client uses a pool of persistent connections. The pool limits, timeouts, keep-alive and retry count can
+ * be configured using the setters. These only affect the default client, a client which is set using
+ * {@link #setClient(AbstractHttpClient)} should be configured by its creator.
  * 
  * @author Joachim Van der Auwera
  * @author Kristof Heirwegh
@@ -57,16 +70,123 @@ public class LayerHttpServiceImpl implements LayerHttpService {
 
 	private static final int TIMEOUT = 5000;
 
+	private static final int SOCKET_TIMEOUT = 30000;
+
+	private static final long CONNECTION_MANAGER_TIMEOUT = 5000;
+
+	private static final int MAX_CONNECTIONS = 200;
+
+	private static final int MAX_CONNECTIONS_PER_ROUTE = 20;
+
+	private static final long KEEP_ALIVE = 30000;
+
+	private static final int RETRY_COUNT = 1;
+
 	@Autowired(required = false)
 	private LayerHttpServiceInterceptors interceptors;
 
 	private AbstractHttpClient client;
 
+	private long keepAlive = KEEP_ALIVE;
+
 	public LayerHttpServiceImpl() {
 		// Create a HTTP client object, which will initiate the connection:
 		final HttpParams httpParams = new BasicHttpParams();
 		HttpConnectionParams.setConnectionTimeout(httpParams, TIMEOUT);
-		setClient(new SystemDefaultHttpClient(httpParams));
+		HttpConnectionParams.setSoTimeout(httpParams, SOCKET_TIMEOUT);
+		// do not wait forever for a connection from the pool
+		httpParams.setLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, CONNECTION_MANAGER_TIMEOUT);
+		AbstractHttpClient pooledClient = new PooledHttpClient(httpParams);
+		pooledClient.setHttpRequestRetryHandler(new DefaultHttpRequestRetryHandler(RETRY_COUNT, false));
+		pooledClient.setKeepAliveStrategy(new KeepAliveStrategy());
+		setClient(pooledClient);
+	}
+
+	/**
+	 * Set the maximum number of pooled connections.
+	 *
+	 * @param maxConnections maximum number of connections
+	 */
+	public void setMaxConnections(int maxConnections) {
+		PoolingClientConnectionManager pool = getPool();
+		if (null != pool) {
+			pool.setMaxTotal(maxConnections);
+		}
+	}
+
+	/**
+	 * Set the maximum number of pooled connections per route (host), unless overwritten for the host.
+	 *
+	 * @param maxConnectionsPerRoute maximum number of connections per route
+	 */
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		PoolingClientConnectionManager pool = getPool();
+		if (null != pool) {
+			pool.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+		}
+	}
+
+	/**
+	 * Set the maximum number of pooled connections for specific hosts.
+	 *
+	 * @param maxConnectionsPerHost maximum number of connections indexed by base URL, for example
+	 *        "http://host:8080"
+	 * @throws IOException invalid URL
+	 */
+	public void setMaxConnectionsPerHost(Map<String, Integer> maxConnectionsPerHost) throws IOException {
+		PoolingClientConnectionManager pool = getPool();
+		if (null != pool) {
+			for (Map.Entry<String, Integer> entry : maxConnectionsPerHost.entrySet()) {
+				URL url = new URL(entry.getKey());
+				HttpHost host = new HttpHost(url.getHost(), url.getPort(), url.getProtocol());
+				pool.setMaxPerRoute(new HttpRoute(host), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Set the timeout for establishing a connection.
+	 *
+	 * @param connectionTimeout timeout in milliseconds
+	 */
+	public void setConnectionTimeout(int connectionTimeout) {
+		HttpConnectionParams.setConnectionTimeout(client.getParams(), connectionTimeout);
+	}
+
+	/**
+	 * Set the timeout for getting a connection from the pool when all connections are in use.
+	 *
+	 * @param connectionManagerTimeout timeout in milliseconds
+	 */
+	public void setConnectionManagerTimeout(long connectionManagerTimeout) {
+		client.getParams().setLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, connectionManagerTimeout);
+	}
+
+	/**
+	 * Set the timeout for waiting on data (read timeout).
+	 *
+	 * @param socketTimeout timeout in milliseconds
+	 */
+	public void setSocketTimeout(int socketTimeout) {
+		HttpConnectionParams.setSoTimeout(client.getParams(), socketTimeout);
+	}
+
+	/**
+	 * Set the maximum time an idle connection is kept alive, unless the server specifies a shorter time.
+	 *
+	 * @param keepAlive keep-alive time in milliseconds
+	 */
+	public void setKeepAlive(long keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	/**
+	 * Set the number of times a request is retried when an I/O error occurs before the request was sent.
+	 *
+	 * @param retryCount number of retries
+	 */
+	public void setRetryCount(int retryCount) {
+		client.setHttpRequestRetryHandler(new DefaultHttpRequestRetryHandler(retryCount, false));
 	}
 
 	public String addCredentialsToUrl(final String url, final ProxyAuthentication authentication) {
@@ -90,6 +210,18 @@ public class LayerHttpServiceImpl implements LayerHttpService {
 	}
 
 	public InputStream getStream(String baseUrl, RasterLayer layer) throws IOException {
+		return execute(baseUrl, layer).getEntity().getContent();
+	}
+
+	/**
+	 * Execute the GET request for the URL.
+	 *
+	 * @param baseUrl URL to get the response from
+	 * @param layer the raster layer
+	 * @return response, the entity content should be closed to release the connection
+	 * @throws IOException cannot execute request
+	 */
+	protected HttpResponse execute(String baseUrl, RasterLayer layer) throws IOException {
 		String url = baseUrl;
 		HttpContext context = null;
 		if (layer instanceof ProxyLayerSupport) {
@@ -123,8 +255,7 @@ public class LayerHttpServiceImpl implements LayerHttpService {
 		HttpResponse response = client.execute(get, context);
 		log.debug("Response: {} - {}", response.getStatusLine().getStatusCode(), response.getStatusLine()
 				.getReasonPhrase());
-
-		return response.getEntity().getContent();
+		return response;
 	}
 
 	@Override
@@ -140,6 +271,50 @@ public class LayerHttpServiceImpl implements LayerHttpService {
 		return client;
 	}
 
+	private PoolingClientConnectionManager getPool() {
+		ClientConnectionManager connectionManager = client.getConnectionManager();
+		if (connectionManager instanceof PoolingClientConnectionManager) {
+			return (PoolingClientConnectionManager) connectionManager;
+		}
+		return null;
+	}
+
+	/**
+	 * Client which uses the system properties (for example for proxy settings), but with a connection pool which is
+	 * sized for concurrent use.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static class PooledHttpClient extends SystemDefaultHttpClient {
+
+		public PooledHttpClient(HttpParams params) {
+			super(params);
+		}
+
+		@Override
+		protected ClientConnectionManager createClientConnectionManager() {
+			PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager(
+					SchemeRegistryFactory.createSystemDefault());
+			connectionManager.setMaxTotal(MAX_CONNECTIONS);
+			connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+			return connectionManager;
+		}
+	}
+
+	/**
+	 * Keep connections alive as long as the server allows, limited to the configured keep-alive time.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private class KeepAliveStrategy extends DefaultConnectionKeepAliveStrategy {
+
+		@Override
+		public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+			long duration = super.getKeepAliveDuration(response, context);
+			return duration > 0 && duration < keepAlive ? duration : keepAlive;
+		}
+	}
+
 	/**
 	 * This interceptor will call the autowired interceptor(s) that apply to the current layer.
 	 * 
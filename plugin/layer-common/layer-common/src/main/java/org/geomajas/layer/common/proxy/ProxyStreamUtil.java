@@ -0,0 +1,50 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.layer.common.proxy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.geomajas.annotation.Api;
+
+/**
+ * Stream utility for the proxy controllers of the raster layers.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+public final class ProxyStreamUtil {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private ProxyStreamUtil() {
+		// do not allow instantiation.
+	}
+
+	/**
+	 * Copy a stream, for example a proxied response, to the response stream. The streams are not closed.
+	 *
+	 * @param in stream to copy
+	 * @param out response stream
+	 * @throws IOException copy failed
+	 */
+	public static void copy(InputStream in, OutputStream out) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int count;
+		while ((count = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, count);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.layer.common.proxy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link CachingInputStream}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class CachingInputStreamTest {
+
+	private final List<byte[]> completed = new ArrayList<byte[]>();
+
+	private int done;
+
+	@Test
+	public void testReadAll() throws Exception {
+		byte[] data = data(20000);
+		InputStream in = stream(data, data.length, 100000);
+		byte[] read = readAll(in);
+		Assert.assertEquals(1, done); // released at the end of the stream, before closing
+		in.close();
+		Assert.assertEquals(1, done);
+		Assert.assertTrue(Arrays.equals(data, read));
+		Assert.assertEquals(1, completed.size());
+		Assert.assertTrue(Arrays.equals(data, completed.get(0)));
+	}
+
+	@Test
+	public void testCloseEarly() throws Exception {
+		byte[] data = data(20000);
+		InputStream in = stream(data, -1, 100000);
+		Assert.assertEquals(data[0], (byte) in.read());
+		Assert.assertEquals(100, in.skip(100));
+		Assert.assertEquals(0, done);
+		in.close();
+		Assert.assertEquals(1, done);
+		Assert.assertTrue(completed.isEmpty()); // incomplete data is not cached
+	}
+
+	@Test
+	public void testTooLarge() throws Exception {
+		byte[] data = data(20000);
+		InputStream in = stream(data, -1, 1000);
+		Assert.assertEquals(data[0], (byte) in.read());
+		Assert.assertEquals(2000, in.skip(2000));
+		Assert.assertEquals(1, done); // released as soon as the data is too large
+		byte[] read = readAll(in);
+		in.close();
+		Assert.assertEquals(1, done);
+		Assert.assertTrue(Arrays.equals(Arrays.copyOfRange(data, 2001, data.length), read));
+		Assert.assertTrue(completed.isEmpty());
+	}
+
+	private byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1000];
+		int count;
+		while ((count = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, count);
+		}
+		return out.toByteArray();
+	}
+
+	private byte[] data(int size) {
+		byte[] data = new byte[size];
+		for (int i = 0; i < size; i++) {
+			data[i] = (byte) i;
+		}
+		return data;
+	}
+
+	private InputStream stream(byte[] data, long expectedSize, int maxSize) {
+		return new CachingInputStream(new ByteArrayInputStream(data), expectedSize, maxSize) {
+
+			@Override
+			protected void complete(byte[] data) {
+				completed.add(data);
+			}
+
+			@Override
+			protected void done() {
+				done++;
+			}
+		};
+	}
+}
@@ -26,6 +26,7 @@ import org.geomajas.configuration.VectorLayerInfo;
 import org.geomajas.global.ExceptionCode;
 import org.geomajas.layer.LayerException;
 import org.geomajas.layer.VectorLayer;
+import org.geomajas.layer.VectorLayerPagingSupport;
 import org.geomajas.layer.feature.Attribute;
 import org.geomajas.layer.feature.FeatureModel;
 import org.geomajas.layer.shapeinmem.FeatureSourceRetriever;
@@ -35,6 +36,7 @@ import org.geomajas.service.GeoService;
 import org.geotools.data.DataStore;
 import org.geotools.data.FeatureSource;
 import org.geotools.data.FeatureStore;
+import org.geotools.data.Query;
 import org.geotools.data.shapefile.ShapefileDataStoreFactory;
 import org.geotools.data.simple.SimpleFeatureSource;
 import org.geotools.data.simple.SimpleFeatureStore;
@@ -65,7 +67,7 @@ import com.vividsolutions.jts.geom.Envelope;
  * @since 1.7.1
  */
 @Api
-public class GeoToolsLayer extends FeatureSourceRetriever implements VectorLayer {
+public class GeoToolsLayer extends FeatureSourceRetriever implements VectorLayer, VectorLayerPagingSupport {
 
 	private final Logger log = LoggerFactory.getLogger(GeoToolsLayer.class);
 
@@ -450,7 +452,8 @@ public class GeoToolsLayer extends FeatureSourceRetriever implements VectorLayer
 	/**
 	 * {@inheritDoc}
 	 * 
-	 * This implementation does not support the 'offset' and 'maxResultSize' parameters.
+	 * The 'offset' and 'maxResultSize' parameters are passed to the data store in the query. When the data store
+	 * cannot apply the offset, the features before the offset are skipped while reading.
 	 */
 	@Transactional(readOnly = true)
 	public Iterator<?> getElements(Filter filter, int offset, int maxResultSize) throws LayerException {
@@ -460,15 +463,43 @@ public class GeoToolsLayer extends FeatureSourceRetriever implements VectorLayer
 				SimpleFeatureStore store = (SimpleFeatureStore) source;
 				transactionSynchronization.synchTransaction(store);
 			}
-			FeatureCollection<SimpleFeatureType, SimpleFeature> fc = source.getFeatures(filter);
+			FeatureCollection<SimpleFeatureType, SimpleFeature> fc;
+			int skip = 0;
+			if (offset > 0 || maxResultSize > 0) {
+				Query query = new Query(source.getSchema().getTypeName(), filter);
+				if (maxResultSize > 0) {
+					query.setMaxFeatures(offset + maxResultSize);
+				}
+				if (offset > 0) {
+					if (source.getQueryCapabilities().isOffsetSupported()) {
+						query.setStartIndex(offset);
+						if (maxResultSize > 0) {
+							query.setMaxFeatures(maxResultSize);
+						}
+					} else {
+						skip = offset;
+					}
+				}
+				fc = source.getFeatures(query);
+			} else {
+				fc = source.getFeatures(filter);
+			}
 			FeatureIterator<SimpleFeature> it = fc.features();
 			transactionSynchronization.addIterator(it);
-			return new JavaIterator(it);
+			for (int i = 0; i < skip && it.hasNext(); i++) {
+				it.next();
+			}
+			return new JavaIterator(it, maxResultSize);
 		} catch (Throwable t) { // NOSONAR avoid errors (like NPE) as well
 			throw new LayerException(t, ExceptionCode.UNEXPECTED_PROBLEM);
 		}
 	}
 
+	@Override
+	public boolean isPagingSupported() {
+		return true;
+	}
+
 	@Override
 	public FeatureModel getFeatureModel() {
 		if (!featureModelUsable) {
@@ -492,17 +523,29 @@ public class GeoToolsLayer extends FeatureSourceRetriever implements VectorLayer
 
 		private final FeatureIterator<SimpleFeature> delegate;
 
-		public JavaIterator(FeatureIterator<SimpleFeature> delegate) {
+		private int remaining;
+
+		/**
+		 * Create an iterator.
+		 *
+		 * @param delegate feature iterator
+		 * @param maxResultSize maximum number of features to return, zero for unlimited
+		 */
+		public JavaIterator(FeatureIterator<SimpleFeature> delegate, int maxResultSize) {
 			this.delegate = delegate;
+			remaining = maxResultSize > 0 ? maxResultSize : -1;
 		}
 
 		@Override
 		public boolean hasNext() {
-			return delegate.hasNext();
+			return remaining != 0 && delegate.hasNext();
 		}
 
 		@Override
 		public SimpleFeature next() {
+			if (remaining > 0) {
+				remaining--;
+			}
 			return delegate.next();
 		}
 
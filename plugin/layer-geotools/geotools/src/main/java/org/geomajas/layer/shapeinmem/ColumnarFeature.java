@@ -0,0 +1,76 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.layer.shapeinmem;
+
+/**
+ * Reference to a feature in a {@link ColumnarFeatureStore}. The values are only read from the store when requested.
+ *
+ * @author Joachim Van der Auwera
+ */
+final class ColumnarFeature {
+
+	private final ColumnarFeatureStore store;
+
+	private final int row;
+
+	/**
+	 * Create a reference to a row in the store.
+	 *
+	 * @param store feature store
+	 * @param row row
+	 */
+	ColumnarFeature(ColumnarFeatureStore store, int row) {
+		this.store = store;
+		this.row = row;
+	}
+
+	/**
+	 * Get the store which contains the feature.
+	 *
+	 * @return feature store
+	 */
+	ColumnarFeatureStore getStore() {
+		return store;
+	}
+
+	/**
+	 * Get the row of the feature in the store.
+	 *
+	 * @return row
+	 */
+	int getRow() {
+		return row;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof ColumnarFeature)) {
+			return false;
+		}
+		ColumnarFeature other = (ColumnarFeature) o;
+		return store == other.store && row == other.row;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * System.identityHashCode(store) + row;
+	}
+
+	@Override
+	public String toString() {
+		return "ColumnarFeature{" + store.getId(row) + "}";
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.layer.shapeinmem;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.geomajas.configuration.AbstractAttributeInfo;
+import org.geomajas.configuration.VectorLayerInfo;
+import org.geomajas.global.ExceptionCode;
+import org.geomajas.global.GeomajasException;
+import org.geomajas.layer.LayerException;
+import org.geomajas.layer.LayerType;
+import org.geomajas.layer.feature.Attribute;
+import org.geomajas.layer.feature.FeatureModel;
+import org.geomajas.service.DtoConverterService;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.MultiLineString;
+import com.vividsolutions.jts.geom.MultiPoint;
+import com.vividsolutions.jts.geom.MultiPolygon;
+
+/**
+ * Read-only feature model for the features of a {@link ColumnarShapeInMemLayer}.
+ * <p/>
+ * The attribute values are read directly from the columns of the {@link ColumnarFeatureStore}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class ColumnarFeatureModel implements FeatureModel {
+
+	private final ColumnarFeatureStore store;
+
+	private final String geometryAttributeName;
+
+	private final int srid;
+
+	private final DtoConverterService converterService;
+
+	private VectorLayerInfo vectorLayerInfo;
+
+	/**
+	 * Create a feature model for the features in a store.
+	 *
+	 * @param store feature store
+	 * @param geometryAttributeName name of the geometry attribute
+	 * @param srid srid
+	 * @param converterService converter service
+	 */
+	ColumnarFeatureModel(ColumnarFeatureStore store, String geometryAttributeName, int srid,
+			DtoConverterService converterService) {
+		this.store = store;
+		this.geometryAttributeName = geometryAttributeName;
+		this.srid = srid;
+		this.converterService = converterService;
+	}
+
+	@Override
+	public void setLayerInfo(VectorLayerInfo vectorLayerInfo) throws LayerException {
+		this.vectorLayerInfo = vectorLayerInfo;
+	}
+
+	@Override
+	public Attribute getAttribute(Object feature, String name) throws LayerException {
+		AbstractAttributeInfo attributeInfo = getAttributeInfoMap().get(name);
+		if (null == attributeInfo || !store.hasAttribute(name)) {
+			throw new LayerException(ExceptionCode.ATTRIBUTE_UNKNOWN, name, getAttributeInfoMap().keySet());
+		}
+		try {
+			return converterService.toDto(store.getAttribute(asRow(feature), name), attributeInfo);
+		} catch (GeomajasException e) {
+			throw new LayerException(e);
+		}
+	}
+
+	@Override
+	public Map<String, Attribute> getAttributes(Object feature) throws LayerException {
+		int row = asRow(feature);
+		Map<String, AbstractAttributeInfo> attributeInfoMap = getAttributeInfoMap();
+		Map<String, Attribute> attribs = new HashMap<String, Attribute>(attributeInfoMap.size() * 4 / 3 + 1);
+		for (Map.Entry<String, AbstractAttributeInfo> entry : attributeInfoMap.entrySet()) {
+			String name = entry.getKey();
+			try {
+				attribs.put(name, converterService.toDto(store.getAttribute(row, name), entry.getValue()));
+			} catch (GeomajasException e) {
+				throw new LayerException(e);
+			}
+		}
+		return attribs;
+	}
+
+	@Override
+	public String getId(Object feature) throws LayerException {
+		return store.getId(asRow(feature));
+	}
+
+	@Override
+	public Geometry getGeometry(Object feature) throws LayerException {
+		Geometry geom = store.getGeometry(asRow(feature));
+		if (null == geom) {
+			return null;
+		}
+		if (geom instanceof MultiLineString && vectorLayerInfo.getLayerType() == LayerType.LINESTRING) {
+			return (Geometry) geom.getGeometryN(0).clone();
+		} else if (geom instanceof MultiPolygon && vectorLayerInfo.getLayerType() == LayerType.POLYGON) {
+			return (Geometry) geom.getGeometryN(0).clone();
+		} else if (geom instanceof MultiPoint && vectorLayerInfo.getLayerType() == LayerType.POINT) {
+			return (Geometry) geom.getGeometryN(0).clone();
+		}
+		return (Geometry) geom.clone();
+	}
+
+	@Override
+	public void setAttributes(Object feature, Map<String, Attribute> attributes) throws LayerException {
+		throw new LayerException(ExceptionCode.CREATE_OR_UPDATE_NOT_IMPLEMENTED, vectorLayerInfo.getFeatureInfo()
+				.getDataSourceName(), getClass().getName());
+	}
+
+	@Override
+	public void setGeometry(Object feature, Geometry geometry) throws LayerException {
+		throw new LayerException(ExceptionCode.CREATE_OR_UPDATE_NOT_IMPLEMENTED, vectorLayerInfo.getFeatureInfo()
+				.getDataSourceName(), getClass().getName());
+	}
+
+	@Override
+	public Object newInstance() throws LayerException {
+		throw new LayerException(ExceptionCode.CREATE_OR_UPDATE_NOT_IMPLEMENTED, vectorLayerInfo.getFeatureInfo()
+				.getDataSourceName(), getClass().getName());
+	}
+
+	@Override
+	public Object newInstance(String id) throws LayerException {
+		throw new LayerException(ExceptionCode.CREATE_OR_UPDATE_NOT_IMPLEMENTED, vectorLayerInfo.getFeatureInfo()
+				.getDataSourceName(), getClass().getName());
+	}
+
+	@Override
+	public int getSrid() throws LayerException {
+		return srid;
+	}
+
+	@Override
+	public String getGeometryAttributeName() throws LayerException {
+		return geometryAttributeName;
+	}
+
+	@Override
+	public boolean canHandle(Object feature) {
+		return feature instanceof ColumnarFeature && ((ColumnarFeature) feature).getStore() == store;
+	}
+
+	private int asRow(Object feature) throws LayerException {
+		if (canHandle(feature)) {
+			return ((ColumnarFeature) feature).getRow();
+		}
+		throw new LayerException(ExceptionCode.INVALID_FEATURE_OBJECT, null == feature ? "null" : feature.getClass()
+				.getName());
+	}
+
+	private Map<String, AbstractAttributeInfo> getAttributeInfoMap() {
+		return vectorLayerInfo.getFeatureInfo().getAttributesMap();
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.layer.shapeinmem;
+
+import org.geotools.factory.Hints;
+import org.geotools.filter.expression.PropertyAccessor;
+import org.geotools.filter.expression.PropertyAccessorFactory;
+
+/**
+ * Property accessor factory which reads the attribute values of a {@link ColumnarFeature} directly from the columns
+ * of its store. This avoids the creation of attribute objects when evaluating filters. The geometry and id are still
+ * handled by the feature model property accessor.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class ColumnarFeaturePropertyAccessorFactory implements PropertyAccessorFactory {
+
+	private static final PropertyAccessor ACCESSOR = new ColumnarFeaturePropertyAccessor();
+
+	public PropertyAccessor createPropertyAccessor(Class type, String xpath, Class target, Hints hints) {
+		if (null != type && ColumnarFeature.class.isAssignableFrom(type)) {
+			return ACCESSOR;
+		}
+		return null;
+	}
+
+	/**
+	 * Property accessor for columnar features.
+	 */
+	static class ColumnarFeaturePropertyAccessor implements PropertyAccessor {
+
+		public boolean canHandle(Object object, String xpath, Class target) {
+			if (!(object instanceof ColumnarFeature)) {
+				return false;
+			}
+			ColumnarFeatureStore store = ((ColumnarFeature) object).getStore();
+			return store.hasAttribute(xpath) && !store.isGeometryAttribute(xpath);
+		}
+
+		public Object get(Object object, String xpath, Class target) throws IllegalArgumentException {
+			ColumnarFeature feature = (ColumnarFeature) object;
+			return feature.getStore().getAttribute(feature.getRow(), xpath);
+		}
+
+		public void set(Object object, String xpath, Object value, Class target) throws IllegalArgumentException {
+			throw new IllegalArgumentException("feature is immutable, only use property access for filtering");
+		}
+	}
+
+}
@@ -0,0 +1,543 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.layer.shapeinmem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.feature.type.GeometryDescriptor;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.impl.PackedCoordinateSequenceFactory;
+
+/**
+ * Column oriented storage for the features of a feature type.
+ * <p/>
+ * Attribute values are stored in primitive arrays (one per attribute), strings are dictionary encoded and the
+ * geometries use packed coordinate sequences (one double array per sequence instead of one object per coordinate).
+ * Features are referenced by row number, values are only boxed when they are requested. The ids are looked up using
+ * an array of rows sorted on id and the geometries are indexed using a {@link ColumnarSpatialIndex}, so there are no
+ * objects per feature apart from the id and the geometry.
+ * <p/>
+ * The store is filled once using {@link #add(SimpleFeature)} followed by {@link #trimToSize()}, it is read-only
+ * afterwards and can then safely be used from multiple threads.
+ *
+ * @author Joachim Van der Auwera
+ */
+final class ColumnarFeatureStore {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final Map<String, Integer> columnIndexes = new HashMap<String, Integer>();
+
+	private final Column[] columns;
+
+	private final int geometryIndex;
+
+	private final GeometryFactory geometryFactory;
+
+	private String[] ids = new String[INITIAL_CAPACITY];
+
+	private Geometry[] geometries = new Geometry[INITIAL_CAPACITY];
+
+	private final Envelope bounds = new Envelope();
+
+	private int[] rowsById;
+
+	private ColumnarSpatialIndex spatialIndex;
+
+	private int size;
+
+	/**
+	 * Create an empty store for the given feature type.
+	 *
+	 * @param featureType feature type
+	 */
+	ColumnarFeatureStore(SimpleFeatureType featureType) {
+		GeometryDescriptor geometryDescriptor = featureType.getGeometryDescriptor();
+		String geometryName = null == geometryDescriptor ? null : geometryDescriptor.getLocalName();
+		int geometryColumn = -1;
+		columns = new Column[featureType.getAttributeCount()];
+		for (int i = 0; i < columns.length; i++) {
+			AttributeDescriptor descriptor = featureType.getDescriptor(i);
+			columnIndexes.put(descriptor.getLocalName(), i);
+			if (descriptor.getLocalName().equals(geometryName)) {
+				geometryColumn = i;
+			} else {
+				columns[i] = createColumn(descriptor.getType().getBinding());
+			}
+		}
+		geometryIndex = geometryColumn;
+		geometryFactory = new GeometryFactory(new PackedCoordinateSequenceFactory(
+				PackedCoordinateSequenceFactory.DOUBLE, 2));
+	}
+
+	/**
+	 * Add a feature to the store.
+	 *
+	 * @param feature feature
+	 */
+	void add(SimpleFeature feature) {
+		if (size == ids.length) {
+			int capacity = size * 2;
+			ids = Arrays.copyOf(ids, capacity);
+			geometries = Arrays.copyOf(geometries, capacity);
+		}
+		ids[size] = feature.getID();
+		for (int i = 0; i < columns.length; i++) {
+			if (i == geometryIndex) {
+				Geometry geometry = (Geometry) feature.getAttribute(i);
+				if (null != geometry) {
+					Geometry packed = geometryFactory.createGeometry(geometry);
+					packed.setSRID(geometry.getSRID());
+					geometries[size] = packed;
+					bounds.expandToInclude(packed.getEnvelopeInternal());
+				}
+			} else {
+				columns[i].add(size, feature.getAttribute(i));
+			}
+		}
+		size++;
+	}
+
+	/**
+	 * Release the unused capacity and build the indexes after all features were added.
+	 */
+	void trimToSize() {
+		ids = Arrays.copyOf(ids, size);
+		geometries = Arrays.copyOf(geometries, size);
+		for (int i = 0; i < columns.length; i++) {
+			if (i != geometryIndex) {
+				columns[i].trimToSize(size);
+			}
+		}
+		Integer[] order = new Integer[size];
+		for (int row = 0; row < size; row++) {
+			order[row] = row;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+
+			public int compare(Integer left, Integer right) {
+				return ids[left].compareTo(ids[right]);
+			}
+		});
+		rowsById = new int[size];
+		for (int i = 0; i < size; i++) {
+			rowsById[i] = order[i];
+		}
+		spatialIndex = new ColumnarSpatialIndex(geometries);
+	}
+
+	/**
+	 * Number of features in the store.
+	 *
+	 * @return number of features
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Get the row for a feature id.
+	 *
+	 * @param id feature id
+	 * @return row or -1 when the feature is not in the store
+	 */
+	int getRow(String id) {
+		int low = 0;
+		int high = rowsById.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int compare = ids[rowsById[middle]].compareTo(id);
+			if (compare < 0) {
+				low = middle + 1;
+			} else if (compare > 0) {
+				high = middle - 1;
+			} else {
+				return rowsById[middle];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Get the rows for which the geometry envelope intersects the given envelope.
+	 *
+	 * @param envelope search envelope
+	 * @return rows in ascending order
+	 */
+	int[] query(Envelope envelope) {
+		return spatialIndex.query(envelope);
+	}
+
+	/**
+	 * Get the feature id for a row.
+	 *
+	 * @param row row
+	 * @return feature id
+	 */
+	String getId(int row) {
+		return ids[row];
+	}
+
+	/**
+	 * Get the geometry for a row. The geometry is shared, it should be cloned before it is modified.
+	 *
+	 * @param row row
+	 * @return geometry, may be null
+	 */
+	Geometry getGeometry(int row) {
+		return geometries[row];
+	}
+
+	/**
+	 * Check whether the feature type has an attribute with the given name.
+	 *
+	 * @param name attribute name
+	 * @return true when the attribute exists
+	 */
+	boolean hasAttribute(String name) {
+		return columnIndexes.containsKey(name);
+	}
+
+	/**
+	 * Check whether the attribute is the geometry attribute.
+	 *
+	 * @param name attribute name
+	 * @return true when the attribute contains the geometries
+	 */
+	boolean isGeometryAttribute(String name) {
+		Integer index = columnIndexes.get(name);
+		return null != index && index == geometryIndex;
+	}
+
+	/**
+	 * Get an attribute value for a row.
+	 *
+	 * @param row row
+	 * @param name attribute name
+	 * @return attribute value, null when the attribute is not known
+	 */
+	Object getAttribute(int row, String name) {
+		Integer index = columnIndexes.get(name);
+		if (null == index) {
+			return null;
+		}
+		if (index == geometryIndex) {
+			return geometries[row];
+		}
+		return columns[index].get(row);
+	}
+
+	/**
+	 * Get the bounds of all geometries in the store.
+	 *
+	 * @return bounds
+	 */
+	Envelope getBounds() {
+		return new Envelope(bounds);
+	}
+
+	private Column createColumn(Class<?> binding) {
+		if (Integer.class.equals(binding) || Short.class.equals(binding) || Byte.class.equals(binding)) {
+			return new IntColumn(binding);
+		} else if (Long.class.equals(binding)) {
+			return new LongColumn();
+		} else if (Double.class.equals(binding) || Float.class.equals(binding)) {
+			return new DoubleColumn(binding);
+		} else if (Boolean.class.equals(binding)) {
+			return new BooleanColumn();
+		} else if (Date.class.equals(binding)) {
+			return new DateColumn();
+		} else if (String.class.equals(binding)) {
+			return new DictionaryColumn();
+		} else {
+			return new ObjectColumn();
+		}
+	}
+
+	/**
+	 * Values of one attribute. Null values are tracked separately, rows which only contain null values at the end of
+	 * the column only take space after {@link #trimToSize(int)}.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private abstract static class Column {
+
+		private final BitSet nulls = new BitSet();
+
+		void add(int row, Object value) {
+			if (null == value) {
+				nulls.set(row);
+			} else {
+				set(row, value);
+			}
+		}
+
+		Object get(int row) {
+			return nulls.get(row) ? null : value(row);
+		}
+
+		/**
+		 * Store a (not null) value, growing the storage when needed.
+		 *
+		 * @param row row
+		 * @param value value
+		 */
+		abstract void set(int row, Object value);
+
+		abstract Object value(int row);
+
+		abstract void trimToSize(int size);
+
+		int grow(int capacity, int row) {
+			return Math.max(INITIAL_CAPACITY, Math.max(row + 1, capacity * 2));
+		}
+	}
+
+	/**
+	 * Column for integer types.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class IntColumn extends Column {
+
+		private final Class<?> binding;
+
+		private int[] values = new int[0];
+
+		private IntColumn(Class<?> binding) {
+			this.binding = binding;
+		}
+
+		@Override
+		void set(int row, Object value) {
+			if (row >= values.length) {
+				values = Arrays.copyOf(values, grow(values.length, row));
+			}
+			values[row] = ((Number) value).intValue();
+		}
+
+		@Override
+		Object value(int row) {
+			int value = values[row];
+			if (Short.class.equals(binding)) {
+				return (short) value;
+			} else if (Byte.class.equals(binding)) {
+				return (byte) value;
+			}
+			return value;
+		}
+
+		@Override
+		void trimToSize(int size) {
+			values = Arrays.copyOf(values, size);
+		}
+	}
+
+	/**
+	 * Column for long values.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class LongColumn extends Column {
+
+		private long[] values = new long[0];
+
+		@Override
+		void set(int row, Object value) {
+			if (row >= values.length) {
+				values = Arrays.copyOf(values, grow(values.length, row));
+			}
+			values[row] = ((Number) value).longValue();
+		}
+
+		@Override
+		Object value(int row) {
+			return values[row];
+		}
+
+		@Override
+		void trimToSize(int size) {
+			values = Arrays.copyOf(values, size);
+		}
+	}
+
+	/**
+	 * Column for floating point values.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class DoubleColumn extends Column {
+
+		private final boolean isFloat;
+
+		private double[] values = new double[0];
+
+		private DoubleColumn(Class<?> binding) {
+			isFloat = Float.class.equals(binding);
+		}
+
+		@Override
+		void set(int row, Object value) {
+			if (row >= values.length) {
+				values = Arrays.copyOf(values, grow(values.length, row));
+			}
+			values[row] = ((Number) value).doubleValue();
+		}
+
+		@Override
+		Object value(int row) {
+			double value = values[row];
+			if (isFloat) {
+				return (float) value;
+			}
+			return value;
+		}
+
+		@Override
+		void trimToSize(int size) {
+			values = Arrays.copyOf(values, size);
+		}
+	}
+
+	/**
+	 * Column for boolean values.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class BooleanColumn extends Column {
+
+		private final BitSet values = new BitSet();
+
+		@Override
+		void set(int row, Object value) {
+			values.set(row, (Boolean) value);
+		}
+
+		@Override
+		Object value(int row) {
+			return values.get(row);
+		}
+
+		@Override
+		void trimToSize(int size) {
+			// nothing to do, a bit set only grows to the highest set bit
+		}
+	}
+
+	/**
+	 * Column for dates, stored as milliseconds.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class DateColumn extends Column {
+
+		private long[] values = new long[0];
+
+		@Override
+		void set(int row, Object value) {
+			if (row >= values.length) {
+				values = Arrays.copyOf(values, grow(values.length, row));
+			}
+			values[row] = ((Date) value).getTime();
+		}
+
+		@Override
+		Object value(int row) {
+			return new Date(values[row]);
+		}
+
+		@Override
+		void trimToSize(int size) {
+			values = Arrays.copyOf(values, size);
+		}
+	}
+
+	/**
+	 * Dictionary encoded column, each distinct value is only stored once.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class DictionaryColumn extends Column {
+
+		private Map<Object, Integer> codes = new HashMap<Object, Integer>();
+
+		private final ArrayList<Object> dictionary = new ArrayList<Object>();
+
+		private int[] values = new int[0];
+
+		@Override
+		void set(int row, Object value) {
+			Integer code = codes.get(value);
+			if (null == code) {
+				code = dictionary.size();
+				dictionary.add(value);
+				codes.put(value, code);
+			}
+			if (row >= values.length) {
+				values = Arrays.copyOf(values, grow(values.length, row));
+			}
+			values[row] = code;
+		}
+
+		@Override
+		Object value(int row) {
+			return dictionary.get(values[row]);
+		}
+
+		@Override
+		void trimToSize(int size) {
+			values = Arrays.copyOf(values, size);
+			dictionary.trimToSize();
+			codes = null; // store is read-only from now on
+		}
+	}
+
+	/**
+	 * Column for other types, values are stored as is.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class ObjectColumn extends Column {
+
+		private Object[] values = new Object[0];
+
+		@Override
+		void set(int row, Object value) {
+			if (row >= values.length) {
+				values = Arrays.copyOf(values, grow(values.length, row));
+			}
+			values[row] = value;
+		}
+
+		@Override
+		Object value(int row) {
+			return values[row];
+		}
+
+		@Override
+		void trimToSize(int size) {
+			values = Arrays.copyOf(values, size);
+		}
+	}
+}
@@ -0,0 +1,362 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.layer.shapeinmem;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import javax.annotation.PostConstruct;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.configuration.VectorLayerInfo;
+import org.geomajas.global.ExceptionCode;
+import org.geomajas.global.GeomajasException;
+import org.geomajas.layer.LayerException;
+import org.geomajas.layer.VectorLayer;
+import org.geomajas.layer.VectorLayerLazyFeatureConversionSupport;
+import org.geomajas.layer.VectorLayerPagingSupport;
+import org.geomajas.layer.feature.FeatureModel;
+import org.geomajas.layer.geotools.DataStoreFactory;
+import org.geomajas.service.DtoConverterService;
+import org.geomajas.service.FilterService;
+import org.geomajas.service.GeoService;
+import org.geotools.data.DataStore;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.filter.visitor.ExtractBoundsFilterVisitor;
+import org.opengis.filter.Filter;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Read-only layer which keeps a shape file in memory using column oriented storage.
+ * <p/>
+ * Compared to {@link ShapeInMemLayer}, which keeps a GeoTools feature object per feature, this uses primitive arrays
+ * for the attribute values, dictionary encoding for strings and packed coordinates for the geometries. Feature objects
+ * are only created when they are needed. This is intended for large reference layers which are not edited.
+ * <p/>
+ * Lazy feature conversion is used by default, so attribute objects are only created for the attributes which are
+ * actually used. Filters read the attribute values directly from the columns (see
+ * {@link ColumnarFeaturePropertyAccessorFactory}).
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api
+public class ColumnarShapeInMemLayer extends FeatureSourceRetriever implements VectorLayer, VectorLayerPagingSupport,
+		VectorLayerLazyFeatureConversionSupport {
+
+	private ColumnarFeatureStore store;
+
+	private ColumnarFeatureModel featureModel;
+
+	private VectorLayerInfo layerInfo;
+
+	@Autowired
+	private GeoService geoService;
+
+	@Autowired
+	private DtoConverterService converterService;
+
+	@Autowired
+	private FilterService filterService;
+
+	private CoordinateReferenceSystem crs;
+
+	private String url;
+
+	private String id;
+
+	private boolean useLazyFeatureConversion = true;
+
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Set the id for this layer.
+	 *
+	 * @param id layer id
+	 * @since 1.18.0
+	 */
+	@Api
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	@Override
+	public CoordinateReferenceSystem getCrs() {
+		return crs;
+	}
+
+	/**
+	 * Set the layer configuration.
+	 *
+	 * @param layerInfo layer information
+	 * @throws LayerException oops
+	 * @since 1.18.0
+	 */
+	@Api
+	public void setLayerInfo(VectorLayerInfo layerInfo) throws LayerException {
+		super.setLayerInfo(layerInfo);
+		this.layerInfo = layerInfo;
+	}
+
+	@Override
+	public VectorLayerInfo getLayerInfo() {
+		return layerInfo;
+	}
+
+	@Override
+	public boolean useLazyFeatureConversion() {
+		return useLazyFeatureConversion;
+	}
+
+	/**
+	 * Configure whether lazy feature conversion should be used for this layer. Default is true.
+	 *
+	 * @param useLazyFeatureConversion use lazy feature conversion?
+	 * @since 1.18.0
+	 */
+	@Api
+	public void setUseLazyFeatureConversion(boolean useLazyFeatureConversion) {
+		this.useLazyFeatureConversion = useLazyFeatureConversion;
+	}
+
+	@Override
+	public boolean isCreateCapable() {
+		return false;
+	}
+
+	@Override
+	public boolean isUpdateCapable() {
+		return false;
+	}
+
+	@Override
+	public boolean isDeleteCapable() {
+		return false;
+	}
+
+	/**
+	 * Set the url for the shape file.
+	 *
+	 * @param url shape file url
+	 * @throws LayerException file cannot be accessed
+	 * @since 1.18.0
+	 */
+	@Api
+	public void setUrl(String url) throws LayerException {
+		try {
+			this.url = url;
+			Map<String, Object> params = new HashMap<String, Object>();
+			params.put("url", url);
+			DataStore store = DataStoreFactory.create(params);
+			setDataStore(store);
+		} catch (IOException ioe) {
+			throw new LayerException(ioe, ExceptionCode.INVALID_SHAPE_FILE_URL, url);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * The 'offset' and 'maxResultSize' parameters are applied on the matching features. When the filter limits the
+	 * features to an area, the candidates are selected using a spatial index.
+	 */
+	public Iterator<?> getElements(Filter filter, int offset, int maxResultSize) throws LayerException {
+		if (null == filter) {
+			filter = Filter.INCLUDE;
+		}
+		List<Object> filteredList = new ArrayList<Object>();
+		int skip = offset;
+		Envelope bounds = getFilterBounds(filter);
+		Iterable<?> candidates = new Rows(store, null != bounds ? store.query(bounds) : null);
+		for (Object feature : candidates) {
+			if (filter.evaluate(feature)) {
+				if (skip > 0) {
+					skip--;
+					continue;
+				}
+				filteredList.add(feature);
+				if (filteredList.size() == maxResultSize) {
+					break;
+				}
+			}
+		}
+		return filteredList.iterator();
+	}
+
+	@Override
+	public boolean isPagingSupported() {
+		return true;
+	}
+
+	@Override
+	public Envelope getBounds() throws LayerException {
+		return store.getBounds();
+	}
+
+	/**
+	 * Retrieve the bounds of the specified features.
+	 *
+	 * @param filter filter
+	 * @return the bounds of the specified features
+	 * @throws LayerException cannot read features
+	 */
+	public Envelope getBounds(Filter filter) throws LayerException {
+		Envelope bounds = new Envelope();
+		Iterator<?> it = getElements(filter, 0, 0);
+		while (it.hasNext()) {
+			Geometry geometry = store.getGeometry(((ColumnarFeature) it.next()).getRow());
+			if (null != geometry) {
+				bounds.expandToInclude(geometry.getEnvelopeInternal());
+			}
+		}
+		return bounds;
+	}
+
+	@Override
+	public FeatureModel getFeatureModel() {
+		return featureModel;
+	}
+
+	@Override
+	public Object create(Object feature) throws LayerException {
+		throw new LayerException(ExceptionCode.CREATE_OR_UPDATE_NOT_IMPLEMENTED, getFeatureSourceName(),
+				getClass().getName());
+	}
+
+	@Override
+	public Object read(String featureId) throws LayerException {
+		int row = store.getRow(featureId);
+		if (row < 0) {
+			throw new LayerException(ExceptionCode.LAYER_MODEL_FEATURE_NOT_FOUND, featureId);
+		}
+		return new ColumnarFeature(store, row);
+	}
+
+	@Override
+	public Object saveOrUpdate(Object feature) throws LayerException {
+		throw new LayerException(ExceptionCode.CREATE_OR_UPDATE_NOT_IMPLEMENTED, getFeatureSourceName(),
+				getClass().getName());
+	}
+
+	@Override
+	public void delete(String featureId) throws LayerException {
+		throw new LayerException(ExceptionCode.DELETE_NOT_IMPLEMENTED, getFeatureSourceName(), getClass().getName());
+	}
+
+	// -------------------------------------------------------------------------
+	// Private functions:
+	// -------------------------------------------------------------------------
+
+	private Envelope getFilterBounds(Filter filter) {
+		Object bounds = filter.accept(ExtractBoundsFilterVisitor.BOUNDS_VISITOR, null);
+		if (bounds instanceof Envelope) {
+			Envelope envelope = (Envelope) bounds;
+			if (!envelope.isNull() && !Double.isInfinite(envelope.getWidth())
+					&& !Double.isInfinite(envelope.getHeight())) {
+				return envelope;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Finish initializing the layer.
+	 *
+	 * @throws LayerException oops
+	 */
+	@PostConstruct
+	protected void initFeatures() throws LayerException {
+		crs = geoService.getCrs2(layerInfo.getCrs());
+		try {
+			setFeatureSourceName(layerInfo.getFeatureInfo().getDataSourceName());
+			ColumnarFeatureStore newStore = new ColumnarFeatureStore(getSchema());
+			SimpleFeatureIterator iterator = getFeatureSource().getFeatures().features();
+			try {
+				while (iterator.hasNext()) {
+					newStore.add(iterator.next());
+				}
+			} finally {
+				iterator.close();
+			}
+			newStore.trimToSize();
+			featureModel = new ColumnarFeatureModel(newStore, getGeometryAttributeName(),
+					geoService.getSridFromCrs(layerInfo.getCrs()), converterService);
+			featureModel.setLayerInfo(layerInfo);
+			filterService.registerFeatureModel(featureModel);
+			store = newStore;
+		} catch (IOException ioe) {
+			throw new LayerException(ioe, ExceptionCode.CANNOT_CREATE_LAYER_MODEL, url);
+		} catch (GeomajasException ge) {
+			throw new LayerException(ge, ExceptionCode.CANNOT_CREATE_LAYER_MODEL, url);
+		}
+	}
+
+	/**
+	 * Iterates features in the store, creating the feature objects on the fly.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class Rows implements Iterable<Object> {
+
+		private final ColumnarFeatureStore features;
+
+		private final int[] rows;
+
+		/**
+		 * Iterate the given rows.
+		 *
+		 * @param features feature store
+		 * @param rows rows to iterate, null for all rows
+		 */
+		private Rows(ColumnarFeatureStore features, int[] rows) {
+			this.features = features;
+			this.rows = rows;
+		}
+
+		public Iterator<Object> iterator() {
+			return new Iterator<Object>() {
+
+				private int position;
+
+				public boolean hasNext() {
+					return position < (null == rows ? features.size() : rows.length);
+				}
+
+				public Object next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					int row = null == rows ? position : rows[position];
+					position++;
+					return new ColumnarFeature(features, row);
+				}
+
+				public void remove() {
+					throw new UnsupportedOperationException("read-only");
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.layer.shapeinmem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Read-only spatial index for the rows of a {@link ColumnarFeatureStore}.
+ * <p/>
+ * This is a packed R-tree which is built once using the sort-tile-recursive algorithm. The rows are kept in an int
+ * array and the node bounds in double arrays, so there are no objects per feature. The bounds of the individual rows
+ * are taken from the geometries (which cache their envelope).
+ *
+ * @author Joachim Van der Auwera
+ */
+final class ColumnarSpatialIndex {
+
+	private static final int NODE_CAPACITY = 16;
+
+	private static final int MIN_X = 0;
+
+	private static final int MIN_Y = 1;
+
+	private static final int MAX_X = 2;
+
+	private static final int MAX_Y = 3;
+
+	private static final int BOX_SIZE = 4;
+
+	private final Geometry[] geometries;
+
+	/** Rows with a geometry, in tree order. */
+	private final int[] rows;
+
+	/** Node bounds per level, level 0 contains the leaf nodes (groups of rows). */
+	private final double[][] levels;
+
+	/**
+	 * Build the index.
+	 *
+	 * @param geometries geometries by row, rows without geometry are not indexed
+	 */
+	ColumnarSpatialIndex(final Geometry[] geometries) {
+		this.geometries = geometries;
+		int count = 0;
+		for (Geometry geometry : geometries) {
+			if (null != geometry && !geometry.isEmpty()) {
+				count++;
+			}
+		}
+		Integer[] order = new Integer[count];
+		count = 0;
+		for (int row = 0; row < geometries.length; row++) {
+			if (null != geometries[row] && !geometries[row].isEmpty()) {
+				order[count++] = row;
+			}
+		}
+		// sort tile recursive: sort on x, cut in vertical slices, sort each slice on y
+		Arrays.sort(order, new Comparator<Integer>() {
+
+			public int compare(Integer left, Integer right) {
+				return Double.compare(centreX(geometries[left]), centreX(geometries[right]));
+			}
+		});
+		int leafCount = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+		int sliceSize = NODE_CAPACITY * (int) Math.ceil(Math.sqrt(leafCount));
+		for (int start = 0; start < count; start += sliceSize) {
+			Arrays.sort(order, start, Math.min(count, start + sliceSize), new Comparator<Integer>() {
+
+				public int compare(Integer left, Integer right) {
+					return Double.compare(centreY(geometries[left]), centreY(geometries[right]));
+				}
+			});
+		}
+		rows = new int[count];
+		for (int i = 0; i < count; i++) {
+			rows[i] = order[i];
+		}
+		List<double[]> levelList = new ArrayList<double[]>();
+		double[] level = new double[leafCount * BOX_SIZE];
+		for (int node = 0; node < leafCount; node++) {
+			initBox(level, node);
+			for (int i = node * NODE_CAPACITY; i < Math.min(count, (node + 1) * NODE_CAPACITY); i++) {
+				Envelope envelope = geometries[rows[i]].getEnvelopeInternal();
+				expand(level, node, envelope.getMinX(), envelope.getMinY(), envelope.getMaxX(), envelope.getMaxY());
+			}
+		}
+		levelList.add(level);
+		while (level.length > BOX_SIZE) {
+			int children = level.length / BOX_SIZE;
+			int nodes = (children + NODE_CAPACITY - 1) / NODE_CAPACITY;
+			double[] parent = new double[nodes * BOX_SIZE];
+			for (int node = 0; node < nodes; node++) {
+				initBox(parent, node);
+				for (int child = node * NODE_CAPACITY; child < Math.min(children, (node + 1) * NODE_CAPACITY);
+						child++) {
+					int offset = child * BOX_SIZE;
+					expand(parent, node, level[offset + MIN_X], level[offset + MIN_Y], level[offset + MAX_X],
+							level[offset + MAX_Y]);
+				}
+			}
+			levelList.add(parent);
+			level = parent;
+		}
+		levels = levelList.toArray(new double[levelList.size()][]);
+	}
+
+	/**
+	 * Get the rows for which the geometry envelope intersects the given envelope.
+	 *
+	 * @param envelope search envelope
+	 * @return rows in ascending order
+	 */
+	int[] query(Envelope envelope) {
+		int[] found = new int[NODE_CAPACITY];
+		int size = 0;
+		if (rows.length > 0) {
+			// depth first search using an explicit stack of (level, node) pairs
+			int[] stack = new int[2 * NODE_CAPACITY * levels.length];
+			int top = 0;
+			int rootLevel = levels.length - 1;
+			for (int node = 0; node < levels[rootLevel].length / BOX_SIZE; node++) {
+				stack[top++] = rootLevel;
+				stack[top++] = node;
+			}
+			while (top > 0) {
+				int node = stack[--top];
+				int level = stack[--top];
+				if (!intersects(levels[level], node, envelope)) {
+					continue;
+				}
+				int from = node * NODE_CAPACITY;
+				if (0 == level) {
+					for (int i = from; i < Math.min(rows.length, from + NODE_CAPACITY); i++) {
+						if (geometries[rows[i]].getEnvelopeInternal().intersects(envelope)) {
+							if (size == found.length) {
+								found = Arrays.copyOf(found, size * 2);
+							}
+							found[size++] = rows[i];
+						}
+					}
+				} else {
+					int children = levels[level - 1].length / BOX_SIZE;
+					for (int child = from; child < Math.min(children, from + NODE_CAPACITY); child++) {
+						stack[top++] = level - 1;
+						stack[top++] = child;
+					}
+				}
+			}
+		}
+		int[] result = Arrays.copyOf(found, size);
+		Arrays.sort(result);
+		return result;
+	}
+
+	private static double centreX(Geometry geometry) {
+		Envelope envelope = geometry.getEnvelopeInternal();
+		return (envelope.getMinX() + envelope.getMaxX()) / 2;
+	}
+
+	private static double centreY(Geometry geometry) {
+		Envelope envelope = geometry.getEnvelopeInternal();
+		return (envelope.getMinY() + envelope.getMaxY()) / 2;
+	}
+
+	private static void initBox(double[] boxes, int node) {
+		int offset = node * BOX_SIZE;
+		boxes[offset + MIN_X] = Double.POSITIVE_INFINITY;
+		boxes[offset + MIN_Y] = Double.POSITIVE_INFINITY;
+		boxes[offset + MAX_X] = Double.NEGATIVE_INFINITY;
+		boxes[offset + MAX_Y] = Double.NEGATIVE_INFINITY;
+	}
+
+	private static void expand(double[] boxes, int node, double minX, double minY, double maxX, double maxY) {
+		int offset = node * BOX_SIZE;
+		boxes[offset + MIN_X] = Math.min(boxes[offset + MIN_X], minX);
+		boxes[offset + MIN_Y] = Math.min(boxes[offset + MIN_Y], minY);
+		boxes[offset + MAX_X] = Math.max(boxes[offset + MAX_X], maxX);
+		boxes[offset + MAX_Y] = Math.max(boxes[offset + MAX_Y], maxY);
+	}
+
+	private static boolean intersects(double[] boxes, int node, Envelope envelope) {
+		int offset = node * BOX_SIZE;
+		return boxes[offset + MIN_X] <= envelope.getMaxX() && boxes[offset + MAX_X] >= envelope.getMinX()
+				&& boxes[offset + MIN_Y] <= envelope.getMaxY() && boxes[offset + MAX_Y] >= envelope.getMinY();
+	}
+}
@@ -26,8 +26,10 @@ import org.geomajas.configuration.VectorLayerInfo;
 import org.geomajas.annotation.Api;
 import org.geomajas.global.ExceptionCode;
 import org.geomajas.global.GeomajasException;
+import org.geomajas.internal.index.FeatureIndex;
 import org.geomajas.layer.LayerException;
 import org.geomajas.layer.VectorLayer;
+import org.geomajas.layer.VectorLayerPagingSupport;
 import org.geomajas.layer.feature.FeatureModel;
 import org.geomajas.layer.geotools.DataStoreFactory;
 import org.geomajas.service.DtoConverterService;
@@ -35,6 +37,7 @@ import org.geomajas.service.GeoService;
 import org.geotools.data.DataStore;
 import org.geotools.feature.FeatureCollection;
 import org.geotools.feature.FeatureIterator;
+import org.geotools.filter.visitor.ExtractBoundsFilterVisitor;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.filter.Filter;
@@ -42,6 +45,7 @@ import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
 
 /**
  * Layer model for handling shape files in memory.
@@ -51,10 +55,12 @@ import com.vividsolutions.jts.geom.Envelope;
  * @since 1.7.1
  */
 @Api
-public class ShapeInMemLayer extends FeatureSourceRetriever implements VectorLayer {
+public class ShapeInMemLayer extends FeatureSourceRetriever implements VectorLayer, VectorLayerPagingSupport {
 
 	private final Map<String, SimpleFeature> features = new ConcurrentHashMap<String, SimpleFeature>();
 
+	private final FeatureIndex<SimpleFeature> index = new FeatureIndex<SimpleFeature>();
+
 	private FeatureModel featureModel;
 
 	private VectorLayerInfo layerInfo;
@@ -146,12 +152,20 @@ public class ShapeInMemLayer extends FeatureSourceRetriever implements VectorLay
 	/**
 	 * {@inheritDoc}
 	 *
-	 * This implementation does not support the 'offset' and 'maxResultSize' parameters.
+	 * The 'offset' and 'maxResultSize' parameters are applied on the matching features. When the filter limits the
+	 * features to an area, the candidates are selected using a spatial index.
 	 */
 	public Iterator<?> getElements(Filter filter, int offset, int maxResultSize) throws LayerException {
-		List<SimpleFeature> filteredList = new ArrayList<SimpleFeature>();
-		for (SimpleFeature feature : features.values()) {
+		List<Object> filteredList = new ArrayList<Object>();
+		int skip = offset;
+		Envelope bounds = getFilterBounds(filter);
+		Iterable<?> candidates = null != bounds ? index.query(bounds) : features.values();
+		for (Object feature : candidates) {
 			if (filter.evaluate(feature)) {
+				if (skip > 0) {
+					skip--;
+					continue;
+				}
 				filteredList.add(feature);
 				if (filteredList.size() == maxResultSize) {
 					break;
@@ -161,6 +175,11 @@ public class ShapeInMemLayer extends FeatureSourceRetriever implements VectorLay
 		return filteredList.iterator();
 	}
 
+	@Override
+	public boolean isPagingSupported() {
+		return true;
+	}
+
 	@Override
 	public Envelope getBounds() throws LayerException {
 		return getBounds(Filter.INCLUDE);
@@ -193,6 +212,7 @@ public class ShapeInMemLayer extends FeatureSourceRetriever implements VectorLay
 		if (id != null && !features.containsKey(id)) {
 			SimpleFeature realFeature = asFeature(feature);
 			features.put(id, realFeature);
+			index.put(id, realFeature, getEnvelope(realFeature));
 			return realFeature;
 		}
 		return null;
@@ -209,10 +229,13 @@ public class ShapeInMemLayer extends FeatureSourceRetriever implements VectorLay
 
 	@Override
 	public Object saveOrUpdate(Object feature) throws LayerException {
-		if (!features.containsKey(getFeatureModel().getId(feature))) {
+		String featureId = getFeatureModel().getId(feature);
+		if (!features.containsKey(featureId)) {
 			return create(feature);
 		} else {
-			// Nothing to do
+			// the stored feature is updated in place, only the geometry in the index may need updating
+			SimpleFeature stored = features.get(featureId);
+			index.put(featureId, stored, getEnvelope(stored));
 			return feature;
 		}
 	}
@@ -220,12 +243,30 @@ public class ShapeInMemLayer extends FeatureSourceRetriever implements VectorLay
 	@Override
 	public void delete(String featureId) throws LayerException {
 		features.remove(featureId);
+		index.remove(featureId);
 	}
 
 	// -------------------------------------------------------------------------
 	// Private functions:
 	// -------------------------------------------------------------------------
 
+	private Envelope getFilterBounds(Filter filter) {
+		Object bounds = filter.accept(ExtractBoundsFilterVisitor.BOUNDS_VISITOR, null);
+		if (bounds instanceof Envelope) {
+			Envelope envelope = (Envelope) bounds;
+			if (!envelope.isNull() && !Double.isInfinite(envelope.getWidth())
+					&& !Double.isInfinite(envelope.getHeight())) {
+				return envelope;
+			}
+		}
+		return null;
+	}
+
+	private Envelope getEnvelope(Object feature) throws LayerException {
+		Geometry geometry = featureModel.getGeometry(feature);
+		return null == geometry ? null : geometry.getEnvelopeInternal();
+	}
+
 	/**
 	 * Finish initializing the layer.
 	 *
@@ -246,12 +287,14 @@ public class ShapeInMemLayer extends FeatureSourceRetriever implements VectorLay
 				SimpleFeature feature = iterator.next();
 				String id = featureModel.getId(feature);
 				features.put(id, feature);
+				index.add(id, feature, getEnvelope(feature));
 				int intId = Integer.parseInt(id.substring(id.lastIndexOf('.') + 1));
 				if (intId > lastIndex) {
 					lastIndex = intId;
 				}
 			}
 			iterator.close();
+			index.build();
 			((ShapeInMemFeatureModel) featureModel).setNextId(++lastIndex);
 		} catch (NumberFormatException nfe) {
 			throw new LayerException(nfe, ExceptionCode.FEATURE_MODEL_PROBLEM, url);
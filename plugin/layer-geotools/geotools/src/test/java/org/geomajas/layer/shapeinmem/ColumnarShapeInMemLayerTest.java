@@ -0,0 +1,152 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.layer.shapeinmem;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import org.geomajas.layer.LayerException;
+import org.geomajas.layer.feature.Attribute;
+import org.geomajas.layer.feature.FeatureModel;
+import org.geomajas.service.FilterService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.filter.Filter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Test for the columnar shape-in-mem layer.
+ *
+ * @author Joachim Van der Auwera
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = { "/org/geomajas/spring/geomajasContext.xml",
+		"/org/geomajas/testdata/layerCountries.xml", "/org/geomajas/testdata/layerPopulatedPlaces110m.xml",
+		"/org/geomajas/testdata/simplevectorsContext.xml", "/org/geomajas/layer/shapeinmem/test.xml" })
+public class ColumnarShapeInMemLayerTest {
+
+	private static final String LAYER_NAME = "110m_populated_places_simple";
+
+	@Autowired
+	private FilterService filterService;
+
+	@Autowired
+	@Qualifier("columnar")
+	private ColumnarShapeInMemLayer layer;
+
+	@Autowired
+	@Qualifier("test")
+	private ShapeInMemLayer referenceLayer;
+
+	private Filter filter;
+
+	@Before
+	public void setUp() throws Exception {
+		filter = filterService.createCompareFilter("POP_OTHER", ">", "1000000");
+	}
+
+	@Test
+	public void read() throws Exception {
+		Object feature = layer.read(LAYER_NAME + ".2");
+		FeatureModel featureModel = layer.getFeatureModel();
+		Assert.assertEquals(LAYER_NAME + ".2", featureModel.getId(feature));
+		Assert.assertEquals("Vatican City", featureModel.getAttribute(feature, "NAME").getValue());
+		Assert.assertFalse(layer.isCreateCapable());
+	}
+
+	@Test
+	public void sameAsShapeInMem() throws Exception {
+		FeatureModel featureModel = layer.getFeatureModel();
+		FeatureModel referenceModel = referenceLayer.getFeatureModel();
+		for (int i = 1; i < 20; i++) {
+			String id = LAYER_NAME + "." + i;
+			Object feature = layer.read(id);
+			SimpleFeature reference = (SimpleFeature) referenceLayer.read(id);
+			Map<String, Attribute> attributes = featureModel.getAttributes(feature);
+			Map<String, Attribute> referenceAttributes = referenceModel.getAttributes(reference);
+			Assert.assertEquals(referenceAttributes.keySet(), attributes.keySet());
+			for (Map.Entry<String, Attribute> entry : referenceAttributes.entrySet()) {
+				Assert.assertEquals(entry.getValue().getValue(), attributes.get(entry.getKey()).getValue());
+			}
+			Assert.assertTrue(referenceModel.getGeometry(reference).equalsExact(featureModel.getGeometry(feature)));
+		}
+	}
+
+	@Test(expected = LayerException.class)
+	public void create() throws Exception {
+		layer.getFeatureModel().newInstance();
+	}
+
+	@Test
+	public void getBounds() throws Exception {
+		Envelope bbox = layer.getBounds();
+		Assert.assertEquals(-175.22, bbox.getMinX(), .01);
+		Assert.assertEquals(179.21, bbox.getMaxX(), .01);
+		Assert.assertEquals(-41.29, bbox.getMinY(), .01);
+		Assert.assertEquals(64.15, bbox.getMaxY(), .01);
+	}
+
+	@Test
+	public void getBoundsFilter() throws Exception {
+		Envelope bbox = layer.getBounds(filter);
+		Assert.assertEquals(-122.34, bbox.getMinX(), .01);
+		Assert.assertEquals(151.18, bbox.getMaxX(), .01);
+		Assert.assertEquals(-37.81, bbox.getMinY(), .01);
+		Assert.assertEquals(55.75, bbox.getMaxY(), .01);
+	}
+
+	@Test
+	public void getElements() throws Exception {
+		Iterator<?> it = layer.getElements(filter, 0, 0);
+		int counter = 0;
+		while (it.hasNext()) {
+			it.next();
+			counter++;
+		}
+		Assert.assertEquals(198, counter);
+
+		Filter area = filterService.createAndFilter(filter, filterService.createBboxFilter("EPSG:4326",
+				new Envelope(0, 180, 0, 90), "the_geom"));
+		it = layer.getElements(area, 0, 0);
+		counter = 0;
+		while (it.hasNext()) {
+			Object feature = it.next();
+			Assert.assertTrue(layer.getFeatureModel().getGeometry(feature).getCoordinate().x >= 0);
+			counter++;
+		}
+		Assert.assertTrue(counter > 0 && counter < 198);
+	}
+
+	@Test
+	public void getElementsNullFilter() throws Exception {
+		Iterator<?> it = layer.getElements(null, 0, 0);
+		int counter = 0;
+		while (it.hasNext()) {
+			it.next();
+			counter++;
+		}
+		it = layer.getElements(Filter.INCLUDE, 0, 0);
+		while (it.hasNext()) {
+			it.next();
+			counter--;
+		}
+		Assert.assertEquals(0, counter);
+	}
+}
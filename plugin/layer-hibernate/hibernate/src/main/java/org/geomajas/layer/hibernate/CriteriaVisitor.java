@@ -113,6 +113,11 @@ public class CriteriaVisitor implements FilterVisitor {
 	 */
 	private final List<String> aliases = new ArrayList<String>(); // These never get cleaned!
 
+	/**
+	 * Property paths for the aliases (the joins) which were created.
+	 */
+	private final List<String> joinPaths = new ArrayList<String>();
+
 	// -------------------------------------------------------------------------
 	// Constructors:
 	// -------------------------------------------------------------------------
@@ -486,6 +491,15 @@ public class CriteriaVisitor implements FilterVisitor {
 		throw new UnsupportedOperationException("visit(Object userData)");
 	}
 
+	/**
+	 * Get the property paths which were joined (using an alias) for the criteria.
+	 *
+	 * @return joined property paths
+	 */
+	List<String> getJoinPaths() {
+		return joinPaths;
+	}
+
 	// -------------------------------------------------------------------------
 	// Private functions:
 	// -------------------------------------------------------------------------
@@ -541,7 +555,12 @@ public class CriteriaVisitor implements FilterVisitor {
 		if (props.length > 1 && userData instanceof Criteria) {
 			// the criteria API requires an alias for each join table !!!
 			String prevAlias = null;
+			StringBuilder path = new StringBuilder();
 			for (int i = 0; i < props.length - 1; i++) {
+				if (i > 0) {
+					path.append(HibernateLayerUtil.SEPARATOR);
+				}
+				path.append(props[i]);
 				String alias = props[i] + "_alias";
 				if (!aliases.contains(alias)) {
 					Criteria criteria = (Criteria) userData;
@@ -551,6 +570,7 @@ public class CriteriaVisitor implements FilterVisitor {
 						criteria.createAlias(prevAlias + "." + props[i], alias);
 					}
 					aliases.add(alias);
+					joinPaths.add(path.toString());
 				}
 				prevAlias = alias;
 			}
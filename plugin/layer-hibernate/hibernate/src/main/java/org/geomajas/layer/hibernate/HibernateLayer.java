@@ -15,8 +15,12 @@ import java.io.Serializable;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.PostConstruct;
 
@@ -38,14 +42,27 @@ import org.geomajas.service.DtoConverterService;
 import org.geomajas.service.FilterService;
 import org.geomajas.service.GeoService;
 import org.hibernate.Criteria;
+import org.hibernate.EntityMode;
 import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
 import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernatespatial.SpatialAggregate;
+import org.hibernatespatial.SpatialDialect;
+import org.hibernatespatial.criterion.SpatialProjections;
 import org.opengis.filter.Filter;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.transaction.annotation.Transactional;
@@ -99,6 +116,26 @@ public class HibernateLayer extends HibernateLayerUtil implements VectorLayer, V
 
 	private boolean useLazyFeatureConversion = true;
 
+	/**
+	 * Can the bounds be calculated in the database, null when not yet determined.
+	 */
+	private volatile Boolean dbBoundsSupported;
+
+	private boolean keysetPaging;
+
+	/**
+	 * Position after the last feature of recently read pages, indexed by filter, sort attribute and offset.
+	 */
+	private final Map<String, KeysetPosition> keysetPositions = Collections
+			.synchronizedMap(new KeysetPositionCache());
+
+	/**
+	 * Incremented when the keyset positions are invalidated, pages which were read before are not remembered.
+	 */
+	private final AtomicInteger keysetVersion = new AtomicInteger();
+
+	private final Logger log = LoggerFactory.getLogger(HibernateLayer.class);
+
 	@Override
 	public String getId() {
 		return id;
@@ -229,14 +266,18 @@ public class HibernateLayer extends HibernateLayerUtil implements VectorLayer, V
 	}
 
 	/**
-	 * This implementation does not support the 'offset' parameter. The maxResultSize parameter is not used (limiting
-	 * the result needs to be done after security {@link org.geomajas.internal.layer.vector.GetFeaturesEachStep}). If
-	 * you expect large results to be returned enable scrollableResultSet to retrieve only as many records as needed.
+	 * The offset and maxResultSize are applied in the database, unless the filter joins a collection (which can return
+	 * the same feature more than once), in which case the paging is applied while reading. If you expect large results
+	 * to be returned, enable scrollableResultSet to retrieve only as many records as needed.
+	 * <p/>
+	 * When {@link #setKeysetPaging(boolean) keyset paging} is enabled, the position after each page is remembered so
+	 * the next page can be read using a condition on the sort attribute and id instead of skipping rows.
 	 */
 	public Iterator<?> getElements(Filter filter, int offset, int maxResultSize) throws LayerException {
 		try {
 			Session session = getSessionFactory().getCurrentSession();
 			Criteria criteria = session.createCriteria(getFeatureInfo().getDataSourceName());
+			boolean collectionJoin = false;
 			if (filter != null) {
 				if (filter != Filter.INCLUDE) {
 					CriteriaVisitor visitor = new CriteriaVisitor((HibernateFeatureModel) featureModel, dateFormat);
@@ -244,38 +285,78 @@ public class HibernateLayer extends HibernateLayerUtil implements VectorLayer, V
 					if (c != null) {
 						criteria.add(c);
 					}
+					for (String path : visitor.getJoinPaths()) {
+						collectionJoin |= isCollectionPath(getEntityMetadata(), path);
+					}
 				}
 			}
 
 			// Sorting of elements.
-			if (getFeatureInfo().getSortAttributeName() != null) {
+			String sortName = getFeatureInfo().getSortAttributeName();
+			boolean ascending = null == sortName || SortType.ASC.equals(getFeatureInfo().getSortType());
+			if (sortName != null) {
 				if (SortType.ASC.equals(getFeatureInfo().getSortType())) {
-					criteria.addOrder(Order.asc(getFeatureInfo().getSortAttributeName()));
+					criteria.addOrder(Order.asc(sortName));
 				} else {
-					criteria.addOrder(Order.desc(getFeatureInfo().getSortAttributeName()));
+					criteria.addOrder(Order.desc(sortName));
 				}
 			}
 
 			criteria.setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY);
 
+			boolean paging = offset > 0 || maxResultSize > 0;
+			String keysetKey = null;
+			if (paging && !collectionJoin) {
+				if (isKeysetPagingPossible(sortName)) {
+					keysetKey = filter + "|" + (null == sortName ? "" : sortName);
+					String idName = getEntityMetadata().getIdentifierPropertyName();
+					// id as tie breaker to assure a stable order
+					criteria.addOrder(ascending ? Order.asc(idName) : Order.desc(idName));
+					KeysetPosition position = keysetPositions.get(keysetKey + "|" + offset);
+					if (null != position) {
+						criteria.add(position.toCriterion(sortName, idName, ascending));
+					} else if (offset > 0) {
+						criteria.setFirstResult(offset);
+					}
+				} else if (offset > 0) {
+					criteria.setFirstResult(offset);
+				}
+				if (maxResultSize > 0) {
+					criteria.setMaxResults(maxResultSize);
+				}
+			}
+
+			Iterator<?> iterator;
 			if (isScrollableResultSet()) {
-				return (Iterator<?>) new ScrollIterator(criteria.scroll());
+				iterator = (Iterator<?>) new ScrollIterator(criteria.scroll());
 			} else {
 				List<?> list = criteria.list();
-				return list.iterator();
+				iterator = list.iterator();
+			}
+			if (paging && collectionJoin) {
+				iterator = new PagingIterator(iterator, offset, maxResultSize);
+			} else if (null != keysetKey && maxResultSize > 0) {
+				iterator = new KeysetIterator(iterator, keysetKey, sortName, offset);
 			}
+			return iterator;
 		} catch (HibernateException he) {
 			throw new HibernateLayerException(he, ExceptionCode.HIBERNATE_LOAD_FILTER_FAIL, getFeatureInfo()
 					.getDataSourceName(), filter.toString());
 		}
 	}
 
+	@Override
+	public boolean isPagingSupported() {
+		return true;
+	}
+
 	@Override
 	public Object create(Object feature) throws LayerException {
 		// force the srid value
 		enforceSrid(feature);
 		Session session = getSessionFactory().getCurrentSession();
 		session.save(feature);
+		invalidateKeysetPositions();
 		return feature;
 	}
 
@@ -284,6 +365,7 @@ public class HibernateLayer extends HibernateLayerUtil implements VectorLayer, V
 		// force the srid value
 		enforceSrid(feature);
 		Session session = getSessionFactory().getCurrentSession();
+		invalidateKeysetPositions();
 		// using merge to allow detached objects, although Geomajas avoids them
 		return session.merge(feature);
 	}
@@ -293,6 +375,7 @@ public class HibernateLayer extends HibernateLayerUtil implements VectorLayer, V
 		Session session = getSessionFactory().getCurrentSession();
 		session.delete(getFeature(featureId));
 		session.flush();
+		invalidateKeysetPositions();
 	}
 
 	@Override
@@ -313,6 +396,7 @@ public class HibernateLayer extends HibernateLayerUtil implements VectorLayer, V
 	public void update(Object feature) throws LayerException {
 		Session session = getSessionFactory().getCurrentSession();
 		session.update(feature);
+		invalidateKeysetPositions();
 	}
 
 	@Override
@@ -328,13 +412,14 @@ public class HibernateLayer extends HibernateLayerUtil implements VectorLayer, V
 	 * @return the bounds of the specified features
 	 */
 	public Envelope getBounds(Filter filter) throws LayerException {
-		// Envelope bounds = getBoundsDb(filter);
-		// if (bounds == null)
-		// bounds = getBoundsLocal(filter);
-		// return bounds;
-
-		// @TODO getBoundsDb cannot handle hibernate Formula fields
-		return getBoundsLocal(filter);
+		Envelope bounds = null;
+		if (isDbBoundsSupported()) {
+			bounds = getBoundsDb(filter);
+		}
+		if (null == bounds) {
+			bounds = getBoundsLocal(filter);
+		}
+		return bounds;
 	}
 
 	@Override
@@ -409,6 +494,40 @@ public class HibernateLayer extends HibernateLayerUtil implements VectorLayer, V
 		this.scrollableResultSet = scrollableResultSet;
 	}
 
+	/**
+	 * Is keyset paging used?
+	 *
+	 * @return true when keyset paging is used
+	 * @since 1.18.0
+	 */
+	@Api
+	public boolean isKeysetPaging() {
+		return keysetPaging;
+	}
+
+	/**
+	 * <p>
+	 * Should pages be read using keyset paging? When a page is read, the sort attribute value and id of the last
+	 * feature are remembered. When the next page is requested, the features are selected using a condition on these
+	 * values instead of skipping rows using an offset, which avoids reading all preceding rows in the database. The
+	 * features are ordered by id after the sort attribute (if any) to assure a stable order.
+	 * </p>
+	 * <p>
+	 * This is not used when the sort attribute is nested or nullable (rows with a null value would be skipped) or the
+	 * entity has a composite id. The remembered positions are cleared when features are created, updated or deleted
+	 * through the layer. Changes which are made directly in the database are not detected, so the pages may then
+	 * overlap or skip features, just like offset paging would when rows are inserted or deleted in between.
+	 * </p>
+	 *
+	 * @param keysetPaging
+	 *            true when keyset paging should be used
+	 * @since 1.18.0
+	 */
+	@Api
+	public void setKeysetPaging(boolean keysetPaging) {
+		this.keysetPaging = keysetPaging;
+	}
+
 	// -------------------------------------------------------------------------
 	// Private functions:
 	// -------------------------------------------------------------------------
@@ -456,6 +575,196 @@ public class HibernateLayer extends HibernateLayerUtil implements VectorLayer, V
 		}
 	}
 
+	/**
+	 * Iterator which applies paging on the results while reading.
+	 */
+	private static class PagingIterator implements Iterator<Object> {
+
+		private final Iterator<?> delegate;
+
+		private int remaining;
+
+		/**
+		 * Create a {@link PagingIterator}.
+		 *
+		 * @param delegate iterator over all results
+		 * @param offset number of results to skip
+		 * @param maxResultSize maximum number of results, zero for unlimited
+		 */
+		public PagingIterator(Iterator<?> delegate, int offset, int maxResultSize) {
+			this.delegate = delegate;
+			remaining = maxResultSize > 0 ? maxResultSize : -1;
+			for (int i = 0; i < offset && delegate.hasNext(); i++) {
+				delegate.next();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return remaining != 0 && delegate.hasNext();
+		}
+
+		@Override
+		public Object next() {
+			if (remaining > 0) {
+				remaining--;
+			}
+			return delegate.next();
+		}
+
+		@Override
+		public void remove() {
+			delegate.remove();
+		}
+	}
+
+	/**
+	 * Iterator which remembers the position after a complete page, allowing the next page to be read using keyset
+	 * paging.
+	 */
+	private class KeysetIterator implements Iterator<Object> {
+
+		private final Iterator<?> delegate;
+
+		private final String key;
+
+		private final String sortName;
+
+		private final int version = keysetVersion.get();
+
+		private int position;
+
+		/**
+		 * Create a {@link KeysetIterator}.
+		 *
+		 * @param delegate iterator over the page
+		 * @param key key for the query (filter and sort attribute)
+		 * @param sortName sort attribute name, can be null
+		 * @param offset offset of the page
+		 */
+		public KeysetIterator(Iterator<?> delegate, String key, String sortName, int offset) {
+			this.delegate = delegate;
+			this.key = key;
+			this.sortName = sortName;
+			position = offset;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return delegate.hasNext();
+		}
+
+		@Override
+		public Object next() {
+			Object feature = delegate.next();
+			position++;
+			if (!delegate.hasNext()) {
+				try {
+					ClassMetadata metadata = getEntityMetadata();
+					Object sortValue = null;
+					if (null != sortName) {
+						sortValue = metadata.getPropertyValue(feature, sortName, EntityMode.POJO);
+					}
+					Object id = metadata.getIdentifier(feature, EntityMode.POJO);
+					if (null != id && (null == sortName || null != sortValue) && version == keysetVersion.get()) {
+						keysetPositions.put(key + "|" + position, new KeysetPosition(sortValue, id));
+					}
+				} catch (HibernateException he) {
+					log.debug("Cannot determine keyset position: {}", he.getMessage());
+				} catch (HibernateLayerException hle) {
+					log.debug("Cannot determine keyset position: {}", hle.getMessage());
+				}
+			}
+			return feature;
+		}
+
+		@Override
+		public void remove() {
+			delegate.remove();
+		}
+	}
+
+	/**
+	 * Sort attribute value and id of the last feature on a page.
+	 */
+	private static final class KeysetPosition {
+
+		private final Object sortValue;
+
+		private final Object id;
+
+		private KeysetPosition(Object sortValue, Object id) {
+			this.sortValue = sortValue;
+			this.id = id;
+		}
+
+		/**
+		 * Build the criterion which selects the features after this position.
+		 *
+		 * @param sortName sort attribute name, can be null
+		 * @param idName id property name
+		 * @param ascending sort order
+		 * @return criterion
+		 */
+		public Criterion toCriterion(String sortName, String idName, boolean ascending) {
+			Criterion afterId = ascending ? Restrictions.gt(idName, id) : Restrictions.lt(idName, id);
+			if (null == sortName) {
+				return afterId;
+			}
+			Criterion afterSort = ascending ? Restrictions.gt(sortName, sortValue) : Restrictions.lt(sortName,
+					sortValue);
+			return Restrictions.or(afterSort, Restrictions.and(Restrictions.eq(sortName, sortValue), afterId));
+		}
+	}
+
+	/**
+	 * Least recently used cache of keyset positions.
+	 */
+	private static final class KeysetPositionCache extends LinkedHashMap<String, KeysetPosition> {
+
+		private static final long serialVersionUID = 1180L;
+
+		private static final int MAX_SIZE = 1000;
+
+		private static final float LOAD_FACTOR = 0.75f;
+
+		private KeysetPositionCache() {
+			super(MAX_SIZE, LOAD_FACTOR, true);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, KeysetPosition> eldest) {
+			return size() > MAX_SIZE;
+		}
+	}
+
+	private void invalidateKeysetPositions() {
+		keysetVersion.incrementAndGet();
+		keysetPositions.clear();
+	}
+
+	private boolean isKeysetPagingPossible(String sortName) throws HibernateLayerException {
+		if (!keysetPaging || null == getEntityMetadata().getIdentifierPropertyName()) {
+			return false;
+		}
+		if (null == sortName || sortName.equals(getEntityMetadata().getIdentifierPropertyName())) {
+			return true;
+		}
+		if (sortName.contains(SEPARATOR)) {
+			return false;
+		}
+		// rows with a null sort value would never match the keyset condition, use offset paging instead
+		ClassMetadata metadata = getEntityMetadata();
+		String[] names = metadata.getPropertyNames();
+		boolean[] nullability = metadata.getPropertyNullability();
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(sortName)) {
+				return !nullability[i];
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Enforces the correct srid on incoming features.
 	 * 
@@ -473,7 +782,37 @@ public class HibernateLayer extends HibernateLayerUtil implements VectorLayer, V
 	}
 
 	/**
-	 * Bounds are calculated locally, can use any filter, but slower than native.
+	 * Bounds are calculated in the database using the spatial extent aggregate. This is only used when
+	 * {@link #isDbBoundsSupported()}.
+	 *
+	 * @param filter
+	 *            filter which needs to be applied
+	 * @return the bounds of the specified features, null when the database could not calculate the bounds
+	 * @throws LayerException
+	 *             oops
+	 */
+	private Envelope getBoundsDb(Filter filter) throws LayerException {
+		try {
+			Criteria criteria = createBoundsCriteria(filter);
+			criteria.setProjection(SpatialProjections.extent(getGeometryPropertyName()));
+			Object extent = criteria.uniqueResult();
+			if (null == extent) {
+				return new Envelope();
+			} else if (extent instanceof Geometry) {
+				return ((Geometry) extent).getEnvelopeInternal();
+			}
+			log.warn("Unexpected extent {} for layer {}, calculating bounds locally", extent, getId());
+			dbBoundsSupported = Boolean.FALSE;
+			return null;
+		} catch (HibernateException he) {
+			throw new HibernateLayerException(he, ExceptionCode.HIBERNATE_LOAD_FILTER_FAIL, getFeatureInfo()
+					.getDataSourceName(), filter.toString());
+		}
+	}
+
+	/**
+	 * Bounds are calculated locally, can use any filter, but slower than native. Only the geometries are read from
+	 * the database, the features themselves are not loaded.
 	 * 
 	 * @param filter
 	 *            filter which needs to be applied
@@ -483,20 +822,31 @@ public class HibernateLayer extends HibernateLayerUtil implements VectorLayer, V
 	 */
 	private Envelope getBoundsLocal(Filter filter) throws LayerException {
 		try {
-			Session session = getSessionFactory().getCurrentSession();
-			Criteria criteria = session.createCriteria(getFeatureInfo().getDataSourceName());
-			CriteriaVisitor visitor = new CriteriaVisitor((HibernateFeatureModel) getFeatureModel(), dateFormat);
-			Criterion c = (Criterion) filter.accept(visitor, criteria);
-			if (c != null) {
-				criteria.add(c);
-			}
-			criteria.setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY);
-			List<?> features = criteria.list();
+			Criteria criteria = createBoundsCriteria(filter);
 			Envelope bounds = new Envelope();
-			for (Object f : features) {
-				Envelope geomBounds = getFeatureModel().getGeometry(f).getEnvelopeInternal();
-				if (!geomBounds.isNull()) {
-					bounds.expandToInclude(geomBounds);
+			String geometryName = getGeometryPropertyName();
+			if (geometryName.contains(SEPARATOR)) {
+				// nested geometry, needs the features
+				criteria.setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY);
+				for (Object f : criteria.list()) {
+					expand(bounds, getFeatureModel().getGeometry(f));
+				}
+			} else {
+				// duplicate rows (because of joins) don't influence the bounds
+				criteria.setProjection(Projections.property(geometryName));
+				if (isScrollableResultSet()) {
+					ScrollableResults results = criteria.scroll(ScrollMode.FORWARD_ONLY);
+					try {
+						while (results.next()) {
+							expand(bounds, (Geometry) results.get(0));
+						}
+					} finally {
+						results.close();
+					}
+				} else {
+					for (Object geometry : criteria.list()) {
+						expand(bounds, (Geometry) geometry);
+					}
 				}
 			}
 			return bounds;
@@ -506,6 +856,63 @@ public class HibernateLayer extends HibernateLayerUtil implements VectorLayer, V
 		}
 	}
 
+	private Criteria createBoundsCriteria(Filter filter) {
+		Session session = getSessionFactory().getCurrentSession();
+		Criteria criteria = session.createCriteria(getFeatureInfo().getDataSourceName());
+		CriteriaVisitor visitor = new CriteriaVisitor((HibernateFeatureModel) getFeatureModel(), dateFormat);
+		Criterion c = (Criterion) filter.accept(visitor, criteria);
+		if (c != null) {
+			criteria.add(c);
+		}
+		return criteria;
+	}
+
+	private void expand(Envelope bounds, Geometry geometry) {
+		if (null != geometry) {
+			Envelope geomBounds = geometry.getEnvelopeInternal();
+			if (!geomBounds.isNull()) {
+				bounds.expandToInclude(geomBounds);
+			}
+		}
+	}
+
+	private String getGeometryPropertyName() {
+		return getFeatureInfo().getGeometryType().getName().replace(XPATH_SEPARATOR, SEPARATOR);
+	}
+
+	/**
+	 * Can the bounds be calculated in the database? This requires a spatial dialect which supports the extent
+	 * aggregate and a geometry which is mapped to a column (not a formula or nested property). The dialect is only
+	 * asked for the aggregate SQL, no query is executed, so a failure cannot break the current transaction.
+	 *
+	 * @return true when the bounds can be calculated in the database
+	 */
+	private boolean isDbBoundsSupported() {
+		Boolean supported = dbBoundsSupported;
+		if (null == supported) {
+			supported = Boolean.FALSE;
+			try {
+				Dialect dialect = ((SessionFactoryImplementor) getSessionFactory()).getDialect();
+				String geometryName = getGeometryPropertyName();
+				ClassMetadata metadata = getEntityMetadata();
+				if (dialect instanceof SpatialDialect && !geometryName.contains(SEPARATOR)
+						&& metadata instanceof AbstractEntityPersister) {
+					String[] columns = ((AbstractEntityPersister) metadata).getPropertyColumnNames(geometryName);
+					if (columns.length == 1 && null != columns[0]) {
+						((SpatialDialect) dialect).getSpatialAggregateSQL(columns[0], SpatialAggregate.EXTENT);
+						supported = Boolean.TRUE;
+					}
+				}
+			} catch (RuntimeException re) { // NOSONAR dialects throw various exceptions when not supported
+				log.debug("Bounds for layer {} cannot be calculated in the database: {}", getId(), re.getMessage());
+			} catch (HibernateLayerException hle) {
+				log.debug("Bounds for layer {} cannot be calculated in the database: {}", getId(), hle.getMessage());
+			}
+			dbBoundsSupported = supported;
+		}
+		return supported;
+	}
+
 	private Object getFeature(String featureId) throws HibernateLayerException {
 		Session session = getSessionFactory().getCurrentSession();
 		return session.get(getFeatureInfo().getDataSourceName(), (Serializable) ConvertUtils.convert(featureId,
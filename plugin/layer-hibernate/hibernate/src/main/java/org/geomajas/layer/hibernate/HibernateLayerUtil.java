@@ -127,6 +127,44 @@ class HibernateLayerUtil {
 		}
 	}
 
+	/**
+	 * Check whether a property path passes through a collection. Joining such a path can return the same feature more
+	 * than once.
+	 *
+	 * @param meta
+	 *            The parent class to search a property in.
+	 * @param propertyName
+	 *            The property path in the parent class (provided by meta)
+	 * @return true when any of the properties in the path is a collection
+	 * @throws HibernateLayerException
+	 *             Throws an exception if the property name could not be retrieved.
+	 */
+	protected boolean isCollectionPath(ClassMetadata meta, String propertyName) throws HibernateLayerException {
+		// try to assure the correct separator is used
+		propertyName = propertyName.replace(XPATH_SEPARATOR, SEPARATOR);
+
+		String directProperty = propertyName;
+		String rest = null;
+		if (propertyName.contains(SEPARATOR)) {
+			directProperty = propertyName.substring(0, propertyName.indexOf(SEPARATOR));
+			rest = propertyName.substring(propertyName.indexOf(SEPARATOR) + 1);
+		}
+		try {
+			Type prop = meta.getPropertyType(directProperty);
+			if (prop.isCollectionType()) {
+				return true;
+			}
+			if (null == rest) {
+				return false;
+			}
+			ClassMetadata propMeta = sessionFactory.getClassMetadata(prop.getReturnedClass());
+			return isCollectionPath(propMeta, rest);
+		} catch (HibernateException e) {
+			throw new HibernateLayerException(e, ExceptionCode.HIBERNATE_COULD_NOT_RESOLVE, propertyName,
+					meta.getEntityName());
+		}
+	}
+
 	/**
 	 * Return the Hibernate SessionFactory.
 	 * 
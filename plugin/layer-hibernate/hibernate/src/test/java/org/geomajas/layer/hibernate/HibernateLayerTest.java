@@ -11,6 +11,7 @@
 package org.geomajas.layer.hibernate;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -30,6 +31,10 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.opengis.filter.Filter;
 
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
 /**
  * Unit test that tests all the functions of the HibernateLayer.
  * 
@@ -100,13 +105,31 @@ public class HibernateLayerTest extends AbstractHibernateLayerModelTest {
 	}
 
 	@Test
-	public void testGetBounds() {
-		// TODO implement me
+	public void testGetBounds() throws Exception {
+		createBoundsFeatures();
+		Envelope bounds = layer.getBounds();
+		Assert.assertEquals(new Envelope(1, 20, 2, 30), bounds);
 	}
 
 	@Test
-	public void testGetBoundsFilter() {
-		// TODO implement me
+	public void testGetBoundsFilter() throws Exception {
+		createBoundsFeatures();
+		Envelope bounds = layer.getBounds(filterCreator.createCompareFilter(PARAM_INT_ATTR, ">", "15"));
+		Assert.assertEquals(new Envelope(10, 20, 10, 30), bounds);
+		bounds = layer.getBounds(filterCreator.createCompareFilter(PARAM_INT_ATTR, ">", "100"));
+		Assert.assertTrue(bounds.isNull());
+	}
+
+	private void createBoundsFeatures() throws Exception {
+		GeometryFactory factory = new GeometryFactory();
+		HibernateTestFeature f1 = HibernateTestFeature.getDefaultInstance1(null);
+		f1.setGeometry(factory.createPoint(new Coordinate(1, 2)));
+		layer.create(f1);
+		HibernateTestFeature f2 = HibernateTestFeature.getDefaultInstance2(null);
+		f2.setGeometry(factory.createLineString(new Coordinate[] {new Coordinate(10, 10), new Coordinate(20, 30)}));
+		layer.create(f2);
+		// feature without geometry is ignored
+		layer.create(HibernateTestFeature.getDefaultInstance3(null));
 	}
 
 	@Test
@@ -148,6 +171,76 @@ public class HibernateLayerTest extends AbstractHibernateLayerModelTest {
 		Assert.assertEquals(expected, actual);
 	}
 
+	@Test
+	public void testPaging() throws Exception {
+		HibernateTestFeature f1 = (HibernateTestFeature) layer.create(HibernateTestFeature.getDefaultInstance1(null));
+		HibernateTestFeature f2 = (HibernateTestFeature) layer.create(HibernateTestFeature.getDefaultInstance2(null));
+		layer.create(HibernateTestFeature.getDefaultInstance3(null));
+		// sorted descending on textAttr
+		Iterator<?> iterator = layer.getElements(null, 1, 1);
+		Assert.assertTrue(iterator.hasNext());
+		Assert.assertEquals(f2, iterator.next());
+		Assert.assertFalse(iterator.hasNext());
+
+		iterator = layer.getElements(null, 1, 0);
+		Assert.assertEquals(f2, iterator.next());
+		Assert.assertEquals(f1, iterator.next());
+		Assert.assertFalse(iterator.hasNext());
+
+		iterator = scrollableResultSetLayer.getElements(null, 2, 5);
+		Assert.assertEquals(f1, iterator.next());
+		Assert.assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void testKeysetPaging() throws Exception {
+		HibernateLayer hibernateLayer = (HibernateLayer) layer;
+		String sortName = hibernateLayer.getLayerInfo().getFeatureInfo().getSortAttributeName();
+		hibernateLayer.setKeysetPaging(true);
+		try {
+			// sorted ascending on id
+			hibernateLayer.getLayerInfo().getFeatureInfo().setSortAttributeName(null);
+			HibernateTestFeature f1 = (HibernateTestFeature) layer.create(HibernateTestFeature
+					.getDefaultInstance1(null));
+			HibernateTestFeature f2 = (HibernateTestFeature) layer.create(HibernateTestFeature
+					.getDefaultInstance2(null));
+			HibernateTestFeature f3 = (HibernateTestFeature) layer.create(HibernateTestFeature
+					.getDefaultInstance3(null));
+			Assert.assertEquals(Arrays.asList(f1, f2), toList(layer.getElements(null, 0, 2)));
+			Assert.assertEquals(Arrays.asList(f3), toList(layer.getElements(null, 2, 2)));
+			// insert between pages, the next page should include the new feature
+			HibernateTestFeature f4 = (HibernateTestFeature) layer.create(HibernateTestFeature
+					.getDefaultInstance1(null));
+			Assert.assertEquals(Arrays.asList(f3, f4), toList(layer.getElements(null, 2, 2)));
+			// delete between pages, the pages should neither overlap nor skip features
+			layer.delete(f1.getId().toString());
+			Assert.assertEquals(Arrays.asList(f2, f3), toList(layer.getElements(null, 0, 2)));
+			Assert.assertEquals(Arrays.asList(f4), toList(layer.getElements(null, 2, 2)));
+
+			// nullable sort attribute, features without value should not be skipped
+			hibernateLayer.getLayerInfo().getFeatureInfo().setSortAttributeName(sortName);
+			HibernateTestFeature noText = HibernateTestFeature.getDefaultInstance1(null);
+			noText.setTextAttr(null);
+			noText = (HibernateTestFeature) layer.create(noText);
+			List<Object> all = toList(layer.getElements(null, 0, 2));
+			all.addAll(toList(layer.getElements(null, 2, 2)));
+			all.addAll(toList(layer.getElements(null, 4, 2)));
+			Assert.assertEquals(4, all.size());
+			Assert.assertTrue(all.containsAll(Arrays.asList(f2, f3, f4, noText)));
+		} finally {
+			hibernateLayer.setKeysetPaging(false);
+			hibernateLayer.getLayerInfo().getFeatureInfo().setSortAttributeName(sortName);
+		}
+	}
+
+	private List<Object> toList(Iterator<?> iterator) {
+		List<Object> list = new ArrayList<Object>();
+		while (iterator.hasNext()) {
+			list.add(iterator.next());
+		}
+		return list;
+	}
+
 	@Test
 	public void testScrollableResultSet() throws Exception {
 		// @todo this is arguably not a good unittest, there is no certainty a scrollable resultset is actually used
@@ -31,6 +31,7 @@ import org.geomajas.global.ExceptionCode;
 import org.geomajas.layer.LayerException;
 import org.geomajas.layer.RasterLayer;
 import org.geomajas.layer.common.proxy.LayerHttpService;
+import org.geomajas.layer.common.proxy.ProxyStreamUtil;
 import org.geomajas.layer.tms.TmsLayer;
 import org.geomajas.layer.tms.tile.TileMapUrlBuilder;
 import org.geomajas.security.SecurityContext;
@@ -94,10 +95,7 @@ public class TmsProxyController {
 			response.setContentType("image/" + layer.getExtension());
 			ServletOutputStream out = response.getOutputStream();
 			stream = httpService.getStream(url, layer);
-			int b;
-			while ((b = stream.read()) >= 0 ) {
-				out.write(b);
-			}			
+			ProxyStreamUtil.copy(stream, out);
 		} catch (Exception e) { // NOSONAR
 			log.error("Cannot get original TMS image", e);
 			// Create an error image to make the reason for the error visible:
@@ -31,6 +31,7 @@ import org.geomajas.global.ExceptionCode;
 import org.geomajas.layer.LayerException;
 import org.geomajas.layer.RasterLayer;
 import org.geomajas.layer.common.proxy.LayerHttpService;
+import org.geomajas.layer.common.proxy.ProxyStreamUtil;
 import org.geomajas.layer.wms.WmsLayer;
 import org.geomajas.security.SecurityContext;
 import org.geomajas.service.ConfigurationService;
@@ -96,10 +97,7 @@ public class WmsProxyController {
 			}
 			ServletOutputStream out = response.getOutputStream();
 			stream = httpService.getStream(url, layer);
-			int b;
-			while ((b = stream.read()) >= 0 ) {
-				out.write(b);
-			}						
+			ProxyStreamUtil.copy(stream, out);
 		} catch (Exception e) { // NOSONAR
 			log.error("Cannot get original WMS image", e);
 			// Create an error image to make the reason for the error visible:
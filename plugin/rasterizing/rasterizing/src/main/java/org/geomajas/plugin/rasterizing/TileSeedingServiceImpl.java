@@ -0,0 +1,538 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.rasterizing;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.geomajas.geometry.Bbox;
+import org.geomajas.geometry.Coordinate;
+import org.geomajas.geometry.service.BboxService;
+import org.geomajas.global.ExceptionCode;
+import org.geomajas.global.GeomajasException;
+import org.geomajas.layer.VectorLayer;
+import org.geomajas.plugin.rasterizing.api.RasterizingContainer;
+import org.geomajas.plugin.rasterizing.api.TileSeedingJob;
+import org.geomajas.plugin.rasterizing.api.TileSeedingService;
+import org.geomajas.plugin.rasterizing.command.dto.TileSeedingInfo;
+import org.geomajas.plugin.rasterizing.layer.tile.TmsTileMetadata;
+import org.geomajas.security.GeomajasSecurityException;
+import org.geomajas.security.SecurityContext;
+import org.geomajas.security.SecurityManager;
+import org.geomajas.service.ConfigurationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default implementation of {@link TileSeedingService}.
+ * <p/>
+ * Jobs are handled one at a time. The tiles of a job are rendered in parallel on a fixed number of threads. The load
+ * on the backend can be limited further using a maximum number of tiles per second and a pause factor (each rendering
+ * thread pauses for the rendering time multiplied by this factor, so slower backends automatically get fewer
+ * requests).
+ * <p/>
+ * The seeds which are configured are started when the application context is refreshed, using an anonymous security
+ * context. Jobs started through {@link #seed(TileSeedingInfo)} use the token of the caller for their entire run and
+ * are cancelled when that token is no longer valid. Jobs are limited to a maximum tile level and number of tiles.
+ *
+ * @author Joachim Van der Auwera
+ */
+@Component
+public class TileSeedingServiceImpl implements TileSeedingService, ApplicationListener<ContextRefreshedEvent> {
+
+	private static final int DEFAULT_THREADS = 2;
+
+	private static final int DEFAULT_MAX_LEVEL = 18;
+
+	private static final long DEFAULT_MAX_TILES = 1000000;
+
+	private static final int MAX_FINISHED_JOBS = 100;
+
+	private static final long PROGRESS_INTERVAL = 10000; // ms
+
+	private static final double NANOS_PER_SECOND = 1e9;
+
+	private static final double EPSILON = 1e-6;
+
+	private final Logger log = LoggerFactory.getLogger(TileSeedingServiceImpl.class);
+
+	@Autowired
+	private TmsTileRenderer tileRenderer;
+
+	@Autowired
+	private ConfigurationService configurationService;
+
+	@Autowired
+	private SecurityManager securityManager;
+
+	@Autowired
+	private SecurityContext securityContext;
+
+	private int threads = DEFAULT_THREADS;
+
+	private double maxTilesPerSecond;
+
+	private double pauseFactor;
+
+	private int maxLevel = DEFAULT_MAX_LEVEL;
+
+	private long maxTiles = DEFAULT_MAX_TILES;
+
+	private List<TileSeedingInfo> seeds = new ArrayList<TileSeedingInfo>();
+
+	private final Map<String, SeedingJob> jobs = new LinkedHashMap<String, SeedingJob>();
+
+	private final AtomicBoolean seedsStarted = new AtomicBoolean();
+
+	private ExecutorService jobExecutor;
+
+	private ExecutorService tileExecutor;
+
+	/**
+	 * Set the number of threads which are used to render tiles. Defaults to 2.
+	 *
+	 * @param threads number of rendering threads
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Set the maximum number of tiles which are rendered per second. Defaults to 0 (no limit).
+	 *
+	 * @param maxTilesPerSecond maximum number of tiles per second
+	 */
+	public void setMaxTilesPerSecond(double maxTilesPerSecond) {
+		this.maxTilesPerSecond = maxTilesPerSecond;
+	}
+
+	/**
+	 * Set the pause factor. After rendering a tile, the rendering thread pauses for the rendering time multiplied by
+	 * this factor. Defaults to 0 (no pause).
+	 *
+	 * @param pauseFactor pause factor
+	 */
+	public void setPauseFactor(double pauseFactor) {
+		this.pauseFactor = pauseFactor;
+	}
+
+	/**
+	 * Set the highest tile level which can be seeded. Defaults to 18.
+	 *
+	 * @param maxLevel maximum tile level
+	 */
+	public void setMaxLevel(int maxLevel) {
+		this.maxLevel = maxLevel;
+	}
+
+	/**
+	 * Set the maximum number of tiles in a seeding job. Defaults to 1000000.
+	 *
+	 * @param maxTiles maximum number of tiles per job
+	 */
+	public void setMaxTiles(long maxTiles) {
+		this.maxTiles = maxTiles;
+	}
+
+	/**
+	 * Set the seeds which are started when the application is started.
+	 *
+	 * @param seeds seeds to start
+	 */
+	public void setSeeds(List<TileSeedingInfo> seeds) {
+		this.seeds = seeds;
+	}
+
+	/**
+	 * Start the configured seeds once the application context is ready.
+	 *
+	 * @param event context refreshed event
+	 */
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		if (!seeds.isEmpty() && seedsStarted.compareAndSet(false, true)) {
+			for (TileSeedingInfo info : seeds) {
+				try {
+					start(info, null);
+				} catch (GeomajasException ge) {
+					log.error("Could not start seeding " + info, ge);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stop all seeding jobs.
+	 */
+	@PreDestroy
+	protected synchronized void shutdown() {
+		if (null != jobExecutor) {
+			for (SeedingJob job : jobs.values()) {
+				job.cancel();
+			}
+			jobExecutor.shutdownNow();
+			tileExecutor.shutdownNow();
+		}
+	}
+
+	@Override
+	public TileSeedingJob seed(TileSeedingInfo info) throws GeomajasException {
+		checkAuthorized();
+		if (null != info.getLayerId() && !securityContext.isLayerVisible(info.getLayerId())) {
+			throw new GeomajasSecurityException(ExceptionCode.LAYER_NOT_VISIBLE, info.getLayerId(),
+					securityContext.getUserId());
+		}
+		return start(info, securityContext.getToken());
+	}
+
+	@Override
+	public TileSeedingJob getJob(String id) throws GeomajasException {
+		checkAuthorized();
+		synchronized (this) {
+			return jobs.get(id);
+		}
+	}
+
+	@Override
+	public List<TileSeedingJob> getJobs() throws GeomajasException {
+		checkAuthorized();
+		synchronized (this) {
+			return new ArrayList<TileSeedingJob>(jobs.values());
+		}
+	}
+
+	private void checkAuthorized() throws GeomajasSecurityException {
+		if (!securityContext.isToolAuthorized(SEED_TOOL)) {
+			throw new GeomajasSecurityException(ExceptionCode.COMMAND_ACCESS_DENIED, SEED_TOOL,
+					securityContext.getUserId());
+		}
+	}
+
+	private TileSeedingJob start(TileSeedingInfo info, String token) throws GeomajasException {
+		if (null == info.getLayerId()) {
+			throw new GeomajasException(ExceptionCode.PARAMETER_MISSING, "layerId");
+		}
+		if (null == info.getCrs()) {
+			throw new GeomajasException(ExceptionCode.PARAMETER_MISSING, "crs");
+		}
+		if (info.getMinLevel() < 0 || info.getMaxLevel() < info.getMinLevel() || info.getMaxLevel() > maxLevel) {
+			throw new GeomajasException(ExceptionCode.PARAMETER_INVALID_VALUE, "maxLevel");
+		}
+		VectorLayer layer = configurationService.getVectorLayer(info.getLayerId());
+		if (null == layer) {
+			throw new GeomajasException(ExceptionCode.VECTOR_LAYER_NOT_FOUND, info.getLayerId());
+		}
+		String styleKey = info.getStyleKey();
+		if (null == styleKey && !layer.getLayerInfo().getNamedStyleInfos().isEmpty()) {
+			styleKey = layer.getLayerInfo().getNamedStyleInfos().get(0).getName();
+		}
+		Bbox maxExtent = layer.getLayerInfo().getMaxExtent();
+		final SeedingJob job = new SeedingJob(info, token, styleKey, maxExtent);
+		if (job.getTileCount() > maxTiles) {
+			log.warn("Seeding {} refused, {} tiles exceeds the maximum of {}",
+					new Object[] {info, job.getTileCount(), maxTiles});
+			throw new GeomajasException(ExceptionCode.PARAMETER_INVALID_VALUE, "maxLevel");
+		}
+		synchronized (this) {
+			removeFinishedJobs();
+			jobs.put(job.getId(), job);
+			if (null == jobExecutor) {
+				jobExecutor = Executors.newSingleThreadExecutor(new SeedingThreadFactory("tile-seeding-job-"));
+				tileExecutor = Executors.newFixedThreadPool(threads, new SeedingThreadFactory("tile-seeding-"));
+			}
+			jobExecutor.execute(new Runnable() {
+
+				public void run() {
+					runJob(job);
+				}
+			});
+		}
+		log.info("Seeding job {} queued, {} tiles for {}", new Object[] {job.getId(), job.getTileCount(), info});
+		return job;
+	}
+
+	private void removeFinishedJobs() {
+		Iterator<SeedingJob> iterator = jobs.values().iterator();
+		while (jobs.size() >= MAX_FINISHED_JOBS && iterator.hasNext()) {
+			if (iterator.next().isDone()) {
+				iterator.remove();
+			}
+		}
+	}
+
+	private void runJob(final SeedingJob job) {
+		int maxPending = threads * 2;
+		Semaphore pending = new Semaphore(maxPending);
+		long interval = maxTilesPerSecond > 0 ? (long) (NANOS_PER_SECOND / maxTilesPerSecond) : 0;
+		long next = System.nanoTime();
+		long nextReport = System.currentTimeMillis() + PROGRESS_INTERVAL;
+		job.start();
+		try {
+			TileSeedingInfo info = job.getInfo();
+			for (int level = info.getMinLevel(); level <= info.getMaxLevel() && !job.cancelled; level++) {
+				int[] range = job.getRange(level);
+				for (int x = range[0]; x <= range[2] && !job.cancelled; x++) {
+					for (int y = range[1]; y <= range[3] && !job.cancelled; y++) {
+						if (interval > 0) {
+							next = Math.max(next + interval, System.nanoTime());
+							TimeUnit.NANOSECONDS.sleep(next - System.nanoTime());
+						}
+						pending.acquire();
+						final int tileLevel = level;
+						final int tileX = x;
+						final int tileY = y;
+						final Semaphore release = pending;
+						tileExecutor.execute(new Runnable() {
+
+							public void run() {
+								try {
+									seedTile(job, tileLevel, tileX, tileY);
+								} finally {
+									release.release();
+								}
+							}
+						});
+						if (System.currentTimeMillis() > nextReport) {
+							logProgress(job);
+							nextReport = System.currentTimeMillis() + PROGRESS_INTERVAL;
+						}
+					}
+				}
+			}
+			// wait for the last tiles
+			pending.acquire(maxPending);
+		} catch (InterruptedException ie) {
+			job.cancel();
+			Thread.currentThread().interrupt();
+		} finally {
+			job.finish();
+			logProgress(job);
+		}
+	}
+
+	private void seedTile(SeedingJob job, int level, int x, int y) {
+		if (job.cancelled) {
+			return;
+		}
+		long start = System.nanoTime();
+		try {
+			if (!securityManager.createSecurityContext(job.token)) {
+				if (!job.cancelled) {
+					log.warn("Seeding job {} cancelled, token is no longer valid", job.getId());
+					job.cancel();
+				}
+				return;
+			}
+			TileSeedingInfo info = job.getInfo();
+			TmsTileMetadata tileMetadata = tileRenderer.createMetadata(info.getLayerId(), job.styleKey,
+					info.getCrs(), level, x, y, null, null, info.getTileWidth(), info.getTileHeight(),
+					info.isPaintGeometries(), info.isPaintLabels(), null);
+			String key = tileRenderer.prepare(tileMetadata);
+			if (tileRenderer.isCached(info.getLayerId(), key)) {
+				job.skipped.incrementAndGet();
+			} else {
+				RasterizingContainer container = tileRenderer.getImage(info.getLayerId(), key);
+				if (null == container) {
+					job.failed.incrementAndGet();
+				} else {
+					job.rendered.incrementAndGet();
+				}
+				pause(System.nanoTime() - start);
+			}
+		} catch (Exception e) { // NOSONAR continue with the other tiles
+			job.failed.incrementAndGet();
+			log.warn("Seeding job " + job.getId() + " could not render tile " + level + "/" + x + "/" + y, e);
+		} finally {
+			securityManager.clearSecurityContext();
+		}
+	}
+
+	private void pause(long renderNanos) {
+		if (pauseFactor > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep((long) (renderNanos * pauseFactor));
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void logProgress(SeedingJob job) {
+		log.info("Seeding job {} {}: {} of {} tiles done ({} rendered, {} cached, {} failed), {} tiles/s",
+				new Object[] {job.getId(), job.isDone() ? "finished" : "running",
+						job.getRenderedCount() + job.getSkippedCount() + job.getFailedCount(), job.getTileCount(),
+						job.getRenderedCount(), job.getSkippedCount(), job.getFailedCount(),
+						String.format("%.1f", job.getTilesPerSecond())});
+	}
+
+	/**
+	 * Seeding job state.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class SeedingJob implements TileSeedingJob {
+
+		private final String id = UUID.randomUUID().toString();
+
+		private final TileSeedingInfo info;
+
+		private final String token;
+
+		private final String styleKey;
+
+		private final Coordinate origin;
+
+		private final Bbox bounds;
+
+		private final double extentWidth;
+
+		private final long tileCount;
+
+		private final AtomicLong rendered = new AtomicLong();
+
+		private final AtomicLong skipped = new AtomicLong();
+
+		private final AtomicLong failed = new AtomicLong();
+
+		private volatile boolean cancelled;
+
+		private volatile boolean done;
+
+		private volatile long startTime;
+
+		private volatile long endTime;
+
+		private SeedingJob(TileSeedingInfo info, String token, String styleKey, Bbox maxExtent) {
+			this.info = info;
+			this.token = token;
+			this.styleKey = styleKey;
+			origin = BboxService.getOrigin(maxExtent);
+			bounds = null == info.getBounds() ? maxExtent : info.getBounds();
+			extentWidth = maxExtent.getWidth();
+			long count = 0;
+			for (int level = info.getMinLevel(); level <= info.getMaxLevel(); level++) {
+				int[] range = getRange(level);
+				count += (long) (range[2] - range[0] + 1) * (range[3] - range[1] + 1);
+			}
+			tileCount = count;
+		}
+
+		/**
+		 * Get the indexes of the tiles which cover the bounds at the given level.
+		 *
+		 * @param level tile level
+		 * @return min x, min y, max x, max y (inclusive)
+		 */
+		private int[] getRange(int level) {
+			double resolution = TmsTileRenderer.getResolution(info.getTileWidth(), level, extentWidth);
+			double tileWidth = resolution * info.getTileWidth();
+			double tileHeight = resolution * info.getTileHeight();
+			// allow for rounding errors, bounds which coincide with tile edges should not include an extra tile
+			int minX = Math.max(0, (int) Math.floor((bounds.getX() - origin.getX()) / tileWidth + EPSILON));
+			int minY = Math.max(0, (int) Math.floor((bounds.getY() - origin.getY()) / tileHeight + EPSILON));
+			int maxX = Math.max(minX, (int) Math.ceil((bounds.getMaxX() - origin.getX()) / tileWidth - EPSILON) - 1);
+			int maxY = Math.max(minY, (int) Math.ceil((bounds.getMaxY() - origin.getY()) / tileHeight - EPSILON) - 1);
+			return new int[] {minX, minY, maxX, maxY};
+		}
+
+		private void start() {
+			startTime = System.nanoTime();
+		}
+
+		private void finish() {
+			endTime = System.nanoTime();
+			done = true;
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public TileSeedingInfo getInfo() {
+			return info;
+		}
+
+		public long getTileCount() {
+			return tileCount;
+		}
+
+		public long getRenderedCount() {
+			return rendered.get();
+		}
+
+		public long getSkippedCount() {
+			return skipped.get();
+		}
+
+		public long getFailedCount() {
+			return failed.get();
+		}
+
+		public double getTilesPerSecond() {
+			long begin = startTime;
+			if (0 == begin) {
+				return 0;
+			}
+			long end = done ? endTime : System.nanoTime();
+			double seconds = (end - begin) / NANOS_PER_SECOND;
+			long processed = rendered.get() + skipped.get() + failed.get();
+			return seconds > 0 ? processed / seconds : 0;
+		}
+
+		public boolean isDone() {
+			return done;
+		}
+
+		public void cancel() {
+			cancelled = true;
+		}
+	}
+
+	/**
+	 * Thread factory for daemon threads with a recognisable name.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class SeedingThreadFactory implements ThreadFactory {
+
+		private final String prefix;
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		private SeedingThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,252 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.rasterizing;
+
+import org.geomajas.geometry.Coordinate;
+import org.geomajas.geometry.Crs;
+import org.geomajas.geometry.CrsTransform;
+import org.geomajas.geometry.service.BboxService;
+import org.geomajas.global.GeomajasException;
+import org.geomajas.internal.layer.tile.InternalTileImpl;
+import org.geomajas.layer.VectorLayer;
+import org.geomajas.layer.VectorLayerService;
+import org.geomajas.layer.pipeline.GetTileContainer;
+import org.geomajas.layer.tile.TileCode;
+import org.geomajas.layer.tile.TileMetadata;
+import org.geomajas.plugin.caching.service.CacheCategory;
+import org.geomajas.plugin.caching.service.CacheManagerService;
+import org.geomajas.plugin.caching.service.CachingSupportService;
+import org.geomajas.plugin.caching.service.CachingSupportServiceSecurityContextAdder;
+import org.geomajas.plugin.rasterizing.api.RasterizingContainer;
+import org.geomajas.plugin.rasterizing.api.RasterizingPipelineCode;
+import org.geomajas.plugin.rasterizing.layer.tile.TmsTileMetadata;
+import org.geomajas.plugin.rasterizing.step.RebuildCacheContainer;
+import org.geomajas.service.ConfigurationService;
+import org.geomajas.service.DtoConverterService;
+import org.geomajas.service.GeoService;
+import org.geomajas.service.StyleService;
+import org.geomajas.service.TestRecorder;
+import org.geomajas.service.pipeline.PipelineCode;
+import org.geomajas.service.pipeline.PipelineContext;
+import org.geomajas.service.pipeline.PipelineService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Renders TMS vector tiles using the rasterizing pipeline and the raster/rebuild caches. Used by the TMS controller
+ * and the tile seeding service.
+ *
+ * @author Jan De Moerloose
+ * @author Joachim Van der Auwera
+ */
+@Component
+public class TmsTileRenderer {
+
+	/** Renderer name for TMS tiles. */
+	public static final String TMS_TILE_RENDERER = "TmsTileRenderer";
+
+	private static final String[] KEYS = { PipelineCode.LAYER_ID_KEY, PipelineCode.TILE_METADATA_KEY };
+
+	private final Logger log = LoggerFactory.getLogger(TmsTileRenderer.class);
+
+	@Autowired
+	private PipelineService<GetTileContainer> pipelineService;
+
+	@Autowired
+	private ConfigurationService configurationService;
+
+	@Autowired
+	private CacheManagerService cacheManagerService;
+
+	@Autowired
+	private CachingSupportService cachingSupportService;
+
+	@Autowired
+	private CachingSupportServiceSecurityContextAdder securityContextAdder;
+
+	@Autowired
+	private DtoConverterService dtoConverterService;
+
+	@Autowired
+	private GeoService geoService;
+
+	@Autowired
+	private StyleService styleService;
+
+	@Autowired
+	private VectorLayerService layerService;
+
+	@Autowired
+	private TestRecorder recorder;
+
+	/**
+	 * Build the metadata for a TMS vector tile.
+	 *
+	 * @param layerId layer id
+	 * @param styleKey style key
+	 * @param crs crs, e.g. "EPSG:4326"
+	 * @param tileLevel tile level, 0 is highest level
+	 * @param xIndex x-index of tile
+	 * @param yIndex y-index of tile
+	 * @param resolution resolution (m/pixel), null to derive it from the tile level
+	 * @param tileOrigin origin of the tile configuration, null to use the origin of the layer extent
+	 * @param tileWidth tile width in pixels
+	 * @param tileHeight tile height in pixels
+	 * @param showGeometries should the tile contain the geometries?
+	 * @param showLabels should the tile contain the labels?
+	 * @param filter optional CQL filter on the features shown
+	 * @return tile metadata
+	 * @throws GeomajasException layer, style or crs not found
+	 */
+	public TmsTileMetadata createMetadata(String layerId, String styleKey, String crs, int tileLevel, int xIndex,
+			int yIndex, Double resolution, Coordinate tileOrigin, int tileWidth, int tileHeight,
+			boolean showGeometries, boolean showLabels, String filter) throws GeomajasException {
+		Crs tileCrs = geoService.getCrs2(crs);
+		VectorLayer layer = configurationService.getVectorLayer(layerId);
+		TmsTileMetadata tileMetadata = new TmsTileMetadata();
+		tileMetadata.setCode(new TileCode(tileLevel, xIndex, yIndex));
+		tileMetadata.setCrs(geoService.getCodeFromCrs(tileCrs));
+		tileMetadata.setLayerId(layerId);
+		tileMetadata.setPaintGeometries(showGeometries);
+		tileMetadata.setPaintLabels(showLabels);
+		tileMetadata.setRenderer(TMS_TILE_RENDERER);
+		// TmsTileMetadata specific
+		if (resolution == null) {
+			resolution = getResolution(tileWidth, tileLevel, layer.getLayerInfo().getMaxExtent().getWidth());
+		}
+		tileMetadata.setResolution(resolution);
+		if (tileOrigin == null) {
+			tileMetadata.setTileOrigin(BboxService.getOrigin(layer.getLayerInfo().getMaxExtent()));
+		} else {
+			tileMetadata.setTileOrigin(tileOrigin);
+		}
+		tileMetadata.setTileWidth(tileWidth);
+		tileMetadata.setTileHeight(tileHeight);
+		tileMetadata.setStyleInfo(styleService.retrieveStyle(layerId, styleKey));
+		tileMetadata.setFilter(filter);
+		return tileMetadata;
+	}
+
+	/**
+	 * Store the data needed to render the tile in the rebuild cache.
+	 *
+	 * @param tileMetadata tile metadata
+	 * @return key for the tile in the raster and rebuild caches
+	 * @throws GeomajasException oops
+	 */
+	public String prepare(TmsTileMetadata tileMetadata) throws GeomajasException {
+		RebuildCacheContainer rcc = new RebuildCacheContainer();
+		rcc.setMetadata(tileMetadata);
+		PipelineContext context = pipelineService.createContext();
+		context.put(PipelineCode.TILE_METADATA_KEY, tileMetadata);
+		context.put(PipelineCode.LAYER_ID_KEY, tileMetadata.getLayerId());
+		// store container to recover the key
+		cachingSupportService.putContainer(context, securityContextAdder, CacheCategory.REBUILD, KEYS,
+				RasterizingPipelineCode.IMAGE_ID_KEY, RasterizingPipelineCode.IMAGE_ID_CONTEXT, rcc, null);
+		return context.get(RasterizingPipelineCode.IMAGE_ID_KEY, String.class);
+	}
+
+	/**
+	 * Check whether the image for a tile is available in the raster cache.
+	 *
+	 * @param layerId layer id
+	 * @param key tile key
+	 * @return true when the image is cached
+	 */
+	public boolean isCached(String layerId, String key) {
+		VectorLayer layer = configurationService.getVectorLayer(layerId);
+		return null != cacheManagerService.get(layer, CacheCategory.RASTER, key, RasterizingContainer.class);
+	}
+
+	/**
+	 * Get the image for a tile, either from the raster cache or by rendering it using the rebuild information.
+	 *
+	 * @param layerId layer id
+	 * @param key tile key
+	 * @return container with the rendered image, null when the rebuild information is no longer available
+	 * @throws GeomajasException rendering failed
+	 */
+	public RasterizingContainer getImage(String layerId, String key) throws GeomajasException {
+		VectorLayer layer = configurationService.getVectorLayer(layerId);
+		RasterizingContainer rasterizeContainer = cacheManagerService.get(layer, CacheCategory.RASTER, key,
+				RasterizingContainer.class);
+		if (null != rasterizeContainer) {
+			recorder.record(CacheCategory.RASTER, "Got item from cache");
+			log.debug("Got item from cache: {}", key);
+			return rasterizeContainer;
+		}
+
+		// if not in cache, try the rebuild cache and invoke the pipeline directly
+		log.debug("Item not in cache, rebuilding: {}", key);
+		GetTileContainer tileContainer = new GetTileContainer();
+		PipelineContext context = pipelineService.createContext();
+		context.put(RasterizingPipelineCode.IMAGE_ID_KEY, key);
+		context.put(PipelineCode.LAYER_ID_KEY, layerId);
+		context.put(PipelineCode.LAYER_KEY, layer);
+
+		// get data from rebuild cache
+		RebuildCacheContainer rebuildCacheContainer = cacheManagerService.get(layer, CacheCategory.REBUILD,
+				key, RebuildCacheContainer.class);
+		if (null == rebuildCacheContainer) {
+			log.error("Data to rebuild the raster image is no longer available for key " + key);
+			return null;
+		}
+		recorder.record(CacheCategory.REBUILD, "Got rebuild info from cache");
+		TileMetadata tileMetadata = rebuildCacheContainer.getMetadata();
+		context.put(PipelineCode.TILE_METADATA_KEY, tileMetadata);
+		// can't stop here, we have only prepared the context, not built the tile !
+		InternalTileImpl tile = null;
+		if (tileMetadata.getRenderer().equals(TMS_TILE_RENDERER)) {
+			tile = new InternalTileImpl(tileMetadata.getCode(),
+					((TmsTileMetadata) tileMetadata).getTileOrigin(), tileMetadata.getScale(),
+					((TmsTileMetadata) tileMetadata).getTileWidth(),
+					((TmsTileMetadata) tileMetadata).getTileHeight());
+		} else {
+			tile = new InternalTileImpl(tileMetadata.getCode(), getLayerExtent(tileMetadata),
+					tileMetadata.getScale());
+		}
+		tileContainer.setTile(tile);
+		securityContextAdder.restoreSecurityContext(rebuildCacheContainer.getContext());
+		Crs crs = geoService.getCrs2(tileMetadata.getCrs());
+		context.put(PipelineCode.CRS_KEY, crs);
+		CrsTransform layerToMap = geoService.getCrsTransform(layer.getCrs(), crs);
+		context.put(PipelineCode.CRS_TRANSFORM_KEY, layerToMap);
+		pipelineService.execute(RasterizingPipelineCode.PIPELINE_GET_VECTOR_TILE_RASTERIZING, layerId, context,
+				tileContainer);
+		return context.get(RasterizingPipelineCode.CONTAINER_KEY, RasterizingContainer.class);
+	}
+
+	/**
+	 * Get the default resolution for a tile level, the layer extent is covered by one tile at level 0.
+	 *
+	 * @param tileWidth tile width in pixels
+	 * @param level tile level
+	 * @param width width of the layer extent
+	 * @return resolution (map units per pixel)
+	 */
+	public static double getResolution(int tileWidth, int level, double width) {
+		return width / (tileWidth * Math.pow(2, level));
+	}
+
+	private Envelope getLayerExtent(TileMetadata tileMetadata) throws GeomajasException {
+		VectorLayer layer = configurationService.getVectorLayer(tileMetadata.getLayerId());
+		Crs layerCrs = layerService.getCrs(layer);
+		Crs tileCrs = geoService.getCrs2(tileMetadata.getCrs());
+		CrsTransform layerToMap = geoService.getCrsTransform(layerCrs, tileCrs);
+		Envelope layerExtent = dtoConverterService.toInternal(layer.getLayerInfo().getMaxExtent());
+		return geoService.transform(layerExtent, layerToMap);
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.rasterizing.api;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.plugin.rasterizing.command.dto.TileSeedingInfo;
+
+/**
+ * Progress of a tile seeding job started by the {@link TileSeedingService}.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+public interface TileSeedingJob {
+
+	/**
+	 * Get the unique id of the job.
+	 *
+	 * @return job id
+	 */
+	String getId();
+
+	/**
+	 * Get the description of the tiles which are seeded.
+	 *
+	 * @return seeding info
+	 */
+	TileSeedingInfo getInfo();
+
+	/**
+	 * Get the total number of tiles in the job.
+	 *
+	 * @return number of tiles
+	 */
+	long getTileCount();
+
+	/**
+	 * Get the number of tiles which were rendered.
+	 *
+	 * @return number of rendered tiles
+	 */
+	long getRenderedCount();
+
+	/**
+	 * Get the number of tiles which were skipped because they were already cached.
+	 *
+	 * @return number of skipped tiles
+	 */
+	long getSkippedCount();
+
+	/**
+	 * Get the number of tiles which could not be rendered.
+	 *
+	 * @return number of failed tiles
+	 */
+	long getFailedCount();
+
+	/**
+	 * Get the average throughput since the job started.
+	 *
+	 * @return processed tiles per second
+	 */
+	double getTilesPerSecond();
+
+	/**
+	 * Is the job finished (completed or cancelled)?
+	 *
+	 * @return true when no more tiles will be processed
+	 */
+	boolean isDone();
+
+	/**
+	 * Cancel the job. Tiles which are being rendered are completed.
+	 */
+	void cancel();
+}
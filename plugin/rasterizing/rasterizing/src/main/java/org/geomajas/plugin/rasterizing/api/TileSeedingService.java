@@ -0,0 +1,68 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.rasterizing.api;
+
+import java.util.List;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.global.GeomajasException;
+import org.geomajas.plugin.rasterizing.command.dto.TileSeedingInfo;
+
+/**
+ * Service which renders TMS vector tiles in advance, filling the raster cache. This avoids slow responses for the
+ * first users after a restart or after the cache was invalidated.
+ * <p/>
+ * Tiles are only cached when the layer uses a rasterizing pipeline which includes caching. The cache entries include
+ * the security context, so the seeded tiles are only used for requests with the same authorizations as the seeding
+ * job.
+ * <p/>
+ * Seeding can put a heavy load on the backend, so the caller needs to be authorized for the {@link #SEED_TOOL} tool
+ * and the number of levels and tiles in a job is limited.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+public interface TileSeedingService {
+
+	/**
+	 * Tool id for which the caller needs to be authorized to seed tiles or follow seeding jobs.
+	 */
+	String SEED_TOOL = "rasterizing.SeedTiles";
+
+	/**
+	 * Start seeding the tiles. The job runs in the background using the token of the current security context. The
+	 * token is used for the entire run of the job, when it expires or the user logs out, the job is cancelled.
+	 *
+	 * @param info tiles to render
+	 * @return job, allows following the progress
+	 * @throws GeomajasException invalid seeding info, too many tiles or not authorized
+	 */
+	TileSeedingJob seed(TileSeedingInfo info) throws GeomajasException;
+
+	/**
+	 * Get a seeding job.
+	 *
+	 * @param id job id
+	 * @return job or null when not known
+	 * @throws GeomajasException not authorized
+	 */
+	TileSeedingJob getJob(String id) throws GeomajasException;
+
+	/**
+	 * Get all jobs which are known by the service (both active and finished).
+	 *
+	 * @return seeding jobs
+	 * @throws GeomajasException not authorized
+	 */
+	List<TileSeedingJob> getJobs() throws GeomajasException;
+}
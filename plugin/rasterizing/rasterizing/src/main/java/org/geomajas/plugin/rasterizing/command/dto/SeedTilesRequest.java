@@ -0,0 +1,93 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.rasterizing.command.dto;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.command.CommandRequest;
+
+/**
+ * Request object for the {@link org.geomajas.plugin.rasterizing.command.rasterizing.SeedTilesCommand}. Either starts
+ * a new seeding job (when the seeding info is set), gets the progress of an existing job or cancels it.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+public class SeedTilesRequest implements CommandRequest {
+
+	private static final long serialVersionUID = 1180L;
+
+	/**
+	 * Command name to handle the request.
+	 */
+	public static final String COMMAND = "command.rasterizing.SeedTiles";
+
+	private TileSeedingInfo seedingInfo;
+
+	private String jobId;
+
+	private boolean cancel;
+
+	/**
+	 * Get the description of the tiles to seed.
+	 *
+	 * @return seeding info
+	 */
+	public TileSeedingInfo getSeedingInfo() {
+		return seedingInfo;
+	}
+
+	/**
+	 * Set the description of the tiles to seed. This starts a new seeding job.
+	 *
+	 * @param seedingInfo seeding info
+	 */
+	public void setSeedingInfo(TileSeedingInfo seedingInfo) {
+		this.seedingInfo = seedingInfo;
+	}
+
+	/**
+	 * Get the id of the job for which the progress is requested.
+	 *
+	 * @return job id
+	 */
+	public String getJobId() {
+		return jobId;
+	}
+
+	/**
+	 * Set the id of the job for which the progress is requested.
+	 *
+	 * @param jobId job id
+	 */
+	public void setJobId(String jobId) {
+		this.jobId = jobId;
+	}
+
+	/**
+	 * Should the job be cancelled?
+	 *
+	 * @return true when the job should be cancelled
+	 */
+	public boolean isCancel() {
+		return cancel;
+	}
+
+	/**
+	 * Set whether the job with the given id should be cancelled.
+	 *
+	 * @param cancel true to cancel the job
+	 */
+	public void setCancel(boolean cancel) {
+		this.cancel = cancel;
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.rasterizing.command.dto;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.command.CommandResponse;
+
+/**
+ * Response object for the {@link org.geomajas.plugin.rasterizing.command.rasterizing.SeedTilesCommand}, contains the
+ * progress of the seeding job.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+public class SeedTilesResponse extends CommandResponse {
+
+	private static final long serialVersionUID = 1180L;
+
+	private String jobId;
+
+	private long tileCount;
+
+	private long renderedCount;
+
+	private long skippedCount;
+
+	private long failedCount;
+
+	private double tilesPerSecond;
+
+	private boolean done;
+
+	/**
+	 * Get the id of the seeding job.
+	 *
+	 * @return job id
+	 */
+	public String getJobId() {
+		return jobId;
+	}
+
+	/**
+	 * Set the id of the seeding job.
+	 *
+	 * @param jobId job id
+	 */
+	public void setJobId(String jobId) {
+		this.jobId = jobId;
+	}
+
+	/**
+	 * Get the total number of tiles in the job.
+	 *
+	 * @return number of tiles
+	 */
+	public long getTileCount() {
+		return tileCount;
+	}
+
+	/**
+	 * Set the total number of tiles in the job.
+	 *
+	 * @param tileCount number of tiles
+	 */
+	public void setTileCount(long tileCount) {
+		this.tileCount = tileCount;
+	}
+
+	/**
+	 * Get the number of tiles which were rendered.
+	 *
+	 * @return number of rendered tiles
+	 */
+	public long getRenderedCount() {
+		return renderedCount;
+	}
+
+	/**
+	 * Set the number of tiles which were rendered.
+	 *
+	 * @param renderedCount number of rendered tiles
+	 */
+	public void setRenderedCount(long renderedCount) {
+		this.renderedCount = renderedCount;
+	}
+
+	/**
+	 * Get the number of tiles which were skipped because they were already cached.
+	 *
+	 * @return number of skipped tiles
+	 */
+	public long getSkippedCount() {
+		return skippedCount;
+	}
+
+	/**
+	 * Set the number of tiles which were skipped because they were already cached.
+	 *
+	 * @param skippedCount number of skipped tiles
+	 */
+	public void setSkippedCount(long skippedCount) {
+		this.skippedCount = skippedCount;
+	}
+
+	/**
+	 * Get the number of tiles which could not be rendered.
+	 *
+	 * @return number of failed tiles
+	 */
+	public long getFailedCount() {
+		return failedCount;
+	}
+
+	/**
+	 * Set the number of tiles which could not be rendered.
+	 *
+	 * @param failedCount number of failed tiles
+	 */
+	public void setFailedCount(long failedCount) {
+		this.failedCount = failedCount;
+	}
+
+	/**
+	 * Get the average throughput of the job.
+	 *
+	 * @return processed tiles per second
+	 */
+	public double getTilesPerSecond() {
+		return tilesPerSecond;
+	}
+
+	/**
+	 * Set the average throughput of the job.
+	 *
+	 * @param tilesPerSecond processed tiles per second
+	 */
+	public void setTilesPerSecond(double tilesPerSecond) {
+		this.tilesPerSecond = tilesPerSecond;
+	}
+
+	/**
+	 * Get whether the job is finished.
+	 *
+	 * @return true when the job is finished
+	 */
+	public boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * Set whether the job is finished.
+	 *
+	 * @param done true when the job is finished
+	 */
+	public void setDone(boolean done) {
+		this.done = done;
+	}
+}
@@ -0,0 +1,238 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.rasterizing.command.dto;
+
+import java.io.Serializable;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.geometry.Bbox;
+
+/**
+ * Description of the TMS vector tiles which need to be rendered in advance to fill the raster cache. The tiles use the
+ * default TMS tile configuration of the layer (origin at the corner of the layer extent, one tile at level 0).
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+public class TileSeedingInfo implements Serializable {
+
+	private static final long serialVersionUID = 1180L;
+
+	private static final int DEFAULT_TILE_SIZE = 512;
+
+	private String layerId;
+
+	private String styleKey;
+
+	private String crs;
+
+	private Bbox bounds;
+
+	private int minLevel;
+
+	private int maxLevel;
+
+	private int tileWidth = DEFAULT_TILE_SIZE;
+
+	private int tileHeight = DEFAULT_TILE_SIZE;
+
+	private boolean paintGeometries = true;
+
+	private boolean paintLabels;
+
+	/**
+	 * Get the id of the vector layer for which tiles are rendered.
+	 *
+	 * @return layer id
+	 */
+	public String getLayerId() {
+		return layerId;
+	}
+
+	/**
+	 * Set the id of the vector layer for which tiles are rendered.
+	 *
+	 * @param layerId layer id
+	 */
+	public void setLayerId(String layerId) {
+		this.layerId = layerId;
+	}
+
+	/**
+	 * Get the style key, null to use the default style of the layer.
+	 *
+	 * @return style key
+	 */
+	public String getStyleKey() {
+		return styleKey;
+	}
+
+	/**
+	 * Set the style key, null to use the default style of the layer.
+	 *
+	 * @param styleKey style key
+	 */
+	public void setStyleKey(String styleKey) {
+		this.styleKey = styleKey;
+	}
+
+	/**
+	 * Get the crs of the tiles, e.g. "EPSG:4326".
+	 *
+	 * @return crs
+	 */
+	public String getCrs() {
+		return crs;
+	}
+
+	/**
+	 * Set the crs of the tiles, e.g. "EPSG:4326".
+	 *
+	 * @param crs crs
+	 */
+	public void setCrs(String crs) {
+		this.crs = crs;
+	}
+
+	/**
+	 * Get the area for which tiles are rendered (in tile crs). When null, the layer extent is used.
+	 *
+	 * @return area to render
+	 */
+	public Bbox getBounds() {
+		return bounds;
+	}
+
+	/**
+	 * Set the area for which tiles are rendered (in tile crs). When null, the layer extent is used.
+	 *
+	 * @param bounds area to render
+	 */
+	public void setBounds(Bbox bounds) {
+		this.bounds = bounds;
+	}
+
+	/**
+	 * Get the first tile level to render.
+	 *
+	 * @return minimum tile level
+	 */
+	public int getMinLevel() {
+		return minLevel;
+	}
+
+	/**
+	 * Set the first tile level to render.
+	 *
+	 * @param minLevel minimum tile level
+	 */
+	public void setMinLevel(int minLevel) {
+		this.minLevel = minLevel;
+	}
+
+	/**
+	 * Get the last tile level to render (inclusive).
+	 *
+	 * @return maximum tile level
+	 */
+	public int getMaxLevel() {
+		return maxLevel;
+	}
+
+	/**
+	 * Set the last tile level to render (inclusive).
+	 *
+	 * @param maxLevel maximum tile level
+	 */
+	public void setMaxLevel(int maxLevel) {
+		this.maxLevel = maxLevel;
+	}
+
+	/**
+	 * Get the tile width in pixels. Defaults to 512.
+	 *
+	 * @return tile width
+	 */
+	public int getTileWidth() {
+		return tileWidth;
+	}
+
+	/**
+	 * Set the tile width in pixels. Defaults to 512.
+	 *
+	 * @param tileWidth tile width
+	 */
+	public void setTileWidth(int tileWidth) {
+		this.tileWidth = tileWidth;
+	}
+
+	/**
+	 * Get the tile height in pixels. Defaults to 512.
+	 *
+	 * @return tile height
+	 */
+	public int getTileHeight() {
+		return tileHeight;
+	}
+
+	/**
+	 * Set the tile height in pixels. Defaults to 512.
+	 *
+	 * @param tileHeight tile height
+	 */
+	public void setTileHeight(int tileHeight) {
+		this.tileHeight = tileHeight;
+	}
+
+	/**
+	 * Should the tiles contain the geometries? Defaults to true.
+	 *
+	 * @return true when geometries are painted
+	 */
+	public boolean isPaintGeometries() {
+		return paintGeometries;
+	}
+
+	/**
+	 * Set whether the tiles should contain the geometries. Defaults to true.
+	 *
+	 * @param paintGeometries true when geometries should be painted
+	 */
+	public void setPaintGeometries(boolean paintGeometries) {
+		this.paintGeometries = paintGeometries;
+	}
+
+	/**
+	 * Should the tiles contain the labels? Defaults to false.
+	 *
+	 * @return true when labels are painted
+	 */
+	public boolean isPaintLabels() {
+		return paintLabels;
+	}
+
+	/**
+	 * Set whether the tiles should contain the labels. Defaults to false.
+	 *
+	 * @param paintLabels true when labels should be painted
+	 */
+	public void setPaintLabels(boolean paintLabels) {
+		this.paintLabels = paintLabels;
+	}
+
+	@Override
+	public String toString() {
+		return "TileSeedingInfo{layerId='" + layerId + "', styleKey='" + styleKey + "', crs='" + crs + "', bounds="
+				+ bounds + ", levels=" + minLevel + "-" + maxLevel + "}";
+	}
+}
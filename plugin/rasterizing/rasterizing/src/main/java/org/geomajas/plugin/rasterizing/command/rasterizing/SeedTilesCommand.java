@@ -0,0 +1,66 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.rasterizing.command.rasterizing;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.command.Command;
+import org.geomajas.global.ExceptionCode;
+import org.geomajas.global.GeomajasException;
+import org.geomajas.plugin.rasterizing.api.TileSeedingJob;
+import org.geomajas.plugin.rasterizing.api.TileSeedingService;
+import org.geomajas.plugin.rasterizing.command.dto.SeedTilesRequest;
+import org.geomajas.plugin.rasterizing.command.dto.SeedTilesResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command that starts seeding the raster cache for a layer, or returns the progress of a seeding job or cancels it.
+ * The caller needs to be authorized for the {@link TileSeedingService#SEED_TOOL} tool.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api
+@Component
+public class SeedTilesCommand implements Command<SeedTilesRequest, SeedTilesResponse> {
+
+	@Autowired
+	private TileSeedingService tileSeedingService;
+
+	public void execute(SeedTilesRequest request, SeedTilesResponse response) throws Exception {
+		TileSeedingJob job;
+		if (null != request.getSeedingInfo()) {
+			job = tileSeedingService.seed(request.getSeedingInfo());
+		} else if (null != request.getJobId()) {
+			job = tileSeedingService.getJob(request.getJobId());
+			if (null == job) {
+				throw new GeomajasException(ExceptionCode.PARAMETER_INVALID_VALUE, "jobId");
+			}
+			if (request.isCancel()) {
+				job.cancel();
+			}
+		} else {
+			throw new GeomajasException(ExceptionCode.PARAMETER_MISSING, "seedingInfo");
+		}
+		response.setJobId(job.getId());
+		response.setTileCount(job.getTileCount());
+		response.setRenderedCount(job.getRenderedCount());
+		response.setSkippedCount(job.getSkippedCount());
+		response.setFailedCount(job.getFailedCount());
+		response.setTilesPerSecond(job.getTilesPerSecond());
+		response.setDone(job.isDone());
+	}
+
+	public SeedTilesResponse getEmptyCommandResponse() {
+		return new SeedTilesResponse();
+	}
+}
@@ -16,34 +16,18 @@ import org.geomajas.configuration.RasterLayerInfo;
 import org.geomajas.geometry.Coordinate;
 import org.geomajas.geometry.Crs;
 import org.geomajas.geometry.CrsTransform;
-import org.geomajas.geometry.service.BboxService;
 import org.geomajas.global.GeomajasException;
-import org.geomajas.internal.layer.tile.InternalTileImpl;
 import org.geomajas.layer.RasterLayer;
 import org.geomajas.layer.RasterLayerService;
-import org.geomajas.layer.VectorLayer;
 import org.geomajas.layer.VectorLayerService;
 import org.geomajas.layer.common.proxy.LayerHttpService;
-import org.geomajas.layer.pipeline.GetTileContainer;
 import org.geomajas.layer.tile.RasterTile;
-import org.geomajas.layer.tile.TileCode;
-import org.geomajas.layer.tile.TileMetadata;
-import org.geomajas.plugin.caching.service.CacheCategory;
-import org.geomajas.plugin.caching.service.CacheManagerService;
-import org.geomajas.plugin.caching.service.CachingSupportService;
-import org.geomajas.plugin.caching.service.CachingSupportServiceSecurityContextAdder;
+import org.geomajas.plugin.rasterizing.TmsTileRenderer;
 import org.geomajas.plugin.rasterizing.api.RasterizingContainer;
-import org.geomajas.plugin.rasterizing.api.RasterizingPipelineCode;
 import org.geomajas.plugin.rasterizing.layer.tile.TmsTileMetadata;
-import org.geomajas.plugin.rasterizing.step.RebuildCacheContainer;
 import org.geomajas.service.ConfigurationService;
 import org.geomajas.service.DtoConverterService;
 import org.geomajas.service.GeoService;
-import org.geomajas.service.StyleService;
-import org.geomajas.service.TestRecorder;
-import org.geomajas.service.pipeline.PipelineCode;
-import org.geomajas.service.pipeline.PipelineContext;
-import org.geomajas.service.pipeline.PipelineService;
 import org.geomajas.servlet.CacheFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -81,15 +65,9 @@ public class TmsController {
 
 	public static final String MAPPING = "/tms/";
 
-	@Autowired
-	private PipelineService<GetTileContainer> pipelineService;
-
 	@Autowired
 	private ConfigurationService configurationService;
 
-	@Autowired
-	private CacheManagerService cacheManagerService;
-
 	@Autowired
 	private DtoConverterService dtoConverterService;
 
@@ -97,16 +75,10 @@ public class TmsController {
 	private GeoService geoService;
 
 	@Autowired
-	private TestRecorder recorder;
-
-	@Autowired
-	private CachingSupportServiceSecurityContextAdder securityContextAdder;
-
-	@Autowired
-	private StyleService styleService;
+	private VectorLayerService layerService;
 
 	@Autowired
-	private VectorLayerService layerService;
+	private TmsTileRenderer tileRenderer;
 
 	@Autowired
 	private RasterLayerService rasterLayerService;
@@ -114,17 +86,10 @@ public class TmsController {
 	@Autowired
 	private LayerHttpService httpService;
 
-	@Autowired
-	private CachingSupportService cachingSupportService;
-
 	private boolean redirectRasterLayers = true;
 
 	private static final int ERROR_MESSAGE_X = 10;
 
-	private static final String TMS_TILE_RENDERER = "TmsTileRenderer";
-
-	private static final String[] KEYS = { PipelineCode.LAYER_ID_KEY, PipelineCode.TILE_METADATA_KEY };
-
 	public TmsController() {
 	}
 
@@ -168,39 +133,10 @@ public class TmsController {
 			@RequestParam(required = false) String filter, HttpServletResponse response)
 			throws Exception {
 		try {
-			Crs tileCrs = geoService.getCrs2(crs);
-			VectorLayer layer = configurationService.getVectorLayer(layerId);
-			TmsTileMetadata tileMetadata = new TmsTileMetadata();
-			tileMetadata.setCode(new TileCode(tileLevel, xIndex, yIndex));
-			tileMetadata.setCrs(geoService.getCodeFromCrs(tileCrs));
-			tileMetadata.setLayerId(layerId);
-			tileMetadata.setPaintGeometries(showGeometries);
-			tileMetadata.setPaintLabels(showLabels);
-			tileMetadata.setRenderer(TMS_TILE_RENDERER);
-			// TmsTileMetadata specific
-			if (resolution == null) {
-				resolution = 1 / getScale(tileWidth, tileLevel, layer.getLayerInfo().getMaxExtent().getWidth());
-			}
-			tileMetadata.setResolution(resolution);
-			if (tileOrigin == null) {
-				tileMetadata.setTileOrigin(BboxService.getOrigin(layer.getLayerInfo().getMaxExtent()));
-			} else {
-				tileMetadata.setTileOrigin(parseOrigin(tileOrigin));
-			}
-			tileMetadata.setTileWidth(tileWidth);
-			tileMetadata.setTileHeight(tileHeight);
-			tileMetadata.setStyleInfo(styleService.retrieveStyle(layerId, styleKey));
-			tileMetadata.setFilter(filter);
-
-			RebuildCacheContainer rcc = new RebuildCacheContainer();
-			rcc.setMetadata(tileMetadata);
-			PipelineContext context = pipelineService.createContext();
-			context.put(PipelineCode.TILE_METADATA_KEY, tileMetadata);
-			context.put(PipelineCode.LAYER_ID_KEY, layerId);
-			// store container to recover the key
-			cachingSupportService.putContainer(context, securityContextAdder, CacheCategory.REBUILD, KEYS,
-					RasterizingPipelineCode.IMAGE_ID_KEY, RasterizingPipelineCode.IMAGE_ID_CONTEXT, rcc, null);
-			String key = context.get(RasterizingPipelineCode.IMAGE_ID_KEY, String.class);
+			TmsTileMetadata tileMetadata = tileRenderer.createMetadata(layerId, styleKey, crs, tileLevel, xIndex,
+					yIndex, resolution, null == tileOrigin ? null : parseOrigin(tileOrigin), tileWidth, tileHeight,
+					showGeometries, showLabels, filter);
+			String key = tileRenderer.prepare(tileMetadata);
 			renderImage(layerId, key, response);
 		} catch (Throwable e) { // NOSONAR need to log all problems
 			log.error("Could not rasterize tile " + layerId + "/" + styleKey + "/" + tileLevel + "-" + xIndex + "-"
@@ -266,54 +202,11 @@ public class TmsController {
 	 * @throws Exception
 	 */
 	private void renderImage(String layerId, String key, HttpServletResponse response) throws Exception {
-
 		try {
-			VectorLayer layer = configurationService.getVectorLayer(layerId);
-			RasterizingContainer rasterizeContainer = cacheManagerService.get(layer, CacheCategory.RASTER, key,
-					RasterizingContainer.class);
-			// if not in cache, try the rebuild cache and invoke the pipeline directly
-			if (rasterizeContainer == null) {
-				log.debug("Item not in cache, rebuilding: {}", key);
-				GetTileContainer tileContainer = new GetTileContainer();
-				PipelineContext context = pipelineService.createContext();
-				context.put(RasterizingPipelineCode.IMAGE_ID_KEY, key);
-				context.put(PipelineCode.LAYER_ID_KEY, layerId);
-				context.put(PipelineCode.LAYER_KEY, layer);
-
-				// get data from rebuild cache
-				RebuildCacheContainer rebuildCacheContainer = cacheManagerService.get(layer, CacheCategory.REBUILD,
-						key, RebuildCacheContainer.class);
-				if (null == rebuildCacheContainer) {
-					log.error("Data to rebuild the raster image is no longer available for key " + key);
-					response.sendError(HttpServletResponse.SC_NO_CONTENT);
-					return;
-				}
-				recorder.record(CacheCategory.REBUILD, "Got rebuild info from cache");
-				TileMetadata tileMetadata = rebuildCacheContainer.getMetadata();
-				context.put(PipelineCode.TILE_METADATA_KEY, tileMetadata);
-				// can't stop here, we have only prepared the context, not built the tile !
-				InternalTileImpl tile = null;
-				if (tileMetadata.getRenderer().equals(TMS_TILE_RENDERER)) {
-					tile = new InternalTileImpl(tileMetadata.getCode(),
-							((TmsTileMetadata) tileMetadata).getTileOrigin(), tileMetadata.getScale(),
-							((TmsTileMetadata) tileMetadata).getTileWidth(),
-							((TmsTileMetadata) tileMetadata).getTileHeight());
-				} else {
-					tile = new InternalTileImpl(tileMetadata.getCode(), getLayerExtent(tileMetadata),
-							tileMetadata.getScale());
-				}
-				tileContainer.setTile(tile);
-				securityContextAdder.restoreSecurityContext(rebuildCacheContainer.getContext());
-				Crs crs = geoService.getCrs2(tileMetadata.getCrs());
-				context.put(PipelineCode.CRS_KEY, crs);
-				CrsTransform layerToMap = geoService.getCrsTransform(layer.getCrs(), crs);
-				context.put(PipelineCode.CRS_TRANSFORM_KEY, layerToMap);
-				pipelineService.execute(RasterizingPipelineCode.PIPELINE_GET_VECTOR_TILE_RASTERIZING, layerId, context,
-						tileContainer);
-				rasterizeContainer = context.get(RasterizingPipelineCode.CONTAINER_KEY, RasterizingContainer.class);
-			} else {
-				recorder.record(CacheCategory.RASTER, "Got item from cache");
-				log.debug("Got item from cache: {}", key);
+			RasterizingContainer rasterizeContainer = tileRenderer.getImage(layerId, key);
+			if (null == rasterizeContainer) {
+				response.sendError(HttpServletResponse.SC_NO_CONTENT);
+				return;
 			}
 			// Prepare the response:
 			CacheFilter.configureNoCaching(response);
@@ -335,16 +228,6 @@ public class TmsController {
 		return scale;
 	}
 
-	private Envelope getLayerExtent(TileMetadata tileMetadata) throws GeomajasException {
-		VectorLayer layer = configurationService.getVectorLayer(tileMetadata.getLayerId());
-		Crs layerCrs = layerService.getCrs(layer);
-		Crs tileCrs = geoService.getCrs2(tileMetadata.getCrs());
-		CrsTransform layerToMap = geoService.getCrsTransform(layerCrs, tileCrs);
-		Envelope layerExtent = dtoConverterService.toInternal(layer.getLayerInfo().getMaxExtent());
-		Envelope tileExtent = geoService.transform(layerExtent, layerToMap);
-		return tileExtent;
-	}
-
 	private Envelope getRasterLayerExtent(String layerId, String crs) throws GeomajasException {
 		RasterLayer layer = configurationService.getRasterLayer(layerId);
 		Crs layerCrs = layerService.getCrs(layer);
@@ -0,0 +1,119 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.rasterizing;
+
+import org.geomajas.global.ExceptionCode;
+import org.geomajas.global.GeomajasException;
+import org.geomajas.plugin.rasterizing.api.TileSeedingJob;
+import org.geomajas.plugin.rasterizing.api.TileSeedingService;
+import org.geomajas.plugin.rasterizing.command.dto.TileSeedingInfo;
+import org.geomajas.security.SecurityManager;
+import org.geomajas.spring.ThreadScopeContextHolder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * Test for {@link TileSeedingServiceImpl}.
+ *
+ * @author Joachim Van der Auwera
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = { "/org/geomajas/spring/geomajasContext.xml",
+		"/org/geomajas/plugin/rasterizing/rasterizing-service.xml",
+		"/org/geomajas/plugin/rasterizing/DefaultCachedAndRasterizedPipelines.xml",
+		"/org/geomajas/testdata/beanContext.xml", "/org/geomajas/testdata/layerBeans.xml" })
+public class TileSeedingServiceTest {
+
+	private static final long TIMEOUT = 60000;
+
+	@Autowired
+	private TileSeedingService tileSeedingService;
+
+	@Autowired
+	private SecurityManager securityManager;
+
+	@Before
+	public void login() {
+		// assure security context is set
+		securityManager.createSecurityContext(null);
+	}
+
+	@After
+	public void clearSecurityContext() {
+		ThreadScopeContextHolder.clear();
+	}
+
+	@Test
+	public void testSeed() throws Exception {
+		TileSeedingInfo info = new TileSeedingInfo();
+		info.setLayerId("beans");
+		info.setCrs("EPSG:4326");
+		info.setMaxLevel(1);
+		info.setTileWidth(256);
+		info.setTileHeight(256);
+
+		TileSeedingJob job = waitFor(tileSeedingService.seed(info));
+		Assert.assertEquals(5, job.getTileCount());
+		Assert.assertEquals(0, job.getFailedCount());
+		Assert.assertEquals(5, job.getRenderedCount() + job.getSkippedCount());
+		Assert.assertSame(job, tileSeedingService.getJob(job.getId()));
+
+		// all tiles are cached now
+		job = waitFor(tileSeedingService.seed(info));
+		Assert.assertEquals(5, job.getSkippedCount());
+		Assert.assertEquals(0, job.getRenderedCount());
+	}
+
+	@Test
+	public void testMaxLevel() throws Exception {
+		TileSeedingInfo info = new TileSeedingInfo();
+		info.setLayerId("beans");
+		info.setCrs("EPSG:4326");
+		info.setMaxLevel(30);
+		try {
+			tileSeedingService.seed(info);
+			Assert.fail("seeding should be refused");
+		} catch (GeomajasException ge) {
+			Assert.assertEquals(ExceptionCode.PARAMETER_INVALID_VALUE, ge.getExceptionCode());
+		}
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		TileSeedingInfo info = new TileSeedingInfo();
+		info.setLayerId("beans");
+		info.setCrs("EPSG:4326");
+		info.setMaxLevel(8);
+		info.setTileWidth(256);
+		info.setTileHeight(256);
+
+		TileSeedingJob job = tileSeedingService.seed(info);
+		job.cancel();
+		waitFor(job);
+		Assert.assertTrue(job.getRenderedCount() + job.getSkippedCount() + job.getFailedCount() < job.getTileCount());
+	}
+
+	private TileSeedingJob waitFor(TileSeedingJob job) throws InterruptedException {
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (!job.isDone() && System.currentTimeMillis() < end) {
+			Thread.sleep(50);
+		}
+		Assert.assertTrue(job.isDone());
+		return job;
+	}
+}
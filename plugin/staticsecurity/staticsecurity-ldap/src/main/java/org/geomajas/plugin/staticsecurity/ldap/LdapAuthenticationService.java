@@ -11,7 +11,10 @@
 
 package org.geomajas.plugin.staticsecurity.ldap;
 
+import java.nio.charset.Charset;
 import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -19,7 +22,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
+import javax.annotation.PreDestroy;
 import javax.validation.constraints.NotNull;
 
 import org.geomajas.annotation.Api;
@@ -41,16 +48,26 @@ import com.unboundid.ldap.sdk.BindResult;
 import com.unboundid.ldap.sdk.DN;
 import com.unboundid.ldap.sdk.Filter;
 import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
+import com.unboundid.ldap.sdk.LDAPConnectionPoolHealthCheck;
 import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
 import com.unboundid.ldap.sdk.SearchRequest;
 import com.unboundid.ldap.sdk.SearchResult;
 import com.unboundid.ldap.sdk.SearchResultEntry;
 import com.unboundid.ldap.sdk.SearchScope;
+import com.unboundid.ldap.sdk.ServerSet;
+import com.unboundid.ldap.sdk.SimpleBindRequest;
+import com.unboundid.ldap.sdk.SingleServerSet;
 import com.unboundid.util.ssl.SSLUtil;
 import com.unboundid.util.ssl.TrustAllTrustManager;
 
 /**
  * {@link AuthenticationService} for linking to an LDAP store of users.
+ * <p/>
+ * Connections to the LDAP server are pooled. User lookups are cached for a limited time (see
+ * {@link #setCacheTimeToLive(int)}) and refreshed in the background. Caching successful authentications is off by
+ * default (see {@link #setLoginCacheTimeToLive(int)}).
  *
  * @author Joachim Van der Auwera
  * @author Jan De Moerloose
@@ -83,6 +100,28 @@ public class LdapAuthenticationService implements AuthenticationService, UserDir
 	private List<AuthorizationInfo> defaultRole;
 	private Map<String, List<NamedRoleInfo>> namedRoles;
 	private Map<String, Set<String>> ldapRoleMapping;
+
+	private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+	private long maxWaitTime = DEFAULT_MAX_WAIT_TIME;
+	private long healthCheckInterval = DEFAULT_HEALTH_CHECK_INTERVAL;
+	private int cacheTimeToLive = DEFAULT_CACHE_TIME_TO_LIVE;
+	private int loginCacheTimeToLive;
+	private int cacheMaxSize = DEFAULT_CACHE_MAX_SIZE;
+
+	private LDAPConnectionPool connectionPool;
+	private LdapResultCache<CachedLogin> loginCache;
+	private LdapResultCache<List<org.geomajas.security.UserInfo>> userCache;
+	private ExecutorService refreshExecutor;
+	private final byte[] salt = new byte[SALT_LENGTH];
+
+	private static final int DEFAULT_MAX_CONNECTIONS = 10;
+	private static final long DEFAULT_MAX_WAIT_TIME = 5000;
+	private static final long DEFAULT_HEALTH_CHECK_INTERVAL = 60000;
+	private static final int DEFAULT_CACHE_TIME_TO_LIVE = 300;
+	private static final int DEFAULT_CACHE_MAX_SIZE = 10000;
+	private static final int SALT_LENGTH = 16;
+	private static final int MILLIS_PER_SECOND = 1000;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
 	
 	/**
 	 * Filter that allows all users.
@@ -136,6 +175,80 @@ public class LdapAuthenticationService implements AuthenticationService, UserDir
 		this.allowAllSocketFactory = allowAllSocketFactory;
 	}
 
+	/**
+	 * Set the maximum number of pooled connections to the LDAP server. The connections are created when the first
+	 * request is handled. Defaults to 10.
+	 *
+	 * @param maxConnections maximum number of connections
+	 * @since 1.18.0
+	 */
+	@Api
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	/**
+	 * Set the maximum time to wait for a pooled connection when they are all in use. Defaults to 5000ms.
+	 *
+	 * @param maxWaitTime maximum wait time in milliseconds
+	 * @since 1.18.0
+	 */
+	@Api
+	public void setMaxWaitTime(long maxWaitTime) {
+		this.maxWaitTime = maxWaitTime;
+	}
+
+	/**
+	 * Set the interval for checking whether the pooled connections are still usable. Defaults to 60000ms.
+	 *
+	 * @param healthCheckInterval health check interval in milliseconds
+	 * @since 1.18.0
+	 */
+	@Api
+	public void setHealthCheckInterval(long healthCheckInterval) {
+		this.healthCheckInterval = healthCheckInterval;
+	}
+
+	/**
+	 * Set the time for which user lookups are cached. User lookups which are older than half this time are refreshed
+	 * in the background. Set to 0 to disable caching. Defaults to 300s.
+	 * <p/>
+	 * Changes to the roles of a user may take up to this time before they are noticed.
+	 *
+	 * @param cacheTimeToLive time to live in seconds
+	 * @since 1.18.0
+	 */
+	@Api
+	public void setCacheTimeToLive(int cacheTimeToLive) {
+		this.cacheTimeToLive = cacheTimeToLive;
+	}
+
+	/**
+	 * Set the time for which successful authentications are cached. Defaults to 0, authentications are not cached.
+	 * <p/>
+	 * Only a salted hash of the password is kept. A cached authentication keeps being accepted when the password is
+	 * changed or the account is disabled in the LDAP store, so this time should be short (for example 30s) and much
+	 * shorter than the time to live for user lookups.
+	 *
+	 * @param loginCacheTimeToLive time to live in seconds
+	 * @since 1.18.0
+	 */
+	@Api
+	public void setLoginCacheTimeToLive(int loginCacheTimeToLive) {
+		this.loginCacheTimeToLive = loginCacheTimeToLive;
+	}
+
+	/**
+	 * Set the maximum number of cached authentications and user lookups (each). Defaults to 10000.
+	 *
+	 * @param cacheMaxSize maximum number of cached entries
+	 * @since 1.18.0
+	 */
+	@Api
+	public void setCacheMaxSize(int cacheMaxSize) {
+		this.cacheMaxSize = cacheMaxSize;
+	}
+
 	/**
 	 * Set the template to build the DN for the user. Any "{}" in the string is replaced by the user name.
 	 *
@@ -313,12 +426,28 @@ public class LdapAuthenticationService implements AuthenticationService, UserDir
 
 	@Override
 	public UserInfo isAuthenticated(String user, String password) {
+		LdapResultCache<CachedLogin> cache = null;
+		String passwordHash = null;
+		if (null != user && null != password) {
+			cache = getLoginCache();
+		}
+		if (null != cache) {
+			passwordHash = hash(user, password);
+			CachedLogin login = cache.getIfPresent(user);
+			if (null != login && login.passwordHash.equals(passwordHash)) {
+				return login.userInfo;
+			}
+		}
 		String userDn = userDnTemplate.replace("{}", user);
 		SearchRequest request = createSearchRequest(userDn);
 		SearchResult result;
 		result = execute(request, userDn, password);
 		if (result != null && !result.getSearchEntries().isEmpty()) {
-			return getUserInfo(result.getSearchEntries().get(0));
+			UserInfo userInfo = getUserInfo(result.getSearchEntries().get(0));
+			if (null != cache && null != passwordHash) {
+				cache.put(user, new CachedLogin(passwordHash, userInfo));
+			}
+			return userInfo;
 		} else {
 			return null;
 		}
@@ -339,11 +468,16 @@ public class LdapAuthenticationService implements AuthenticationService, UserDir
 				Filter f = request.getFilter();
 				request.setFilter(Filter.createANDFilter(f, ldapFilter));
 			}
-			SearchResult result = execute(request, null, null);
-			if (result != null) {
-				for (SearchResultEntry entry : result.getSearchEntries()) {
-					users.add(getUserInfo(entry));
-				}
+			UserSearch search = new UserSearch(request);
+			LdapResultCache<List<org.geomajas.security.UserInfo>> cache = getUserCache();
+			List<org.geomajas.security.UserInfo> found;
+			if (null != cache) {
+				found = cache.get(request.getFilter().toString(), search);
+			} else {
+				found = search.load();
+			}
+			if (null != found) {
+				users.addAll(found);
 			}
 		}
 		return users;
@@ -364,37 +498,142 @@ public class LdapAuthenticationService implements AuthenticationService, UserDir
 	}
 	
 	protected SearchResult execute(SearchRequest request, String bindDN, String password) {
-		LDAPConnection connection = null;
-		try {
+		// a pooled connection may have been closed by the server, in that case retry once with a new connection
+		for (int attempt = 0; attempt < 2; attempt++) {
+			LDAPConnectionPool pool = null;
+			LDAPConnection connection = null;
+			boolean usable = true;
+			try {
+				pool = getConnectionPool();
+				connection = pool.getConnection();
+				if (bindDN != null) {
+					BindResult auth = connection.bind(bindDN, password);
+					if (!auth.getResultCode().isConnectionUsable()) {
+						log.error("Connection not usable, result code : " + auth.getResultCode());
+					}
+				}
+				return connection.search(request);
+			} catch (LDAPException le) {
+				usable = le.getResultCode().isConnectionUsable();
+				if (!usable && attempt == 0 && null != connection) {
+					log.debug("LDAP connection no longer usable, retrying", le);
+					continue;
+				}
+				String message = le.getMessage();
+				if (!message.startsWith("Unable to bind as user ")) {
+					log.error(le.getMessage(), le);
+				}
+			} catch (GeneralSecurityException gse) {
+				log.error(gse.getMessage(), gse);
+			} finally {
+				if (null != connection) {
+					release(pool, connection, bindDN != null && usable, usable);
+				}
+			}
+			return null;
+		}
+		return null;
+	}
+
+	/**
+	 * Close the pooled connections and stop the background refreshes.
+	 *
+	 * @since 1.18.0
+	 */
+	@Api
+	@PreDestroy
+	public synchronized void close() {
+		if (null != connectionPool) {
+			connectionPool.close();
+			connectionPool = null;
+		}
+		if (null != refreshExecutor) {
+			refreshExecutor.shutdownNow();
+			refreshExecutor = null;
+		}
+		loginCache = null;
+		userCache = null;
+	}
+
+	private synchronized LDAPConnectionPool getConnectionPool() throws LDAPException, GeneralSecurityException {
+		if (null == connectionPool) {
+			ServerSet serverSet;
 			if (allowAllSocketFactory) {
 				SSLUtil sslUtil = new SSLUtil(new TrustAllTrustManager());
-				connection = new LDAPConnection(sslUtil.createSSLSocketFactory(), serverHost, serverPort);
+				serverSet = new SingleServerSet(serverHost, serverPort, sslUtil.createSSLSocketFactory());
 			} else {
-				connection = new LDAPConnection(serverHost, serverPort);
+				serverSet = new SingleServerSet(serverHost, serverPort);
 			}
-			if (bindDN != null) {
-				BindResult auth = connection.bind(bindDN, password);
-				if (!auth.getResultCode().isConnectionUsable()) {
-					log.error("Connection not usable, result code : " + auth.getResultCode());
-				}
+			LDAPConnectionPool pool = new LDAPConnectionPool(serverSet, null, maxConnections, maxConnections);
+			pool.setConnectionPoolName("LdapAuthenticationService " + serverHost + ":" + serverPort);
+			pool.setCreateIfNecessary(false);
+			pool.setMaxWaitTimeMillis(maxWaitTime);
+			pool.setHealthCheck(new ConnectionHealthCheck());
+			pool.setHealthCheckIntervalMillis(healthCheckInterval);
+			connectionPool = pool;
+		}
+		return connectionPool;
+	}
+
+	private void release(LDAPConnectionPool pool, LDAPConnection connection, boolean revertBind, boolean usable) {
+		boolean valid = usable;
+		if (revertBind) {
+			// pooled connections are anonymous
+			try {
+				connection.bind(new SimpleBindRequest());
+			} catch (LDAPException le) {
+				valid = false;
 			}
-			return connection.search(request);
-		} catch (LDAPException le) {
-			String message = le.getMessage();
-			if (!message.startsWith("Unable to bind as user ")) {
-				log.error(le.getMessage(), le);
+		}
+		if (valid) {
+			pool.releaseConnection(connection);
+		} else {
+			pool.releaseDefunctConnection(connection);
+		}
+	}
+
+	private synchronized LdapResultCache<CachedLogin> getLoginCache() {
+		if (null == loginCache && loginCacheTimeToLive > 0) {
+			new SecureRandom().nextBytes(salt);
+			loginCache = new LdapResultCache<CachedLogin>((long) loginCacheTimeToLive * MILLIS_PER_SECOND,
+					cacheMaxSize, null);
+		}
+		return loginCache;
+	}
+
+	private synchronized LdapResultCache<List<org.geomajas.security.UserInfo>> getUserCache() {
+		if (null == userCache && cacheTimeToLive > 0) {
+			refreshExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "LdapAuthenticationService refresh");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			userCache = new LdapResultCache<List<org.geomajas.security.UserInfo>>(
+					(long) cacheTimeToLive * MILLIS_PER_SECOND, cacheMaxSize, refreshExecutor);
+		}
+		return userCache;
+	}
+
+	private String hash(String user, String password) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(salt);
+			digest.update(user.getBytes(UTF8));
+			digest.update((byte) 0);
+			digest.update(password.getBytes(UTF8));
+			StringBuilder hex = new StringBuilder();
+			for (byte b : digest.digest()) {
+				hex.append(Integer.toHexString((b & 0xff) | 0x100).substring(1));
 			}
+			return hex.toString();
 		} catch (GeneralSecurityException gse) {
-			log.error(gse.getMessage(), gse);
-		} finally {
-			if (null != connection) {
-				connection.close();
-			}
+			throw new IllegalStateException("SHA-256 not available", gse);
 		}
-		return null;
 	}
 
-
 	private SearchRequest createSearchRequest(String searchDN) {
 		List<String> attributes = new ArrayList<String>();
 		attributes.add("cn");
@@ -455,6 +694,71 @@ public class LdapAuthenticationService implements AuthenticationService, UserDir
 		}
 	}
 	
+	/**
+	 * Search for users, the result is shared and can be cached.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private class UserSearch implements LdapResultCache.Loader<List<org.geomajas.security.UserInfo>> {
+
+		private final SearchRequest request;
+
+		private UserSearch(SearchRequest request) {
+			this.request = request;
+		}
+
+		@Override
+		public List<org.geomajas.security.UserInfo> load() {
+			SearchResult result = execute(request, null, null);
+			if (null == result) {
+				return null;
+			}
+			List<org.geomajas.security.UserInfo> users = new ArrayList<org.geomajas.security.UserInfo>();
+			for (SearchResultEntry entry : result.getSearchEntries()) {
+				users.add(getUserInfo(entry));
+			}
+			return Collections.unmodifiableList(users);
+		}
+	}
+
+	/**
+	 * Successful authentication, only a hash of the password is kept.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class CachedLogin {
+
+		private final String passwordHash;
+
+		private final UserInfo userInfo;
+
+		private CachedLogin(String passwordHash, UserInfo userInfo) {
+			this.passwordHash = passwordHash;
+			this.userInfo = userInfo;
+		}
+	}
+
+	/**
+	 * Health check for the pooled connections. Closed connections are replaced on checkout, the background check
+	 * reads the root DSE to assure the server can still be reached.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class ConnectionHealthCheck extends LDAPConnectionPoolHealthCheck {
+
+		@Override
+		public void ensureConnectionValidForCheckout(LDAPConnection connection) throws LDAPException {
+			if (!connection.isConnected()) {
+				throw new LDAPException(ResultCode.SERVER_DOWN, "Pooled LDAP connection is closed.");
+			}
+		}
+
+		@Override
+		public void ensureConnectionValidForContinuedUse(LDAPConnection connection) throws LDAPException {
+			connection.getRootDSE();
+		}
+	}
+
 	/**
 	 * {@link UserFilterVisitor} that creates an LDAP filter.
 	 * 
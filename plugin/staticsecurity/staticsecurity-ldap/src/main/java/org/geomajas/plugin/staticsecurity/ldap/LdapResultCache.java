@@ -0,0 +1,195 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.staticsecurity.ldap;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache for LDAP lookup results with a time to live.
+ * <p/>
+ * When a value is requested after half of its time to live, the cached value is returned and the value is reloaded
+ * in the background, so frequently used values are normally never loaded while a user waits. Null values are not
+ * cached. The number of entries is bounded, expired entries are removed when the cache is full, if that does not
+ * help the cache is cleared.
+ *
+ * @param <V> value type
+ * @author Joachim Van der Auwera
+ */
+final class LdapResultCache<V> {
+
+	private final Logger log = LoggerFactory.getLogger(LdapResultCache.class);
+
+	private final ConcurrentMap<String, Entry<V>> entries = new ConcurrentHashMap<String, Entry<V>>();
+
+	private final ConcurrentMap<String, Boolean> refreshing = new ConcurrentHashMap<String, Boolean>();
+
+	private final long timeToLive;
+
+	private final int maxSize;
+
+	private final Executor executor;
+
+	/**
+	 * Create a cache.
+	 *
+	 * @param timeToLive time to live in milliseconds
+	 * @param maxSize maximum number of entries
+	 * @param executor executor for the background refreshes
+	 */
+	LdapResultCache(long timeToLive, int maxSize, Executor executor) {
+		this.timeToLive = timeToLive;
+		this.maxSize = maxSize;
+		this.executor = executor;
+	}
+
+	/**
+	 * Get a value which has not expired, without loading or refreshing it.
+	 *
+	 * @param key key
+	 * @return cached value or null
+	 */
+	V getIfPresent(String key) {
+		Entry<V> entry = entries.get(key);
+		if (null == entry || entry.isExpired(System.currentTimeMillis())) {
+			return null;
+		}
+		return entry.value;
+	}
+
+	/**
+	 * Get a value, loading it when it is not cached or expired. Values which are older than half their time to live
+	 * are returned as is and refreshed in the background.
+	 *
+	 * @param key key
+	 * @param loader loader for the value
+	 * @return value, null when it could not be loaded
+	 */
+	V get(final String key, final Loader<V> loader) {
+		long now = System.currentTimeMillis();
+		Entry<V> entry = entries.get(key);
+		if (null == entry || entry.isExpired(now)) {
+			return load(key, loader);
+		}
+		if (entry.isStale(now) && null == refreshing.putIfAbsent(key, Boolean.TRUE)) {
+			executor.execute(new Runnable() {
+
+				public void run() {
+					try {
+						load(key, loader);
+					} catch (RuntimeException re) {
+						log.warn("Could not refresh " + key, re);
+					} finally {
+						refreshing.remove(key);
+					}
+				}
+			});
+		}
+		return entry.value;
+	}
+
+	/**
+	 * Store a value.
+	 *
+	 * @param key key
+	 * @param value value, null to remove the entry
+	 */
+	void put(String key, V value) {
+		if (null == value) {
+			entries.remove(key);
+			return;
+		}
+		if (entries.size() >= maxSize) {
+			cleanUp();
+			if (entries.size() >= maxSize) {
+				entries.clear();
+			}
+		}
+		entries.put(key, new Entry<V>(value, System.currentTimeMillis() + timeToLive, timeToLive / 2));
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Remove the expired entries.
+	 */
+	void cleanUp() {
+		long now = System.currentTimeMillis();
+		Iterator<Entry<V>> it = entries.values().iterator();
+		while (it.hasNext()) {
+			if (it.next().isExpired(now)) {
+				it.remove();
+			}
+		}
+	}
+
+	private V load(String key, Loader<V> loader) {
+		V value = loader.load();
+		put(key, value);
+		return value;
+	}
+
+	/**
+	 * Loads a value for the cache.
+	 *
+	 * @param <V> value type
+	 * @author Joachim Van der Auwera
+	 */
+	interface Loader<V> {
+
+		/**
+		 * Load the value.
+		 *
+		 * @return value, null when it is not available
+		 */
+		V load();
+	}
+
+	/**
+	 * Cached value with its expiry.
+	 *
+	 * @param <V> value type
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class Entry<V> {
+
+		private final V value;
+
+		private final long expires;
+
+		private final long refreshAt;
+
+		private Entry(V value, long expires, long halfLife) {
+			this.value = value;
+			this.expires = expires;
+			this.refreshAt = expires - halfLife;
+		}
+
+		private boolean isExpired(long now) {
+			return now >= expires;
+		}
+
+		private boolean isStale(long now) {
+			return now >= refreshAt;
+		}
+	}
+}
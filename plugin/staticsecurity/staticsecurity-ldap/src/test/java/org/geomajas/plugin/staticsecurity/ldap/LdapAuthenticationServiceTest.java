@@ -25,6 +25,7 @@ import org.geomajas.plugin.staticsecurity.configuration.NamedRoleInfo;
 import org.geomajas.plugin.staticsecurity.security.dto.AllUserFilter;
 import org.geomajas.plugin.staticsecurity.security.dto.RoleUserFilter;
 import org.geomajas.security.UserInfo;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -68,6 +69,11 @@ public class LdapAuthenticationServiceTest extends LdapServerProvider {
 		service.setRoles(roles);
 	}
 
+	@After
+	public void close() {
+		service.close();
+	}
+
 	@Test
 	public void testLdapAuthenticationService() throws Exception {
 		String password = "bladibla";
@@ -103,4 +109,45 @@ public class LdapAuthenticationServiceTest extends LdapServerProvider {
 		
 	}
 
+	@Test
+	public void testCache() throws Exception {
+		service.setCacheTimeToLive(300);
+		service.setLoginCacheTimeToLive(30);
+		assertThat(service.isAuthenticated("test", "cred")).isNotNull();
+		assertThat(service.getUsers(new AllUserFilter())).hasSize(2);
+
+		server.shutDown(true);
+		try {
+			// served from the cache, only for the correct password
+			assertThat(service.isAuthenticated("test", "cred").getUserName()).isEqualTo("Joe Tester");
+			assertThat(service.isAuthenticated("test", "wrong")).isNull();
+			assertThat(service.getUsers(new AllUserFilter())).hasSize(2);
+			assertThat(service.getUsers(new RoleUserFilter("testgroup"))).isEmpty();
+		} finally {
+			server.startListening();
+		}
+	}
+
+	@Test
+	public void testNoCache() throws Exception {
+		service.setLoginCacheTimeToLive(0);
+		assertThat(service.isAuthenticated("test", "cred")).isNotNull();
+		server.shutDown(true);
+		try {
+			assertThat(service.isAuthenticated("test", "cred")).isNull();
+		} finally {
+			server.startListening();
+		}
+	}
+
+	@Test
+	public void testServerRestart() throws Exception {
+		service.setLoginCacheTimeToLive(0);
+		assertThat(service.isAuthenticated("test", "cred")).isNotNull();
+		// pooled connections are closed, they should be replaced
+		server.shutDown(true);
+		server.startListening();
+		assertThat(service.isAuthenticated("test", "cred")).isNotNull();
+	}
+
 }
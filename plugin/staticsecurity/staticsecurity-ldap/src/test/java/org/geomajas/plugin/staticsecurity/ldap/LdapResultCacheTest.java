@@ -0,0 +1,113 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+package org.geomajas.plugin.staticsecurity.ldap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link LdapResultCache}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class LdapResultCacheTest {
+
+	private final List<Runnable> refreshes = new ArrayList<Runnable>();
+
+	private final Executor executor = new Executor() {
+
+		public void execute(Runnable command) {
+			refreshes.add(command);
+		}
+	};
+
+	@Test
+	public void testLoad() throws Exception {
+		LdapResultCache<String> cache = new LdapResultCache<String>(60000, 10, executor);
+		CountingLoader loader = new CountingLoader("a");
+		Assert.assertNull(cache.getIfPresent("key"));
+		Assert.assertEquals("a1", cache.get("key", loader));
+		Assert.assertEquals("a1", cache.get("key", loader));
+		Assert.assertEquals("a1", cache.getIfPresent("key"));
+		Assert.assertEquals(1, loader.count);
+		Assert.assertTrue(refreshes.isEmpty());
+
+		// null values are not cached
+		CountingLoader nullLoader = new CountingLoader(null);
+		Assert.assertNull(cache.get("null", nullLoader));
+		Assert.assertNull(cache.get("null", nullLoader));
+		Assert.assertEquals(2, nullLoader.count);
+	}
+
+	@Test
+	public void testExpiry() throws Exception {
+		LdapResultCache<String> cache = new LdapResultCache<String>(-1, 10, executor);
+		CountingLoader loader = new CountingLoader("a");
+		Assert.assertEquals("a1", cache.get("key", loader));
+		Assert.assertNull(cache.getIfPresent("key"));
+		Assert.assertEquals("a2", cache.get("key", loader));
+		Assert.assertTrue(refreshes.isEmpty());
+	}
+
+	@Test
+	public void testRefresh() throws Exception {
+		LdapResultCache<String> cache = new LdapResultCache<String>(400, 10, executor);
+		CountingLoader loader = new CountingLoader("a");
+		cache.put("key", "old");
+		Assert.assertEquals("old", cache.get("key", loader));
+		Assert.assertTrue(refreshes.isEmpty());
+		Thread.sleep(250); // stale, but not expired
+		Assert.assertEquals("old", cache.get("key", loader));
+		Assert.assertEquals("old", cache.get("key", loader));
+		Assert.assertEquals(1, refreshes.size()); // only one refresh is scheduled
+		refreshes.get(0).run();
+		Assert.assertEquals("a1", cache.getIfPresent("key"));
+		Assert.assertEquals(1, loader.count);
+	}
+
+	@Test
+	public void testMaxSize() throws Exception {
+		LdapResultCache<String> cache = new LdapResultCache<String>(60000, 2, executor);
+		cache.put("a", "a");
+		cache.put("b", "b");
+		cache.put("c", "c");
+		Assert.assertNull(cache.getIfPresent("a"));
+		Assert.assertEquals("c", cache.getIfPresent("c"));
+		cache.put("c", null);
+		Assert.assertNull(cache.getIfPresent("c"));
+	}
+
+	/**
+	 * Loader which counts the number of loads.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class CountingLoader implements LdapResultCache.Loader<String> {
+
+		private final String prefix;
+
+		private int count;
+
+		private CountingLoader(String prefix) {
+			this.prefix = prefix;
+		}
+
+		public String load() {
+			count++;
+			return null == prefix ? null : prefix + count;
+		}
+	}
+}
@@ -13,7 +13,9 @@ package org.geomajas.plugin.staticsecurity.configuration;
 
 import org.geomajas.annotation.Api;
 import org.geomajas.plugin.staticsecurity.security.AuthenticationService;
+import org.geomajas.plugin.staticsecurity.security.InMemoryTokenStore;
 import org.geomajas.plugin.staticsecurity.security.StaticAuthenticationService;
+import org.geomajas.plugin.staticsecurity.security.TokenStore;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.annotation.PostConstruct;
@@ -33,6 +35,7 @@ public class SecurityServiceInfo {
 	private List<UserInfo> users;
 	private List<AuthenticationService> authenticationServices;
 	private boolean excludeDefault;
+	private TokenStore tokenStore;
 
 	@Autowired
 	private StaticAuthenticationService staticAuthenticationService;
@@ -113,6 +116,28 @@ public class SecurityServiceInfo {
 		this.excludeDefault = excludeDefault;
 	}
 
+	/**
+	 * Get the store for the authentication tokens.
+	 *
+	 * @return token store
+	 * @since 1.18.0
+	 */
+	public TokenStore getTokenStore() {
+		return tokenStore;
+	}
+
+	/**
+	 * Set the store for the authentication tokens. Defaults to an {@link InMemoryTokenStore}, use a
+	 * {@link org.geomajas.plugin.staticsecurity.security.FileTokenStore} to keep the tokens when the application is
+	 * restarted.
+	 *
+	 * @param tokenStore token store
+	 * @since 1.18.0
+	 */
+	public void setTokenStore(TokenStore tokenStore) {
+		this.tokenStore = tokenStore;
+	}
+
 	/**
 	 * Finish initialization of the configuration.
 	 */
@@ -124,5 +149,8 @@ public class SecurityServiceInfo {
 		if (!excludeDefault) {
 			authenticationServices.add(staticAuthenticationService);
 		}
+		if (null == tokenStore) {
+			tokenStore = new InMemoryTokenStore();
+		}
 	}
 }
@@ -13,17 +13,15 @@ package org.geomajas.plugin.staticsecurity.security;
 
 import org.geomajas.plugin.staticsecurity.configuration.SecurityServiceInfo;
 import org.geomajas.security.Authentication;
+import org.geomajas.security.AuthenticationCache;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Date;
 
 /**
- * Create and manage/cache authentication tokens.
+ * Create and manage/cache authentication tokens. The tokens are kept in the {@link TokenStore} which is configured in
+ * {@link SecurityServiceInfo}.
  *
  * @author Joachim Van der Auwera
  */
@@ -38,7 +36,8 @@ public class AuthenticationTokenService {
 	@Autowired
 	private SecurityServiceInfo securityServiceInfo;
 
-	private final Map<String, TokenContainer> tokens = new ConcurrentHashMap<String, TokenContainer>();
+	@Autowired
+	private AuthenticationCache authenticationCache;
 
 	/**
 	 * Get the authentication for a specific token.
@@ -48,14 +47,7 @@ public class AuthenticationTokenService {
 	 */
 	public Authentication getAuthentication(String token) {
 		if (null != token) {
-			TokenContainer container = tokens.get(token);
-			if (null != container) {
-				if (container.isValid()) {
-					return container.getAuthentication();
-				} else {
-					logout(token);
-				}
-			}
+			return securityServiceInfo.getTokenStore().get(token);
 		}
 		return null;
 	}
@@ -66,7 +58,8 @@ public class AuthenticationTokenService {
 	 * @param token token to remove
 	 */
 	public void logout(String token) {
-		tokens.remove(token);
+		securityServiceInfo.getTokenStore().remove(token);
+		authenticationCache.putAuthentication(token, null);
 	}
 
 	/**
@@ -91,7 +84,16 @@ public class AuthenticationTokenService {
 		if (null == token) {
 			return login(authentication);
 		}
-		tokens.put(token, new TokenContainer(authentication));
+		long validUntil = System.currentTimeMillis() + MS_IN_S * securityServiceInfo.getTokenLifetime();
+		if (null != authentication) {
+			// allow the security manager to cache the authentication until the token expires
+			authentication.setValidUntil(new Date(validUntil));
+			authentication.setInvalidAfter(new Date(validUntil));
+		}
+		for (String removed : securityServiceInfo.getTokenStore().put(token, authentication, validUntil)) {
+			authenticationCache.putAuthentication(removed, null); // evicted to make room
+		}
+		authenticationCache.putAuthentication(token, null); // the token may have been used before
 		return token;
 	}
 
@@ -102,55 +104,12 @@ public class AuthenticationTokenService {
 	/**
 	 * Invalidate tokens which have passed their lifetime. Note that tokens are also checked when the authentication is
 	 * fetched in {@link #getAuthentication(String)}.
+	 * <p/>
+	 * This is scheduled to run every minute (see geomajasContextStaticSecurity.xml).
 	 */
-	@Scheduled(fixedRate = 60000) // run every minute
 	public void invalidateOldTokens() {
-		List<String> invalidTokens = new ArrayList<String>(); // tokens to invalidate
-		for (Map.Entry<String, TokenContainer> entry : tokens.entrySet()) {
-			if (!entry.getValue().isValid()) {
-				invalidTokens.add(entry.getKey());
-			}
-		}
-		for (String token : invalidTokens) {
-			logout(token);
-		}
-	}
-
-	/**
-	 * Container for the data related with a token. Specifically the associated authentication and validity timestamp.
-	 *
-	 * @author Joachim Van der Auwera
-	 */
-	private final class TokenContainer {
-		private final long validUntil;
-		private final Authentication authentication;
-
-		/**
-		 * Create a token container.
-		 *
-		 * @param authentication authentication object
-		 */
-		public TokenContainer(Authentication authentication) {
-			validUntil = System.currentTimeMillis() + MS_IN_S * securityServiceInfo.getTokenLifetime();
-			this.authentication = authentication;
-		}
-
-		/**
-		 * Determine whether this authentication is still valid.
-		 *
-		 * @return true when token is still valid
-		 */
-		public boolean isValid() {
-			return System.currentTimeMillis() <= validUntil;
-		}
-
-		/**
-		 * Get the {@link Authentication} object.
-		 *
-		 * @return authentication
-		 */
-		public Authentication getAuthentication() {
-			return authentication;
+		for (String token : securityServiceInfo.getTokenStore().removeExpired()) {
+			authenticationCache.putAuthentication(token, null);
 		}
 	}
 
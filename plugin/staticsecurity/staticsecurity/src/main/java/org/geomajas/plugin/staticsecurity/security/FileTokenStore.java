@@ -0,0 +1,300 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.plugin.staticsecurity.security;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.security.Authentication;
+import org.jboss.serial.io.JBossObjectInputStream;
+import org.jboss.serial.io.JBossObjectOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link TokenStore} which keeps the tokens in memory and also writes them to a file on local disk, so the tokens
+ * survive a restart of the application.
+ * <p/>
+ * Changes are appended to the file as they happen. The file is rewritten with only the valid tokens when the store is
+ * loaded and when it contains more than twice as many records as there are tokens, so it does not keep growing.
+ * Tokens which have expired while the application was stopped are dropped when the store is loaded.
+ * <p/>
+ * The authentications are serialized including their authorizations. Authorizations which need access to the
+ * application context should implement {@link org.geomajas.security.AuthorizationNeedsWiring}. As the file allows
+ * using the tokens, it is made readable and writable by the owner only (as far as the file system allows).
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api
+public class FileTokenStore extends InMemoryTokenStore {
+
+	private static final int PUT = 1;
+
+	private static final int REMOVE = 2;
+
+	private static final int COMPACT_MIN_RECORDS = 1000;
+
+	private static final int SERIALIZED_BUFFER_SIZE = 1024;
+
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private final Logger log = LoggerFactory.getLogger(FileTokenStore.class);
+
+	private String file;
+
+	private DataOutputStream journal;
+
+	private int records;
+
+	/**
+	 * Set the file in which the tokens are stored. This is required.
+	 *
+	 * @param file file name
+	 * @since 1.18.0
+	 */
+	@Api
+	public void setFile(String file) {
+		this.file = file;
+	}
+
+	/**
+	 * Get the file in which the tokens are stored.
+	 *
+	 * @return file name
+	 * @since 1.18.0
+	 */
+	@Api
+	public String getFile() {
+		return file;
+	}
+
+	@Override
+	public synchronized List<String> put(String token, Authentication authentication, long validUntil) {
+		List<String> removed = super.put(token, authentication, validUntil);
+		byte[] data = serialize(authentication);
+		if (null != data) {
+			append(PUT, token, validUntil, data);
+		}
+		return removed;
+	}
+
+	@Override
+	public synchronized void remove(String token) {
+		super.remove(token);
+		append(REMOVE, token, 0, null);
+	}
+
+	@Override
+	public synchronized List<String> removeExpired() {
+		List<String> expired = super.removeExpired();
+		if (records > COMPACT_MIN_RECORDS && records > 2 * size()) {
+			try {
+				compact();
+			} catch (IOException ioe) {
+				log.warn("Could not compact token store " + file + ".", ioe);
+			}
+		}
+		return expired;
+	}
+
+	/**
+	 * Load the tokens from the file and compact it.
+	 *
+	 * @throws IOException file cannot be written
+	 */
+	@PostConstruct
+	protected synchronized void load() throws IOException {
+		if (null == file) {
+			throw new IllegalStateException("The file for the token store needs to be set.");
+		}
+		File source = new File(file);
+		if (source.exists()) {
+			read(source);
+		}
+		compact();
+		log.info("Token store {} loaded, {} valid tokens.", file, size());
+	}
+
+	/**
+	 * Close the file. Tokens which are stored afterwards are only kept in memory.
+	 */
+	@PreDestroy
+	protected synchronized void close() {
+		if (null != journal) {
+			try {
+				journal.close();
+			} catch (IOException ioe) {
+				log.warn("Could not close token store " + file + ".", ioe);
+			}
+			journal = null;
+		}
+	}
+
+	private void read(File source) {
+		long now = System.currentTimeMillis();
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(source)));
+			while (true) {
+				int type;
+				try {
+					type = in.readByte();
+				} catch (EOFException eof) {
+					break; // all records read
+				}
+				String token = in.readUTF();
+				if (PUT == type) {
+					long validUntil = in.readLong();
+					byte[] data = new byte[in.readInt()];
+					in.readFully(data);
+					if (validUntil >= now) {
+						Authentication authentication = deserialize(data);
+						if (null != authentication) {
+							restore(token, new StoredToken(authentication, validUntil));
+						}
+					}
+				} else if (REMOVE == type) {
+					discard(token);
+				} else {
+					throw new IOException("Unknown record type " + type);
+				}
+			}
+		} catch (IOException ioe) {
+			// typically the last record was not completely written
+			log.warn("Could not read all tokens from " + source + ", ignoring the remainder.", ioe);
+		} finally {
+			if (null != in) {
+				try {
+					in.close();
+				} catch (IOException ioe) {
+					log.debug("Could not close " + source + ".", ioe);
+				}
+			}
+		}
+	}
+
+	private void compact() throws IOException {
+		File target = new File(file);
+		File temp = new File(file + TEMP_SUFFIX);
+		File parent = target.getAbsoluteFile().getParentFile();
+		if (!parent.isDirectory() && !parent.mkdirs()) {
+			throw new IOException("Could not create directory " + parent);
+		}
+		long now = System.currentTimeMillis();
+		int count = 0;
+		// restrict access before any token is written
+		if (!temp.exists() && !temp.createNewFile()) {
+			throw new IOException("Could not create " + temp);
+		}
+		restrictToOwner(temp);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+		try {
+			for (Map.Entry<String, StoredToken> entry : getTokens().entrySet()) {
+				StoredToken stored = entry.getValue();
+				if (!stored.isExpired(now)) {
+					byte[] data = serialize(stored.getAuthentication());
+					if (null != data) {
+						write(out, PUT, entry.getKey(), stored.getValidUntil(), data);
+						count++;
+					}
+				}
+			}
+		} finally {
+			out.close();
+		}
+		close();
+		if (!temp.renameTo(target) && !(target.delete() && temp.renameTo(target))) {
+			throw new IOException("Could not replace " + target + " by " + temp);
+		}
+		restrictToOwner(target);
+		journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(target, true)));
+		records = count;
+	}
+
+	private void restrictToOwner(File target) {
+		// first remove the permission for everybody, then grant it again for the owner only
+		boolean readable = target.setReadable(false, false) && target.setReadable(true, true);
+		boolean writable = target.setWritable(false, false) && target.setWritable(true, true);
+		if (!readable || !writable) {
+			log.warn("Could not restrict access to {} to the owner, make sure the file is not readable by others.",
+					target);
+		}
+	}
+
+	private void append(int type, String token, long validUntil, byte[] data) {
+		if (null == journal) {
+			log.warn("Token store {} is closed, token is not persisted.", file);
+			return;
+		}
+		try {
+			write(journal, type, token, validUntil, data);
+			journal.flush();
+			records++;
+		} catch (IOException ioe) {
+			log.warn("Could not write token to " + file + ", it is only kept in memory.", ioe);
+		}
+	}
+
+	private void write(DataOutputStream out, int type, String token, long validUntil, byte[] data)
+			throws IOException {
+		out.writeByte(type);
+		out.writeUTF(token);
+		if (PUT == type) {
+			out.writeLong(validUntil);
+			out.writeInt(data.length);
+			out.write(data);
+		}
+	}
+
+	private byte[] serialize(Authentication authentication) {
+		try {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(SERIALIZED_BUFFER_SIZE);
+			JBossObjectOutputStream serialize = new JBossObjectOutputStream(baos);
+			serialize.writeObject(authentication);
+			serialize.close();
+			return baos.toByteArray();
+		} catch (IOException ioe) {
+			log.warn("Could not serialize authentication for user " + authentication.getUserId()
+					+ ", the token is only kept in memory.", ioe);
+			return null;
+		}
+	}
+
+	private Authentication deserialize(byte[] data) {
+		try {
+			JBossObjectInputStream deserialize = new JBossObjectInputStream(new ByteArrayInputStream(data));
+			return (Authentication) deserialize.readObject();
+		} catch (ClassNotFoundException cnfe) {
+			log.warn("Could not deserialize an authentication, ignoring token.", cnfe);
+		} catch (IOException ioe) {
+			log.warn("Could not deserialize an authentication, ignoring token.", ioe);
+		}
+		return null;
+	}
+}
@@ -0,0 +1,273 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.plugin.staticsecurity.security;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.security.Authentication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link TokenStore} which keeps the tokens in memory. This is the default store.
+ * <p/>
+ * The number of tokens is bounded. When the store is full, the expired tokens are removed first. If that is not
+ * sufficient, the tokens which expire first are evicted (which logs out the user). The tokens are also kept ordered
+ * by expiry time, so neither removing the expired tokens nor evicting requires a scan of all tokens.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api
+public class InMemoryTokenStore implements TokenStore {
+
+	private static final int DEFAULT_MAX_SIZE = 100000;
+
+	private final Logger log = LoggerFactory.getLogger(InMemoryTokenStore.class);
+
+	private final ConcurrentMap<String, StoredToken> tokens = new ConcurrentHashMap<String, StoredToken>();
+
+	/** Tokens ordered by expiry time, only accessed while holding the lock on this store. */
+	private final SortedSet<Expiry> expiries = new TreeSet<Expiry>();
+
+	private int maxSize = DEFAULT_MAX_SIZE;
+
+	/**
+	 * Set the maximum number of tokens which are stored. Defaults to 100000.
+	 *
+	 * @param maxSize maximum number of tokens
+	 * @since 1.18.0
+	 */
+	@Api
+	public void setMaxSize(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("The maximum number of tokens should be positive.");
+		}
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Get the maximum number of tokens which are stored.
+	 *
+	 * @return maximum number of tokens
+	 * @since 1.18.0
+	 */
+	@Api
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	@Override
+	public Authentication get(String token) {
+		StoredToken stored = tokens.get(token);
+		if (null == stored) {
+			return null;
+		}
+		if (stored.isExpired(System.currentTimeMillis())) {
+			discard(token, stored);
+			return null;
+		}
+		return stored.getAuthentication();
+	}
+
+	@Override
+	public synchronized List<String> put(String token, Authentication authentication, long validUntil) {
+		List<String> removed = Collections.emptyList();
+		if (tokens.size() >= maxSize && !tokens.containsKey(token)) {
+			removed = makeRoom();
+		}
+		store(token, new StoredToken(authentication, validUntil));
+		return removed;
+	}
+
+	@Override
+	public synchronized void remove(String token) {
+		discard(token);
+	}
+
+	@Override
+	public synchronized List<String> removeExpired() {
+		long now = System.currentTimeMillis();
+		List<String> expired = new ArrayList<String>();
+		while (!expiries.isEmpty() && now > expiries.first().getValidUntil()) {
+			Expiry first = expiries.first();
+			expiries.remove(first);
+			String token = first.getToken();
+			tokens.remove(token);
+			expired.add(token);
+		}
+		return expired;
+	}
+
+	@Override
+	public int size() {
+		return tokens.size();
+	}
+
+	/**
+	 * Get the stored tokens.
+	 *
+	 * @return unmodifiable view on the stored tokens
+	 */
+	Map<String, StoredToken> getTokens() {
+		return Collections.unmodifiableMap(tokens);
+	}
+
+	/**
+	 * Store a token without checking the size bound, used when the store is (re)loaded.
+	 *
+	 * @param token token
+	 * @param stored authentication and expiry time
+	 */
+	synchronized void restore(String token, StoredToken stored) {
+		store(token, stored);
+	}
+
+	/**
+	 * Remove a token without any further side effects, used when the store is (re)loaded.
+	 *
+	 * @param token token
+	 */
+	synchronized void discard(String token) {
+		StoredToken stored = tokens.remove(token);
+		if (null != stored) {
+			expiries.remove(new Expiry(stored.getValidUntil(), token));
+		}
+	}
+
+	private synchronized void discard(String token, StoredToken stored) {
+		if (tokens.remove(token, stored)) {
+			expiries.remove(new Expiry(stored.getValidUntil(), token));
+		}
+	}
+
+	private void store(String token, StoredToken stored) {
+		StoredToken previous = tokens.put(token, stored);
+		if (null != previous) {
+			expiries.remove(new Expiry(previous.getValidUntil(), token));
+		}
+		expiries.add(new Expiry(stored.getValidUntil(), token));
+	}
+
+	private List<String> makeRoom() {
+		List<String> removed = new ArrayList<String>(removeExpired());
+		while (tokens.size() >= maxSize && !expiries.isEmpty()) {
+			String first = expiries.first().getToken();
+			log.warn("Token store is full ({} tokens), evicting a token which is still valid.", maxSize);
+			remove(first);
+			removed.add(first);
+		}
+		return removed;
+	}
+
+	/**
+	 * Entry in the expiry index, ordered by expiry time and token.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	private static final class Expiry implements Comparable<Expiry> {
+
+		private final long validUntil;
+
+		private final String token;
+
+		Expiry(long validUntil, String token) {
+			this.validUntil = validUntil;
+			this.token = token;
+		}
+
+		public long getValidUntil() {
+			return validUntil;
+		}
+
+		public String getToken() {
+			return token;
+		}
+
+		public int compareTo(Expiry other) {
+			if (validUntil != other.validUntil) {
+				return validUntil < other.validUntil ? -1 : 1;
+			}
+			return token.compareTo(other.token);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Expiry && compareTo((Expiry) other) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (int) (validUntil ^ (validUntil >>> 32)) + token.hashCode();
+		}
+	}
+
+	/**
+	 * Authentication for a token with its expiry time.
+	 *
+	 * @author Joachim Van der Auwera
+	 */
+	static final class StoredToken {
+
+		private final Authentication authentication;
+
+		private final long validUntil;
+
+		/**
+		 * Create a stored token.
+		 *
+		 * @param authentication authentication
+		 * @param validUntil time (in milliseconds since the epoch) until which the token is valid
+		 */
+		StoredToken(Authentication authentication, long validUntil) {
+			this.authentication = authentication;
+			this.validUntil = validUntil;
+		}
+
+		/**
+		 * Get the authentication.
+		 *
+		 * @return authentication
+		 */
+		Authentication getAuthentication() {
+			return authentication;
+		}
+
+		/**
+		 * Get the time until which the token is valid.
+		 *
+		 * @return time in milliseconds since the epoch
+		 */
+		long getValidUntil() {
+			return validUntil;
+		}
+
+		/**
+		 * Check whether the token has expired.
+		 *
+		 * @param now current time in milliseconds since the epoch
+		 * @return true when the token has expired
+		 */
+		boolean isExpired(long now) {
+			return now > validUntil;
+		}
+	}
+}
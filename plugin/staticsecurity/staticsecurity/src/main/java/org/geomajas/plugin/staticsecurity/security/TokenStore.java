@@ -0,0 +1,75 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.plugin.staticsecurity.security;
+
+import java.util.List;
+
+import org.geomajas.annotation.Api;
+import org.geomajas.annotation.UserImplemented;
+import org.geomajas.security.Authentication;
+
+/**
+ * Storage for the authentication tokens which are handed out by {@link AuthenticationTokenService}.
+ * <p/>
+ * Implementations should be thread safe. Expired tokens are never returned. They are removed either when they are
+ * accessed or when {@link #removeExpired()} is called, which happens every minute.
+ *
+ * @author Joachim Van der Auwera
+ * @since 1.18.0
+ */
+@Api(allMethods = true)
+@UserImplemented
+public interface TokenStore {
+
+	/**
+	 * Get the authentication for a token.
+	 *
+	 * @param token token
+	 * @return authentication, null when the token is not known or has expired
+	 */
+	Authentication get(String token);
+
+	/**
+	 * Store the authentication for a token, replacing any previous authentication for the token.
+	 * <p/>
+	 * When the store is bounded, other tokens may be removed to make room. These tokens are returned so they can also
+	 * be invalidated in the authentication cache.
+	 *
+	 * @param token token
+	 * @param authentication authentication
+	 * @param validUntil time (in milliseconds since the epoch) until which the token is valid
+	 * @return tokens which were removed to make room, empty list when none
+	 */
+	List<String> put(String token, Authentication authentication, long validUntil);
+
+	/**
+	 * Remove a token.
+	 *
+	 * @param token token
+	 */
+	void remove(String token);
+
+	/**
+	 * Remove all tokens which have expired.
+	 *
+	 * @return tokens which were removed
+	 */
+	List<String> removeExpired();
+
+	/**
+	 * Get the number of stored tokens, including tokens which have expired but were not removed yet.
+	 *
+	 * @return number of tokens
+	 */
+	int size();
+}
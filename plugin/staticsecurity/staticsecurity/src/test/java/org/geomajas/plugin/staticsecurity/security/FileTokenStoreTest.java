@@ -0,0 +1,115 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.plugin.staticsecurity.security;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.geomajas.security.Authentication;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link FileTokenStore}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class FileTokenStoreTest {
+
+	private static final long HOUR = 60 * 60 * 1000;
+
+	private File file;
+
+	private FileTokenStore store;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("tokens", ".dat");
+		Assert.assertTrue(file.delete());
+		store = open();
+	}
+
+	@After
+	public void tearDown() {
+		store.close();
+		file.delete();
+	}
+
+	@Test
+	public void testReload() throws IOException {
+		long now = System.currentTimeMillis();
+		store.put("t1", authentication("luc"), now + HOUR);
+		store.put("t2", authentication("marino"), now + HOUR);
+		store.put("t3", authentication("jan"), now + HOUR);
+		store.remove("t2");
+		store.close();
+
+		store = open();
+		Assert.assertEquals(2, store.size());
+		Authentication authentication = store.get("t1");
+		Assert.assertNotNull(authentication);
+		Assert.assertEquals("luc", authentication.getUserId());
+		Assert.assertEquals("Name of luc", authentication.getUserName());
+		Assert.assertNull(store.get("t2"));
+		Assert.assertEquals("jan", store.get("t3").getUserId());
+	}
+
+	@Test
+	public void testExpiredDroppedOnLoad() throws IOException {
+		long now = System.currentTimeMillis();
+		store.put("expired", authentication("luc"), now - 1);
+		store.put("valid", authentication("marino"), now + HOUR);
+		store.close();
+		long length = file.length();
+
+		store = open();
+		Assert.assertEquals(1, store.size());
+		Assert.assertNotNull(store.get("valid"));
+		Assert.assertTrue(file.length() < length); // file was compacted
+	}
+
+	@Test
+	public void testIncompleteRecord() throws IOException {
+		store.put("t1", authentication("luc"), System.currentTimeMillis() + HOUR);
+		store.close();
+		long length = file.length();
+		store = open();
+		store.put("t2", authentication("marino"), System.currentTimeMillis() + HOUR);
+		store.close();
+		// simulate a crash while the last record was being written
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(length + 10);
+		raf.close();
+
+		store = open();
+		Assert.assertEquals(1, store.size());
+		Assert.assertNotNull(store.get("t1"));
+	}
+
+	private FileTokenStore open() throws IOException {
+		FileTokenStore fileTokenStore = new FileTokenStore();
+		fileTokenStore.setFile(file.getAbsolutePath());
+		fileTokenStore.load();
+		return fileTokenStore;
+	}
+
+	private Authentication authentication(String userId) {
+		Authentication authentication = new Authentication();
+		authentication.setUserId(userId);
+		authentication.setUserName("Name of " + userId);
+		return authentication;
+	}
+}
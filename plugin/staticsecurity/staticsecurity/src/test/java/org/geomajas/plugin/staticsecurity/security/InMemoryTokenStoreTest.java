@@ -0,0 +1,104 @@
+/*
+ * This is part of Geomajas, a GIS framework, http://www.geomajas.org/.
+ *
+ * Copyright 2008-2014 Geosparc nv, http://www.geosparc.com/, Belgium.
+ *
+ * The program is available in open source according to the GNU Affero
+ * General Public License. All contributions in this program are covered
+ * by the Geomajas Contributors License Agreement. For full licensing
+ * details, see LICENSE.txt in the project root.
+ */
+
+
+package org.geomajas.plugin.staticsecurity.security;
+
+import java.util.Arrays;
+
+import org.geomajas.security.Authentication;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link InMemoryTokenStore}.
+ *
+ * @author Joachim Van der Auwera
+ */
+public class InMemoryTokenStoreTest {
+
+	private static final long HOUR = 60 * 60 * 1000;
+
+	@Test
+	public void testPutGetRemove() {
+		InMemoryTokenStore store = new InMemoryTokenStore();
+		Authentication authentication = authentication("luc");
+		store.put("t1", authentication, System.currentTimeMillis() + HOUR);
+		Assert.assertSame(authentication, store.get("t1"));
+		Assert.assertNull(store.get("t2"));
+		store.remove("t1");
+		Assert.assertNull(store.get("t1"));
+		Assert.assertEquals(0, store.size());
+	}
+
+	@Test
+	public void testExpired() {
+		InMemoryTokenStore store = new InMemoryTokenStore();
+		long now = System.currentTimeMillis();
+		store.put("expired", authentication("luc"), now - 1);
+		store.put("other", authentication("marino"), now - 1);
+		store.put("valid", authentication("jan"), now + HOUR);
+		Assert.assertNull(store.get("expired"));
+		Assert.assertEquals(2, store.size()); // expired token removed when accessed
+		Assert.assertEquals(1, store.removeExpired().size());
+		Assert.assertEquals(1, store.size());
+		Assert.assertNotNull(store.get("valid"));
+	}
+
+	@Test
+	public void testMaxSize() {
+		InMemoryTokenStore store = new InMemoryTokenStore();
+		store.setMaxSize(3);
+		long now = System.currentTimeMillis();
+		store.put("expired", authentication("luc"), now - 1);
+		store.put("soon", authentication("marino"), now + HOUR);
+		store.put("later", authentication("jan"), now + 2 * HOUR);
+		// expired token is removed
+		Assert.assertEquals(Arrays.asList("expired"), store.put("new", authentication("pieter"), now + 3 * HOUR));
+		Assert.assertEquals(3, store.size());
+		Assert.assertNotNull(store.get("soon"));
+		// token which expires first is evicted
+		Assert.assertEquals(Arrays.asList("soon"), store.put("newer", authentication("kristof"), now + 3 * HOUR));
+		Assert.assertEquals(3, store.size());
+		Assert.assertNull(store.get("soon"));
+		Assert.assertNotNull(store.get("later"));
+		Assert.assertNotNull(store.get("new"));
+		Assert.assertNotNull(store.get("newer"));
+		// replacing does not evict
+		Assert.assertTrue(store.put("later", authentication("jan"), now + 4 * HOUR).isEmpty());
+		Assert.assertEquals(3, store.size());
+		Assert.assertNotNull(store.get("new"));
+	}
+
+	@Test
+	public void testReplaceUpdatesExpiry() {
+		InMemoryTokenStore store = new InMemoryTokenStore();
+		store.setMaxSize(2);
+		long now = System.currentTimeMillis();
+		store.put("first", authentication("luc"), now - 1);
+		store.put("second", authentication("jan"), now + HOUR);
+		// extending the expiry time moves the token to the back
+		store.put("first", authentication("luc"), now + 2 * HOUR);
+		Assert.assertTrue(store.removeExpired().isEmpty());
+		Assert.assertEquals(Arrays.asList("second"), store.put("third", authentication("pieter"), now + HOUR));
+		Assert.assertNotNull(store.get("first"));
+		store.remove("first");
+		store.remove("third");
+		Assert.assertEquals(0, store.size());
+		Assert.assertTrue(store.removeExpired().isEmpty());
+	}
+
+	private Authentication authentication(String userId) {
+		Authentication authentication = new Authentication();
+		authentication.setUserId(userId);
+		return authentication;
+	}
+}
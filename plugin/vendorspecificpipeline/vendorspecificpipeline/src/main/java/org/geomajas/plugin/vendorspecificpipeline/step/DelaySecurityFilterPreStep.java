@@ -11,6 +11,8 @@
 package org.geomajas.plugin.vendorspecificpipeline.step;
 
 import org.geomajas.global.GeomajasException;
+import org.geomajas.layer.feature.InternalFeature;
+import org.geomajas.layer.pipeline.FeatureSink;
 import org.geomajas.layer.pipeline.GetFeaturesContainer;
 import org.geomajas.service.TestRecorder;
 import org.geomajas.service.pipeline.PipelineCode;
@@ -21,7 +23,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * Saves the combined layer filter in the context and replaces it by the non-security filter (tile bounds) before the
- * layer is queried. The security component (visible area) is also saved.
+ * layer is queried. The security component (visible area) is also saved. When the features are streamed to a feature
+ * sink, the security filter is applied to the streamed features. The offset and maximum result size are then also
+ * applied by the sink, so only the features which pass the security filter are counted.
  * 
  * @author Jan De Moerloose
  * 
@@ -46,7 +50,32 @@ public class DelaySecurityFilterPreStep implements DelaySecurityFilterStep {
 			if (and.getChildren().size() == 2) {
 				recorder.record("layer", "removed security filter before layer");
 				context.put(PipelineCode.FILTER_KEY, and.getChildren().get(0));
-				context.put(SECURITY_FILTER_KEY, and.getChildren().get(1));
+				final Filter securityFilter = and.getChildren().get(1);
+				context.put(SECURITY_FILTER_KEY, securityFilter);
+				final FeatureSink sink = response.getFeatureSink();
+				if (null != sink) {
+					// streamed features never reach the post step, filter them before passing them on
+					// paging is done here as only the accepted features may be counted
+					final int offset = context.getOptional(PipelineCode.OFFSET, 0);
+					final int maxResultSize = context.getOptional(PipelineCode.MAX_RESULT_SIZE, 0);
+					context.putInt(PipelineCode.OFFSET, 0);
+					context.putInt(PipelineCode.MAX_RESULT_SIZE, 0);
+					response.setFeatureSink(new FeatureSink() {
+
+						private int accepted;
+
+						public boolean add(InternalFeature feature) throws GeomajasException {
+							if (!securityFilter.evaluate(feature)) {
+								return true;
+							}
+							accepted++;
+							if (accepted <= offset) {
+								return true;
+							}
+							return sink.add(feature) && (maxResultSize <= 0 || accepted - offset < maxResultSize);
+						}
+					});
+				}
 			}
 		}
 	}